@@ -0,0 +1,88 @@
+package es.uma.lcc.caesium.problem.aircontrol.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uma.lcc.caesium.problem.aircontrol.LandingDecoder;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+
+/**
+ * Benchmarks of the evaluation of schedules and of the decoders
+ * @author ccottap
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DecoderBenchmark {
+	/**
+	 * the decoder
+	 */
+	private LandingDecoder ld;
+
+	/**
+	 * Creates the decoder
+	 * @param s the benchmark state
+	 */
+	@Setup(Level.Trial)
+	public void setup(ScheduleState s) {
+		ld = new LandingDecoder(s.acp);
+	}
+
+	/**
+	 * Waiting times of a feasible schedule (a copy is evaluated, since it is sorted in place)
+	 * @param s the benchmark state
+	 * @return the waiting times
+	 */
+	@Benchmark
+	public Map<String, Long> waitingTime(ScheduleState s) {
+		return s.acp.waitingTime(new ArrayList<LandingInformation>(s.schedule));
+	}
+
+	/**
+	 * Decoding of a flight order and runway assignment
+	 * @param s the benchmark state
+	 * @return the schedule
+	 */
+	@Benchmark
+	public List<LandingInformation> decodeOrderAndRunways(ScheduleState s) {
+		return ld.decode(s.order, s.runwayList);
+	}
+
+	/**
+	 * Greedy decoding of a flight order
+	 * @param s the benchmark state
+	 * @return the schedule
+	 */
+	@Benchmark
+	public List<LandingInformation> decodeOrder(ScheduleState s) {
+		return ld.decode(s.order);
+	}
+
+	/**
+	 * Decoding of a runway assignment
+	 * @param s the benchmark state
+	 * @return the schedule
+	 */
+	@Benchmark
+	public List<LandingInformation> decodeRunways(ScheduleState s) {
+		return ld.decode(s.runwayMap);
+	}
+}
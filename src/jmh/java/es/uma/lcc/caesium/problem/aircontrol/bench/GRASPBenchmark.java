@@ -0,0 +1,78 @@
+package es.uma.lcc.caesium.problem.aircontrol.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.grasp.AirControlGRASPObjectiveFunction;
+
+/**
+ * Benchmark of the GRASP construction phase. It has its own (smaller) instance
+ * sizes, since a construction is quadratic in the number of flights.
+ * @author ccottap
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GRASPBenchmark {
+	/**
+	 * number of flights
+	 */
+	@Param({"25", "125", "1000"})
+	public int flights;
+	/**
+	 * number of runways
+	 */
+	@Param({"2", "20"})
+	public int runways;
+	/**
+	 * GRASP objective function
+	 */
+	private AirControlGRASPObjectiveFunction gof;
+	/**
+	 * ranks of the decisions (in 0..runways-1, as in reactive GRASP)
+	 */
+	private List<Integer> ranks;
+
+	/**
+	 * Creates the instance and the ranks
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom rng = new SplittableRandom(ScheduleState.SEED);
+		AirControlProblem acp = new AirControlProblem(flights, runways, rng);
+		gof = new AirControlGRASPObjectiveFunction(acp);
+		ranks = new ArrayList<Integer>(flights);
+		for (int i=0; i<flights; i++)
+			ranks.add(rng.nextInt(runways));
+	}
+
+	/**
+	 * Construction of a solution given the ranks of the decisions
+	 * @return the schedule
+	 */
+	@Benchmark
+	public List<LandingInformation> decode() {
+		return gof.decode(ranks);
+	}
+}
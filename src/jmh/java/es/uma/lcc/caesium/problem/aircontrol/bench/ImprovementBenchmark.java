@@ -0,0 +1,87 @@
+package es.uma.lcc.caesium.problem.aircontrol.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uma.lcc.caesium.problem.aircontrol.LandingImprovement;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.LandingRepair;
+
+/**
+ * Benchmarks of local search and repair
+ * @author ccottap
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ImprovementBenchmark {
+	/**
+	 * number of neighbors explored by local search
+	 */
+	@Param({"1000"})
+	public int neighbors;
+	/**
+	 * local search
+	 */
+	private LandingImprovement ls;
+	/**
+	 * repair
+	 */
+	private LandingRepair lr;
+
+	/**
+	 * Creates the operators
+	 * @param s the benchmark state
+	 */
+	@Setup(Level.Trial)
+	public void setup(ScheduleState s) {
+		ls = new LandingImprovement(neighbors);
+		ls.setData(s.acp);
+		ls.setRandomGenerator(new SplittableRandom(ScheduleState.SEED));
+		lr = new LandingRepair();
+		lr.setData(s.acp);
+	}
+
+	/**
+	 * Local search from a greedy schedule (a copy, since it is modified)
+	 * @param s the benchmark state
+	 * @return the improved schedule
+	 */
+	@Benchmark
+	public List<LandingInformation> localSearch(ScheduleState s) {
+		List<LandingInformation> result = new ArrayList<LandingInformation>(s.flights);
+		ls.localSearch(new ArrayList<LandingInformation>(s.schedule), result);
+		return result;
+	}
+
+	/**
+	 * Repair of an infeasible schedule (a copy, since it is sorted in place)
+	 * @param s the benchmark state
+	 * @return the repaired schedule
+	 */
+	@Benchmark
+	public List<LandingInformation> repair(ScheduleState s) {
+		List<LandingInformation> result = new ArrayList<LandingInformation>(s.flights);
+		lr.repair(new ArrayList<LandingInformation>(s.perturbed), result);
+		return result;
+	}
+}
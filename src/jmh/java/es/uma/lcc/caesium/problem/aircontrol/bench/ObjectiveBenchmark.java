@@ -0,0 +1,106 @@
+package es.uma.lcc.caesium.problem.aircontrol.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uma.lcc.caesium.ea.base.Genotype;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlFlightDecoderObjectiveFunction;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlPenaltyObjectiveFunction;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlRunwayDecoderObjectiveFunction;
+
+/**
+ * Benchmarks of the EA objective functions (the computation done by {@code _evaluate})
+ * @author ccottap
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ObjectiveBenchmark {
+	/**
+	 * flight-permutation objective function
+	 */
+	private AirControlFlightDecoderObjectiveFunction flightObj;
+	/**
+	 * runway-assignment objective function
+	 */
+	private AirControlRunwayDecoderObjectiveFunction runwayObj;
+	/**
+	 * direct-encoding objective function
+	 */
+	private AirControlPenaltyObjectiveFunction penaltyObj;
+	/**
+	 * a random flight permutation
+	 */
+	private Genotype permutation;
+	/**
+	 * a random runway assignment
+	 */
+	private Genotype assignment;
+	/**
+	 * a feasible schedule, directly encoded
+	 */
+	private Genotype direct;
+
+	/**
+	 * Creates the objective functions and genotypes
+	 * @param s the benchmark state
+	 */
+	@Setup(Level.Trial)
+	public void setup(ScheduleState s) {
+		flightObj = new AirControlFlightDecoderObjectiveFunction(s.acp);
+		runwayObj = new AirControlRunwayDecoderObjectiveFunction(s.acp);
+		penaltyObj = new AirControlPenaltyObjectiveFunction(s.acp);
+		
+		var perm = RandomStreams.randomPermutation(s.rng, s.flights);
+		permutation = new Genotype(s.flights);
+		assignment = new Genotype(s.flights);
+		for (int k=0; k<s.flights; k++) {
+			permutation.setGene(k, perm.get(k));
+			assignment.setGene(k, s.runwayMap.get(s.acp.getFlightID(k)));
+		}
+		direct = penaltyObj.encode(s.schedule);
+	}
+
+	/**
+	 * Flight-permutation objective function
+	 * @return the cost
+	 */
+	@Benchmark
+	public double flightDecoder() {
+		return flightObj.cost(permutation);
+	}
+
+	/**
+	 * Runway-assignment objective function
+	 * @return the cost
+	 */
+	@Benchmark
+	public double runwayDecoder() {
+		return runwayObj.cost(assignment);
+	}
+
+	/**
+	 * Direct-encoding (penalty) objective function
+	 * @return the cost
+	 */
+	@Benchmark
+	public double penalty() {
+		return penaltyObj.cost(direct);
+	}
+}
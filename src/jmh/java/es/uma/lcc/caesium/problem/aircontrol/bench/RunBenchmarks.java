@@ -0,0 +1,34 @@
+package es.uma.lcc.caesium.problem.aircontrol.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, reporting throughput and allocation rate (GC profiler).
+ * Usual JMH command-line options can be given (e.g., a regular expression to select
+ * benchmarks, or {@code -p flights=1000} to fix a parameter).
+ * @author ccottap
+ * @version 1.0
+ */
+public class RunBenchmarks {
+
+	/**
+	 * Main method
+	 * @param args JMH command-line options
+	 * @throws RunnerException if the benchmarks cannot be run
+	 * @throws CommandLineOptionException if the command-line options are not valid
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		Options opt = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(opt).run();
+	}
+
+}
@@ -0,0 +1,92 @@
+package es.uma.lcc.caesium.problem.aircontrol.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.LandingDecoder;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+
+/**
+ * Benchmark state: a generated problem instance and some solutions for it
+ * @author ccottap
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class ScheduleState {
+	/**
+	 * seed for instance generation
+	 */
+	public static final long SEED = 1;
+	/**
+	 * number of flights
+	 */
+	@Param({"25", "1000", "50000"})
+	public int flights;
+	/**
+	 * number of runways
+	 */
+	@Param({"2", "20"})
+	public int runways;
+	/**
+	 * the problem instance
+	 */
+	public AirControlProblem acp;
+	/**
+	 * flights sorted by earliest arrival time
+	 */
+	public List<String> order;
+	/**
+	 * a random runway for each flight in {@code order}
+	 */
+	public List<Integer> runwayList;
+	/**
+	 * a random runway for each flight
+	 */
+	public Map<String, Integer> runwayMap;
+	/**
+	 * a feasible schedule (greedy decoding of {@code order})
+	 */
+	public List<LandingInformation> schedule;
+	/**
+	 * an infeasible schedule (a flight of {@code schedule} moved to another runway)
+	 */
+	public List<LandingInformation> perturbed;
+	/**
+	 * random generator to create solutions
+	 */
+	public SplittableRandom rng;
+
+	/**
+	 * Creates the instance and solutions
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		rng = new SplittableRandom(SEED);
+		acp = new AirControlProblem(flights, runways, rng);
+		order = new ArrayList<String>(acp.getFlightIDs());
+		order.sort((a,b) -> Long.compare(acp.getEarliestArrivalTime(a), acp.getEarliestArrivalTime(b)));
+		runwayList = new ArrayList<Integer>(flights);
+		runwayMap = new HashMap<String, Integer>(flights);
+		for (String id: order) {
+			int r = rng.nextInt(runways);
+			runwayList.add(r);
+			runwayMap.put(id, r);
+		}
+		schedule = new LandingDecoder(acp).decode(order);
+		
+		perturbed = new ArrayList<LandingInformation>(schedule);
+		LandingInformation li = perturbed.remove(rng.nextInt(flights));
+		int r = (li.runway() + 1) % runways;
+		perturbed.add(0, new LandingInformation(li.flightID(), acp.getFlight(li.flightID()).getArrivalTime(r), r));
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * JMH benchmarks of the scheduling hot paths. Built with the {@code jmh} Maven profile.
+ * @author ccottap
+ * @version 1.0
+ */
+package es.uma.lcc.caesium.problem.aircontrol.bench;
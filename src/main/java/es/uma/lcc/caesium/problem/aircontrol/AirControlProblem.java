@@ -1,9 +1,18 @@
 package es.uma.lcc.caesium.problem.aircontrol;
 
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -13,26 +22,25 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
  * Models the problem of assigning runways and landing slots to airplanes
  * @author ccottap
- * @version 1.2
+ * @version 1.6
  */
 public class AirControlProblem {
 	/**
-	 * class-wide RNG
+	 * magic number at the beginning of instances in binary format
 	 */
-	private static Random rng = new Random(1);
-	
+	public static final int BINARY_MAGIC = 0x41435042; // "ACPB"
 	/**
-	 * Sets the seed for the RNG
-	 * @param seed the seed for the RNG
+	 * extension of instances in binary format
 	 */
-	public static void setSeed (long seed) {
-		rng.setSeed(seed);
-	}
+	public static final String BINARY_EXTENSION = ".acpb";
 	
 	/**
 	 * the flights
@@ -66,27 +74,105 @@ public class AirControlProblem {
 	 * to get the number of a flight IDs
 	 */
 	private Map<String, Integer> flightIndex; 
+	/**
+	 * flight indices sorted by arrival time on each runway (null until needed)
+	 */
+	private int[][] arrivalOrder;
+	/**
+	 * position of each flight in {@code arrivalOrder} of each runway
+	 */
+	private int[][] arrivalRank;
+	/**
+	 * number of changes of the arrival times since the instance was created
+	 */
+	private long version;
+	/**
+	 * closure intervals of each runway (start -> end, disjoint and not adjacent)
+	 */
+	private List<TreeMap<Long, Long>> closures;
+
+	/**
+	 * Sets the seed of the generator used to create randomized instances in the current thread.
+	 * Instances are no longer generated by a static generator shared by all threads, but by the
+	 * generator bound to the current thread (see {@link RandomStreams}), so the instances created
+	 * for a given seed differ from those of earlier versions.
+	 * @param seed the seed
+	 * @deprecated bind a generator with {@link RandomStreams#bind(long, int...)} or use
+	 * {@link #AirControlProblem(int, int, RandomGenerator)}
+	 */
+	@Deprecated
+	public static void setSeed (long seed) {
+		RandomStreams.bind(seed);
+	}
 
 
 	/**
-	 * Basic constructor. Creates a randomized instance
+	 * Basic constructor. Creates a randomized instance using the 
+	 * generator bound to the current thread
 	 * @param numFlights number of flights
 	 * @param numRunways number of runways
 	 */
 	public AirControlProblem(int numFlights, int numRunways) {
+		this(numFlights, numRunways, RandomStreams.current());
+	}
+	
+	/**
+	 * Creates a randomized instance
+	 * @param numFlights number of flights
+	 * @param numRunways number of runways
+	 * @param rng the random generator
+	 */
+	public AirControlProblem(int numFlights, int numRunways, RandomGenerator rng) {
 		create(numFlights, numRunways);
-		randomize();
-		earliest = earliestArrivalTimes(flights);
+		randomize(rng);
 	}
 	
 	/**
-	 * Constructs an instance from data in a file
+	 * Constructs an instance from data in a file. Files with extension {@code .acpb}
+	 * are read in binary format, and any other file in text format.
 	 * @param filename the name of the file
 	 * @throws FileNotFoundException if the file cannot be opened
 	 */
 	public AirControlProblem (String filename) throws FileNotFoundException {
-		readFromfile(filename);
-		earliest = earliestArrivalTimes(flights);
+		if (filename.endsWith(BINARY_EXTENSION))
+			readFromBinaryFile(filename);
+		else
+			readFromfile(filename);
+	}
+	
+	/**
+	 * Constructs an instance from given data
+	 * @param flights the flights (their IDs must be unique)
+	 * @param numRunways number of runways
+	 * @param separation separation between plane types (indexed by their ordinal, leading type first)
+	 */
+	public AirControlProblem(List<Flight> flights, int numRunways, long[][] separation) {
+		this(flights, numRunways, separation, null);
+	}
+	
+	/**
+	 * Constructs an instance from given data, in which the reference time to measure the
+	 * waiting time of each flight is given (e.g., when arrival times are restricted by
+	 * landings that are not part of the instance)
+	 * @param flights the flights (their IDs must be unique)
+	 * @param numRunways number of runways
+	 * @param separation separation between plane types (indexed by their ordinal, leading type first)
+	 * @param earliest the earliest arrival time of each flight (if null, computed from the arrival times;
+	 * the earliest time of a flight is recomputed from its arrival times if these change)
+	 */
+	public AirControlProblem(List<Flight> flights, int numRunways, long[][] separation, Map<String, Long> earliest) {
+		create(flights.size(), numRunways);
+		for (Flight f: flights)
+			this.flights.put(f.getFlightID(), f);
+		AirplaneType[] types = AirplaneType.values();
+		for (AirplaneType t1: types) {
+			for (AirplaneType t2: types) {
+				this.separation.get(t1).put(t2, separation[t1.ordinal()][t2.ordinal()]);
+			}
+		}
+		generateIndices();
+		if (earliest != null)
+			this.earliest = new HashMap<String, Long>(earliest);
 	}
 	
 	/**
@@ -97,17 +183,26 @@ public class AirControlProblem {
 	private Map<String, Long> earliestArrivalTimes(Map<String, Flight> f) {
 		Map<String, Long> eat = new HashMap<String, Long>(f.size());
 		for (var e: f.entrySet()) {
-			long best = e.getValue().getArrivalTime(0);
-			for (int i=1; i<numRunways; i++) {
-				long t = e.getValue().getArrivalTime(i);
-				if (t < best)
-					best = t;
-			}
-			eat.put(e.getKey(), best);
+			eat.put(e.getKey(), earliestArrivalTime(e.getValue()));
 		}
 		return eat;
 	}
 
+	/**
+	 * Returns the earliest arrival time of a flight on the runways on which it can land
+	 * @param f the flight
+	 * @return the earliest arrival time of the flight
+	 */
+	private long earliestArrivalTime(Flight f) {
+		int[] eligible = f.getEligibleRunways();
+		if (eligible.length == 0)
+			throw new IllegalArgumentException("Flight " + f.getFlightID() + " cannot land on any runway");
+		long best = Long.MAX_VALUE;
+		for (int j: eligible)
+			best = Math.min(best, f.getArrivalTime(j));
+		return best;
+	}
+
 	/**
 	 * Creates the internal data structures
 	 * @param numFlights number of flights
@@ -121,11 +216,17 @@ public class AirControlProblem {
 		for (AirplaneType t: AirplaneType.values()) {
 			separation.put(t, new HashMap<AirplaneType, Long>(numTypes));
 		}
+		closures = new ArrayList<TreeMap<Long, Long>>(numRunways);
+		for (int j=0; j<numRunways; j++) {
+			closures.add(new TreeMap<Long, Long>());
+		}
 	}
 	
 	/**
 	 * Generate indices for referring to flights by an index 0..numFlights-1
-	 * or for recovering the flight ID given such an index.
+	 * or for recovering the flight ID given such an index, and the data derived 
+	 * from arrival times. From now on, the instance is notified of changes in 
+	 * the arrival times of its flights.
 	 */
 	private void generateIndices() {
 		flightID = new String[numFlights];
@@ -134,13 +235,19 @@ public class AirControlProblem {
 		for (String id: getFlightIDs()) {
 			flightIndex.put(id, i);
 			flightID[i++] = id;
+			flights.get(id).setOwner(this);
 		}
+		earliest = earliestArrivalTimes(flights);
+		arrivalOrder = null;
+		arrivalRank = null;
+		version++;
 	}
 	
 	/**
 	 * Randomizes the data
+	 * @param rng the random generator
 	 */
-	private void randomize() {
+	private void randomize(RandomGenerator rng) {
 		AirplaneType[] types = AirplaneType.values();
 		long currentTime = 1;
 		for (int i=0; i<numFlights; i++) {
@@ -160,18 +267,23 @@ public class AirControlProblem {
 	}
 	
 	/**
-	 * Saves the data to a file
+	 * Saves the data to a file. Files with extension {@code .acpb}
+	 * are written in binary format, and any other file in text format.
 	 * @param filename name of the file
 	 * @throws FileNotFoundException if the file cannot be created
 	 */
 	public void saveToFile (String filename) throws FileNotFoundException {
+		if (filename.endsWith(BINARY_EXTENSION)) {
+			saveToBinaryFile(filename);
+			return;
+		}
 		PrintWriter file = new PrintWriter(filename);
 		file.println(numFlights + "\t" + numRunways);
 		for (var e: flights.entrySet()) {
 			Flight f = e.getValue();
 			file.print(f.getFlightID() + "\t" + f.getType());
 			for (int j=0; j<numRunways; j++)
-				file.print("\t" + f.getArrivalTime(j));
+				file.print("\t" + (f.isEligible(j) ? Long.toString(f.getArrivalTime(j)) : "-"));
 			file.println();
 		}
 		for (AirplaneType t1: AirplaneType.values()) {
@@ -180,11 +292,18 @@ public class AirControlProblem {
 			}
 			file.println();
 		}
+		for (int j=0; j<numRunways; j++) {
+			for (var c: closures.get(j).entrySet())
+				file.println(j + "\t" + c.getKey() + "\t" + c.getValue());
+		}
 		file.close();
 	}
 
 	/**
-	 * Reads an instance from a file
+	 * Reads an instance from a file in text format: number of flights and runways, then a line for each
+	 * flight with its ID, its type and its arrival time on each runway ({@code -} if it cannot land on it),
+	 * the separation matrix by rows, and finally a line for each closure of a runway (the runway and the
+	 * interval {@code [from, to)} during which it is closed)
 	 * @param filename the name of the file
 	 * @throws FileNotFoundException if the file cannot be opened
 	 */
@@ -195,8 +314,11 @@ public class AirControlProblem {
 		create(numFlights, numRunways);
 		for (int i=0; i<numFlights; i++) {
 			Flight f = new Flight(reader.next(), AirplaneType.valueOf(reader.next()));
-			for (int j=0; j<numRunways; j++)
-				f.setArrivalTime(j, reader.nextLong());
+			for (int j=0; j<numRunways; j++) {
+				String t = reader.next();
+				if (!t.equals("-"))
+					f.setArrivalTime(j, Long.parseLong(t));
+			}
 			flights.put(f.getFlightID(), f);
 		}
 		for (AirplaneType t1: AirplaneType.values()) {
@@ -204,11 +326,105 @@ public class AirControlProblem {
 				separation.get(t1).put(t2, reader.nextLong());
 			}
 		}
+		while (reader.hasNextInt()) {
+			int r = reader.nextInt();
+			addClosure(r, reader.nextLong(), reader.nextLong());
+		}
 		reader.close();
 		generateIndices();
 	}
 	
 
+	/**
+	 * Reads an instance from a file in binary format: magic number (int), number of flights (int), 
+	 * number of runways (int), then for each flight its ID (UTF), its type (ordinal, byte) and its
+	 * arrival time on each runway (long, negative if it cannot land on it), the separation matrix (long)
+	 * by rows, and finally (optionally) the number of closures (int) followed by the runway (int) and
+	 * the interval (long, long) of each closure.
+	 * @param filename the name of the file
+	 * @throws FileNotFoundException if the file cannot be opened
+	 */
+	public void readFromBinaryFile(String filename) throws FileNotFoundException {
+		AirplaneType[] types = AirplaneType.values();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1 << 16))) {
+			if (in.readInt() != BINARY_MAGIC)
+				throw new IllegalArgumentException(filename + " is not a binary instance file");
+			int numFlights = in.readInt();
+			int numRunways = in.readInt();
+			create(numFlights, numRunways);
+			for (int i=0; i<numFlights; i++) {
+				Flight f = new Flight(in.readUTF(), types[in.readByte()]);
+				for (int j=0; j<numRunways; j++) {
+					long t = in.readLong();
+					if (t >= 0)
+						f.setArrivalTime(j, t);
+				}
+				flights.put(f.getFlightID(), f);
+			}
+			for (AirplaneType t1: types) {
+				for (AirplaneType t2: types) {
+					separation.get(t1).put(t2, in.readLong());
+				}
+			}
+			if (in.available() > 0) {
+				int numClosures = in.readInt();
+				for (int k=0; k<numClosures; k++) {
+					int r = in.readInt();
+					addClosure(r, in.readLong(), in.readLong());
+				}
+			}
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Cannot read " + filename, e);
+		}
+		generateIndices();
+	}
+	
+
+	/**
+	 * Saves the data to a file in binary format (see {@link #readFromBinaryFile(String)})
+	 * @param filename name of the file
+	 * @throws FileNotFoundException if the file cannot be created
+	 */
+	public void saveToBinaryFile(String filename) throws FileNotFoundException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+			out.writeInt(BINARY_MAGIC);
+			out.writeInt(numFlights);
+			out.writeInt(numRunways);
+			for (int i=0; i<numFlights; i++) {
+				Flight f = flights.get(flightID[i]);
+				out.writeUTF(f.getFlightID());
+				out.writeByte(f.getType().ordinal());
+				for (int j=0; j<numRunways; j++)
+					out.writeLong(f.isEligible(j) ? f.getArrivalTime(j) : -1);
+			}
+			for (AirplaneType t1: AirplaneType.values()) {
+				for (AirplaneType t2: AirplaneType.values()) {
+					out.writeLong(separation.get(t1).get(t2));
+				}
+			}
+			int numClosures = 0;
+			for (int j=0; j<numRunways; j++)
+				numClosures += closures.get(j).size();
+			if (numClosures > 0) {
+				out.writeInt(numClosures);
+				for (int j=0; j<numRunways; j++) {
+					for (var c: closures.get(j).entrySet()) {
+						out.writeInt(j);
+						out.writeLong(c.getKey());
+						out.writeLong(c.getValue());
+					}
+				}
+			}
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Cannot write " + filename, e);
+		}
+	}
+	
+
 	/**
 	 * Returns a set of all flight IDs
 	 * @return a set of all flight IDs
@@ -284,6 +500,158 @@ public class AirControlProblem {
 	public long getEarliestArrivalTime (String id) {
 		return earliest.get(id);
 	}
+	
+	/**
+	 * Changes the expected arrival time of a flight on a runway. The data derived from
+	 * arrival times are updated incrementally (the same happens if the arrival time is
+	 * changed directly on the flight).
+	 * @param id ID of the flight
+	 * @param runway the runway
+	 * @param time the new arrival time
+	 */
+	public void setArrivalTime (String id, int runway, long time) {
+		flights.get(id).setArrivalTime(runway, time);
+	}
+	
+	/**
+	 * Updates the data derived from arrival times after a change in the arrival time of a flight
+	 * (or in its eligibility) on a runway
+	 * @param f the flight
+	 * @param runway the runway whose arrival time changed
+	 */
+	void arrivalTimeChanged (Flight f, int runway) {
+		String id = f.getFlightID();
+		earliest.put(id, earliestArrivalTime(f));
+		if (arrivalOrder != null) {
+			// move the flight within the order of the runway
+			int[] order = arrivalOrder[runway];
+			int[] rank = arrivalRank[runway];
+			int i = flightIndex.get(id);
+			int pos = rank[i];
+			while ((pos > 0) && precedes(i, order[pos-1], runway)) {
+				order[pos] = order[pos-1];
+				rank[order[pos]] = pos;
+				pos--;
+			}
+			while ((pos < numFlights-1) && precedes(order[pos+1], i, runway)) {
+				order[pos] = order[pos+1];
+				rank[order[pos]] = pos;
+				pos++;
+			}
+			order[pos] = i;
+			rank[i] = pos;
+		}
+		version++;
+	}
+	
+	/**
+	 * Checks whether a flight arrives before another one on a runway (ties are broken by index,
+	 * and flights that cannot land on the runway go last)
+	 * @param i index of a flight
+	 * @param k index of another flight
+	 * @param runway the runway
+	 * @return true iff flight {@code i} arrives before flight {@code k} on the runway
+	 */
+	private boolean precedes (int i, int k, int runway) {
+		long ti = arrivalKey(flights.get(flightID[i]), runway);
+		long tk = arrivalKey(flights.get(flightID[k]), runway);
+		return (ti < tk) || ((ti == tk) && (i < k));
+	}
+	
+	/**
+	 * Returns the arrival time of a flight on a runway for sorting purposes
+	 * @param f the flight
+	 * @param runway the runway
+	 * @return the arrival time of the flight on the runway ({@code Long.MAX_VALUE} if it cannot land on it)
+	 */
+	private static long arrivalKey (Flight f, int runway) {
+		return f.isEligible(runway) ? f.getArrivalTime(runway) : Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Returns the flights sorted by arrival time on a runway (ties are broken by index, and flights
+	 * that cannot land on the runway go last). The order is computed when first needed, and kept
+	 * up to date when arrival times change.
+	 * @param runway the runway
+	 * @return the indices of the flights sorted by arrival time on the runway (must not be modified)
+	 */
+	public int[] getArrivalOrder (int runway) {
+		if (arrivalOrder == null) {
+			arrivalOrder = new int[numRunways][];
+			arrivalRank = new int[numRunways][numFlights];
+			for (int j=0; j<numRunways; j++) {
+				final int r = j;
+				long[] t = new long[numFlights];
+				for (int i=0; i<numFlights; i++)
+					t[i] = arrivalKey(flights.get(flightID[i]), r);
+				arrivalOrder[j] = IntStream.range(0, numFlights).boxed()
+						.sorted((a, b) -> (t[a] != t[b]) ? Long.compare(t[a], t[b]) : Integer.compare(a, b))
+						.mapToInt(Integer::intValue).toArray();
+				for (int k=0; k<numFlights; k++)
+					arrivalRank[j][arrivalOrder[j][k]] = k;
+			}
+		}
+		return arrivalOrder[runway];
+	}
+	
+	/**
+	 * Returns the number of changes of the arrival times, so that objects that copy data
+	 * derived from the instance can detect that they are out of date
+	 * @return a counter that changes whenever an arrival time changes
+	 */
+	public long getVersion () {
+		return version;
+	}
+	
+	/**
+	 * Closes a runway during a time interval: no landing can take place on the runway at a time
+	 * {@code t} such that {@code from <= t < to}. Overlapping or adjacent closures are merged.
+	 * @param runway the runway
+	 * @param from start of the closure
+	 * @param to end of the closure (excluded)
+	 */
+	public void addClosure (int runway, long from, long to) {
+		if (from >= to)
+			return;
+		TreeMap<Long, Long> c = closures.get(runway);
+		var before = c.floorEntry(from);
+		if ((before != null) && (before.getValue() >= from)) {
+			from = before.getKey();
+			to = Math.max(to, before.getValue());
+		}
+		var after = c.ceilingEntry(from);
+		while ((after != null) && (after.getKey() <= to)) {
+			to = Math.max(to, after.getValue());
+			c.remove(after.getKey());
+			after = c.ceilingEntry(from);
+		}
+		c.put(from, to);
+		version++;
+	}
+	
+	/**
+	 * Returns the closures of a runway
+	 * @param runway the runway
+	 * @return the closures of the runway (start of each closure mapped to its end, excluded), in ascending order
+	 */
+	public Map<Long, Long> getClosures (int runway) {
+		return Collections.unmodifiableMap(closures.get(runway));
+	}
+	
+	/**
+	 * Returns the earliest time at which a runway is open, not before a given time
+	 * @param runway the runway
+	 * @param t the time
+	 * @return {@code t} if the runway is open at time {@code t}, and the end of the closure
+	 * including {@code t} otherwise
+	 */
+	public long getOpenTime (int runway, long t) {
+		TreeMap<Long, Long> c = closures.get(runway);
+		if (c.isEmpty())
+			return t;
+		var e = c.floorEntry(t);
+		return ((e != null) && (t < e.getValue())) ? e.getValue() : t;
+	}
 
 
 	/**
@@ -305,18 +673,22 @@ public class AirControlProblem {
 	/**
 	 * Returns a map with the waiting time for all flights (landing time minus earliest arrival time).
 	 * If there are planes for which the landing time is not valid (because it is earlier than the earliest
-	 * arrival time for that flight and runway, or because the separation constraints are not fulfilled), 
-	 * a negative value is used, indicating the total time by which the plane anticipates its arrival. 
+	 * arrival time for that flight and runway, because the separation constraints are not fulfilled, or
+	 * because the runway is closed at that time), a negative value is used, indicating the total time by 
+	 * which the plane anticipates its arrival (or the reopening of the runway). A flight landing on a 
+	 * runway on which it cannot land gets a waiting time of -1.
 	 * If no landing information was provided for a flight, a very large negative value would be used.
 	 * If a flight has more than one landing record, only the earliest one is considered.
 	 * Non-valid landing flights are not considered when determining separation constraints.
+	 * The landing information is not modified, so it can be called concurrently.
 	 * @param info the landing information
 	 * @return the waiting time for each flight
 	 */
 	public Map<String, Long> waitingTime (List<LandingInformation> info) {
 		Map<String, Long> wait = new HashMap<String, Long>(numFlights);
 		
-		info.sort(Comparator.comparing(LandingInformation::time)); // sort flights by landing time
+		List<LandingInformation> sorted = new ArrayList<LandingInformation>(info);
+		sorted.sort(Comparator.comparing(LandingInformation::time)); // sort flights by landing time
 		
 		Set <String> ids = new HashSet<String>();	// remaining flights to land
 		for (String id: flights.keySet()) {
@@ -326,7 +698,7 @@ public class AirControlProblem {
 		
 		AirportInformation ai = new AirportInformation(numRunways);
 		
-		for (LandingInformation li: info) {
+		for (LandingInformation li: sorted) {
 			String id = li.flightID();
 			if (ids.contains(id)) {	// landing information for a flight still to land
 				ids.remove(id);
@@ -334,6 +706,10 @@ public class AirControlProblem {
 				int r = li.runway();
 				Flight f = flights.get(id);
 				AirplaneType p = f.getType();
+				if (!f.isEligible(r)) {	// forbidden runway. No landing is recorded
+					wait.put(id, -1L);
+					continue;
+				}
 				long minTime;
 				if (ai.getTime(r)<0) { // first plane to use this runway
 					minTime = f.getArrivalTime(r);
@@ -341,6 +717,8 @@ public class AirControlProblem {
 				else {	// previous landings in this runway. Observe separation constraints
 					minTime = Math.max(f.getArrivalTime(r), ai.getTime(r) + separation.get(ai.getType(r)).get(p));
 				}
+				if (t >= minTime)	// the runway must be open
+					minTime = getOpenTime(r, t);
 				if (t >= minTime) {	// valid landing time
 					ai.land(p, r, t);
 					wait.put(id, t - earliest.get(id));
@@ -414,6 +792,10 @@ public class AirControlProblem {
 			}
 			str += "\n";
 		}
+		for (int j=0; j<numRunways; j++) {
+			for (var c: closures.get(j).entrySet())
+				str += "Runway #" + (j+1) + " closed in [" + c.getKey() + ", " + c.getValue() + ")\n";
+		}
 		
 		return str;
 	}
@@ -424,11 +806,11 @@ public class AirControlProblem {
 	 * @param r the runway
 	 * @param t the flight type that cannot land on {@code r}
 	 */
-	private void restrictRunway (int r, AirplaneType t) {
+	public void restrictRunway (int r, AirplaneType t) {
 		for (String id: getFlightIDs()) {
 			Flight f = getFlight(id);
 			if (f.getType() == t) {
-				f.setArrivalTime(r, 9999);
+				f.setIneligible(r);
 			}
 		}
 	}
@@ -443,11 +825,12 @@ public class AirControlProblem {
 		int[] sizes = {25, 50, 75, 100, 125};
 		int[] runways = {2, 3, 3, 4, 4};
 		int num = 3;
+		RandomGenerator rng = new Random(1);
 		
 		for (int i=0; i<sizes.length; i++)
 			for (int j=0; j<num; j++) {
 				String name;
-				AirControlProblem acp = new AirControlProblem (sizes[i], runways[i]+j);
+				AirControlProblem acp = new AirControlProblem (sizes[i], runways[i]+j, rng);
 				if (j == (num-1)) {
 					acp.restrictRunway(runways[i]+j-1, AirplaneType.HEAVY);
 					name = "restricted" + sizes[i] + "-" + (runways[i]+j) + ".acp";
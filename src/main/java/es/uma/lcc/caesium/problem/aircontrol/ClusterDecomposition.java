@@ -0,0 +1,457 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.cliftonlabs.json_simple.JsonArray;
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+
+import es.uma.lcc.caesium.ea.util.JsonUtil;
+import es.uma.lcc.caesium.problem.aircontrol.batch.AlgorithmFamily;
+
+/**
+ * Decomposition of a problem instance into independent clusters of flights, which are solved
+ * separately (in parallel) and whose schedules are merged.
+ * <p>
+ * Flights are taken by earliest arrival time, keeping the time at which they would have all
+ * landed on a single runway in that order (at the maximum separation S, and after the closures).
+ * A new cluster starts when a flight arrives at least S after that time, i.e., when the traffic
+ * so far would have been cleared even with a single runway. The schedule of each cluster is
+ * repaired so that no landing is delayed unnecessarily (this does not increase its cost). If a
+ * schedule still extends so much that it constrains the landings of the next cluster, both
+ * clusters are merged and solved again. Hence, the merged schedule is valid and its cost is the
+ * sum of the costs of the clusters: no decision in a cluster affects another cluster.
+ * <p>
+ * When run from the command line, each cluster is solved by a single-threaded algorithm (the
+ * {@code parallel} block of the configuration is ignored), and EA clusters are solved one at
+ * a time, since the EA library uses a static random generator.
+ * @author ccottap
+ * @version 1.2
+ */
+public class ClusterDecomposition {
+	/**
+	 * A solver for (sub-)instances
+	 */
+	@FunctionalInterface
+	public interface Solver {
+		/**
+		 * Solves a problem instance
+		 * @param acp the problem instance
+		 * @param seed the seed
+		 * @return a schedule for all the flights of the instance
+		 * @throws Exception if the instance cannot be solved
+		 */
+		List<LandingInformation> solve(AirControlProblem acp, long seed) throws Exception;
+	}
+
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * IDs of the flights, sorted by earliest arrival time
+	 */
+	private List<String> order;
+	/**
+	 * position in {@code order} of the first flight of each cluster
+	 */
+	private List<Integer> first;
+	/**
+	 * schedule of each cluster in the last solution
+	 */
+	private List<List<LandingInformation>> schedule;
+	/**
+	 * total squared waiting time of each cluster in the last solution
+	 */
+	private List<Long> cost;
+	/**
+	 * time taken to solve each cluster in the last solution (in seconds)
+	 */
+	private List<Double> clusterTime;
+	/**
+	 * number of clusters detected in the instance
+	 */
+	private int numDetected;
+	/**
+	 * number of merges of clusters in the last solution
+	 */
+	private int numMerges;
+	/**
+	 * time taken by the last solution (in seconds)
+	 */
+	private double time;
+
+	/**
+	 * Decomposes a problem instance into clusters
+	 * @param data the problem instance
+	 */
+	public ClusterDecomposition(AirControlProblem data) {
+		this.data = data;
+		long maxSep = maxSeparation();
+		order = new ArrayList<String>(data.getFlightIDs());
+		order.sort(Comparator.comparingLong(data::getEarliestArrivalTime));	// stable: ties by ID
+		first = new ArrayList<Integer>();
+		long cleared = Long.MIN_VALUE;		// time at which the traffic so far has landed
+		for (int i=0; i<order.size(); i++) {
+			String id = order.get(i);
+			if ((i == 0) || (data.getEarliestArrivalTime(id) >= cleared + maxSep))
+				first.add(i);
+			Flight f = data.getFlight(id);
+			long latest = Long.MIN_VALUE;
+			for (int j: f.getEligibleRunways())
+				latest = Math.max(latest, f.getArrivalTime(j));
+			long t = (i == 0) ? latest : Math.max(latest, cleared + maxSep);
+			cleared = t;
+			for (int j=0; j<data.getNumRunways(); j++)
+				cleared = Math.max(cleared, data.getOpenTime(j, t));
+		}
+		numDetected = first.size();
+	}
+
+	/**
+	 * Returns the maximum separation between plane types
+	 * @return the maximum separation between plane types
+	 */
+	private long maxSeparation() {
+		long maxSep = 0;
+		for (AirplaneType t1: AirplaneType.values())
+			for (AirplaneType t2: AirplaneType.values())
+				maxSep = Math.max(maxSep, data.getSeparation(t1, t2));
+		return maxSep;
+	}
+
+	/**
+	 * Returns the number of clusters (after the merges of the last solution, if any)
+	 * @return the number of clusters
+	 */
+	public int getNumClusters() {
+		return first.size();
+	}
+
+	/**
+	 * Returns the flights of a cluster
+	 * @param k index of the cluster
+	 * @return the IDs of the flights of the cluster, sorted by earliest arrival time
+	 */
+	public List<String> getCluster(int k) {
+		int end = (k+1 < first.size()) ? first.get(k+1) : order.size();
+		return order.subList(first.get(k), end);
+	}
+
+	/**
+	 * Creates the sub-instance corresponding to a cluster. Its flights are copies of those of
+	 * the instance (so the instance is not affected by changes in the sub-instance), and the
+	 * runways are closed as in the instance.
+	 * @param k index of the cluster
+	 * @return the sub-instance
+	 */
+	public AirControlProblem getSubproblem(int k) {
+		List<String> ids = getCluster(k);
+		List<Flight> flights = new ArrayList<Flight>(ids.size());
+		for (String id: ids) {
+			Flight f = data.getFlight(id);
+			Flight g = new Flight(id, f.getType());
+			for (int j: f.getEligibleRunways())
+				g.setArrivalTime(j, f.getArrivalTime(j));
+			flights.add(g);
+		}
+		AirplaneType[] types = AirplaneType.values();
+		long[][] sep = new long[types.length][types.length];
+		for (AirplaneType t1: types)
+			for (AirplaneType t2: types)
+				sep[t1.ordinal()][t2.ordinal()] = data.getSeparation(t1, t2);
+		AirControlProblem sub = new AirControlProblem(flights, data.getNumRunways(), sep);
+		long from = data.getEarliestArrivalTime(ids.get(0));
+		for (int j=0; j<data.getNumRunways(); j++) {
+			for (Map.Entry<Long, Long> c: data.getClosures(j).entrySet()) {
+				if (c.getValue() > from)
+					sub.addClosure(j, c.getKey(), c.getValue());
+			}
+		}
+		return sub;
+	}
+
+	/**
+	 * Solves a cluster
+	 * @param k index of the cluster
+	 * @param solver the solver
+	 * @param seed the seed
+	 * @return the schedule of the cluster, repaired so that no landing is delayed unnecessarily
+	 * @throws Exception if the solver fails
+	 */
+	private List<LandingInformation> solve(int k, Solver solver, long seed) throws Exception {
+		AirControlProblem sub = getSubproblem(k);
+		if (sub.getNumFlights() == 1)		// trivial: the flight lands as soon as possible
+			return new LandingDecoder(sub).decode(getCluster(k));
+		LandingRepair repair = new LandingRepair();
+		repair.setData(sub);
+		List<LandingInformation> info = new ArrayList<LandingInformation>(sub.getNumFlights());
+		repair.repair(new ArrayList<LandingInformation>(solver.solve(sub, RandomStreams.deriveSeed(seed, first.get(k)))), info);
+		return info;
+	}
+
+	/**
+	 * Returns the total squared waiting time of a schedule
+	 * @param info the schedule
+	 * @return the total squared waiting time
+	 */
+	private long cost(List<LandingInformation> info) {
+		long c = 0;
+		for (LandingInformation li: info) {
+			long w = li.time() - data.getEarliestArrivalTime(li.flightID());
+			c += w*w;
+		}
+		return c;
+	}
+
+	/**
+	 * Solves all clusters in parallel and merges their schedules. Clusters whose schedules
+	 * interfere are merged and solved again.
+	 * @param solver the solver for each cluster
+	 * @param seed the seed (the seed of each cluster is derived from it and the position of its first flight)
+	 * @param numThreads number of threads (0 for the number of available processors)
+	 * @return a schedule for the whole instance, whose cost is the sum of the costs of the clusters
+	 */
+	public List<LandingInformation> solve(Solver solver, long seed, int numThreads) {
+		long start = System.nanoTime();
+		schedule = new ArrayList<List<LandingInformation>>();
+		cost = new ArrayList<Long>();
+		clusterTime = new ArrayList<Double>();
+		for (int k=0; k<first.size(); k++) {
+			schedule.add(null);
+			cost.add(0L);
+			clusterTime.add(0.0);
+		}
+		numMerges = 0;
+		int threads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "cluster-worker");
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			List<Integer> pending = new ArrayList<Integer>();
+			for (int k=0; k<first.size(); k++)
+				pending.add(k);
+			while (!pending.isEmpty()) {
+				solveAll(pending, solver, seed, pool);
+				pending = mergeInterfering();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Cluster could not be solved", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+
+		List<LandingInformation> info = new ArrayList<LandingInformation>(data.getNumFlights());
+		for (List<LandingInformation> s: schedule)
+			info.addAll(s);
+		info.sort(Comparator.comparing(LandingInformation::time));
+		time = (System.nanoTime() - start) / 1e9;
+
+		// the merged schedule must be valid, and its cost the sum of the costs of the clusters
+		long total = 0;
+		for (long w: data.waitingTime(info).values()) {
+			if (w < 0)
+				throw new IllegalStateException("Clusters interfere with each other");
+			total += w*w;
+		}
+		if (total != getCost())
+			throw new IllegalStateException("Cost of the merged schedule (" + total + ") differs from the sum of the clusters (" + getCost() + ")");
+		return info;
+	}
+
+	/**
+	 * Solves some clusters in parallel
+	 * @param clusters indices of the clusters
+	 * @param solver the solver
+	 * @param seed the seed
+	 * @param pool the worker threads
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 * @throws ExecutionException if some cluster could not be solved
+	 */
+	private void solveAll(List<Integer> clusters, Solver solver, long seed, ExecutorService pool) throws InterruptedException, ExecutionException {
+		// larger clusters are submitted first, so that they do not delay the end
+		List<Integer> bySize = new ArrayList<Integer>(clusters);
+		bySize.sort(Comparator.comparingInt((Integer k) -> getCluster(k).size()).reversed());
+		List<Future<List<LandingInformation>>> results = new ArrayList<Future<List<LandingInformation>>>(bySize.size());
+		for (int k: bySize) {
+			Callable<List<LandingInformation>> task = () -> {
+				long t = System.nanoTime();
+				try {
+					return solve(k, solver, seed);
+				}
+				finally {
+					RandomStreams.unbind();
+					clusterTime.set(k, (System.nanoTime() - t) / 1e9);
+				}
+			};
+			results.add(pool.submit(task));
+		}
+		for (int i=0; i<bySize.size(); i++) {
+			int k = bySize.get(i);
+			List<LandingInformation> s = results.get(i).get();
+			schedule.set(k, new ArrayList<LandingInformation>(s));
+			cost.set(k, cost(s));
+		}
+	}
+
+	/**
+	 * Merges each cluster with the previous one if the landings of the latter constrain those of
+	 * the former
+	 * @return indices of the merged clusters (to be solved again)
+	 */
+	private List<Integer> mergeInterfering() {
+		List<Integer> merged = new ArrayList<Integer>();
+		int numRunways = data.getNumRunways();
+		AirportInformation ai = new AirportInformation(numRunways);	// last landing on each runway
+		int k = 0;
+		while (k < first.size()) {
+			boolean interferes = false;
+			AirportInformation next = new AirportInformation(numRunways);
+			List<LandingInformation> s = new ArrayList<LandingInformation>(schedule.get(k));
+			s.sort(null);
+			for (LandingInformation li: s) {
+				int r = li.runway();
+				AirplaneType p = data.getFlight(li.flightID()).getType();
+				if ((next.getTime(r) < 0) && (ai.getTime(r) >= 0) && (li.time() < ai.getTime(r) + data.getSeparation(ai.getType(r), p)))
+					interferes = true;
+				next.land(p, r, li.time());
+			}
+			if (interferes && (k > 0)) {
+				schedule.get(k-1).addAll(schedule.get(k));	// kept until solved again, to check the next cluster
+				first.remove(k);
+				schedule.remove(k);
+				cost.remove(k);
+				clusterTime.remove(k);
+				numMerges++;
+				k--;
+				if (merged.isEmpty() || (merged.get(merged.size()-1) != k))
+					merged.add(k);
+				ai = new AirportInformation(numRunways);	// recomputed up to the merged cluster
+				for (int c=0; c<=k; c++)
+					for (LandingInformation li: schedule.get(c))
+						if (li.time() > ai.getTime(li.runway()))
+							ai.land(data.getFlight(li.flightID()).getType(), li.runway(), li.time());
+			}
+			else {
+				for (int r=0; r<numRunways; r++)
+					if (next.getTime(r) >= 0)
+						ai.land(next.getType(r), r, next.getTime(r));
+			}
+			k++;
+		}
+		return merged;
+	}
+
+	/**
+	 * Returns the total squared waiting time of a cluster in the last solution
+	 * @param k index of the cluster
+	 * @return the total squared waiting time of the cluster
+	 */
+	public long getCost(int k) {
+		return cost.get(k);
+	}
+
+	/**
+	 * Returns the total squared waiting time of the last solution
+	 * @return the total squared waiting time of the last solution (the sum of the costs of the clusters)
+	 */
+	public long getCost() {
+		long total = 0;
+		for (long c: cost)
+			total += c;
+		return total;
+	}
+
+	/**
+	 * Returns the time taken by the last solution
+	 * @return the time taken by the last solution (in seconds)
+	 */
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the statistics of the last solution in JSON format
+	 * @return the statistics of the last solution in JSON format
+	 */
+	public JsonObject toJSON() {
+		JsonObject json = new JsonObject();
+		json.put("best", getCost());
+		json.put("time", time);
+		json.put("detected", numDetected);
+		json.put("merges", numMerges);
+		JsonArray cl = new JsonArray();
+		for (int k=0; k<first.size(); k++) {
+			JsonObject c = new JsonObject();
+			c.put("flights", getCluster(k).size());
+			c.put("from", data.getEarliestArrivalTime(order.get(first.get(k))));
+			if (schedule != null) {
+				c.put("cost", cost.get(k));
+				c.put("time", clusterTime.get(k));
+			}
+			cl.add(c);
+		}
+		json.put("clusters", cl);
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		int largest = 0;
+		for (int k=0; k<first.size(); k++)
+			largest = Math.max(largest, getCluster(k).size());
+		return "ClusterDecomposition(" + data.getNumFlights() + " flights, " + first.size() + " clusters, largest=" + largest + ")";
+	}
+
+	/**
+	 * Solves a problem instance by decomposition, with an algorithm of a given family for each cluster
+	 * @param args command-line arguments (algorithm family, algorithm configuration, problem data and,
+	 * optionally, number of threads)
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws JsonException, IOException {
+		if (args.length < 3) {
+			System.out.println("Parameters: <algorithm-family> <algorithm-configuration> <problem-data> [<threads>]");
+			System.exit(1);
+		}
+		AlgorithmFamily family = AlgorithmFamily.fromString(args[0]);
+		FileReader reader = new FileReader(args[1] + ".json");
+		JsonObject conf = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
+		long seed = conf.containsKey("seed") ? JsonUtil.getLong(conf, "seed") : 1;
+		int threads = (args.length > 3) ? Integer.parseInt(args[3]) : 0;
+		if (!family.allowsConcurrentRuns())
+			threads = 1;
+		JsonObject inner = new JsonObject(conf);
+		inner.remove("parallel");			// clusters are already solved in parallel
+
+		AirControlProblem acp = new AirControlProblem(args[2] + ".acp");
+		ClusterDecomposition cd = new ClusterDecomposition(acp);
+		System.out.println(cd);
+		List<LandingInformation> info = cd.solve((sub, s) -> family.solve(args[1], inner, sub, s), seed, threads);
+		System.out.println(String.format(Locale.US, "%.2fs\t%d\t(%d clusters, %d merges)", cd.getTime(), cd.getCost(), cd.getNumClusters(), cd.numMerges));
+		System.out.println(acp.formatLandingInformation(info));
+		PrintWriter file = new PrintWriter(args[1] + "-clusters-stats-" + args[2] + ".json");
+		file.print(cd.toJSON().toJson());
+		file.close();
+	}
+}
@@ -3,13 +3,13 @@
  */
 package es.uma.lcc.caesium.problem.aircontrol;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Encapsulates airplane information
  * @author ccottap
- * @version 1.0	 
+ * @version 1.2
  */
 public class Flight {
 	/**
@@ -21,9 +21,17 @@ public class Flight {
 	 */
 	private AirplaneType type;
 	/**
-	 * expected time of arrival to each runway
+	 * expected time of arrival to each runway (only for runways on which the flight can land)
 	 */
 	private Map<Integer,Long> expectedTimeArrival;
+	/**
+	 * runways on which the flight can land, in ascending order (null until needed)
+	 */
+	private int[] eligible;
+	/**
+	 * the problem instance the flight belongs to (notified when arrival times change)
+	 */
+	private AirControlProblem owner;
 	
 	/**
 	 * Creates the flight. Arrival times are left unspecified
@@ -33,7 +41,7 @@ public class Flight {
 	public Flight (String flightID, AirplaneType type) {
 		this.flightID = flightID;
 		this.type = type;
-		expectedTimeArrival = new HashMap<Integer, Long>();
+		expectedTimeArrival = new TreeMap<Integer, Long>();
 	}
 
 	/**
@@ -54,7 +62,7 @@ public class Flight {
 	
 	/**
 	 * Returns the expected arrival time at a certain runway
-	 * @param runway the runway
+	 * @param runway the runway (the flight must be able to land on it)
 	 * @return the expected arrival time
 	 */
 	public long getArrivalTime (int runway) {
@@ -62,12 +70,70 @@ public class Flight {
 	}
 
 	/**
-	 * Set the arrival time on a specific runway
+	 * Set the arrival time on a specific runway, which becomes eligible for the flight if it
+	 * was not. If the flight belongs to a problem instance, the data the instance derives from
+	 * arrival times are updated.
 	 * @param runway the runway
 	 * @param time the time of arrival
 	 */
 	public void setArrivalTime (int runway, long time) {
-		expectedTimeArrival.put(runway, time);
+		Long old = expectedTimeArrival.put(runway, time);
+		if (old == null)
+			eligible = null;
+		if ((owner != null) && ((old == null) || (old != time)))
+			owner.arrivalTimeChanged(this, runway);
+	}
+
+	/**
+	 * Forbids the flight to land on a runway
+	 * @param runway the runway
+	 */
+	public void setIneligible (int runway) {
+		if (expectedTimeArrival.remove(runway) != null) {
+			eligible = null;
+			if (owner != null)
+				owner.arrivalTimeChanged(this, runway);
+		}
+	}
+
+	/**
+	 * Checks whether the flight can land on a runway
+	 * @param runway the runway
+	 * @return true iff the flight can land on the runway
+	 */
+	public boolean isEligible (int runway) {
+		return expectedTimeArrival.containsKey(runway);
+	}
+
+	/**
+	 * Returns the runways on which the flight can land
+	 * @return the runways on which the flight can land, in ascending order (must not be modified)
+	 */
+	public int[] getEligibleRunways () {
+		if (eligible == null)
+			eligible = expectedTimeArrival.keySet().stream().mapToInt(Integer::intValue).toArray();
+		return eligible;
+	}
+
+	/**
+	 * Returns a runway on which the flight can land, given a preferred one. This is the
+	 * preferred runway if eligible, and an eligible runway determined by it otherwise.
+	 * @param runway the preferred runway
+	 * @return an eligible runway
+	 */
+	public int getEligibleRunway (int runway) {
+		if (isEligible(runway))
+			return runway;
+		int[] e = getEligibleRunways();
+		return e[runway % e.length];
+	}
+
+	/**
+	 * Sets the problem instance the flight belongs to
+	 * @param owner the problem instance (null if none)
+	 */
+	void setOwner (AirControlProblem owner) {
+		this.owner = owner;
 	}
 
 	@Override
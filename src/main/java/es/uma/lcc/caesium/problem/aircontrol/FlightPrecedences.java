@@ -0,0 +1,272 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Dominance relations between flights that can be fixed beforehand without losing optimality:
+ * <ul>
+ * <li>precedences: flight A precedes flight B if both have the same type and can land on the same
+ * runways, B arrives at the same time on all of them, and A arrives on any of them (and is
+ * expected) before B arrives. If B landed before A in a schedule, exchanging their landing slots
+ * would be feasible (the separations do not change, and each flight arrives before its new slot)
+ * and not worse (since the cost is convex and A is expected earlier).</li>
+ * <li>equivalence classes: flights with the same type, runways, arrival times and expected time
+ * are interchangeable, so only the order of their indices is considered.</li>
+ * </ul>
+ * Both relations together are a strict partial order. Permutations of flights are made canonical
+ * (i.e., consistent with the order) by reordering the flights of each group (type and runways) in
+ * the positions they occupy, keeping their relative order as much as possible (the first flight
+ * that can be placed is placed next). Canonical permutations are not changed.
+ * @author ccottap
+ * @version 1.0
+ */
+public class FlightPrecedences {
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * version of the arrival times of the instance when the relations were computed
+	 */
+	private long version;
+	/**
+	 * group (type and runways) of each flight
+	 */
+	private int[] group;
+	/**
+	 * number of groups
+	 */
+	private int numGroups;
+	/**
+	 * latest arrival (or expected time, if later) of each flight
+	 */
+	private long[] hi;
+	/**
+	 * arrival (or expected time, if earlier) of each flight that arrives at the same time on all
+	 * its runways (Long.MIN_VALUE for the other flights, which have no predecessors)
+	 */
+	private long[] lo;
+	/**
+	 * flights of each group sorted by increasing latest arrival
+	 */
+	private int[][] byHi;
+	/**
+	 * equivalence class of each flight (-1 if it is the only flight in its class)
+	 */
+	private int[] equivalent;
+	/**
+	 * flights of each equivalence class, sorted by index
+	 */
+	private int[][] classes;
+
+	/**
+	 * Computes the relations for a problem instance
+	 * @param data the problem instance
+	 */
+	public FlightPrecedences(AirControlProblem data) {
+		this.data = data;
+		version = data.getVersion();
+		int n = data.getNumFlights();
+		group = new int[n];
+		hi = new long[n];
+		lo = new long[n];
+		equivalent = new int[n];
+		Map<String, Integer> groups = new HashMap<String, Integer>();
+		Map<String, List<Integer>> identical = new HashMap<String, List<Integer>>();
+		for (int i=0; i<n; i++) {
+			String id = data.getFlightID(i);
+			Flight f = data.getFlight(id);
+			int[] runways = f.getEligibleRunways();
+			long eat = data.getEarliestArrivalTime(id);
+			long min = Long.MAX_VALUE;
+			long max = Long.MIN_VALUE;
+			long[] arrival = new long[runways.length];
+			for (int k=0; k<runways.length; k++) {
+				arrival[k] = f.getArrivalTime(runways[k]);
+				min = Math.min(min, arrival[k]);
+				max = Math.max(max, arrival[k]);
+			}
+			String key = f.getType() + Arrays.toString(runways);
+			group[i] = groups.computeIfAbsent(key, x -> groups.size());
+			hi[i] = Math.max(max, eat);
+			lo[i] = (min == max) ? Math.min(min, eat) : Long.MIN_VALUE;
+			identical.computeIfAbsent(key + Arrays.toString(arrival) + eat, x -> new ArrayList<Integer>()).add(i);
+		}
+		numGroups = groups.size();
+
+		List<List<Integer>> members = new ArrayList<List<Integer>>(numGroups);
+		for (int g=0; g<numGroups; g++)
+			members.add(new ArrayList<Integer>());
+		for (int i=0; i<n; i++)
+			members.get(group[i]).add(i);
+		byHi = new int[numGroups][];
+		for (int g=0; g<numGroups; g++) {
+			byHi[g] = members.get(g).stream().sorted(Comparator.comparingLong(i -> hi[i])).mapToInt(Integer::intValue).toArray();
+		}
+
+		Arrays.fill(equivalent, -1);
+		List<int[]> eq = new ArrayList<int[]>();
+		for (List<Integer> c: identical.values()) {
+			if (c.size() > 1) {
+				int[] flights = c.stream().mapToInt(Integer::intValue).sorted().toArray();
+				for (int i: flights)
+					equivalent[i] = eq.size();
+				eq.add(flights);
+			}
+		}
+		classes = eq.toArray(new int[eq.size()][]);
+	}
+
+	/**
+	 * Returns the problem instance
+	 * @return the problem instance
+	 */
+	public AirControlProblem getData() {
+		return data;
+	}
+
+	/**
+	 * Returns the version of the arrival times of the instance when the relations were computed
+	 * (the relations must be computed again if arrival times change)
+	 * @return the version of the arrival times
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Indicates whether a flight must land before another one
+	 * @param a index of the first flight
+	 * @param b index of the second flight
+	 * @return true iff flight a precedes flight b
+	 */
+	public boolean precedes(int a, int b) {
+		if (group[a] != group[b])
+			return false;
+		if ((equivalent[a] >= 0) && (equivalent[a] == equivalent[b]))
+			return a < b;
+		return hi[a] < lo[b];
+	}
+
+	/**
+	 * Returns the equivalence class of a flight
+	 * @param i index of the flight
+	 * @return the equivalence class of the flight (-1 if no other flight is equivalent to it)
+	 */
+	public int getEquivalenceClass(int i) {
+		return equivalent[i];
+	}
+
+	/**
+	 * Returns the number of equivalence classes with more than one flight
+	 * @return the number of equivalence classes with more than one flight
+	 */
+	public int getNumClasses() {
+		return classes.length;
+	}
+
+	/**
+	 * Returns the number of pairs of flights whose order is fixed
+	 * @return the number of pairs of flights whose order is fixed
+	 */
+	public long getNumPrecedences() {
+		long count = 0;
+		for (int i=0; i<group.length; i++) {
+			if (lo[i] > Long.MIN_VALUE) {
+				// flights of the group whose latest arrival is earlier than the arrival of i
+				int[] g = byHi[group[i]];
+				int low = 0;
+				int high = g.length;
+				while (low < high) {
+					int mid = (low + high) >>> 1;
+					if (hi[g[mid]] < lo[i])
+						low = mid + 1;
+					else
+						high = mid;
+				}
+				count += low;
+			}
+		}
+		for (int[] c: classes)
+			count += (long) c.length * (c.length - 1) / 2;
+		return count;
+	}
+
+	/**
+	 * Makes a permutation of flights canonical (consistent with the precedences and the equivalence
+	 * classes), changing it as little as possible. It can be called concurrently.
+	 * @param order the indices of the flights (modified by the method)
+	 */
+	public void canonicalize(int[] order) {
+		int n = order.length;
+		int[] count = new int[numGroups + 1];
+		for (int f: order)
+			count[group[f] + 1]++;
+		for (int g=0; g<numGroups; g++)
+			count[g+1] += count[g];
+		int[] positions = new int[n];	// positions of each group, consecutive and in increasing order
+		int[] next = Arrays.copyOf(count, numGroups);
+		for (int p=0; p<n; p++)
+			positions[next[group[order[p]]]++] = p;
+
+		int[] original = order.clone();
+		boolean[] placed = new boolean[n];
+		for (int g=0; g<numGroups; g++)
+			sort(original, positions, count[g], count[g+1], byHi[g], placed, order);
+
+		// equivalent flights are placed by index in the positions of their class
+		int[] used = new int[classes.length];
+		for (int p=0; p<n; p++) {
+			int c = equivalent[order[p]];
+			if (c >= 0)
+				order[p] = classes[c][used[c]++];
+		}
+	}
+
+	/**
+	 * Reorders the flights of a group in the positions they occupy: the next flight is the first
+	 * one (in the original order) whose predecessors have already been placed
+	 * @param original the original permutation
+	 * @param positions the positions of the flights of each group
+	 * @param from first position of the group in the positions
+	 * @param to last position (exclusive) of the group in the positions
+	 * @param sorted the flights of the group by increasing latest arrival
+	 * @param placed whether each flight has been placed (updated)
+	 * @param order the new permutation (filled in the positions of the group)
+	 */
+	private void sort(int[] original, int[] positions, int from, int to, int[] sorted, boolean[] placed, int[] order) {
+		PriorityQueue<Integer> deferred = new PriorityQueue<Integer>(Comparator.comparingLong(k -> lo[original[positions[k]]]));
+		PriorityQueue<Integer> available = new PriorityQueue<Integer>();
+		int first = 0;							// first flight of the group not placed yet, by latest arrival
+		int k = from;							// next flight of the group in the original order
+		for (int s=from; s<to; s++) {
+			while ((first < sorted.length) && placed[sorted[first]])
+				first++;
+			long frontier = (first < sorted.length) ? hi[sorted[first]] : Long.MAX_VALUE;
+			while (!deferred.isEmpty() && (lo[original[positions[deferred.peek()]]] <= frontier))
+				available.add(deferred.poll());
+			int chosen;
+			if (!available.isEmpty())
+				chosen = available.poll();
+			else {
+				while (lo[original[positions[k]]] > frontier)
+					deferred.add(k++);
+				chosen = k++;
+			}
+			int f = original[positions[chosen]];
+			placed[f] = true;
+			order[positions[s]] = f;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "FlightPrecedences(" + getNumPrecedences() + " precedences, " + classes.length + " classes)";
+	}
+}
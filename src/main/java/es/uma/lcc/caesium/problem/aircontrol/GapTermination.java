@@ -0,0 +1,164 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.util.concurrent.atomic.DoubleAdder;
+
+import com.github.cliftonlabs.json_simple.JsonObject;
+
+import es.uma.lcc.caesium.ea.util.JsonUtil;
+
+/**
+ * Termination criterion based on the optimality gap: a run can stop as soon as the relative
+ * difference between the cost of its incumbent and a lower bound of the optimal cost (e.g., a
+ * {@link LowerBound}) is not larger than a target (0 to stop only when the incumbent is proved
+ * optimal). It can be shared by several threads (e.g., the islands of a run), so that all of
+ * them stop when any of them reaches the target. A new criterion must be used for each run.
+ * Algorithms that charge their evaluations to the criterion get the number of evaluations
+ * performed until the target was reached reported.
+ * @author ccottap
+ * @version 1.1
+ */
+public class GapTermination {
+	/**
+	 * lower bound of the optimal cost
+	 */
+	private final long bound;
+	/**
+	 * target gap
+	 */
+	private final double target;
+	/**
+	 * creation time of the criterion (in nanoseconds)
+	 */
+	private final long start;
+	/**
+	 * cost of the incumbent when the target was reached
+	 */
+	private double cost;
+	/**
+	 * time (since the creation of the criterion) at which the target was reached, in seconds
+	 * (negative if not reached yet)
+	 */
+	private volatile double time;
+	/**
+	 * evaluations charged so far
+	 */
+	private final DoubleAdder spent;
+	/**
+	 * whether evaluations have been charged
+	 */
+	private volatile boolean counted;
+	/**
+	 * evaluations charged when the target was reached
+	 */
+	private double evaluations;
+
+	/**
+	 * Creates the criterion
+	 * @param bound lower bound of the optimal cost
+	 * @param target target gap (0 to stop only when the incumbent is proved optimal)
+	 */
+	public GapTermination(long bound, double target) {
+		this.bound = bound;
+		this.target = target;
+		start = System.nanoTime();
+		time = -1;
+		spent = new DoubleAdder();
+		counted = false;
+	}
+
+	/**
+	 * Creates the criterion for a run, if the configuration of the algorithm indicates the
+	 * target {@code gap}
+	 * @param conf the configuration of the algorithm
+	 * @param bound lower bound of the optimal cost
+	 * @return the criterion (null if the configuration does not indicate a target gap)
+	 */
+	public static GapTermination create(JsonObject conf, long bound) {
+		return conf.containsKey("gap") ? new GapTermination(bound, JsonUtil.getDouble(conf, "gap")) : null;
+	}
+
+	/**
+	 * Returns the gap of a cost with respect to a lower bound of the optimal cost
+	 * @param cost the cost
+	 * @param bound the lower bound
+	 * @return the relative difference between the cost and the bound
+	 */
+	public static double gap(double cost, long bound) {
+		return (cost <= 0) ? 0.0 : (cost - bound) / cost;
+	}
+
+	/**
+	 * Charges evaluations to the run (it should be done before checking the solutions evaluated)
+	 * @param evals the number of evaluations
+	 */
+	public void charge(double evals) {
+		spent.add(evals);
+		counted = true;
+	}
+
+	/**
+	 * Checks whether the cost of a new solution reaches the target gap
+	 * @param cost the cost of the solution
+	 * @return true iff the target has been reached (by this or any previous solution)
+	 */
+	public boolean check(double cost) {
+		if ((time < 0) && (gap(cost, bound) <= target)) {
+			synchronized (this) {
+				if (time < 0) {
+					this.cost = cost;
+					evaluations = spent.sum();
+					time = (System.nanoTime() - start) / 1e9;
+				}
+			}
+		}
+		return time >= 0;
+	}
+
+	/**
+	 * Indicates whether the target gap has been reached
+	 * @return true iff the target gap has been reached
+	 */
+	public boolean isReached() {
+		return time >= 0;
+	}
+
+	/**
+	 * Returns the lower bound of the optimal cost
+	 * @return the lower bound of the optimal cost
+	 */
+	public long getBound() {
+		return bound;
+	}
+
+	/**
+	 * Returns the target gap
+	 * @return the target gap
+	 */
+	public double getTarget() {
+		return target;
+	}
+
+	/**
+	 * Returns the criterion as a JSON object (bound, target gap and, if reached, the cost,
+	 * the time and, if evaluations are charged, the number of evaluations at which it was reached)
+	 * @return the criterion as a JSON object
+	 */
+	public synchronized JsonObject toJSON() {
+		JsonObject json = new JsonObject();
+		json.put("bound", bound);
+		json.put("target", target);
+		json.put("reached", isReached());
+		if (isReached()) {
+			json.put("cost", cost);
+			json.put("time", time);
+			if (counted)
+				json.put("evaluations", evaluations);
+		}
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		return "GapTermination(bound=" + bound + ", target=" + target + ")";
+	}
+}
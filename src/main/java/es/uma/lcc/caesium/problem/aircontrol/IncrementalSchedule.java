@@ -0,0 +1,179 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A schedule that is kept up to date when the arrival times of a flight change. The sequence of
+ * landings on each runway is fixed, and each flight lands as soon as possible after its
+ * predecessor, when the runway is open (as done by the decoders). When the arrival times of a
+ * flight are revised, only the suffix of its runway from the flight onwards is recomputed, and
+ * only until a landing time is found unchanged (the rest of the runway is then unaffected). The
+ * total squared waiting time is patched accordingly.
+ * @author ccottap
+ * @version 1.0
+ */
+public class IncrementalSchedule {
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * sequence of flights on each runway
+	 */
+	private List<List<Flight>> sequence;
+	/**
+	 * landing time of the flights on each runway
+	 */
+	private List<long[]> time;
+	/**
+	 * runway and position of each flight
+	 */
+	private Map<String, int[]> location;
+	/**
+	 * waiting time of each flight
+	 */
+	private Map<String, Long> delay;
+	/**
+	 * total squared waiting time
+	 */
+	private long cost;
+
+	/**
+	 * Creates the schedule given a problem instance and a list of landings. The sequence of
+	 * landings on each runway is taken from the list, and landing times are recomputed (so
+	 * that each flight lands as soon as possible).
+	 * @param data the problem instance
+	 * @param schedule the landing information of all flights
+	 */
+	public IncrementalSchedule(AirControlProblem data, List<LandingInformation> schedule) {
+		this.data = data;
+		int numRunways = data.getNumRunways();
+		List<LandingInformation> info = new ArrayList<LandingInformation>(schedule);
+		info.sort(null);
+		sequence = new ArrayList<List<Flight>>(numRunways);
+		for (int j=0; j<numRunways; j++)
+			sequence.add(new ArrayList<Flight>());
+		location = new HashMap<String, int[]>(data.getNumFlights());
+		for (LandingInformation li: info) {
+			List<Flight> seq = sequence.get(li.runway());
+			location.put(li.flightID(), new int[] {li.runway(), seq.size()});
+			seq.add(data.getFlight(li.flightID()));
+		}
+		time = new ArrayList<long[]>(numRunways);
+		delay = new HashMap<String, Long>(data.getNumFlights());
+		cost = 0;
+		for (int j=0; j<numRunways; j++) {
+			List<Flight> seq = sequence.get(j);
+			long[] t = new long[seq.size()];
+			for (int k=0; k<t.length; k++) {
+				t[k] = landingTime(j, k, t);
+				String id = seq.get(k).getFlightID();
+				long w = t[k] - data.getEarliestArrivalTime(id);
+				delay.put(id, w);
+				cost += w*w;
+			}
+			time.add(t);
+		}
+	}
+
+	/**
+	 * Computes the earliest landing time of a flight given the landing time of its predecessor
+	 * @param runway the runway
+	 * @param pos position of the flight on the runway
+	 * @param t landing times on the runway
+	 * @return the earliest landing time of the flight
+	 */
+	private long landingTime(int runway, int pos, long[] t) {
+		List<Flight> seq = sequence.get(runway);
+		Flight f = seq.get(pos);
+		long earliest = f.getArrivalTime(runway);
+		if (pos > 0)
+			earliest = Math.max(earliest, t[pos-1] + data.getSeparation(seq.get(pos-1).getType(), f.getType()));
+		return data.getOpenTime(runway, earliest);
+	}
+
+	/**
+	 * Updates the schedule after the arrival times of a flight have changed
+	 * @param id ID of the flight
+	 * @return the number of landing times recomputed
+	 */
+	public int update(String id) {
+		int[] loc = location.get(id);
+		int r = loc[0];
+		long[] t = time.get(r);
+		List<Flight> seq = sequence.get(r);
+		int recomputed = 0;
+		for (int k=loc[1]; k<t.length; k++) {
+			long newTime = landingTime(r, k, t);
+			recomputed++;
+			if ((k > loc[1]) && (newTime == t[k]))
+				break;		// the rest of the runway is unaffected
+			t[k] = newTime;
+			if (k > loc[1])
+				patch(seq.get(k).getFlightID(), newTime);
+		}
+		patch(id, t[loc[1]]);		// its earliest arrival time may have changed as well
+		return recomputed;
+	}
+
+	/**
+	 * Changes the arrival time of a flight on a runway and updates the schedule
+	 * @param id ID of the flight
+	 * @param runway the runway
+	 * @param arrival the new arrival time
+	 * @return the number of landing times recomputed
+	 */
+	public int setArrivalTime(String id, int runway, long arrival) {
+		data.setArrivalTime(id, runway, arrival);
+		return update(id);
+	}
+
+	/**
+	 * Updates the waiting time of a flight and the total cost
+	 * @param id ID of the flight
+	 * @param t landing time of the flight
+	 */
+	private void patch(String id, long t) {
+		long old = delay.get(id);
+		long w = t - data.getEarliestArrivalTime(id);
+		delay.put(id, w);
+		cost += w*w - old*old;
+	}
+
+	/**
+	 * Returns the total squared waiting time
+	 * @return the total squared waiting time
+	 */
+	public long getCost() {
+		return cost;
+	}
+
+	/**
+	 * Returns the landing information of a flight
+	 * @param id ID of the flight
+	 * @return the landing information of the flight
+	 */
+	public LandingInformation getLanding(String id) {
+		int[] loc = location.get(id);
+		return new LandingInformation(id, time.get(loc[0])[loc[1]], loc[0]);
+	}
+
+	/**
+	 * Returns the schedule
+	 * @return the landing information of all flights, sorted by landing time
+	 */
+	public List<LandingInformation> getSchedule() {
+		List<LandingInformation> info = new ArrayList<LandingInformation>(location.size());
+		for (int j=0; j<sequence.size(); j++) {
+			List<Flight> seq = sequence.get(j);
+			long[] t = time.get(j);
+			for (int k=0; k<t.length; k++)
+				info.add(new LandingInformation(seq.get(k).getFlightID(), t[k], j));
+		}
+		info.sort(null);
+		return info;
+	}
+}
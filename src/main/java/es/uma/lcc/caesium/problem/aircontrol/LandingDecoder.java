@@ -8,7 +8,7 @@ import java.util.Map;
 /**
  * A permutational decoder for the Aircraft Landing Scheduling Problem
  * @author ccottap
- * @version 1.0
+ * @version 1.1
  */
 public class LandingDecoder {
 	/**
@@ -55,7 +55,8 @@ public class LandingDecoder {
 	 * Creates a list of landing assignments given an ordering of flights and their assigned runways.
 	 * This landing assignment is guaranteed to be valid.
 	 * @param flightOrder a list of flight IDs indicating their ordering
-	 * @param runways a list of runways, to be matched by position with the list of flights
+	 * @param runways a list of runways, to be matched by position with the list of flights (a flight
+	 * assigned to a runway on which it cannot land is assigned an eligible one, see {@link Flight#getEligibleRunway(int)})
 	 * @return the landing information, sorted in ascending order by landing time
 	 */
 	public List<LandingInformation> decode (List<String> flightOrder, List<Integer> runways) {
@@ -69,7 +70,7 @@ public class LandingDecoder {
 
 		for (int i=0; i<numFlights; i++) {
 			Flight f = data.getFlight(flightOrder.get(i));
-			int r = runways.get(i);
+			int r = f.getEligibleRunway(runways.get(i));
 			long expected = f.getArrivalTime(r);
 			
 			if (verbosityLevel > 0) {
@@ -90,6 +91,7 @@ public class LandingDecoder {
 			else {
 				t = Math.max(expected, ai.getTime(r) + data.getSeparation(ai.getType(r), f.getType()));
 			}
+			t = data.getOpenTime(r, t);
 			ai.land(f.getType(), r, t);
 			info.add(new LandingInformation(f.getFlightID(), ai.getTime(r), r));
 			if (verbosityLevel > 0) {
@@ -103,7 +105,8 @@ public class LandingDecoder {
 	
 	
 	/**
-	 * Creates a list of landing assignments given an ordering of flights. Assigns the runway which is available earlier.
+	 * Creates a list of landing assignments given an ordering of flights. Assigns the runway which is available earlier
+	 * (among those on which the flight can land).
 	 * This landing assignment is guaranteed to be valid.
 	 * @param flightOrder a list of flight IDs indicating their ordering
 	 * @return the landing information, sorted in ascending order by landing time
@@ -124,7 +127,7 @@ public class LandingDecoder {
 			if (verbosityLevel > 0) {
 				System.out.println("Flight " + f.getFlightID() + " to land. Plane type = " + f.getType());
 			}
-			for (int j=0; j<numRunways; j++) {
+			for (int j: f.getEligibleRunways()) {
 				long expected = f.getArrivalTime(j);
 
 				if (verbosityLevel > 0) {
@@ -144,6 +147,7 @@ public class LandingDecoder {
 				else {
 					t = Math.max(expected, ai.getTime(j) + data.getSeparation(ai.getType(j), f.getType()));
 				}
+				t = data.getOpenTime(j, t);
 				if (t < best) {
 					best = t;
 					r = j;
@@ -164,7 +168,8 @@ public class LandingDecoder {
 	/**
 	 * Creates a list of landing assignments given an assignment of runways to flights. Assigns the runway which is available earlier.
 	 * This landing assignment is guaranteed to be valid.
-	 * @param runways a map assigning runways to flights
+	 * @param runways a map assigning runways to flights (a flight assigned to a runway on which it cannot land is 
+	 * assigned an eligible one, see {@link Flight#getEligibleRunway(int)})
 	 * @return the landing information, sorted in ascending order by landing time
 	 */
 	public List<LandingInformation> decode (Map<String, Integer> runways) {
@@ -180,8 +185,8 @@ public class LandingDecoder {
 		}
 		
 		for (String id: data.getFlightIDs()) {
-			int r = runways.get(id);
-			partition.get(r).add(data.getFlight(id));
+			Flight f = data.getFlight(id);
+			partition.get(f.getEligibleRunway(runways.get(id))).add(f);
 		}
 		
 		for (int j=0; j<numRunways; j++) {
@@ -197,6 +202,7 @@ public class LandingDecoder {
 				else {
 					available = Math.max(f.getArrivalTime(j), available + data.getSeparation(last, f.getType()));
 				}
+				available = data.getOpenTime(j, available);
 				last = f.getType();
 				info.add(new LandingInformation(f.getFlightID(), available, j));
 			}
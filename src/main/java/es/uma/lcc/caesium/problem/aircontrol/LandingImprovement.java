@@ -2,20 +2,22 @@ package es.uma.lcc.caesium.problem.aircontrol;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-
-import es.uma.lcc.caesium.ea.util.EAUtil;
+import java.util.Set;
+import java.util.random.RandomGenerator;
 
 /**
  * Local search: given a list of landing slots, an improved list is obtained by performing first-ascent local 
- * search on the neighborhood obtained by changing a flight from its current runway to a different one (and adjusting
+ * search on the neighborhood obtained by changing a flight from its current runway to a different one on which it 
+ * can land (and adjusting
  * the landing times of all affected flights: some flights may land earlier in the original runway, and some flights 
  * may be displaced to a later tame in the modified runway.
  * 
  * The search is performed for a certain number of iterations, or until the current neighborhood is wholly explored 
  * without improvement, whatever comes first. 
  * @author ccottap
- * @version 1.0
+ * @version 1.2
  *
  */
 public class LandingImprovement {
@@ -27,6 +29,10 @@ public class LandingImprovement {
 	 * the problem instance
 	 */
 	private AirControlProblem data;
+	/**
+	 * the random generator (if null, the one bound to the current thread is used)
+	 */
+	private RandomGenerator rng;
 	
 	/**
 	 * Creates the operator. 
@@ -72,17 +78,27 @@ public class LandingImprovement {
 	public void setData(AirControlProblem data) {
 		this.data = data;
 	}
-
+	
+	
+	/**
+	 * Sets the random generator used to sample the neighborhood
+	 * @param rng the random generator (if null, the one bound to the current thread is used)
+	 */
+	public void setRandomGenerator(RandomGenerator rng) {
+		this.rng = rng;
+	}
+	
+	
 
 	/**
-	 * Internal record to measure the cost of a move
+	 * Record to measure the cost of a move
 	 * @param pos position of the move
 	 * @param value value of the move
 	 * @param newList new landing information
 	 * @author ccottap
 	 * @version 1.0
 	 */
-	private record MoveDelta (int pos, long value, List<LandingInformation> newList) {};
+	public record MoveDelta (int pos, long value, List<LandingInformation> newList) {};
 	
 	/**
 	 * Computes the gain obtaining from removing a flight from a certain runway
@@ -116,6 +132,7 @@ public class LandingImprovement {
 			else {
 				available = Math.max(f.getArrivalTime(r), available + data.getSeparation(last, f.getType()));
 			}
+			available = data.getOpenTime(r, available);
 			last = f.getType();
 
 			long eat = data.getEarliestArrivalTime(li.flightID());
@@ -139,14 +156,28 @@ public class LandingImprovement {
 	 * additional delay when the flight is added 
 	 */
 	private MoveDelta moveCost(String flightID, int r, List<LandingInformation> runway) {
-		Flight f = data.getFlight(flightID);
-		long t = f.getArrivalTime(r);
-		List<LandingInformation> newRunway = new ArrayList<LandingInformation>(runway.size()+1);
+		long t = data.getFlight(flightID).getArrivalTime(r);
 		int pos=0;
 		while ((pos<runway.size()) && (runway.get(pos).time() <= t)) {
-			newRunway.add(runway.get(pos));
 			pos++;
 		}
+		return insertionCost(flightID, r, runway, pos);
+	}
+	
+	/**
+	 * Returns the cost of inserting a flight in a runway at a given position
+	 * @param flightID ID of the flight
+	 * @param r runway in which the insertion is done
+	 * @param runway ordered list of flights landing in said runway
+	 * @param pos position of the flight in the ordered list of flights landing in the runway
+	 * @return position of the flight in the ordered list of flights landing in the runway and 
+	 * additional delay when the flight is added 
+	 */
+	public MoveDelta insertionCost(String flightID, int r, List<LandingInformation> runway, int pos) {
+		Flight f = data.getFlight(flightID);
+		long t = f.getArrivalTime(r);
+		List<LandingInformation> newRunway = new ArrayList<LandingInformation>(runway.size()+1);
+		newRunway.addAll(runway.subList(0, pos));
 				
 		long cost = 0;
 		long available;
@@ -164,6 +195,7 @@ public class LandingImprovement {
 		else {
 			available = Math.max(t, available + data.getSeparation(last, f.getType()));
 		}
+		available = data.getOpenTime(r, available);
 		last = f.getType();
 		long delta = (available - data.getEarliestArrivalTime(flightID));
 		cost += delta*delta;
@@ -172,7 +204,7 @@ public class LandingImprovement {
 		for (int i=pos; i<runway.size(); i++) {
 			LandingInformation  li = runway.get(i);
 			Flight of = data.getFlight(li.flightID());
-			available = Math.max(of.getArrivalTime(r), available + data.getSeparation(last, of.getType()));
+			available = data.getOpenTime(r, Math.max(of.getArrivalTime(r), available + data.getSeparation(last, of.getType())));
 			last = of.getType();
 			long eat = data.getEarliestArrivalTime(li.flightID());
 			long t1 = li.time()-eat;
@@ -206,7 +238,8 @@ public class LandingImprovement {
 			partition.get(li.runway()).add(li);
 		}
 		
-		List<Integer> perm = EAUtil.randomPermutation(numFlights);
+		RandomGenerator gen = RandomStreams.orCurrent(rng);
+		List<Integer> perm = RandomStreams.randomPermutation(gen, numFlights);
 		int k = 0;
 		int num = 0;
 		while ((k < numFlights) && (num < numNeighbors)) {
@@ -217,7 +250,7 @@ public class LandingImprovement {
 			long best = Long.MAX_VALUE;
 			MoveDelta bestMove = null;
 			int bestRunway = -1;
-			for (int i=0; i<numRunways; i++) {
+			for (int i: data.getFlight(slot.flightID()).getEligibleRunways()) {
 				if (i != slot.runway()) {
 					MoveDelta cost = moveCost (slot.flightID(), i, partition.get(i));
 					evalCost += partition.get(i).size()+1-cost.pos();
@@ -231,14 +264,16 @@ public class LandingImprovement {
 			}
 						
 			if (gain.value() > best) {
-				origin.removeAll(partition.get(slot.runway()));
-				origin.removeAll(partition.get(bestRunway));
+				// hash-based removal: same result as removeAll, in linear time
+				Set<LandingInformation> removed = new HashSet<LandingInformation>(partition.get(slot.runway()));
+				removed.addAll(partition.get(bestRunway));
+				origin.removeIf(removed::contains);
 				origin.addAll(gain.newList());
 				origin.addAll(bestMove.newList());
 				partition.set(slot.runway(), gain.newList());
 				partition.set(bestRunway, bestMove.newList());
 				k = 0;
-				perm = EAUtil.randomPermutation(numFlights);
+				perm = RandomStreams.randomPermutation(gen, numFlights);
 			}
 		}
 		
@@ -1,13 +1,15 @@
 package es.uma.lcc.caesium.problem.aircontrol;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Repairing: given a list of landing slots sorted by landing time, it is traversed and landing times are adjusted
  * to fulfill the constraints. If a flight appears more than once, only the first occurrence is considered.
  * @author ccottap
- * @version 1.0
+ * @version 1.1
  *
  */
 public class LandingRepair {
@@ -60,9 +62,10 @@ public class LandingRepair {
 		List<String> flightOrder = new ArrayList<String> (data.getNumFlights());
 		List<Integer> runways =  new ArrayList<Integer> (data.getNumFlights());
 		
+		Set<String> seen = new HashSet<String>(data.getNumFlights());
 		original.sort(null);
 		for (var li: original) {
-			if (!flightOrder.contains(li.flightID())) {
+			if (seen.add(li.flightID())) {
 				flightOrder.add(li.flightID());
 				runways.add(li.runway());
 			}
@@ -0,0 +1,248 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.github.cliftonlabs.json_simple.JsonObject;
+
+/**
+ * Fast lower bound of the optimal cost (total squared waiting time) of an instance of the
+ * Aircraft Landing Scheduling Problem. It is the best of three relaxations:
+ * <ul>
+ * <li>individual: each flight lands at the earliest time at which the runways on which it can
+ * land are open after its arrival, regardless of the other flights.</li>
+ * <li>capacity: all runways are shared by all flights and the separation between any two planes
+ * is minimal. Landing the flights in order of release as soon as a runway is available gives a
+ * lower bound of every landing time in order (the k-th landing of any schedule is not earlier),
+ * see {@link #relaxation(long[], long[], int, long[], long)}.</li>
+ * <li>types: as above, but for the flights of each type separately, on the runways on which
+ * some of them can land. Two consecutive planes of the same type on a runway are separated at
+ * least by the minimum of their direct separation and the separation of any path through other
+ * types, which is larger than the global minimum when planes of the same type are congested.</li>
+ * </ul>
+ * @author ccottap
+ * @version 1.0
+ */
+public class LowerBound {
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * individual bound
+	 */
+	private long individual;
+	/**
+	 * capacity bound
+	 */
+	private long capacity;
+	/**
+	 * bound by plane types
+	 */
+	private long types;
+
+	/**
+	 * Creates the bound for a problem instance (it must be computed afterwards)
+	 * @param data the problem instance
+	 */
+	public LowerBound(AirControlProblem data) {
+		this.data = data;
+	}
+
+	/**
+	 * Computes the lower bound (it must be computed again if the instance changes)
+	 * @return the lower bound of the optimal cost
+	 */
+	public long compute() {
+		int n = data.getNumFlights();
+		int numTypes = AirplaneType.values().length;
+		long[] wait = new long[n];
+		long[] eats = new long[n];
+		int[] type = new int[n];
+		individual = 0;
+		Set<Integer> runways = new HashSet<Integer>();
+		for (int i=0; i<n; i++) {
+			String id = data.getFlightID(i);
+			Flight f = data.getFlight(id);
+			long eat = data.getEarliestArrivalTime(id);
+			long w = Long.MAX_VALUE;
+			for (int r: f.getEligibleRunways()) {
+				w = Math.min(w, data.getOpenTime(r, f.getArrivalTime(r)) - eat);
+				runways.add(r);
+			}
+			wait[i] = Math.max(0, w);
+			eats[i] = eat;
+			type[i] = f.getType().ordinal();
+			individual += wait[i] * wait[i];
+		}
+
+		capacity = relaxation(wait.clone(), eats, n, available(runways.size()), minSeparation());
+
+		types = 0;
+		for (int k=0; k<numTypes; k++) {
+			AirplaneType t = AirplaneType.values()[k];
+			int q = 0;
+			long[] w = new long[n];
+			long[] e = new long[n];
+			runways.clear();
+			for (int i=0; i<n; i++) {
+				if (type[i] == k) {
+					w[q] = wait[i];
+					e[q] = eats[i];
+					for (int r: data.getFlight(data.getFlightID(i)).getEligibleRunways())
+						runways.add(r);
+					q++;
+				}
+			}
+			if (q > 0)
+				types += relaxation(w, e, q, available(runways.size()), separation(t));
+		}
+		return getValue();
+	}
+
+	/**
+	 * Returns the lower bound computed last
+	 * @return the lower bound of the optimal cost
+	 */
+	public long getValue() {
+		return Math.max(individual, Math.max(capacity, types));
+	}
+
+	/**
+	 * Returns the minimum separation between any two planes
+	 * @return the minimum separation between any two planes
+	 */
+	private long minSeparation() {
+		long s = Long.MAX_VALUE;
+		for (AirplaneType t1: AirplaneType.values())
+			for (AirplaneType t2: AirplaneType.values())
+				s = Math.min(s, data.getSeparation(t1, t2));
+		return s;
+	}
+
+	/**
+	 * Returns the minimum separation between two consecutive planes of a certain type on a runway
+	 * (either directly or with planes of other types in between)
+	 * @param t the type of plane
+	 * @return the minimum separation between two consecutive planes of the type
+	 */
+	private long separation(AirplaneType t) {
+		long out = Long.MAX_VALUE;
+		long in = Long.MAX_VALUE;
+		for (AirplaneType x: AirplaneType.values()) {
+			if (x != t) {
+				out = Math.min(out, data.getSeparation(t, x));
+				in = Math.min(in, data.getSeparation(x, t));
+			}
+		}
+		long s = data.getSeparation(t, t);
+		return ((out == Long.MAX_VALUE) || (in == Long.MAX_VALUE)) ? s : Math.min(s, out + in);
+	}
+
+	/**
+	 * Returns the availability of a number of idle runways
+	 * @param m the number of runways
+	 * @return the time at which each runway is available
+	 */
+	private static long[] available(int m) {
+		long[] available = new long[Math.max(1, m)];
+		Arrays.fill(available, Long.MIN_VALUE);
+		return available;
+	}
+
+	/**
+	 * Computes a lower bound of the total squared waiting time of some flights on shared runways,
+	 * each of them landing no earlier than its release time (its earliest arrival plus a lower bound
+	 * of its waiting time), with a fixed separation between consecutive landings on a runway. If
+	 * flights land in order of release, each of them as soon as possible on the runway available
+	 * first, the k-th landing is not later than the k-th landing of any schedule. Hence, the bound
+	 * is the best of (1) the cost of matching these landing times to the flights in order of
+	 * arrival (which is the cheapest matching, since the cost is convex), and (2) the cost of
+	 * spreading their total waiting time as evenly as possible among the flights.
+	 * @param wait the lower bound of the waiting time of each flight (sorted by the method)
+	 * @param eat the earliest arrival time of each flight
+	 * @param q the number of flights (the first ones in the arrays)
+	 * @param available the time at which each runway is available (updated by the method)
+	 * @param separation the separation between consecutive landings on a runway
+	 * @return the lower bound of the total squared waiting time
+	 */
+	public static long relaxation(long[] wait, long[] eat, int q, long[] available, long separation) {
+		long[] release = new long[q];
+		long[] arrival = Arrays.copyOf(eat, q);
+		long sumEat = 0;
+		for (int i=0; i<q; i++) {
+			release[i] = eat[i] + wait[i];
+			sumEat += eat[i];
+		}
+		Arrays.sort(release);
+		long[] times = new long[q];
+		long total = 0;
+		for (int i=0; i<q; i++) {
+			int r = 0;
+			for (int k=1; k<available.length; k++)
+				if (available[k] < available[r])
+					r = k;
+			times[i] = Math.max(release[i], available[r]);
+			available[r] = times[i] + separation;
+			total += times[i];
+		}
+		Arrays.sort(times);
+		Arrays.sort(arrival);
+		long matching = 0;
+		for (int i=0; i<q; i++) {
+			long w = Math.max(0, times[i] - arrival[i]);
+			matching += w * w;
+		}
+		return Math.max(matching, spread(wait, q, total - sumEat));
+	}
+
+	/**
+	 * Computes the minimum sum of squares of some waiting times, each of them no lower than its
+	 * bound, adding up at least to a certain total (the total is spread as evenly as possible)
+	 * @param wait the lower bound of each waiting time (non-negative; sorted by the method)
+	 * @param q the number of waiting times (the first ones in the array)
+	 * @param total the minimum total waiting time
+	 * @return the minimum sum of squares (rounded down)
+	 */
+	public static long spread(long[] wait, int q, long total) {
+		Arrays.sort(wait, 0, q);
+		long sumWait = 0;
+		long individual = 0;
+		for (int i=0; i<q; i++) {
+			sumWait += wait[i];
+			individual += wait[i] * wait[i];
+		}
+		if (total <= sumWait)
+			return individual;
+
+		long rest = sumWait;
+		double sumSq = individual;
+		for (int k=1; k<=q; k++) {
+			rest -= wait[k-1];
+			sumSq -= (double) wait[k-1] * wait[k-1];
+			double level = (double) (total - rest) / k;		// waiting time of the k shortest
+			if ((k == q) || (level <= wait[k]))
+				return Math.max(individual, (long) Math.floor((sumSq + k * level * level) * (1 - 1e-12)));
+		}
+		return individual;
+	}
+
+	/**
+	 * Returns the bound and its components as a JSON object
+	 * @return the bound and its components
+	 */
+	public JsonObject toJSON() {
+		JsonObject json = new JsonObject();
+		json.put("bound", getValue());
+		json.put("individual", individual);
+		json.put("capacity", capacity);
+		json.put("types", types);
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		return "LowerBound(" + getValue() + ": individual=" + individual + ", capacity=" + capacity + ", types=" + types + ")";
+	}
+}
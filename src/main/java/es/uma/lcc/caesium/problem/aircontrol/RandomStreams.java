@@ -0,0 +1,144 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Thread-confined random number streams. Each thread owns its own generator, which
+ * can be bound explicitly (e.g., at the beginning of a run, or by a worker thread of
+ * a parallel solver). Generators are derived deterministically from a base seed and a
+ * path of indices (run, island, worker...), so that the stream a certain task sees
+ * does not depend on the order in which tasks are scheduled.
+ * <p>
+ * The selection and replacement of the EA library do not draw from these streams, but from a
+ * single static generator (see {@code EAUtil}). Hence, a run of an EA is only reproducible if no
+ * other EA runs at the same time in the same virtual machine (batch jobs are run in processes
+ * of their own, and the clusters of a decomposition are solved one at a time with EAs). The
+ * islands of a parallel EA take turns to draw from it (see {@link TurnTaking}).
+ * @author ccottap
+ * @version 1.3
+ */
+public final class RandomStreams {
+	/**
+	 * default seed for threads whose generator has not been bound explicitly
+	 */
+	private static final long DEFAULT_SEED = 1;
+	/**
+	 * golden-ratio increment used to mix seeds (as in SplitMix64)
+	 */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	/**
+	 * generator of the current thread
+	 */
+	private static final ThreadLocal<RandomGenerator> current = ThreadLocal.withInitial(() -> new SplittableRandom(DEFAULT_SEED));
+
+	/**
+	 * Not instantiable
+	 */
+	private RandomStreams() {
+	}
+
+	/**
+	 * Returns the generator bound to the current thread
+	 * @return the generator bound to the current thread
+	 */
+	public static RandomGenerator current() {
+		return current.get();
+	}
+
+	/**
+	 * Returns a generator, or the one bound to the current thread if none is given (e.g.,
+	 * components that can be given their own generator use the thread's one by default)
+	 * @param rng the generator (possibly null)
+	 * @return the generator, or the one bound to the current thread if null
+	 */
+	public static RandomGenerator orCurrent(RandomGenerator rng) {
+		return (rng == null) ? current.get() : rng;
+	}
+
+	/**
+	 * Binds a generator to the current thread
+	 * @param rng the generator
+	 */
+	public static void bind(RandomGenerator rng) {
+		current.set(rng);
+	}
+
+	/**
+	 * Binds to the current thread a generator derived from a seed and a path of indices
+	 * @param seed the base seed
+	 * @param path indices identifying the task (run, island, worker...)
+	 * @return the generator bound
+	 */
+	public static RandomGenerator bind(long seed, int... path) {
+		RandomGenerator rng = derive(seed, path);
+		bind(rng);
+		return rng;
+	}
+
+	/**
+	 * Removes the generator bound to the current thread (it will be reset
+	 * to the default one if used again).
+	 */
+	public static void unbind() {
+		current.remove();
+	}
+
+	/**
+	 * Returns a generator derived from a seed and a path of indices. The same
+	 * seed and path always yield the same stream.
+	 * @param seed the base seed
+	 * @param path indices identifying the task (run, island, worker...)
+	 * @return a new generator
+	 */
+	public static RandomGenerator derive(long seed, int... path) {
+		return new SplittableRandom(deriveSeed(seed, path));
+	}
+
+	/**
+	 * Returns a seed derived from a base seed and a path of indices
+	 * @param seed the base seed
+	 * @param path indices identifying the task (run, island, worker...)
+	 * @return the derived seed
+	 */
+	public static long deriveSeed(long seed, int... path) {
+		long s = mix(seed);
+		for (int i: path) {
+			s = mix(s + GOLDEN_GAMMA * (i + 1));
+		}
+		return s;
+	}
+
+	/**
+	 * SplitMix64 finalizer
+	 * @param z a value
+	 * @return the mixed value
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns a random permutation of the integers 0..n-1
+	 * @param rng the generator
+	 * @param n size of the permutation
+	 * @return a random permutation of the integers 0..n-1
+	 */
+	public static List<Integer> randomPermutation(RandomGenerator rng, int n) {
+		List<Integer> perm = new ArrayList<Integer>(n);
+		for (int i=0; i<n; i++)
+			perm.add(i);
+		for (int i=n-1; i>0; i--) {
+			int j = rng.nextInt(i+1);
+			Integer tmp = perm.get(i);
+			perm.set(i, perm.get(j));
+			perm.set(j, tmp);
+		}
+		return perm;
+	}
+
+}
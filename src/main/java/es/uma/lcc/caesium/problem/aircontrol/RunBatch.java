@@ -3,6 +3,7 @@ package es.uma.lcc.caesium.problem.aircontrol;
 
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -11,49 +12,103 @@ import com.github.cliftonlabs.json_simple.JsonException;
 import com.github.cliftonlabs.json_simple.JsonObject;
 import com.github.cliftonlabs.json_simple.Jsoner;
 
-import es.uma.lcc.caesium.problem.aircontrol.ea.RunEA4AirControl;
-import es.uma.lcc.caesium.problem.aircontrol.grasp.RunGRASP4AirControl;
+import es.uma.lcc.caesium.ea.util.JsonUtil;
+import es.uma.lcc.caesium.problem.aircontrol.batch.AlgorithmFamily;
+import es.uma.lcc.caesium.problem.aircontrol.batch.BatchJob;
+import es.uma.lcc.caesium.problem.aircontrol.batch.BatchScheduler;
+import es.uma.lcc.caesium.problem.aircontrol.batch.ResultCache;
 
 /**
- * Class for running experiments in batch
+ * Class for running experiments in batch. The batch configuration contains the list of
+ * {@code algorithms} and {@code instances}, and optionally the number of worker {@code threads}
+ * (number of available processors by default) and the wall-clock {@code timelimit} per run
+ * in seconds (no limit by default). Each algorithm is given either by the name of its configuration
+ * or by an object with fields {@code name} and {@code family} ({@code ea}, {@code grasp} or {@code lns}); in
+ * the former case the family is read from the {@code family} field of the algorithm configuration.
+ * <p>
+ * Every (algorithm, instance, run) is an independent job, run in a child process whose Java virtual
+ * machine options can be given in {@code jvmargs} (e.g., {@code ["-Xmx4g"]}). Completed jobs are
+ * skipped if the batch is launched again, so an interrupted batch resumes where it stopped.
+ * Once all runs of an algorithm on an instance are completed, their statistics are gathered
+ * in {@code <algorithm>-stats-<instance>.json}, as when the algorithm performs all the runs itself.
+ * <p>
+ * If the configuration indicates a {@code cache} directory, the outcome of each job is stored
+ * there, keyed by the contents of the instance and algorithm configuration and by the run index,
+ * and jobs already in the cache are not run again. The size of the cache is bounded by 
+ * {@code cachesize} (in MB, 1024 by default). Passing {@code --recompute} after the batch 
+ * file forces all jobs to be run (and their cache entries to be refreshed).
  * @author ccottap
- * @version 1.1
+ * @version 1.5
  */
 public class RunBatch {
 
 
 	/**
 	 * Main method
-	 * @param args command-line arguments (name of the bacth file)
+	 * @param args command-line arguments (name of the bacth file, and optionally --recompute)
 	 * @throws JsonException if input file does not have the right format
 	 * @throws IOException if files cannot be read or written
 	 */
 	public static void main(String[] args) throws JsonException, IOException {
 		if (args.length < 1) {
-			System.out.println("Missing parameters. Required: <batch-conf>");
+			System.out.println("Missing parameters. Required: <batch-conf> [--recompute]");
 			System.exit(1);
 		}
 		// reads batch configuration
-		JsonObject conf = (JsonObject) Jsoner.deserialize(new FileReader(args[0]));
-		List<String> algorithms = getStrings((JsonArray) conf.get("algorithms"));
+		FileReader reader = new FileReader(args[0]);
+		JsonObject conf = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
 		List<String>  instances = getStrings((JsonArray) conf.get("instances"));
+		int numThreads = conf.containsKey("threads") ? JsonUtil.getInt(conf, "threads") : Runtime.getRuntime().availableProcessors();
+		long timeLimit = conf.containsKey("timelimit") ? JsonUtil.getLong(conf, "timelimit") : 0;
 		
-		String[] params = new String[2];
-	
-		for (String alg: algorithms) {
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		for (Object o: (JsonArray) conf.get("algorithms")) {
+			String alg;
+			String family = null;
+			if (o instanceof JsonObject) {
+				alg = (String)((JsonObject)o).get("name");
+				family = (String)((JsonObject)o).get("family");
+			}
+			else
+				alg = (String)o;
+			reader = new FileReader(alg + ".json");
+			JsonObject algConf = (JsonObject) Jsoner.deserialize(reader);
+			reader.close();
+			if (family == null) {
+				if (!algConf.containsKey("family"))
+					throw new IllegalArgumentException("No algorithm family given for " + alg);
+				family = (String)algConf.get("family");
+			}
+			AlgorithmFamily f = AlgorithmFamily.fromString(family);
+			int numruns = JsonUtil.getInt(algConf, "numruns");
 			for (String instance: instances) {
-				params[0] = alg;
-				params[1] = instance;
-				System.out.println("--------------------------------------------------------------------------------");
-				System.out.println("Running " + params[0] + " " + params[1]);
-				System.out.println("--------------------------------------------------------------------------------");
-				if (alg.contains("reactive"))
-					RunGRASP4AirControl.main(params);
-				else
-					RunEA4AirControl.main(params);
+				for (int i=0; i<numruns; i++) {
+					jobs.add(new BatchJob(f, alg, instance, i));
+				}
 			}
 		}
-
+		
+		System.out.println("--------------------------------------------------------------------------------");
+		System.out.println("Running " + jobs.size() + " jobs on " + numThreads + " threads");
+		System.out.println("--------------------------------------------------------------------------------");
+		BatchScheduler scheduler = new BatchScheduler(numThreads, timeLimit);
+		if (conf.containsKey("jvmargs"))
+			scheduler.setJvmArguments(getStrings((JsonArray) conf.get("jvmargs")));
+		ResultCache cache = null;
+		if (conf.containsKey("cache")) {
+			long size = conf.containsKey("cachesize") ? JsonUtil.getLong(conf, "cachesize") : 1024;
+			cache = new ResultCache((String)conf.get("cache"), size*1024*1024);
+			boolean recompute = (args.length > 1) && args[1].equals("--recompute");
+			scheduler.setCache(cache, recompute);
+		}
+		int failed = scheduler.run(jobs);
+		int files = scheduler.aggregate(jobs);
+		System.out.println("--------------------------------------------------------------------------------");
+		System.out.println(failed + " jobs failed; " + files + " statistics files written");
+		if (cache != null)
+			System.out.println("Cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+		System.out.println("--------------------------------------------------------------------------------");
 	}
 
 	/**
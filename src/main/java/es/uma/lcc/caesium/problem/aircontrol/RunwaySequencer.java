@@ -0,0 +1,223 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact sequencing of the flights assigned to a runway under constrained position shifting:
+ * given a reference sequence (e.g., the order of arrival, or the current order of landing), each
+ * flight can be moved at most a certain number of positions. The best sequence is found by
+ * dynamic programming over states (position, set of flights already landed within the shifting
+ * window, type of the last plane). Since there are only three plane types and the window is
+ * small, the number of states is linear in the number of flights. The landing time of the last
+ * plane is not part of the state, so each state keeps the non-dominated pairs (time, cost) of
+ * the partial sequences that reach it: since flights land as soon as possible, a partial
+ * sequence that ends earlier and is cheaper cannot lead to a worse schedule. The result is thus
+ * optimal among the sequences within the shifting window (if the number of pairs per state is
+ * bounded, the most expensive pairs are discarded and the result is near-optimal).
+ * @author ccottap
+ * @version 1.0
+ */
+public class RunwaySequencer {
+	/**
+	 * A partial sequence
+	 * @param time landing time of the last flight
+	 * @param cost total squared waiting time of the partial sequence
+	 * @param flight position of the last flight in the reference sequence (-1 if none)
+	 * @param parent the partial sequence without the last flight (null if none)
+	 */
+	private record Label(long time, long cost, int flight, Label parent) {}
+
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * maximum shift of a flight with respect to its position in the reference sequence
+	 */
+	private int maxShift;
+	/**
+	 * maximum number of partial sequences kept per state (0 = no limit)
+	 */
+	private int maxLabels;
+
+	/**
+	 * Creates the sequencer, without limit on the number of partial sequences per state
+	 * @param maxShift maximum shift of a flight with respect to its position in the reference sequence
+	 */
+	public RunwaySequencer(int maxShift) {
+		this(maxShift, 0);
+	}
+
+	/**
+	 * Creates the sequencer
+	 * @param maxShift maximum shift of a flight with respect to its position in the reference sequence
+	 * @param maxLabels maximum number of partial sequences kept per state (0 = no limit)
+	 */
+	public RunwaySequencer(int maxShift, int maxLabels) {
+		this.maxShift = maxShift;
+		this.maxLabels = maxLabels;
+		setData(null);
+	}
+
+	/**
+	 * Returns the problem instance
+	 * @return the problem instance
+	 */
+	public AirControlProblem getData() {
+		return data;
+	}
+
+	/**
+	 * Sets the problem instance
+	 * @param data the problem instance
+	 */
+	public void setData(AirControlProblem data) {
+		this.data = data;
+	}
+
+	/**
+	 * Returns the maximum shift of a flight
+	 * @return the maximum shift of a flight with respect to its position in the reference sequence
+	 */
+	public int getMaxShift() {
+		return maxShift;
+	}
+
+	/**
+	 * Returns the maximum number of partial sequences kept per state
+	 * @return the maximum number of partial sequences kept per state (0 = no limit)
+	 */
+	public int getMaxLabels() {
+		return maxLabels;
+	}
+
+	/**
+	 * Finds the best sequence of a list of flights on a runway
+	 * @param r the runway (all flights must be able to land on it)
+	 * @param reference the IDs of the flights in the reference sequence
+	 * @param landings the landings of the best sequence (filled by the method, in order of landing)
+	 * @return the number of partial sequences generated
+	 */
+	public int sequence(int r, List<String> reference, List<LandingInformation> landings) {
+		int n = reference.size();
+		landings.clear();
+		if (n == 0)
+			return 0;
+		int k = Math.min(maxShift, n - 1);
+		int numTypes = AirplaneType.values().length;
+		Flight[] flights = new Flight[n];
+		long[] eat = new long[n];
+		for (int i=0; i<n; i++) {
+			flights[i] = data.getFlight(reference.get(i));
+			eat[i] = data.getEarliestArrivalTime(reference.get(i));
+		}
+
+		// bit b of the mask: whether the flight at position p-k+b of the reference has landed
+		// (positions before the first one count as landed); key = mask * (types+1) + last type
+		Map<Integer, List<Label>> states = new HashMap<Integer, List<Label>>();
+		List<Label> initial = new ArrayList<Label>();
+		initial.add(new Label(-1, 0, -1, null));
+		states.put(((1 << k) - 1) * (numTypes + 1) + numTypes, initial);
+		int generated = 0;
+		for (int p=0; p<n; p++) {
+			Map<Integer, List<Label>> next = new HashMap<Integer, List<Label>>(2 * states.size());
+			for (Map.Entry<Integer, List<Label>> e: states.entrySet()) {
+				int mask = e.getKey() / (numTypes + 1);
+				int lastType = e.getKey() % (numTypes + 1);
+				// the flight at position p-k must land now if it has not landed yet
+				int maxBit = ((mask & 1) == 0) ? 0 : 2*k;
+				for (int b=0; b<=maxBit; b++) {
+					int j = p - k + b;
+					if ((j < 0) || (j >= n) || ((b < 2*k) && ((mask >> b) & 1) != 0))
+						continue;
+					Flight f = flights[j];
+					int newMask = (mask | (1 << b)) >> 1;
+					int key = newMask * (numTypes + 1) + f.getType().ordinal();
+					List<Label> front = next.computeIfAbsent(key, x -> new ArrayList<Label>());
+					for (Label l: e.getValue()) {
+						long t = f.getArrivalTime(r);
+						if (lastType < numTypes)
+							t = Math.max(t, l.time() + data.getSeparation(AirplaneType.values()[lastType], f.getType()));
+						t = data.getOpenTime(r, t);
+						long w = t - eat[j];
+						insert(front, new Label(t, l.cost() + w*w, j, l));
+						generated++;
+					}
+				}
+			}
+			states = next;
+		}
+
+		Label best = null;
+		for (List<Label> front: states.values())
+			for (Label l: front)
+				if ((best == null) || (l.cost() < best.cost()))
+					best = l;
+		for (Label l=best; l.flight() >= 0; l=l.parent())
+			landings.add(new LandingInformation(reference.get(l.flight()), l.time(), r));
+		Collections.reverse(landings);
+		return generated;
+	}
+
+	/**
+	 * Inserts a partial sequence in a list of non-dominated partial sequences (sorted by
+	 * increasing time and decreasing cost), unless it is dominated
+	 * @param front the list of non-dominated partial sequences
+	 * @param label the partial sequence
+	 */
+	private void insert(List<Label> front, Label label) {
+		int pos = 0;
+		while ((pos < front.size()) && (front.get(pos).time() < label.time())) {
+			if (front.get(pos).cost() <= label.cost())
+				return;		// dominated
+			pos++;
+		}
+		if ((pos < front.size()) && (front.get(pos).time() == label.time()) && (front.get(pos).cost() <= label.cost()))
+			return;			// dominated
+		// remove the partial sequences dominated by the new one (they come right after it)
+		int end = pos;
+		while ((end < front.size()) && (front.get(end).cost() >= label.cost()))
+			end++;
+		front.subList(pos, end).clear();
+		front.add(pos, label);
+		if ((maxLabels > 0) && (front.size() > maxLabels))
+			front.remove(0);	// the earliest one is the most expensive
+	}
+
+	/**
+	 * Improves a schedule by finding the best sequence on each runway, taking the current order
+	 * of landing as reference (so the schedule is not worsened)
+	 * @param origin the original list of landing slots
+	 * @param destination the improved list of landing slots, sorted by landing time
+	 * @return the number of partial sequences generated
+	 */
+	public int optimize(List<LandingInformation> origin, List<LandingInformation> destination) {
+		int numRunways = data.getNumRunways();
+		List<List<String>> partition = new ArrayList<List<String>>(numRunways);
+		for (int j=0; j<numRunways; j++)
+			partition.add(new ArrayList<String>());
+		List<LandingInformation> sorted = new ArrayList<LandingInformation>(origin);
+		sorted.sort(null);
+		for (LandingInformation li: sorted)
+			partition.get(li.runway()).add(li.flightID());
+
+		int generated = 0;
+		destination.clear();
+		List<LandingInformation> landings = new ArrayList<LandingInformation>();
+		for (int j=0; j<numRunways; j++) {
+			generated += sequence(j, partition.get(j), landings);
+			destination.addAll(landings);
+		}
+		destination.sort(null);
+		return generated;
+	}
+
+	@Override
+	public String toString() {
+		return "RunwaySequencer(shift=" + maxShift + ((maxLabels > 0) ? ", labels=" + maxLabels : "") + ")";
+	}
+}
@@ -0,0 +1,172 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Strict round-robin turns among a number of participants running on their own threads
+ * (e.g., the islands of a parallel EA). A participant only runs while it holds the turn,
+ * except for pure computations performed {@link #outside(Supplier) outside} it, which must
+ * not touch any state shared with other participants (e.g., evaluating a solution with the
+ * participant's own objective function and random stream). When a participant steps outside,
+ * the turn passes to the next active participant, and it waits for its next turn to go on.
+ * Hence, the code run while holding the turn is interleaved in the same order in every
+ * execution, regardless of thread scheduling, and it can draw from a shared generator (such
+ * as that of the EA library) with reproducible results.
+ * @author ccottap
+ * @version 1.0
+ */
+public class TurnTaking {
+	/**
+	 * participant bound to the current thread (null if none)
+	 */
+	private static final ThreadLocal<Participant> current = new ThreadLocal<Participant>();
+	/**
+	 * lock guarding the turn
+	 */
+	private final ReentrantLock lock;
+	/**
+	 * condition signaled when the turn passes to each participant
+	 */
+	private final Condition[] myTurn;
+	/**
+	 * whether each participant is still active
+	 */
+	private final boolean[] active;
+	/**
+	 * participant holding the turn (-1 if none)
+	 */
+	private int turn;
+
+	/**
+	 * A participant bound to a thread
+	 */
+	private static class Participant {
+		/**
+		 * the turns it takes part in
+		 */
+		final TurnTaking turns;
+		/**
+		 * index of the participant
+		 */
+		final int index;
+		/**
+		 * whether it is currently outside its turn
+		 */
+		boolean outside;
+		
+		/**
+		 * Creates the participant
+		 * @param turns the turns it takes part in
+		 * @param index index of the participant
+		 */
+		Participant(TurnTaking turns, int index) {
+			this.turns = turns;
+			this.index = index;
+			outside = false;
+		}
+	}
+
+	/**
+	 * Creates the turns. The first turn belongs to participant 0.
+	 * @param n number of participants
+	 */
+	public TurnTaking(int n) {
+		lock = new ReentrantLock();
+		myTurn = new Condition[n];
+		active = new boolean[n];
+		for (int i=0; i<n; i++) {
+			myTurn[i] = lock.newCondition();
+			active[i] = true;
+		}
+		turn = (n > 0) ? 0 : -1;
+	}
+
+	/**
+	 * Binds the current thread to a participant and waits for its turn
+	 * @param index index of the participant
+	 */
+	public void join(int index) {
+		current.set(new Participant(this, index));
+		acquire(index);
+	}
+
+	/**
+	 * Passes the turn to the next participant for good, and unbinds the current thread
+	 * (nothing is done if the thread is not bound to a participant)
+	 */
+	public static void leave() {
+		Participant p = current.get();
+		if (p == null)
+			return;
+		current.remove();
+		if (p.outside)
+			p.turns.acquire(p.index);
+		p.turns.release(p.index, true);
+	}
+
+	/**
+	 * Performs a computation outside the turn of the participant bound to the current thread,
+	 * and waits for its next turn. It is performed directly if the thread is not bound to a
+	 * participant (or it is already outside its turn).
+	 * @param <T> type of the result
+	 * @param task the computation
+	 * @return the result of the computation
+	 */
+	public static <T> T outside(Supplier<T> task) {
+		Participant p = current.get();
+		if ((p == null) || p.outside)
+			return task.get();
+		p.turns.release(p.index, false);
+		p.outside = true;
+		try {
+			return task.get();
+		}
+		finally {
+			p.turns.acquire(p.index);
+			p.outside = false;
+		}
+	}
+
+	/**
+	 * Waits for the turn of a participant
+	 * @param index index of the participant
+	 */
+	private void acquire(int index) {
+		lock.lock();
+		try {
+			while (turn != index)
+				myTurn[index].awaitUninterruptibly();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Passes the turn from a participant to the next active one (possibly itself)
+	 * @param index index of the participant holding the turn
+	 * @param leaving whether the participant is leaving
+	 */
+	private void release(int index, boolean leaving) {
+		lock.lock();
+		try {
+			if (leaving)
+				active[index] = false;
+			int n = active.length;
+			turn = -1;
+			for (int k=1; k<=n; k++) {
+				int j = (index + k) % n;
+				if (active[j]) {
+					turn = j;
+					myTurn[j].signal();
+					break;
+				}
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package es.uma.lcc.caesium.problem.aircontrol.batch;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+import com.github.cliftonlabs.json_simple.JsonArray;
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.ea.RunEA4AirControl;
+import es.uma.lcc.caesium.problem.aircontrol.grasp.RunGRASP4AirControl;
+import es.uma.lcc.caesium.problem.aircontrol.lns.RunLNS4AirControl;
+
+/**
+ * Families of algorithms that can be run in batch
+ * @author ccottap
+ * @version 1.4
+ */
+public enum AlgorithmFamily {
+	/**
+	 * evolutionary and memetic algorithms
+	 */
+	EA,
+	/**
+	 * reactive GRASP
+	 */
+	GRASP,
+	/**
+	 * large neighborhood search
+	 */
+	LNS;
+	
+	/**
+	 * Returns the family with a certain name (case insensitive)
+	 * @param name the name of the family
+	 * @return the family with said name
+	 */
+	public static AlgorithmFamily fromString(String name) {
+		return valueOf(name.trim().toUpperCase());
+	}
+	
+	/**
+	 * Checks whether several runs of this family can be performed concurrently in the same
+	 * process with reproducible results (EAs cannot: the EA library uses a static random generator)
+	 * @return true iff concurrent runs of this family are reproducible
+	 */
+	public boolean allowsConcurrentRuns() {
+		return this != EA;
+	}
+	
+	/**
+	 * Performs a single, independent run of an algorithm of this family
+	 * @param algorithm name of the algorithm configuration (without the .json extension)
+	 * @param instance name of the problem instance (without the .acp extension)
+	 * @param run index of the run
+	 * @return the statistics of the run
+	 * @throws IOException if a file cannot be read 
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 */
+	public JsonObject runSingle(String algorithm, String instance, int run) throws IOException, JsonException {
+		switch (this) {
+		case GRASP:
+			return RunGRASP4AirControl.runSingle(algorithm, instance, run);
+		case LNS:
+			return RunLNS4AirControl.runSingle(algorithm, instance, run);
+		case EA:
+		default:
+			return RunEA4AirControl.runSingle(algorithm, instance, run);
+		}
+	}
+	
+	/**
+	 * Solves a problem instance with an algorithm of this family (a single run with a given seed)
+	 * @param algorithm name of the algorithm configuration (without the .json extension)
+	 * @param conf the algorithm configuration
+	 * @param acp the problem instance
+	 * @param seed the seed of the run
+	 * @return the best schedule found
+	 * @throws JsonException if the configuration is not correctly formatted
+	 */
+	public List<LandingInformation> solve(String algorithm, JsonObject conf, AirControlProblem acp, long seed) throws JsonException {
+		switch (this) {
+		case GRASP:
+			return RunGRASP4AirControl.solve(conf, acp, seed);
+		case LNS:
+			return RunLNS4AirControl.solve(conf, acp, seed);
+		case EA:
+		default:
+			return RunEA4AirControl.solve(algorithm, conf, acp, seed);
+		}
+	}
+	
+	/**
+	 * Aggregates the statistics of independent runs of an algorithm of this family in the format
+	 * of the statistics file written when all runs are performed by the algorithm itself. Parallel
+	 * algorithms and LNS write an array with the statistics of each run. Otherwise, the statistics
+	 * of the runs are merged: arrays are concatenated in run order, objects (e.g., the termination
+	 * of each run) are collected in an array, and scalars are kept if they are the same in all runs
+	 * (or collected in an array if not), except for the number of runs.
+	 * @param conf the algorithm configuration
+	 * @param runs the statistics of each run, in run order
+	 * @return the aggregated statistics, serialized
+	 */
+	public String aggregate(JsonObject conf, List<JsonObject> runs) {
+		if ((this == LNS) || conf.containsKey("parallel")) {
+			JsonArray stats = new JsonArray();
+			stats.addAll(runs);
+			return stats.toJson();
+		}
+		JsonObject stats = new JsonObject();
+		for (String key: runs.get(0).keySet()) {
+			JsonArray values = new JsonArray();
+			boolean same = true;
+			for (JsonObject run: runs) {
+				Object value = run.get(key);
+				if (value instanceof JsonArray)
+					values.addAll((JsonArray) value);
+				else
+					values.add(value);
+				same &= !(value instanceof JsonArray) && !(value instanceof JsonObject) && Objects.equals(value, values.get(0));
+			}
+			if (key.equals("numruns"))
+				stats.put(key, runs.size());
+			else if (same)
+				stats.put(key, values.get(0));
+			else
+				stats.put(key, values);
+		}
+		return Jsoner.serialize(stats);
+	}
+}
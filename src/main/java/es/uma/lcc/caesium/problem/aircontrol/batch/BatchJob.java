@@ -0,0 +1,43 @@
+package es.uma.lcc.caesium.problem.aircontrol.batch;
+
+/**
+ * A job in a batch of experiments: a single run of an algorithm on a problem instance
+ * @param family the algorithm family
+ * @param algorithm name of the algorithm configuration (without the .json extension)
+ * @param instance name of the problem instance (without the .acp extension)
+ * @param run index of the run
+ * @author ccottap
+ * @version 1.2
+ */
+public record BatchJob(AlgorithmFamily family, String algorithm, String instance, int run) {
+	
+	/**
+	 * Returns the name of the file with the aggregated statistics of all runs of 
+	 * the algorithm on the instance (the same as when the algorithm is run on its own)
+	 * @return the name of the file with the aggregated statistics
+	 */
+	public String statsFile() {
+		return algorithm + "-stats-" + instance + ".json";
+	}
+	
+	/**
+	 * Returns the name of the file with the statistics of this run
+	 * @return the name of the file with the statistics of this run
+	 */
+	public String runFile() {
+		return algorithm + "-stats-" + instance + ".run" + run + ".json";
+	}
+	
+	/**
+	 * Returns the name of the file that marks this job as completed
+	 * @return the name of the file that marks this job as completed
+	 */
+	public String markerFile() {
+		return algorithm + "-stats-" + instance + ".run" + run + ".done";
+	}
+	
+	@Override
+	public String toString() {
+		return family + " " + algorithm + " " + instance + " #" + run;
+	}
+}
@@ -0,0 +1,296 @@
+package es.uma.lcc.caesium.problem.aircontrol.batch;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+
+/**
+ * Executes a batch of jobs on a bounded pool of worker threads. Each job that completes
+ * successfully leaves its statistics and a completion marker on disk, so that an interrupted
+ * batch can be resumed by skipping the jobs already marked as done. A job that fails or exceeds
+ * the wall-clock limit is reported and left unmarked, without affecting the rest of the batch.
+ * <p>
+ * Each worker runs its job in a child process (see {@link RunBatchJob}), which is killed if the
+ * job exceeds its time limit (solvers do not check for interruption). Jobs running at the same
+ * time do not share static state either, such as the random generator of the EA library.
+ * @author ccottap
+ * @version 1.2
+ */
+public class BatchScheduler {
+	/**
+	 * number of worker threads
+	 */
+	private int numThreads;
+	/**
+	 * wall-clock limit per job, in seconds (0 if no limit)
+	 */
+	private long timeLimit;
+	/**
+	 * persistent cache of results (null if none)
+	 */
+	private ResultCache cache;
+	/**
+	 * whether cached results are ignored (and overwritten)
+	 */
+	private boolean recompute;
+	/**
+	 * options of the Java virtual machines of the jobs
+	 */
+	private List<String> jvmArgs;
+
+	/**
+	 * Creates the scheduler
+	 * @param numThreads number of worker threads
+	 * @param timeLimit wall-clock limit per job, in seconds (0 if no limit)
+	 */
+	public BatchScheduler(int numThreads, long timeLimit) {
+		this.numThreads = Math.max(1, numThreads);
+		this.timeLimit = timeLimit;
+		cache = null;
+		recompute = false;
+		jvmArgs = new ArrayList<String>();
+	}
+
+	/**
+	 * Sets the persistent cache of results
+	 * @param cache the cache (null if no cache is used)
+	 * @param recompute if true, cached results are ignored and jobs are run again
+	 */
+	public void setCache(ResultCache cache, boolean recompute) {
+		this.cache = cache;
+		this.recompute = recompute;
+	}
+
+	/**
+	 * Sets the options of the Java virtual machines in which jobs are run (e.g., the heap size)
+	 * @param jvmArgs the options
+	 */
+	public void setJvmArguments(List<String> jvmArgs) {
+		this.jvmArgs = new ArrayList<String>(jvmArgs);
+	}
+
+	/**
+	 * Checks whether a job has been completed
+	 * @param job the job
+	 * @return true iff the job has a completion marker
+	 */
+	public static boolean isDone(BatchJob job) {
+		return Files.exists(Paths.get(job.markerFile()));
+	}
+
+	/**
+	 * Runs the jobs not completed yet
+	 * @param jobs the jobs
+	 * @return the number of jobs that did not complete
+	 */
+	public int run(List<BatchJob> jobs) {
+		List<BatchJob> pending = new ArrayList<BatchJob>(jobs.size());
+		for (BatchJob job: jobs) {
+			if (!isDone(job))
+				pending.add(job);
+		}
+		System.out.println((jobs.size() - pending.size()) + " jobs already done, " + pending.size() + " pending");
+
+		ExecutorService workers = Executors.newFixedThreadPool(numThreads, daemonFactory("batch-worker"));
+		// child processes are killed if the batch is stopped
+		Thread killer = new Thread(() -> ProcessHandle.current().descendants().forEach(ProcessHandle::destroyForcibly));
+		Runtime.getRuntime().addShutdownHook(killer);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(pending.size());
+		for (BatchJob job: pending) {
+			results.add(workers.submit(() -> execute(job)));
+		}
+
+		int failed = 0;
+		for (Future<Boolean> r: results) {
+			try {
+				if (!r.get())
+					failed++;
+			} catch (InterruptedException | ExecutionException e) {
+				failed++;
+			}
+		}
+		workers.shutdown();
+		Runtime.getRuntime().removeShutdownHook(killer);
+		return failed;
+	}
+
+	/**
+	 * Executes a job, observing the time limit
+	 * @param job the job
+	 * @return true iff the job completed
+	 */
+	private boolean execute(BatchJob job) {
+		long start = System.nanoTime();
+		try {
+			String key = null;
+			if (cache != null) {
+				key = ResultCache.key(job);
+				JsonObject cached = recompute ? null : cache.get(key);
+				if (cached != null) {
+					save(job, cached, 0);
+					System.out.println("Cached " + job);
+					return true;
+				}
+			}
+			System.out.println("Running " + job);
+			JsonObject stats = spawn(job);
+			if (stats == null) {
+				System.out.println("Timeout (" + timeLimit + "s): " + job);
+				return false;
+			}
+			save(job, stats, (System.nanoTime() - start)/1e9);
+			if (cache != null)
+				cache.put(key, job, stats);
+		} catch (Exception e) {
+			System.out.println("Failed: " + job + " (" + e + ")");
+			return false;
+		}
+		System.out.println("Done " + job + String.format(Locale.US, " (%.2fs)", (System.nanoTime() - start)/1e9));
+		return true;
+	}
+
+	/**
+	 * Runs a job in a child process, which is killed if it exceeds the time limit
+	 * @param job the job
+	 * @return the statistics of the job (null if it exceeded the time limit)
+	 * @throws IOException if the process cannot be run or its statistics cannot be read
+	 * @throws JsonException if the statistics are not correctly formatted
+	 * @throws InterruptedException if the worker is interrupted while waiting
+	 */
+	private JsonObject spawn(BatchJob job) throws IOException, JsonException, InterruptedException {
+		Path out = Paths.get(job.runFile() + ".out");
+		List<String> command = new ArrayList<String>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmArgs);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(RunBatchJob.class.getName());
+		command.add(job.family().name());
+		command.add(job.algorithm());
+		command.add(job.instance());
+		command.add(Integer.toString(job.run()));
+		command.add(out.toString());
+		Process p = new ProcessBuilder(command)
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+		try {
+			if (timeLimit > 0) {
+				if (!p.waitFor(timeLimit, TimeUnit.SECONDS)) {
+					p.destroyForcibly().waitFor();
+					Files.deleteIfExists(out);
+					return null;
+				}
+			}
+			else
+				p.waitFor();
+		} finally {
+			if (p.isAlive())
+				p.destroyForcibly();
+		}
+		if (p.exitValue() != 0)
+			throw new IOException("job exited with code " + p.exitValue());
+		FileReader reader = new FileReader(out.toFile());
+		JsonObject stats = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
+		Files.delete(out);
+		return stats;
+	}
+
+	/**
+	 * Stores the statistics of a job and then marks it as completed
+	 * @param job the job
+	 * @param stats the statistics of the job
+	 * @param seconds wall-clock time of the job
+	 * @throws IOException if the files cannot be written
+	 */
+	private void save(BatchJob job, JsonObject stats, double seconds) throws IOException {
+		Path target = Paths.get(job.runFile());
+		Path tmp = Paths.get(job.runFile() + ".tmp");
+		PrintWriter file = new PrintWriter(tmp.toFile());
+		file.print(stats.toJson());
+		file.close();
+		Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		PrintWriter marker = new PrintWriter(job.markerFile());
+		marker.println(String.format(Locale.US, "%.2f", seconds));
+		marker.close();
+	}
+
+	/**
+	 * Writes the aggregated statistics of each algorithm and instance whose runs
+	 * have all been completed, in the statistics file ({@code <algorithm>-stats-<instance>.json})
+	 * and format written when the algorithm performs all the runs itself (see
+	 * {@link AlgorithmFamily#aggregate(JsonObject, List)}). The statistics of each run are kept
+	 * in their own files.
+	 * @param jobs the jobs
+	 * @return the number of aggregated files written
+	 * @throws IOException if the files cannot be read or written
+	 * @throws JsonException if a statistics or configuration file is not correctly formatted
+	 */
+	public int aggregate(List<BatchJob> jobs) throws IOException, JsonException {
+		Map<String, List<BatchJob>> groups = new LinkedHashMap<String, List<BatchJob>>();
+		for (BatchJob job: jobs) {
+			groups.computeIfAbsent(job.statsFile(), k -> new ArrayList<BatchJob>()).add(job);
+		}
+		int num = 0;
+		for (var e: groups.entrySet()) {
+			List<BatchJob> group = e.getValue();
+			if (group.stream().allMatch(BatchScheduler::isDone)) {
+				group.sort((a,b) -> Integer.compare(a.run(), b.run()));
+				List<JsonObject> runs = new ArrayList<JsonObject>(group.size());
+				for (BatchJob job: group) {
+					FileReader reader = new FileReader(job.runFile());
+					runs.add((JsonObject) Jsoner.deserialize(reader));
+					reader.close();
+				}
+				BatchJob first = group.get(0);
+				FileReader reader = new FileReader(first.algorithm() + ".json");
+				JsonObject conf = (JsonObject) Jsoner.deserialize(reader);
+				reader.close();
+				PrintWriter file = new PrintWriter(e.getKey());
+				file.print(first.family().aggregate(conf, runs));
+				file.close();
+				num++;
+			}
+		}
+		return num;
+	}
+
+	/**
+	 * Returns a factory of daemon threads
+	 * @param name prefix for the name of the threads
+	 * @return a factory of daemon threads
+	 */
+	private static ThreadFactory daemonFactory(String name) {
+		return new ThreadFactory() {
+			private int count = 0;
+			@Override
+			public synchronized Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name + "-" + (count++));
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+}
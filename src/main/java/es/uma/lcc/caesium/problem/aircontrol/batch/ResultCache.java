@@ -0,0 +1,176 @@
+package es.uma.lcc.caesium.problem.aircontrol.batch;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+
+/**
+ * Persistent on-disk cache of the outcome of batch jobs. Each entry is keyed by a hash of the
+ * contents of the problem instance, the contents of the algorithm configuration (which includes
+ * the seed) and the run index, and stores the statistics of the run (best solution and fitness,
+ * time, evaluations...). When the total size of the cache exceeds its limit, the least recently
+ * used entries are evicted.
+ * @author ccottap
+ * @version 1.0
+ */
+public class ResultCache {
+	/**
+	 * extension of the cache entries
+	 */
+	private static final String EXTENSION = ".json";
+	/**
+	 * directory of the cache
+	 */
+	private Path dir;
+	/**
+	 * maximum size of the cache in bytes
+	 */
+	private long maxSize;
+	/**
+	 * number of hits
+	 */
+	private int hits;
+	/**
+	 * number of misses
+	 */
+	private int misses;
+
+	/**
+	 * Creates the cache
+	 * @param dir directory of the cache (created if it does not exist)
+	 * @param maxSize maximum size of the cache in bytes
+	 * @throws IOException if the directory cannot be created
+	 */
+	public ResultCache(String dir, long maxSize) throws IOException {
+		this.dir = Paths.get(dir);
+		this.maxSize = maxSize;
+		Files.createDirectories(this.dir);
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Returns the key of a job
+	 * @param job the job
+	 * @return the key of the job
+	 * @throws IOException if the instance or configuration cannot be read
+	 */
+	public static String key(BatchJob job) throws IOException {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			md.update(job.family().name().getBytes());
+			md.update(Files.readAllBytes(Paths.get(job.instance() + ".acp")));
+			md.update(Files.readAllBytes(Paths.get(job.algorithm() + ".json")));
+			md.update(ByteBuffer.allocate(Integer.BYTES).putInt(job.run()).array());
+			return HexFormat.of().formatHex(md.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the statistics stored for a key, if any
+	 * @param key the key
+	 * @return the statistics stored for said key (null if there is no such entry)
+	 */
+	public JsonObject get(String key) {
+		Path p = dir.resolve(key + EXTENSION);
+		JsonObject stats = null;
+		if (Files.exists(p)) {
+			try {
+				FileReader reader = new FileReader(p.toFile());
+				stats = (JsonObject) ((JsonObject) Jsoner.deserialize(reader)).get("stats");
+				reader.close();
+				Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis())); // recently used
+			} catch (IOException | JsonException | ClassCastException e) {
+				stats = null;	// unreadable entries are treated as missing
+			}
+		}
+		synchronized (this) {
+			if (stats == null)
+				misses++;
+			else
+				hits++;
+		}
+		return stats;
+	}
+
+	/**
+	 * Stores the statistics of a job, evicting old entries if needed
+	 * @param key the key of the job
+	 * @param job the job
+	 * @param stats the statistics of the job
+	 * @throws IOException if the entry cannot be written
+	 */
+	public void put(String key, BatchJob job, JsonObject stats) throws IOException {
+		JsonObject entry = new JsonObject();
+		entry.put("algorithm", job.algorithm());
+		entry.put("instance", job.instance());
+		entry.put("run", job.run());
+		entry.put("stats", stats);
+		Path target = dir.resolve(key + EXTENSION);
+		Path tmp = Files.createTempFile(dir, key, ".tmp");
+		PrintWriter file = new PrintWriter(tmp.toFile());
+		file.print(entry.toJson());
+		file.close();
+		Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		evict();
+	}
+
+	/**
+	 * Removes the least recently used entries until the cache fits in its size limit
+	 */
+	public synchronized void evict() {
+		File[] entries = dir.toFile().listFiles((d, name) -> name.endsWith(EXTENSION));
+		if (entries == null)
+			return;
+		long size = 0;
+		for (File f: entries)
+			size += f.length();
+		if (size <= maxSize)
+			return;
+		Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+		for (int i=0; (i<entries.length) && (size > maxSize); i++) {
+			long l = entries[i].length();
+			if (entries[i].delete())
+				size -= l;
+		}
+	}
+
+	/**
+	 * Returns the number of hits
+	 * @return the number of hits
+	 */
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of misses
+	 * @return the number of misses
+	 */
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	@Override
+	public String toString() {
+		return "ResultCache(" + dir + ", " + maxSize + " bytes)";
+	}
+}
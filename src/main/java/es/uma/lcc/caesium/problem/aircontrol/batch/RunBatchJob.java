@@ -0,0 +1,38 @@
+package es.uma.lcc.caesium.problem.aircontrol.batch;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+
+/**
+ * Runs a single batch job and writes its statistics to a file. It is launched by the
+ * {@link BatchScheduler} in a process of its own, so that the job can be killed if it exceeds
+ * its time limit, and it does not share static state (e.g., the random generator of the EA
+ * library) with other jobs running at the same time.
+ * @author ccottap
+ * @version 1.0
+ */
+public class RunBatchJob {
+
+	/**
+	 * Main method
+	 * @param args command-line arguments (family, algorithm, instance, run index and output file)
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws JsonException, IOException {
+		if (args.length < 5) {
+			System.out.println("Parameters: <family> <algorithm-configuration> <problem-data> <run> <output-file>");
+			System.exit(1);
+		}
+		BatchJob job = new BatchJob(AlgorithmFamily.fromString(args[0]), args[1], args[2], Integer.parseInt(args[3]));
+		JsonObject stats = job.family().runSingle(job.algorithm(), job.instance(), job.run());
+		PrintWriter file = new PrintWriter(args[4]);
+		file.print(stats.toJson());
+		file.close();
+		System.exit(0);		// solvers may leave worker threads behind
+	}
+
+}
@@ -0,0 +1,6 @@
+/**
+ * Running batches of experiments
+ * @author ccottap
+ * @version 1.0
+ */
+package es.uma.lcc.caesium.problem.aircontrol.batch;
@@ -2,9 +2,12 @@ package es.uma.lcc.caesium.problem.aircontrol.ea;
 
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.List;
 import java.util.Locale;
 
+import com.github.cliftonlabs.json_simple.JsonArray;
 import com.github.cliftonlabs.json_simple.JsonException;
 import com.github.cliftonlabs.json_simple.JsonObject;
 import com.github.cliftonlabs.json_simple.Jsoner;
@@ -13,17 +16,27 @@ import es.uma.lcc.caesium.ea.base.EvolutionaryAlgorithm;
 import es.uma.lcc.caesium.ea.config.EAConfiguration;
 import es.uma.lcc.caesium.ea.fitness.DiscreteObjectiveFunction;
 import es.uma.lcc.caesium.ea.statistics.EntropyDiversity;
+import es.uma.lcc.caesium.ea.util.EAUtil;
+import es.uma.lcc.caesium.ea.util.JsonUtil;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.FlightPrecedences;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.LowerBound;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlFlightDecoderObjectiveFunction;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlObjectiveFunction;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlPenaltyObjectiveFunction;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlRunwayDecoderObjectiveFunction;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.ParallelEvaluator;
+import es.uma.lcc.caesium.problem.aircontrol.ea.island.ParallelIslandModel;
 import es.uma.lcc.caesium.problem.aircontrol.ea.operator.AirControlVariationFactory;
+import es.uma.lcc.caesium.problem.aircontrol.ea.operator.BatchEvaluation;
 
 /**
  * Class for testing the evolutionary algorithm for air control
  * @author ccottap
- * @version 1.0
+ * @version 1.6
  */
 public class RunEA4AirControl {
 
@@ -40,7 +53,13 @@ public class RunEA4AirControl {
 		}
 		
 		FileReader reader = new FileReader(args[0] + ".json");
-		EAConfiguration conf = new EAConfiguration((JsonObject) Jsoner.deserialize(reader));
+		JsonObject json = (JsonObject) Jsoner.deserialize(reader);
+		long seed = json.containsKey("seed") ? JsonUtil.getLong(json, "seed") : 1;
+		if (json.containsKey("parallel")) {
+			runParallel(args[0], args[1], json, seed);
+			return;
+		}
+		EAConfiguration conf = new EAConfiguration(withBatchEvaluation(json));
 		conf.setVariationFactory(new AirControlVariationFactory());
 		
 		int numruns = conf.getNumRuns();
@@ -49,31 +68,243 @@ public class RunEA4AirControl {
 		
 		AirControlProblem acp = new AirControlProblem(args[1] + ".acp");
 		System.out.println(acp);
-		DiscreteObjectiveFunction obj;
-		if (args[0].contains("penalty") || args[0].contains("memetic") || args[0].contains("msls"))
-			obj = new AirControlPenaltyObjectiveFunction(acp);
-		else if (args[0].contains("flight"))
-			obj = new AirControlFlightDecoderObjectiveFunction(acp);
-		else if (args[0].contains("runway"))
-			obj = new AirControlRunwayDecoderObjectiveFunction(acp);
-		else
-			obj = null;
+		DiscreteObjectiveFunction obj = createObjectiveFunction(args[0], json, acp);
 		myEA.setObjectiveFunction(obj);
 		myEA.getStatistics().setDiversityMeasure(new EntropyDiversity());
+		long bound = new LowerBound(acp).compute();
+		JsonArray terminations = new JsonArray();
 
 		for (int i=0; i<numruns; i++) {
+			GapTermination termination = GapTermination.create(json, bound);
+			setTermination(obj, json, termination);
+			RandomStreams.bind(seed, i);	// problem-specific operators draw from a per-run stream
+			EAUtil.setSeed(RandomStreams.deriveSeed(seed, i));	// as in runSingle
 			myEA.run();
 			System.out.println ("Run " + i + ": " + 
 								String.format(Locale.US, "%.2f", myEA.getStatistics().getTime(i)) + "s\t" +
-								myEA.getStatistics().getBest(i).getFitness());
+								myEA.getStatistics().getBest(i).getFitness() + "\t(bound " + bound + ")");
 			System.out.println(myEA.getStatistics().getBest(i).getGenome());
 			System.out.println(acp.formatLandingInformation(((AirControlObjectiveFunction)obj).decode(myEA.getStatistics().getBest(i).getGenome())));
+			if (termination != null)
+				terminations.add(termination.toJSON());
 		}
+		JsonObject stats = myEA.getStatistics().toJSON();
+		stats.put("bound", bound);
+		if (!terminations.isEmpty())
+			stats.put("termination", terminations);
 		PrintWriter file = new PrintWriter(args[0] + "-stats-" + args[1] + ".json");
-		file.print(myEA.getStatistics().toJSON().toJson());
+		file.print(stats.toJson());
+		file.close();
+	}
+	
+	/**
+	 * Runs the parallel island model described in the configuration
+	 * @param algorithm name of the algorithm configuration
+	 * @param instance name of the problem instance
+	 * @param json the configuration
+	 * @param seed the base seed
+	 * @throws FileNotFoundException if files cannot be read or written 
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 */
+	private static void runParallel(String algorithm, String instance, JsonObject json, long seed) throws FileNotFoundException, JsonException {
+		int numruns = JsonUtil.getInt(json, "numruns");
+		AirControlProblem acp = new AirControlProblem(instance + ".acp");
+		System.out.println(acp);
+		ParallelIslandModel model = new ParallelIslandModel(algorithm, json, acp);
+		System.out.println(model);
+		AirControlObjectiveFunction obj = (AirControlObjectiveFunction) createObjectiveFunction(algorithm, json, acp);
+		JsonArray stats = new JsonArray();
+		for (int i=0; i<numruns; i++) {
+			long start = System.nanoTime();
+			stats.add(model.run(seed, i));
+			System.out.println ("Run " + i + ": " + 
+								String.format(Locale.US, "%.2f", (System.nanoTime() - start)/1e9) + "s\t" +
+								model.getBest().getFitness() + "\t(island " + model.getBestIsland() + ")");
+			System.out.println(model.getBest().getGenome());
+			System.out.println(acp.formatLandingInformation(obj.decode(model.getBest().getGenome())));
+		}
+		PrintWriter file = new PrintWriter(algorithm + "-stats-" + instance + ".json");
+		file.print(stats.toJson());
 		file.close();
 	}
 	
+	/**
+	 * Creates the objective function corresponding to an algorithm configuration
+	 * @param algorithm name of the algorithm configuration
+	 * @param acp the problem instance
+	 * @return the objective function (null if the configuration does not correspond to any known encoding)
+	 */
+	public static DiscreteObjectiveFunction createObjectiveFunction(String algorithm, AirControlProblem acp) {
+		if (algorithm.contains("penalty") || algorithm.contains("memetic") || algorithm.contains("msls") || algorithm.contains("direct"))
+			return new AirControlPenaltyObjectiveFunction(acp);
+		else if (algorithm.contains("flight"))
+			return new AirControlFlightDecoderObjectiveFunction(acp);
+		else if (algorithm.contains("runway"))
+			return new AirControlRunwayDecoderObjectiveFunction(acp);
+		else
+			return null;
+	}
+	
+	/**
+	 * Creates the objective function corresponding to an algorithm configuration. If the 
+	 * configuration contains a {@code sequencing} object and solutions are decoded from runways,
+	 * the sequence of each runway is optimized with a maximum {@code shift} of each flight with
+	 * respect to its order of arrival, keeping at most {@code labels} partial sequences per state
+	 * (0 = no limit, by default). If the configuration sets {@code dominance} to true and solutions
+	 * are permutations of flights, these are made canonical with respect to the precedences between
+	 * flights that can be fixed beforehand (see {@link FlightPrecedences}). If the configuration
+	 * contains an {@code evaluation} object, offspring are evaluated in batches by a number of
+	 * worker {@code threads} (0 = one per available processor, by default; see {@link ParallelEvaluator}).
+	 * @param algorithm name of the algorithm configuration
+	 * @param json the configuration
+	 * @param acp the problem instance
+	 * @return the objective function (null if the configuration does not correspond to any known encoding)
+	 */
+	public static DiscreteObjectiveFunction createObjectiveFunction(String algorithm, JsonObject json, AirControlProblem acp) {
+		DiscreteObjectiveFunction obj = createObjectiveFunction(algorithm, acp);
+		if ((obj instanceof AirControlRunwayDecoderObjectiveFunction) && json.containsKey("sequencing")) {
+			JsonObject seq = (JsonObject) json.get("sequencing");
+			int maxLabels = seq.containsKey("labels") ? JsonUtil.getInt(seq, "labels") : 0;
+			((AirControlRunwayDecoderObjectiveFunction) obj).setSequencer(JsonUtil.getInt(seq, "shift"), maxLabels);
+		}
+		if ((obj instanceof AirControlFlightDecoderObjectiveFunction) && json.containsKey("dominance") && (Boolean) json.get("dominance")) {
+			((AirControlFlightDecoderObjectiveFunction) obj).setPrecedences(new FlightPrecedences(acp));
+		}
+		if ((obj != null) && json.containsKey("evaluation")) {
+			JsonObject ev = (JsonObject) json.get("evaluation");
+			int threads = ev.containsKey("threads") ? JsonUtil.getInt(ev, "threads") : 0;
+			AirControlObjectiveFunction f = (AirControlObjectiveFunction) obj;
+			f.setEvaluator(new ParallelEvaluator(f, threads));
+		}
+		return obj;
+	}
+	
+	/**
+	 * Returns the configuration to be given to the EA library. If the configuration contains an
+	 * {@code evaluation} object, a {@link BatchEvaluation} operator is appended to the variation
+	 * pipeline of each island, so that offspring are registered for batch evaluation.
+	 * @param json the configuration (it is not modified)
+	 * @return the configuration, or a copy with the additional operators
+	 */
+	public static JsonObject withBatchEvaluation(JsonObject json) {
+		if (!json.containsKey("evaluation"))
+			return json;
+		JsonObject c = new JsonObject(json);
+		JsonArray islands = new JsonArray();
+		for (Object o: (JsonArray) json.get("islands")) {
+			JsonObject entry = new JsonObject((JsonObject) o);
+			JsonArray variation = new JsonArray((JsonArray) entry.get("variation"));
+			variation.add(BatchEvaluation.configuration());
+			entry.put("variation", variation);
+			islands.add(entry);
+		}
+		c.put("islands", islands);
+		return c;
+	}
+	
+	/**
+	 * Sets a termination criterion based on the optimality gap on an objective function. When
+	 * the target is reached, the evaluations of all the islands in the configuration are charged.
+	 * @param obj the objective function
+	 * @param json the configuration
+	 * @param termination the criterion (nothing is done if null)
+	 */
+	public static void setTermination(DiscreteObjectiveFunction obj, JsonObject json, GapTermination termination) {
+		if (termination == null)
+			return;
+		double budget = 0;
+		for (Object o: (JsonArray) json.get("islands")) {
+			JsonObject entry = (JsonObject) o;
+			int n = entry.containsKey("numislands") ? JsonUtil.getInt(entry, "numislands") : 1;
+			budget += n * JsonUtil.getDouble(entry, "maxevals");
+		}
+		((AirControlObjectiveFunction) obj).setTermination(termination, budget);
+	}
+	
+	/**
+	 * Performs a single, independent run of the EA. The seed of the run is derived from
+	 * the seed in the configuration and the run index, so the result does not depend on 
+	 * which other runs are performed before, and it is the same as the run with the same index
+	 * in {@link #main(String[])}. However, the EA library draws from a single static random
+	 * generator, so the run is not reproducible if other EAs run at the same time in the same
+	 * virtual machine (batch jobs run in processes of their own). Nothing is written to the 
+	 * standard output. If the configuration indicates a target {@code gap},
+	 * the run stops as soon as it is reached (see {@link GapTermination}). The statistics include
+	 * the {@link LowerBound} of the optimal cost.
+	 * @param algorithm name of the algorithm configuration (without the .json extension)
+	 * @param instance name of the problem instance (without the .acp extension)
+	 * @param run index of the run
+	 * @return the statistics of the run
+	 * @throws IOException if a file cannot be read 
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 */
+	public static JsonObject runSingle(String algorithm, String instance, int run) throws IOException, JsonException {
+		FileReader reader = new FileReader(algorithm + ".json");
+		JsonObject json = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
+		long seed = json.containsKey("seed") ? JsonUtil.getLong(json, "seed") : 1;
+		if (json.containsKey("parallel")) {
+			return new ParallelIslandModel(algorithm, json, new AirControlProblem(instance + ".acp")).run(seed, run);
+		}
+		json.put("seed", RandomStreams.deriveSeed(seed, run));
+		json.put("numruns", 1);
+		EAConfiguration conf = new EAConfiguration(withBatchEvaluation(json));
+		conf.setVariationFactory(new AirControlVariationFactory());
+		EvolutionaryAlgorithm myEA = new EvolutionaryAlgorithm(conf);
+		
+		AirControlProblem acp = new AirControlProblem(instance + ".acp");
+		DiscreteObjectiveFunction obj = createObjectiveFunction(algorithm, json, acp);
+		myEA.setObjectiveFunction(obj);
+		myEA.getStatistics().setDiversityMeasure(new EntropyDiversity());
+		long bound = new LowerBound(acp).compute();
+		GapTermination termination = GapTermination.create(json, bound);
+		setTermination(obj, json, termination);
+		
+		RandomStreams.bind(seed, run);
+		EAUtil.setSeed(RandomStreams.deriveSeed(seed, run));
+		myEA.run();
+		JsonObject stats = myEA.getStatistics().toJSON();
+		stats.put("bound", bound);
+		if (termination != null)
+			stats.put("termination", termination.toJSON());
+		return stats;
+	}
+	
+	/**
+	 * Solves a problem instance with the EA (a single run with a given seed), e.g., a 
+	 * sub-instance of a larger problem. Nothing is written to the standard output. As the EA
+	 * library draws from a single static random generator, the result is not reproducible
+	 * if other EAs run at the same time in the same virtual machine.
+	 * @param algorithm name of the algorithm configuration (it determines the encoding)
+	 * @param json the configuration (it is not modified)
+	 * @param acp the problem instance
+	 * @param seed the seed of the run
+	 * @return the best schedule found
+	 * @throws JsonException if the configuration is not correctly formatted
+	 */
+	public static List<LandingInformation> solve(String algorithm, JsonObject json, AirControlProblem acp, long seed) throws JsonException {
+		AirControlObjectiveFunction obj = (AirControlObjectiveFunction) createObjectiveFunction(algorithm, json, acp);
+		if (json.containsKey("parallel")) {
+			ParallelIslandModel model = new ParallelIslandModel(algorithm, json, acp);
+			model.run(seed, 0);
+			return obj.decode(model.getBest().getGenome());
+		}
+		JsonObject single = new JsonObject(json);
+		single.put("seed", seed);
+		single.put("numruns", 1);
+		EAConfiguration conf = new EAConfiguration(withBatchEvaluation(single));
+		conf.setVariationFactory(new AirControlVariationFactory());
+		EvolutionaryAlgorithm myEA = new EvolutionaryAlgorithm(conf);
+		myEA.setObjectiveFunction((DiscreteObjectiveFunction) obj);
+		if (json.containsKey("gap"))
+			setTermination((DiscreteObjectiveFunction) obj, json, GapTermination.create(json, new LowerBound(acp).compute()));
+		
+		RandomStreams.bind(seed);
+		EAUtil.setSeed(seed);
+		myEA.run();
+		return obj.decode(myEA.getStatistics().getBest(0).getGenome());
+	}
+	
 	
 	
 	
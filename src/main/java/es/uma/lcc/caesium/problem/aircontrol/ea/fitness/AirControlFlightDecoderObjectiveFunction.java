@@ -8,15 +8,19 @@ import es.uma.lcc.caesium.ea.base.Individual;
 import es.uma.lcc.caesium.ea.fitness.OptimizationSense;
 import es.uma.lcc.caesium.ea.fitness.PermutationalObjectiveFunction;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.FlightPrecedences;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
 import es.uma.lcc.caesium.problem.aircontrol.LandingDecoder;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.TurnTaking;
 
 /**
  * Objective function for the Air Control Problem. Solutions are represented as 
  * permutations of the flights, and a decoder is used to determine the precise landing 
- * information.
+ * information. If precedences between flights are set, permutations are made canonical
+ * (consistent with them) before being decoded, and evaluated individuals keep the canonical one.
  * @author ccottap
- * @version 1.0
+ * @version 1.7
  */
 public class AirControlFlightDecoderObjectiveFunction extends PermutationalObjectiveFunction implements AirControlObjectiveFunction {
 	/**
@@ -27,6 +31,30 @@ public class AirControlFlightDecoderObjectiveFunction extends PermutationalObjec
 	 * decoder
 	 */
 	private LandingDecoder ld;
+	/**
+	 * termination criterion based on the optimality gap (null if none)
+	 */
+	private GapTermination termination;
+	/**
+	 * evaluations to be charged when the target gap is reached
+	 */
+	private double budget;
+	/**
+	 * copy of the best genotype evaluated so far (null if none)
+	 */
+	private Genotype best;
+	/**
+	 * cost of the best genotype evaluated so far
+	 */
+	private double bestCost;
+	/**
+	 * evaluator of batches of offspring in parallel (null if none)
+	 */
+	private ParallelEvaluator evaluator;
+	/**
+	 * precedences between flights (null if none)
+	 */
+	private FlightPrecedences precedences;
 	
 	/**
 	 * Basic constructor of the objective function
@@ -36,6 +64,9 @@ public class AirControlFlightDecoderObjectiveFunction extends PermutationalObjec
 		super(acp.getNumFlights());
 		this.acp = acp;
 		ld = new LandingDecoder(acp);
+		termination = null;
+		evaluator = null;
+		precedences = null;
 	}
 
 	@Override
@@ -50,28 +81,141 @@ public class AirControlFlightDecoderObjectiveFunction extends PermutationalObjec
 	 */
 	public List<LandingInformation> decode (Genotype g) {
 		int l = acp.getNumFlights();
+		int[] flights = canonical(g);
 		List<String> order = new ArrayList<String>(l);
 		for (int k=0; k<l; k++) {
-			order.add(acp.getFlightID((int)g.getGene(k)));
+			order.add(acp.getFlightID(flights[k]));
 		} 
 		return ld.decode(order);
 	}
+	
+	/**
+	 * Returns the permutation encoded in a genotype, made canonical if precedences are set
+	 * @param g the genotype
+	 * @return the indices of the flights in order
+	 */
+	private int[] canonical (Genotype g) {
+		int l = acp.getNumFlights();
+		int[] flights = new int[l];
+		for (int k=0; k<l; k++) {
+			flights[k] = (int)g.getGene(k);
+		}
+		FlightPrecedences fp = precedences;
+		if (fp != null) {
+			if (fp.getVersion() != acp.getVersion()) {
+				// arrival times have changed: the precedences are out of date
+				fp = new FlightPrecedences(acp);
+				precedences = fp;
+			}
+			fp.canonicalize(flights);
+		}
+		return flights;
+	}
 
 	@Override
 	protected double _evaluate(Individual i) {
-		var wait = acp.waitingTime(decode(i.getGenome()));
+		if (termination != null)
+			termination.charge(1);
+		if (precedences != null) {
+			Genotype g = i.getGenome();
+			int[] flights = canonical(g);
+			for (int k=0; k<flights.length; k++) {
+				g.setGene(k, flights[k]);
+			}
+		}
+		Evaluation e = TurnTaking.outside(() -> (evaluator != null) ? evaluator.evaluate(i) : assess(i.getGenome()));
+		double total = e.cost();
+		if (e.extra() > 0)
+			addExtraCost(e.extra());
+		if ((best == null) || (total < bestCost)) {
+			Genotype g = i.getGenome();
+			best = new Genotype(g.length());
+			for (int k=0; k<g.length(); k++)
+				best.setGene(k, g.getGene(k));
+			bestCost = total;
+		}
+		if ((termination != null) && (budget > 0) && termination.check(total)) {
+			addExtraCost(budget);		// the run stops when its evaluations are exhausted
+			budget = 0;
+		}
+		return total;
+	}
+	
+	@Override
+	public double cost(Genotype g) {
+		var wait = acp.waitingTime(decode(g));
 		long total = 0;
 		for (var e: wait.entrySet()) { 
 			long w = e.getValue();
 			total += w*w;
 		}
-		addExtraCost(acp.getNumRunways()-1);
 		return total;
 	}
 	
+	@Override
+	public Evaluation assess(Genotype g) {
+		return new Evaluation(cost(g), acp.getNumRunways()-1);
+	}
+	
+	@Override
+	public AirControlObjectiveFunction copy() {
+		AirControlFlightDecoderObjectiveFunction c = new AirControlFlightDecoderObjectiveFunction(acp);
+		c.setPrecedences(precedences);
+		return c;
+	}
+	
+	@Override
+	public void setEvaluator(ParallelEvaluator evaluator) {
+		this.evaluator = evaluator;
+	}
+	
+	@Override
+	public ParallelEvaluator getEvaluator() {
+		return evaluator;
+	}
+	
+	@Override
+	public Genotype getBestGenotype() {
+		return best;
+	}
+	
 	@Override
 	public AirControlProblem getProblemData() {
 		return acp;
 	}
+	
+	@Override
+	public int getGenomeLength() {
+		return acp.getNumFlights();
+	}
+	
+	/**
+	 * Sets the precedences between flights used to make permutations canonical
+	 * @param precedences the precedences (null for none)
+	 */
+	public void setPrecedences(FlightPrecedences precedences) {
+		this.precedences = precedences;
+	}
+	
+	/**
+	 * Returns the precedences between flights used to make permutations canonical
+	 * @return the precedences (null if none)
+	 */
+	public FlightPrecedences getPrecedences() {
+		return precedences;
+	}
+	
+	@Override
+	public void addExtraCost(double cost) {
+		super.addExtraCost(cost);
+		if (termination != null)
+			termination.charge(cost);
+	}
+	
+	@Override
+	public void setTermination(GapTermination termination, double budget) {
+		this.termination = termination;
+		this.budget = budget;
+	}
 
 }
@@ -4,12 +4,13 @@ import java.util.List;
 
 import es.uma.lcc.caesium.ea.base.Genotype;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
 
 /**
  * Interface for objective functions of the Air Control problem
  * @author ccottap
- * @version 1.0
+ * @version 1.5
  */
 public interface AirControlObjectiveFunction {
 	/**
@@ -24,4 +25,62 @@ public interface AirControlObjectiveFunction {
 	 * @return a list of Landing information records
 	 */
 	public List<LandingInformation> decode (Genotype g);
+	
+	/**
+	 * Returns the length of the genotypes
+	 * @return the length of the genotypes
+	 */
+	public int getGenomeLength();
+	
+	/**
+	 * Computes the cost of a genotype, without any other side effect (no evaluations
+	 * or extra costs are charged).
+	 * @param g the genotype
+	 * @return the cost of the genotype
+	 */
+	public double cost(Genotype g);
+	
+	/**
+	 * Computes the cost of a genotype and the extra cost charged for it, without charging
+	 * anything. It only uses the internal buffers of the objective function, so different
+	 * copies can do this concurrently.
+	 * @param g the genotype
+	 * @return the cost of the genotype and the extra cost of its assessment
+	 */
+	public Evaluation assess(Genotype g);
+	
+	/**
+	 * Returns a new, independent objective function for the same problem instance and settings
+	 * (with its own decoders and internal buffers), without termination criterion
+	 * @return a new objective function for the same problem instance
+	 */
+	public AirControlObjectiveFunction copy();
+	
+	/**
+	 * Sets the evaluator of batches of offspring in parallel
+	 * @param evaluator the evaluator (null if offspring are evaluated one at a time)
+	 */
+	public void setEvaluator(ParallelEvaluator evaluator);
+	
+	/**
+	 * Returns the evaluator of batches of offspring in parallel
+	 * @return the evaluator (null if offspring are evaluated one at a time)
+	 */
+	public ParallelEvaluator getEvaluator();
+	
+	/**
+	 * Returns the best genotype evaluated so far (a copy, which is not to be modified)
+	 * @return the best genotype evaluated so far (null if none)
+	 */
+	public Genotype getBestGenotype();
+	
+	/**
+	 * Sets a termination criterion based on the optimality gap. Once the target is reached,
+	 * the remaining evaluations of the run are charged at once as extra cost, so the EA stops.
+	 * Evaluations (including extra costs) are also charged to the criterion, which records how
+	 * many had been performed when the target was reached.
+	 * @param termination the criterion (null for none)
+	 * @param budget the number of evaluations of the run
+	 */
+	public void setTermination(GapTermination termination, double budget);
 }
@@ -10,13 +10,15 @@ import es.uma.lcc.caesium.ea.fitness.OptimizationSense;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
 import es.uma.lcc.caesium.problem.aircontrol.AirplaneType;
 import es.uma.lcc.caesium.problem.aircontrol.Flight;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.TurnTaking;
 
 /**
  * Objective function for the Air Control Problem. Solutions are represented as 
  * a list of landing times followed by landing runways. Some solution might be infeasible.
  * @author ccottap
- * @version 1.0
+ * @version 1.6
  */
 public class AirControlPenaltyObjectiveFunction extends DiscreteObjectiveFunction implements AirControlObjectiveFunction {
 	/**
@@ -31,6 +33,26 @@ public class AirControlPenaltyObjectiveFunction extends DiscreteObjectiveFunctio
 	 * maximum separation between flights
 	 */
 	private long maxSeparation;
+	/**
+	 * termination criterion based on the optimality gap (null if none)
+	 */
+	private GapTermination termination;
+	/**
+	 * evaluations to be charged when the target gap is reached
+	 */
+	private double budget;
+	/**
+	 * copy of the best genotype evaluated so far (null if none)
+	 */
+	private Genotype best;
+	/**
+	 * cost of the best genotype evaluated so far
+	 */
+	private double bestCost;
+	/**
+	 * evaluator of batches of offspring in parallel (null if none)
+	 */
+	private ParallelEvaluator evaluator;
 	
 	
 	/**
@@ -40,12 +62,14 @@ public class AirControlPenaltyObjectiveFunction extends DiscreteObjectiveFunctio
 	public AirControlPenaltyObjectiveFunction(AirControlProblem acp) {
 		super(2*acp.getNumFlights());
 		this.acp = acp;
+		termination = null;
+		evaluator = null;
 		int numRunways = acp.getNumRunways();
 		minTime = Long.MAX_VALUE;
 		long maxTime = -1;
 		for (String id: acp.getFlightIDs()) {
 			Flight f = acp.getFlight(id);
-			for (int j=0; j<numRunways; j++) {
+			for (int j: f.getEligibleRunways()) {
 				long t = f.getArrivalTime(j);
 				if (t < minTime)
 					minTime = t;
@@ -108,7 +132,29 @@ public class AirControlPenaltyObjectiveFunction extends DiscreteObjectiveFunctio
 	
 	@Override
 	protected double _evaluate(Individual i) {
-		var info = decode(i.getGenome());
+		if (termination != null)
+			termination.charge(1);
+		Evaluation e = TurnTaking.outside(() -> (evaluator != null) ? evaluator.evaluate(i) : assess(i.getGenome()));
+		double total = e.cost();
+		if (e.extra() > 0)
+			addExtraCost(e.extra());
+		if ((best == null) || (total < bestCost)) {
+			Genotype g = i.getGenome();
+			best = new Genotype(g.length());
+			for (int k=0; k<g.length(); k++)
+				best.setGene(k, g.getGene(k));
+			bestCost = total;
+		}
+		if ((termination != null) && (budget > 0) && termination.check(total)) {
+			addExtraCost(budget);		// the run stops when its evaluations are exhausted
+			budget = 0;
+		}
+		return total;
+	}
+	
+	@Override
+	public double cost(Genotype g) {
+		var info = decode(g);
 		long last =0;
 		for (var li: info) {
 			if (li.time() > last)
@@ -130,9 +176,52 @@ public class AirControlPenaltyObjectiveFunction extends DiscreteObjectiveFunctio
 		return total;
 	}
 	
+	@Override
+	public Evaluation assess(Genotype g) {
+		return new Evaluation(cost(g), 0);
+	}
+	
+	@Override
+	public AirControlObjectiveFunction copy() {
+		return new AirControlPenaltyObjectiveFunction(acp);
+	}
+	
+	@Override
+	public void setEvaluator(ParallelEvaluator evaluator) {
+		this.evaluator = evaluator;
+	}
+	
+	@Override
+	public ParallelEvaluator getEvaluator() {
+		return evaluator;
+	}
+	
+	@Override
+	public Genotype getBestGenotype() {
+		return best;
+	}
+	
 	@Override
 	public AirControlProblem getProblemData() {
 		return acp;
 	}
+	
+	@Override
+	public int getGenomeLength() {
+		return 2*acp.getNumFlights();
+	}
+	
+	@Override
+	public void addExtraCost(double cost) {
+		super.addExtraCost(cost);
+		if (termination != null)
+			termination.charge(cost);
+	}
+	
+	@Override
+	public void setTermination(GapTermination termination, double budget) {
+		this.termination = termination;
+		this.budget = budget;
+	}
 
 }
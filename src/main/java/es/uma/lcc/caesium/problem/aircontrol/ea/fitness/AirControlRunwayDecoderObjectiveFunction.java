@@ -1,5 +1,6 @@
 package es.uma.lcc.caesium.problem.aircontrol.ea.fitness;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,16 +10,22 @@ import es.uma.lcc.caesium.ea.base.Individual;
 import es.uma.lcc.caesium.ea.fitness.DiscreteObjectiveFunction;
 import es.uma.lcc.caesium.ea.fitness.OptimizationSense;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
 import es.uma.lcc.caesium.problem.aircontrol.LandingDecoder;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.RunwaySequencer;
+import es.uma.lcc.caesium.problem.aircontrol.TurnTaking;
 
 /**
  * Objective function for the Air Control Problem. Solutions are represented as a
  * list of runways, of the same length as the number of flights. This is decoded by 
  * sorting the flights on each runway by their arrival time, and assigning each 
- * flight the earliest possible landing time on their assigned runway.
+ * flight the earliest possible landing time on their assigned runway. Optionally, the sequence
+ * of each runway is then optimized (see {@link RunwaySequencer}), allowing flights to deviate
+ * from the order of arrival; the partial sequences it generates are charged as extra evaluations
+ * (the flights of the instance amount to one evaluation), as in {@code LandingSequencing}.
  * @author ccottap
- * @version 1.0
+ * @version 1.8
  */
 public class AirControlRunwayDecoderObjectiveFunction extends DiscreteObjectiveFunction implements AirControlObjectiveFunction {
 	/**
@@ -29,6 +36,34 @@ public class AirControlRunwayDecoderObjectiveFunction extends DiscreteObjectiveF
 	 * decoder
 	 */
 	private LandingDecoder ld;
+	/**
+	 * termination criterion based on the optimality gap (null if none)
+	 */
+	private GapTermination termination;
+	/**
+	 * evaluations to be charged when the target gap is reached
+	 */
+	private double budget;
+	/**
+	 * copy of the best genotype evaluated so far (null if none)
+	 */
+	private Genotype best;
+	/**
+	 * cost of the best genotype evaluated so far
+	 */
+	private double bestCost;
+	/**
+	 * evaluator of batches of offspring in parallel (null if none)
+	 */
+	private ParallelEvaluator evaluator;
+	/**
+	 * sequencer of the flights on each runway (null if the order of arrival is kept)
+	 */
+	private RunwaySequencer sequencer;
+	/**
+	 * number of partial sequences generated by the sequencer in the last decoding
+	 */
+	private int generated;
 	
 	/**
 	 * Basic constructor of the objective function
@@ -38,6 +73,24 @@ public class AirControlRunwayDecoderObjectiveFunction extends DiscreteObjectiveF
 		super(acp.getNumFlights(), acp.getNumRunways());
 		this.acp = acp;
 		ld = new LandingDecoder(acp);
+		termination = null;
+		evaluator = null;
+		sequencer = null;
+	}
+	
+	/**
+	 * Sets the sequencer of the flights on each runway
+	 * @param maxShift maximum shift of a flight with respect to its order of arrival (negative if
+	 * the order of arrival is kept)
+	 * @param maxLabels maximum number of partial sequences kept per state (0 = no limit)
+	 */
+	public void setSequencer(int maxShift, int maxLabels) {
+		if (maxShift < 0)
+			sequencer = null;
+		else {
+			sequencer = new RunwaySequencer(maxShift, maxLabels);
+			sequencer.setData(acp);
+		}
 	}
 
 	@Override
@@ -56,7 +109,13 @@ public class AirControlRunwayDecoderObjectiveFunction extends DiscreteObjectiveF
 		for (int k=0; k<l; k++) {
 			runways.put(acp.getFlightID(k), (int)g.getGene(k));
 		} 
-		return ld.decode(runways);
+		List<LandingInformation> info = ld.decode(runways);
+		if (sequencer != null) {
+			List<LandingInformation> sequenced = new ArrayList<LandingInformation>(l);
+			generated = sequencer.optimize(info, sequenced);
+			info = sequenced;
+		}
+		return info;
 	}
 	
 	
@@ -78,7 +137,29 @@ public class AirControlRunwayDecoderObjectiveFunction extends DiscreteObjectiveF
 
 	@Override
 	protected double _evaluate(Individual i) {
-		var wait = acp.waitingTime(decode(i.getGenome()));
+		if (termination != null)
+			termination.charge(1);
+		Evaluation e = TurnTaking.outside(() -> (evaluator != null) ? evaluator.evaluate(i) : assess(i.getGenome()));
+		double total = e.cost();
+		if (e.extra() > 0)
+			addExtraCost(e.extra());
+		if ((best == null) || (total < bestCost)) {
+			Genotype g = i.getGenome();
+			best = new Genotype(g.length());
+			for (int k=0; k<g.length(); k++)
+				best.setGene(k, g.getGene(k));
+			bestCost = total;
+		}
+		if ((termination != null) && (budget > 0) && termination.check(total)) {
+			addExtraCost(budget);		// the run stops when its evaluations are exhausted
+			budget = 0;
+		}
+		return total;
+	}
+	
+	@Override
+	public double cost(Genotype g) {
+		var wait = acp.waitingTime(decode(g));
 		long total = 0;
 		for (var e: wait.entrySet()) { 
 			long w = e.getValue();
@@ -87,9 +168,59 @@ public class AirControlRunwayDecoderObjectiveFunction extends DiscreteObjectiveF
 		return total;
 	}
 
+	@Override
+	public Evaluation assess(Genotype g) {
+		double total = cost(g);
+		double extra = 0;
+		if (sequencer != null)
+			extra = Math.max(0.0, (double)generated/(double)acp.getNumFlights() - 1); // -1 because the solution is evaluated anyway
+		return new Evaluation(total, extra);
+	}
+	
+	@Override
+	public AirControlObjectiveFunction copy() {
+		AirControlRunwayDecoderObjectiveFunction c = new AirControlRunwayDecoderObjectiveFunction(acp);
+		if (sequencer != null)
+			c.setSequencer(sequencer.getMaxShift(), sequencer.getMaxLabels());
+		return c;
+	}
+	
+	@Override
+	public void setEvaluator(ParallelEvaluator evaluator) {
+		this.evaluator = evaluator;
+	}
+	
+	@Override
+	public ParallelEvaluator getEvaluator() {
+		return evaluator;
+	}
+	
+	@Override
+	public Genotype getBestGenotype() {
+		return best;
+	}
+	
 	@Override
 	public AirControlProblem getProblemData() {
 		return acp;
 	}
+	
+	@Override
+	public int getGenomeLength() {
+		return acp.getNumFlights();
+	}
+	
+	@Override
+	public void addExtraCost(double cost) {
+		super.addExtraCost(cost);
+		if (termination != null)
+			termination.charge(cost);
+	}
+	
+	@Override
+	public void setTermination(GapTermination termination, double budget) {
+		this.termination = termination;
+		this.budget = budget;
+	}
 
 }
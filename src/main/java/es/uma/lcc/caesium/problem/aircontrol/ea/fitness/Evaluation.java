@@ -0,0 +1,13 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.fitness;
+
+/**
+ * Outcome of assessing a genotype: its cost, and the extra evaluations its assessment
+ * amounts to (e.g., partial sequences generated by a decoder), to be charged when the
+ * corresponding individual is evaluated
+ * @param cost the cost of the genotype
+ * @param extra the extra cost of the assessment, in evaluations
+ * @author ccottap
+ * @version 1.0
+ */
+public record Evaluation(double cost, double extra) {
+}
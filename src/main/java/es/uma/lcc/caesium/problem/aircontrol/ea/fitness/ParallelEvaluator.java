@@ -0,0 +1,170 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.fitness;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import es.uma.lcc.caesium.ea.base.Individual;
+
+/**
+ * Evaluates batches of offspring in parallel. Offspring are registered as they are created
+ * (see {@code BatchEvaluation}), and the first time one of them is evaluated, the whole batch
+ * pending is assessed on a pool of worker threads, each of them with its own copy of the
+ * objective function (and hence its own decoders and buffers). The objective function then
+ * collects the outcome of each individual when it evaluates it, charging its evaluation and
+ * extra costs in the same order as in a sequential evaluation. Individuals are identified by
+ * reference. If the EA library evaluates each offspring right after it is created, batches
+ * have a single individual, which is assessed by the calling thread.
+ * @author ccottap
+ * @version 1.0
+ */
+public class ParallelEvaluator {
+	/**
+	 * time after which idle worker threads are stopped (in seconds)
+	 */
+	private static final long KEEP_ALIVE = 1;
+	/**
+	 * the objective function
+	 */
+	private AirControlObjectiveFunction obj;
+	/**
+	 * number of worker threads
+	 */
+	private int numThreads;
+	/**
+	 * the worker threads (created on demand)
+	 */
+	private ThreadPoolExecutor pool;
+	/**
+	 * copy of the objective function for each task of a batch (created on demand)
+	 */
+	private AirControlObjectiveFunction[] copies;
+	/**
+	 * offspring registered and not assessed yet, in order of creation
+	 */
+	private List<Individual> pending;
+	/**
+	 * the same offspring, for identity lookups
+	 */
+	private Set<Individual> registered;
+	/**
+	 * outcome of the offspring assessed and not evaluated yet
+	 */
+	private Map<Individual, Evaluation> assessed;
+
+	/**
+	 * Creates the evaluator
+	 * @param obj the objective function
+	 * @param numThreads number of worker threads (if 0 or negative, the number of available processors)
+	 */
+	public ParallelEvaluator(AirControlObjectiveFunction obj, int numThreads) {
+		this.obj = obj;
+		this.numThreads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+		pool = null;
+		copies = new AirControlObjectiveFunction[this.numThreads];
+		pending = new ArrayList<Individual>();
+		registered = Collections.newSetFromMap(new IdentityHashMap<Individual, Boolean>());
+		assessed = new IdentityHashMap<Individual, Evaluation>();
+	}
+
+	/**
+	 * Returns the number of worker threads
+	 * @return the number of worker threads
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Registers an offspring to be assessed in the next batch
+	 * @param i the offspring
+	 */
+	public void register(Individual i) {
+		if (registered.add(i))
+			pending.add(i);
+	}
+
+	/**
+	 * Returns the outcome of assessing an individual. If it is pending, the whole batch is
+	 * assessed in parallel. If it was not registered, it is assessed by the calling thread
+	 * (and the batch pending, if any, is discarded, since the EA library is not evaluating
+	 * the offspring registered).
+	 * @param i the individual
+	 * @return the cost of the individual and the extra cost of its assessment
+	 */
+	public Evaluation evaluate(Individual i) {
+		Evaluation e = assessed.remove(i);
+		if (e != null)
+			return e;
+		if (registered.contains(i)) {
+			assessBatch();
+			return assessed.remove(i);
+		}
+		pending.clear();
+		registered.clear();
+		return obj.assess(i.getGenome());
+	}
+
+	/**
+	 * Assesses the batch of offspring pending, in parallel
+	 */
+	private void assessBatch() {
+		assessed.clear();
+		int n = pending.size();
+		Evaluation[] outcome = new Evaluation[n];
+		int numTasks = Math.min(numThreads, n);
+		if (numTasks <= 1) {
+			for (int k=0; k<n; k++)
+				outcome[k] = obj.assess(pending.get(k).getGenome());
+		}
+		else {
+			if (pool == null) {
+				pool = new ThreadPoolExecutor(numThreads, numThreads, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+					Thread t = new Thread(r, "evaluator");
+					t.setDaemon(true);
+					return t;
+				});
+				pool.allowCoreThreadTimeOut(true);
+			}
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numTasks);
+			for (int t=0; t<numTasks; t++) {
+				if (copies[t] == null)
+					copies[t] = obj.copy();
+				final AirControlObjectiveFunction f = copies[t];
+				final int first = t;
+				tasks.add(() -> {
+					for (int k=first; k<n; k+=numTasks)
+						outcome[k] = f.assess(pending.get(k).getGenome());
+					return null;
+				});
+			}
+			try {
+				for (Future<Void> f: pool.invokeAll(tasks))
+					f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Evaluation failed", e.getCause());
+			}
+		}
+		for (int k=0; k<n; k++)
+			assessed.put(pending.get(k), outcome[k]);
+		pending.clear();
+		registered.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "ParallelEvaluator(" + numThreads + ")";
+	}
+}
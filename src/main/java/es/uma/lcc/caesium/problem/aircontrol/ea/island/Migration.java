@@ -0,0 +1,103 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.island;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import es.uma.lcc.caesium.ea.base.Genotype;
+import es.uma.lcc.caesium.ea.base.Individual;
+import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
+import es.uma.lcc.caesium.ea.operator.variation.mutation.MutationOperator;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlObjectiveFunction;
+
+/**
+ * Migration operator: every certain number of offspring, the best individual of the island 
+ * so far (the current offspring if none has been evaluated) is sent to the neighboring islands and the migrants they have sent are received. Received
+ * migrants replace the subsequent offspring, one at a time. It is meant to be the last 
+ * operator of the variation pipeline (and applied with probability 1.0). Without migration 
+ * channels, it leaves offspring unchanged.
+ * @author ccottap
+ * @version 1.1
+ */
+public class Migration extends MutationOperator {
+	/**
+	 * channels through which migrants are exchanged
+	 */
+	private MigrationChannels channels;
+	/**
+	 * the island of the operator
+	 */
+	private int island;
+	/**
+	 * number of offspring between migrations
+	 */
+	private int interval;
+	/**
+	 * number of offspring processed so far
+	 */
+	private long count;
+	/**
+	 * migrants received and not inserted yet
+	 */
+	private Deque<Genotype> pending;
+	/**
+	 * length of the genotypes
+	 */
+	private int length;
+	
+	/**
+	 * Creates the operator
+	 * @param pars String representation of the probability of application and the migration interval
+	 * @param channels the migration channels (null if there is no migration)
+	 * @param island the island of the operator
+	 */
+	public Migration(List<String> pars, MigrationChannels channels, int island) {
+		super(pars);
+		interval = (pars.size() > 1) ? Integer.parseInt(pars.get(1)) : 1000;
+		this.channels = channels;
+		this.island = island;
+		count = 0;
+		pending = new ArrayDeque<Genotype>();
+	}
+	
+	@Override
+	public void setObjectiveFunction(ObjectiveFunction f) {
+		super.setObjectiveFunction(f);
+		length = ((AirControlObjectiveFunction)f).getGenomeLength();
+	}
+	
+	/**
+	 * Returns a copy of a genotype
+	 * @param g the genotype
+	 * @return a copy of the genotype
+	 */
+	private Genotype copy(Genotype g) {
+		Genotype c = new Genotype(length);
+		for (int k=0; k<length; k++)
+			c.setGene(k, g.getGene(k));
+		return c;
+	}
+
+	@Override
+	protected Individual _apply(List<Individual> parents) {
+		Individual current = parents.get(0);
+		if ((channels != null) && (++count % interval == 0)) {
+			Genotype emigrant = ((AirControlObjectiveFunction)obj).getBestGenotype();
+			channels.send(island, (emigrant != null) ? emigrant : copy(current.getGenome()));
+			pending.addAll(channels.receive(island));
+		}
+		if (pending.isEmpty())
+			return current;
+		
+		Individual ind = new Individual();
+		ind.setGenome(copy(pending.poll()));
+		ind.touch();
+		return ind;
+	}
+
+	@Override
+	public String toString() {
+		return "Migration(" + prob + ", " + interval + ")";
+	}
+
+}
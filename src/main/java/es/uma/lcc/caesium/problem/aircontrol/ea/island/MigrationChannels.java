@@ -0,0 +1,81 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.island;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import es.uma.lcc.caesium.ea.base.Genotype;
+
+/**
+ * Channels through which islands exchange migrants. There is a queue for each pair 
+ * of islands connected in the topology. Migration is asynchronous: islands never wait
+ * for each other, a migrant is dropped if the queue to a neighbor is full, and an island
+ * receives whatever migrants are queued for it at the time.
+ * @author ccottap
+ * @version 1.2
+ */
+public class MigrationChannels {
+	/**
+	 * number of islands
+	 */
+	private int numIslands;
+	/**
+	 * queues between islands (null if they are not connected)
+	 */
+	private MigrationQueue[][] queues;
+	
+	/**
+	 * Creates the channels
+	 * @param numIslands number of islands
+	 * @param topology the migration topology
+	 * @param capacity capacity of each queue
+	 */
+	public MigrationChannels(int numIslands, Topology topology, int capacity) {
+		this.numIslands = numIslands;
+		queues = new MigrationQueue[numIslands][numIslands];
+		for (int i=0; i<numIslands; i++) {
+			for (int j: topology.destinations(i, numIslands)) {
+				queues[i][j] = new MigrationQueue(capacity);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of islands
+	 * @return the number of islands
+	 */
+	public int getNumIslands() {
+		return numIslands;
+	}
+	
+	/**
+	 * Sends a migrant from an island to all its neighbors, without waiting. The migrant 
+	 * is not sent to the neighbors whose queue is full.
+	 * @param from the sending island
+	 * @param g the genotype of the migrant
+	 */
+	public void send(int from, Genotype g) {
+		for (int j=0; j<numIslands; j++) {
+			MigrationQueue q = queues[from][j];
+			if (q != null)
+				q.offer(g);
+		}
+	}
+	
+	/**
+	 * Receives the migrants queued for an island, without waiting
+	 * @param to the receiving island
+	 * @return the list of genotypes received (possibly empty), sorted by sending island
+	 */
+	public List<Genotype> receive(int to) {
+		List<Genotype> received = new ArrayList<Genotype>();
+		for (int i=0; i<numIslands; i++) {
+			MigrationQueue q = queues[i][to];
+			if (q != null) {
+				Genotype g;
+				while ((g = q.poll()) != null)
+					received.add(g);
+			}
+		}
+		return received;
+	}
+}
@@ -0,0 +1,70 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.island;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import es.uma.lcc.caesium.ea.base.Genotype;
+
+/**
+ * Lock-free bounded queue of migrants between two islands. It is a ring buffer meant
+ * to be used by a single producer (the sending island) and a single consumer (the
+ * receiving island).
+ * @author ccottap
+ * @version 1.1
+ */
+public class MigrationQueue {
+	/**
+	 * the buffer
+	 */
+	private final AtomicReferenceArray<Genotype> buffer;
+	/**
+	 * capacity of the queue
+	 */
+	private final int capacity;
+	/**
+	 * number of migrants read so far
+	 */
+	private final AtomicLong head;
+	/**
+	 * number of migrants written so far
+	 */
+	private final AtomicLong tail;
+	
+	/**
+	 * Creates the queue
+	 * @param capacity maximum number of migrants in the queue
+	 */
+	public MigrationQueue(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		buffer = new AtomicReferenceArray<Genotype>(this.capacity);
+		head = new AtomicLong(0);
+		tail = new AtomicLong(0);
+	}
+	
+	/**
+	 * Adds a migrant to the queue, if there is room for it
+	 * @param g the genotype of the migrant
+	 * @return true iff the migrant was added
+	 */
+	public boolean offer(Genotype g) {
+		long t = tail.get();
+		if (t - head.get() >= capacity)
+			return false;
+		buffer.lazySet((int)(t % capacity), g);
+		tail.set(t + 1);
+		return true;
+	}
+	
+	/**
+	 * Removes the oldest migrant in the queue
+	 * @return the genotype of the oldest migrant in the queue (null if the queue is empty)
+	 */
+	public Genotype poll() {
+		long h = head.get();
+		if (h >= tail.get())
+			return null;
+		Genotype g = buffer.getAndSet((int)(h % capacity), null);
+		head.set(h + 1);
+		return g;
+	}
+}
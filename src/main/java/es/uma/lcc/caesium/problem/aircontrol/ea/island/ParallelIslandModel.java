@@ -0,0 +1,255 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.island;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.cliftonlabs.json_simple.JsonArray;
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+
+import es.uma.lcc.caesium.ea.base.EvolutionaryAlgorithm;
+import es.uma.lcc.caesium.ea.base.Individual;
+import es.uma.lcc.caesium.ea.config.EAConfiguration;
+import es.uma.lcc.caesium.ea.fitness.DiscreteObjectiveFunction;
+import es.uma.lcc.caesium.ea.statistics.EntropyDiversity;
+import es.uma.lcc.caesium.ea.util.EAUtil;
+import es.uma.lcc.caesium.ea.util.JsonUtil;
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
+import es.uma.lcc.caesium.problem.aircontrol.LowerBound;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+import es.uma.lcc.caesium.problem.aircontrol.TurnTaking;
+import es.uma.lcc.caesium.problem.aircontrol.ea.RunEA4AirControl;
+import es.uma.lcc.caesium.problem.aircontrol.ea.operator.AirControlVariationFactory;
+
+/**
+ * Parallel island model. Each island is a single-island EA running on its own thread, with
+ * its own objective function and operators. Problem-specific operators draw from random streams
+ * derived from the seed, the run and the island index, but the selection and replacement of the
+ * EA library draw from its single static generator, shared by all islands. Hence, islands take
+ * turns in round-robin order (see {@link TurnTaking}), and only evaluations and local searches
+ * are performed in parallel, outside their turn. Runs are thus reproducible for a given seed,
+ * regardless of thread scheduling.
+ * Migration is performed by a {@link Migration} operator appended to the variation pipeline
+ * of each island. The model is configured by a {@code parallel} object
+ * in the EA configuration, with the following (optional) fields:
+ * <ul>
+ * <li>{@code islands}: number of islands (0 for one island per available processor). By default,
+ * the total number of islands in the {@code islands} array. Island configurations are taken from
+ * said array, cyclically if needed.</li>
+ * <li>{@code interval}: number of offspring of an island between migrations (1000 by default)</li>
+ * <li>{@code topology}: {@code ring} (default) or {@code complete}</li>
+ * <li>{@code capacity}: capacity of the migration queues (4 by default)</li>
+ * </ul>
+ * Offspring of each island can be evaluated in parallel batches as well (see
+ * {@link RunEA4AirControl#createObjectiveFunction(String, JsonObject, AirControlProblem)}).
+ * If the configuration indicates a target {@code gap}, all islands stop as soon as any of them
+ * reaches it (see {@link GapTermination}).
+ * @author ccottap
+ * @version 1.6
+ */
+public class ParallelIslandModel {
+	/**
+	 * name of the algorithm configuration
+	 */
+	private String algorithm;
+	/**
+	 * configuration of each island (serialized, so that each run gets a fresh copy)
+	 */
+	private List<String> islandConf;
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem acp;
+	/**
+	 * migration topology
+	 */
+	private Topology topology;
+	/**
+	 * number of offspring between migrations
+	 */
+	private int interval;
+	/**
+	 * capacity of the migration queues
+	 */
+	private int capacity;
+	/**
+	 * lower bound of the optimal cost
+	 */
+	private long bound;
+	/**
+	 * target gap (negative if none)
+	 */
+	private double target;
+	/**
+	 * best individual of the last run
+	 */
+	private Individual best;
+	/**
+	 * island in which the best individual of the last run was found
+	 */
+	private int bestIsland;
+
+	/**
+	 * Creates the model
+	 * @param algorithm name of the algorithm configuration
+	 * @param conf the EA configuration
+	 * @param acp the problem instance
+	 */
+	public ParallelIslandModel(String algorithm, JsonObject conf, AirControlProblem acp) {
+		this.algorithm = algorithm;
+		this.acp = acp;
+		JsonObject par = (JsonObject) conf.get("parallel");
+		interval = par.containsKey("interval") ? JsonUtil.getInt(par, "interval") : 1000;
+		capacity = par.containsKey("capacity") ? JsonUtil.getInt(par, "capacity") : 4;
+		topology = par.containsKey("topology") ? Topology.fromString((String)par.get("topology")) : Topology.RING;
+		bound = new LowerBound(acp).compute();
+		target = conf.containsKey("gap") ? JsonUtil.getDouble(conf, "gap") : -1;
+
+		List<JsonObject> entries = new ArrayList<JsonObject>();
+		for (Object o: (JsonArray) conf.get("islands")) {
+			JsonObject entry = (JsonObject) o;
+			int n = entry.containsKey("numislands") ? JsonUtil.getInt(entry, "numislands") : 1;
+			for (int i=0; i<n; i++)
+				entries.add(entry);
+		}
+		int numIslands = entries.size();
+		if (par.containsKey("islands")) {
+			numIslands = JsonUtil.getInt(par, "islands");
+			if (numIslands <= 0)
+				numIslands = Runtime.getRuntime().availableProcessors();
+		}
+
+		islandConf = new ArrayList<String>(numIslands);
+		for (int i=0; i<numIslands; i++) {
+			JsonObject entry = new JsonObject(entries.get(i % entries.size()));
+			entry.put("numislands", 1);
+			JsonArray variation = new JsonArray((JsonArray) entry.get("variation"));
+			JsonObject migration = new JsonObject();
+			migration.put("name", "migration");
+			JsonArray mpars = new JsonArray();
+			mpars.add("1.0");
+			mpars.add(Integer.toString(interval));
+			migration.put("parameters", mpars);
+			variation.add(migration);
+			entry.put("variation", variation);
+			JsonObject c = new JsonObject(conf);
+			c.remove("parallel");
+			c.put("numruns", 1);
+			JsonArray islands = new JsonArray();
+			islands.add(entry);
+			c.put("islands", islands);
+			islandConf.add(RunEA4AirControl.withBatchEvaluation(c).toJson());
+		}
+	}
+
+	/**
+	 * Returns the number of islands
+	 * @return the number of islands
+	 */
+	public int getNumIslands() {
+		return islandConf.size();
+	}
+
+	/**
+	 * Returns the best individual of the last run
+	 * @return the best individual of the last run
+	 */
+	public Individual getBest() {
+		return best;
+	}
+
+	/**
+	 * Returns the island in which the best individual of the last run was found
+	 * @return the island in which the best individual of the last run was found
+	 */
+	public int getBestIsland() {
+		return bestIsland;
+	}
+
+	/**
+	 * Performs a run of the model, with all islands running concurrently (taking turns, see above)
+	 * @param seed the base seed
+	 * @param run the index of the run
+	 * @return the statistics of the run (the statistics of each island, the best fitness and the lower bound)
+	 * @throws JsonException if the configuration of an island cannot be processed
+	 */
+	public JsonObject run(long seed, int run) throws JsonException {
+		int numIslands = islandConf.size();
+		MigrationChannels channels = new MigrationChannels(numIslands, topology, capacity);
+		List<EvolutionaryAlgorithm> eas = new ArrayList<EvolutionaryAlgorithm>(numIslands);
+		GapTermination termination = (target >= 0) ? new GapTermination(bound, target) : null;
+		for (int i=0; i<numIslands; i++) {
+			JsonObject c = (JsonObject) Jsoner.deserialize(islandConf.get(i));
+			c.put("seed", RandomStreams.deriveSeed(seed, run, i));
+			EAConfiguration conf = new EAConfiguration(c);
+			conf.setVariationFactory(new AirControlVariationFactory(channels, i));
+			EvolutionaryAlgorithm ea = new EvolutionaryAlgorithm(conf);
+			DiscreteObjectiveFunction obj = RunEA4AirControl.createObjectiveFunction(algorithm, c, acp);
+			RunEA4AirControl.setTermination(obj, c, termination);
+			ea.setObjectiveFunction(obj);
+			ea.getStatistics().setDiversityMeasure(new EntropyDiversity());
+			eas.add(ea);
+		}
+
+		EAUtil.setSeed(RandomStreams.deriveSeed(seed, run));
+		TurnTaking turns = new TurnTaking(numIslands);
+		ExecutorService pool = Executors.newFixedThreadPool(numIslands);
+		List<Future<?>> results = new ArrayList<Future<?>>(numIslands);
+		for (int i=0; i<numIslands; i++) {
+			final int island = i;
+			results.add(pool.submit(() -> {
+				RandomStreams.bind(seed, run, island);
+				turns.join(island);
+				try {
+					eas.get(island).run();
+				}
+				finally {
+					TurnTaking.leave();
+					RandomStreams.unbind();
+				}
+			}));
+		}
+		pool.shutdown();
+		for (Future<?> r: results) {
+			try {
+				r.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Island failed", e.getCause());
+			}
+		}
+
+		JsonArray stats = new JsonArray();
+		best = null;
+		bestIsland = -1;
+		for (int i=0; i<numIslands; i++) {
+			Individual b = eas.get(i).getStatistics().getBest(0);
+			if ((best == null) || (b.getFitness() < best.getFitness())) {	// minimization
+				best = b;
+				bestIsland = i;
+			}
+			stats.add(eas.get(i).getStatistics().toJSON());
+		}
+		JsonObject json = new JsonObject();
+		json.put("islands", stats);
+		json.put("bestisland", bestIsland);
+		json.put("best", best.getFitness());
+		json.put("bound", bound);
+		if (termination != null)
+			json.put("termination", termination.toJSON());
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		return "ParallelIslandModel(" + islandConf.size() + ", " + topology + ", " + interval + ", " + capacity + ")";
+	}
+}
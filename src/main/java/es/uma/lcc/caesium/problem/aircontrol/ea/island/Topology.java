@@ -0,0 +1,52 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.island;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migration topologies
+ * @author ccottap
+ * @version 1.0
+ */
+public enum Topology {
+	/**
+	 * each island sends migrants to the next one
+	 */
+	RING,
+	/**
+	 * each island sends migrants to every other island
+	 */
+	COMPLETE;
+	
+	/**
+	 * Returns the topology with a certain name (case insensitive)
+	 * @param name the name of the topology
+	 * @return the topology with said name
+	 */
+	public static Topology fromString(String name) {
+		return valueOf(name.trim().toUpperCase());
+	}
+	
+	/**
+	 * Returns the islands to which an island sends migrants
+	 * @param island the island
+	 * @param numIslands the number of islands
+	 * @return the islands to which {@code island} sends migrants
+	 */
+	public List<Integer> destinations(int island, int numIslands) {
+		List<Integer> d = new ArrayList<Integer>();
+		if (numIslands > 1) {
+			switch (this) {
+			case RING:
+				d.add((island + 1) % numIslands);
+				break;
+			case COMPLETE:
+				for (int i=0; i<numIslands; i++)
+					if (i != island)
+						d.add(i);
+				break;
+			}
+		}
+		return d;
+	}
+}
@@ -0,0 +1,8 @@
+/**
+ * Parallel island model for the EAs of the air control problem: each island runs
+ * on its own thread (taking turns with the other islands, so that runs are reproducible)
+ * and migrants are exchanged through lock-free bounded queues.
+ * @author ccottap
+ * @version 1.1
+ */
+package es.uma.lcc.caesium.problem.aircontrol.ea.island;
@@ -4,6 +4,10 @@ import java.util.List;
 
 import es.uma.lcc.caesium.ea.operator.variation.VariationFactory;
 import es.uma.lcc.caesium.ea.operator.variation.VariationOperator;
+import es.uma.lcc.caesium.problem.aircontrol.ea.island.Migration;
+import es.uma.lcc.caesium.problem.aircontrol.ea.island.MigrationChannels;
+import es.uma.lcc.caesium.problem.aircontrol.ea.operator.decoder.flight.PrecedenceCrossover;
+import es.uma.lcc.caesium.problem.aircontrol.ea.operator.decoder.flight.PrecedenceSwap;
 import es.uma.lcc.caesium.problem.aircontrol.ea.operator.decoder.runway.RunwayLS;
 import es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding.GRASPInitialization;
 import es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding.LandingMutation;
@@ -11,13 +15,39 @@ import es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding.LandingR
 import es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding.RandomFeasibleLandingInformation;
 import es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding.RandomInmigrant;
 import es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding.LandingLocalSeach;
+import es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding.LandingSequencing;
 
 /**
  * User-defined factory for the Air Control Problem
  * @author ccottap
- * @version 1.0
+ * @version 1.3
  */
 public class AirControlVariationFactory extends VariationFactory {
+	/**
+	 * migration channels (null if there is no migration)
+	 */
+	private MigrationChannels channels;
+	/**
+	 * island for which operators are created
+	 */
+	private int island;
+	
+	/**
+	 * Creates the factory (without migration)
+	 */
+	public AirControlVariationFactory() {
+		this(null, 0);
+	}
+	
+	/**
+	 * Creates the factory for an island of a parallel island model
+	 * @param channels the migration channels
+	 * @param island the island for which operators are created
+	 */
+	public AirControlVariationFactory(MigrationChannels channels, int island) {
+		this.channels = channels;
+		this.island = island;
+	}
 
 	@Override
 	public VariationOperator create (String name, List<String> pars) {
@@ -43,9 +73,24 @@ public class AirControlVariationFactory extends VariationFactory {
 		case "LANDINGIMPROVEMENT":
 			op = new LandingLocalSeach(pars);
 			break;
+		case "LANDINGSEQUENCING":
+			op = new LandingSequencing(pars);
+			break;
 		case "LS-RUNWAY":
 			op = new RunwayLS(pars);
 			break;
+		case "PRECEDENCESWAP":
+			op = new PrecedenceSwap(pars);
+			break;
+		case "PRECEDENCECROSSOVER":
+			op = new PrecedenceCrossover(pars);
+			break;
+		case "MIGRATION":
+			op = new Migration(pars, channels, island);
+			break;
+		case "BATCHEVALUATION":
+			op = new BatchEvaluation(pars);
+			break;
 
 		default:
 			op = super.create(name, pars);
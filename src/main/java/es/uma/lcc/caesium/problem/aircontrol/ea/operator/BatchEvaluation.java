@@ -0,0 +1,58 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.operator;
+
+import java.util.List;
+
+import com.github.cliftonlabs.json_simple.JsonArray;
+import com.github.cliftonlabs.json_simple.JsonObject;
+
+import es.uma.lcc.caesium.ea.base.Individual;
+import es.uma.lcc.caesium.ea.operator.variation.mutation.MutationOperator;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlObjectiveFunction;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.ParallelEvaluator;
+
+/**
+ * Registers each offspring with the parallel evaluator of the objective function, so that
+ * offspring are assessed in batches (see {@link ParallelEvaluator}). It leaves offspring
+ * unchanged, and it is meant to be the last operator of the variation pipeline (applied with
+ * probability 1.0). Without a parallel evaluator, it does nothing.
+ * @author ccottap
+ * @version 1.0
+ */
+public class BatchEvaluation extends MutationOperator {
+
+	/**
+	 * Creates the operator
+	 * @param pars String representation of the probability of application
+	 */
+	public BatchEvaluation(List<String> pars) {
+		super(pars);
+	}
+
+	/**
+	 * Returns the configuration of the operator, to be appended to a variation pipeline
+	 * @return the configuration of the operator
+	 */
+	public static JsonObject configuration() {
+		JsonObject op = new JsonObject();
+		op.put("name", "batchevaluation");
+		JsonArray pars = new JsonArray();
+		pars.add("1.0");
+		op.put("parameters", pars);
+		return op;
+	}
+
+	@Override
+	protected Individual _apply(List<Individual> parents) {
+		Individual current = parents.get(0);
+		ParallelEvaluator evaluator = ((AirControlObjectiveFunction)obj).getEvaluator();
+		if (evaluator != null)
+			evaluator.register(current);
+		return current;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchEvaluation";
+	}
+
+}
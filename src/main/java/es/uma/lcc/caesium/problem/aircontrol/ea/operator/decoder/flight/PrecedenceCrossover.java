@@ -0,0 +1,100 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.operator.decoder.flight;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import es.uma.lcc.caesium.ea.base.Genotype;
+import es.uma.lcc.caesium.ea.base.Individual;
+import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
+import es.uma.lcc.caesium.ea.operator.variation.recombination.RecombinationOperator;
+import es.uma.lcc.caesium.problem.aircontrol.FlightPrecedences;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlFlightDecoderObjectiveFunction;
+
+/**
+ * Precedence preservative recombination of permutations of flights: the offspring is built by
+ * taking at each step the first flight not taken yet of a parent chosen at random. Any order
+ * between two flights shared by all parents (in particular, the precedences between flights if
+ * the parents are canonical) is kept in the offspring, which is made canonical anyway.
+ * @author ccottap
+ * @version 1.1
+ */
+public class PrecedenceCrossover extends RecombinationOperator {
+	/**
+	 * precedences between flights
+	 */
+	private FlightPrecedences precedences;
+	/**
+	 * arity of the operator
+	 */
+	private int arity;
+	/**
+	 * the random generator (if null, the one bound to the current thread is used)
+	 */
+	private RandomGenerator rng;
+	
+	/**
+	 * Creates the operator
+	 * @param pars operator parameters: probability of application and arity (optional; 2 by default) 
+	 */
+	public PrecedenceCrossover(List<String> pars) {
+		super(pars);
+		arity = (pars.size() > 1) ? Integer.parseInt(pars.get(1)) : 2;
+		precedences = null;
+	}
+
+	@Override
+	public void setObjectiveFunction (ObjectiveFunction f) {
+		super.setObjectiveFunction(f);
+		AirControlFlightDecoderObjectiveFunction p = (AirControlFlightDecoderObjectiveFunction)f;
+		precedences = p.getPrecedences();
+		if (precedences == null)
+			precedences = new FlightPrecedences(p.getProblemData());
+	}
+
+	/**
+	 * Sets the random generator used by the operator
+	 * @param rng the random generator (if null, the one bound to the current thread is used)
+	 */
+	public void setRandomGenerator(RandomGenerator rng) {
+		this.rng = rng;
+	}
+	
+	@Override
+	protected Individual _apply(List<Individual> parents) {
+		int l = parents.get(0).getGenome().length();
+		int[] next = new int[arity];			// next position to check in each parent
+		boolean[] taken = new boolean[l];
+		int[] order = new int[l];
+		RandomGenerator gen = RandomStreams.orCurrent(rng);
+		for (int k=0; k<l; k++) {
+			int j = gen.nextInt(arity);
+			Genotype p = parents.get(j).getGenome();
+			while (taken[(int)p.getGene(next[j])])
+				next[j]++;
+			order[k] = (int)p.getGene(next[j]);
+			taken[order[k]] = true;
+		}
+		precedences.canonicalize(order);
+		
+		Genotype g = new Genotype(l);
+		for (int k=0; k<l; k++) {
+			g.setGene(k, order[k]);
+		}
+		Individual ind = new Individual();
+		ind.setGenome(g);
+		ind.touch();
+		return ind;
+	}
+
+	@Override
+	public int getArity() {
+		return arity;
+	}
+
+	@Override
+	public String toString() {
+		return "PrecedenceCrossover(" + prob + ", " + arity + ")";
+	}
+
+}
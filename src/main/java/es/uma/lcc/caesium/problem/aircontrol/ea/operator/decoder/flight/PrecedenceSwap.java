@@ -0,0 +1,121 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.operator.decoder.flight;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import es.uma.lcc.caesium.ea.base.Genotype;
+import es.uma.lcc.caesium.ea.base.Individual;
+import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
+import es.uma.lcc.caesium.ea.operator.variation.mutation.MutationOperator;
+import es.uma.lcc.caesium.problem.aircontrol.FlightPrecedences;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlFlightDecoderObjectiveFunction;
+
+/**
+ * Swap mutation for permutations of flights that only exchanges two flights if the result is
+ * consistent with the precedences between flights (and the flights are not equivalent). Pairs
+ * of positions are drawn at random until a valid one is found or as many pairs as flights have
+ * been tried (in which case the permutation is not changed).
+ * @author ccottap
+ * @version 1.1
+ */
+public class PrecedenceSwap extends MutationOperator {
+	/**
+	 * precedences between flights
+	 */
+	private FlightPrecedences precedences;
+	/**
+	 * the random generator (if null, the one bound to the current thread is used)
+	 */
+	private RandomGenerator rng;
+
+	/**
+	 * Creates the operator. 
+	 * @param pars String representation of the mutation probability
+	 */
+	public PrecedenceSwap(List<String> pars) {
+		super(pars);
+		precedences = null;
+	}
+
+	@Override
+	public void setObjectiveFunction(ObjectiveFunction f) {
+		super.setObjectiveFunction(f);
+		AirControlFlightDecoderObjectiveFunction p = (AirControlFlightDecoderObjectiveFunction)f;
+		precedences = p.getPrecedences();
+		if (precedences == null)
+			precedences = new FlightPrecedences(p.getProblemData());
+	}
+
+	/**
+	 * Sets the random generator used by the operator
+	 * @param rng the random generator (if null, the one bound to the current thread is used)
+	 */
+	public void setRandomGenerator(RandomGenerator rng) {
+		this.rng = rng;
+	}
+	
+	/**
+	 * Indicates whether two flights can be exchanged
+	 * @param g the permutation
+	 * @param i position of the first flight
+	 * @param j position of the second flight (after the first one)
+	 * @return true iff the exchange is consistent with the precedences
+	 */
+	private boolean swappable(Genotype g, int i, int j) {
+		int a = (int)g.getGene(i);
+		int b = (int)g.getGene(j);
+		if (precedences.precedes(a, b))
+			return false;
+		int c = precedences.getEquivalenceClass(a);
+		if ((c >= 0) && (c == precedences.getEquivalenceClass(b)))
+			return false;
+		for (int k=i+1; k<j; k++) {
+			int x = (int)g.getGene(k);
+			if (precedences.precedes(a, x) || precedences.precedes(x, b))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	protected Individual _apply(List<Individual> parents) {
+		Genotype parent = parents.get(0).getGenome();
+		int l = parent.length();
+		Genotype g = new Genotype(l);
+		for (int k=0; k<l; k++) {
+			g.setGene(k, parent.getGene(k));
+		}
+		RandomGenerator gen = RandomStreams.orCurrent(rng);
+		if (l > 1) {
+			for (int t=0; t<l; t++) {
+				int i = gen.nextInt(l);
+				int j = gen.nextInt(l - 1);
+				if (j >= i)
+					j++;
+				else {
+					int k = i;
+					i = j;
+					j = k;
+				}
+				if (swappable(g, i, j)) {
+					Object gi = g.getGene(i);
+					g.setGene(i, g.getGene(j));
+					g.setGene(j, gi);
+					break;
+				}
+			}
+		}
+
+		Individual ind = new Individual();
+		ind.setGenome(g);
+		ind.touch();
+		return ind;
+	}
+
+	@Override
+	public String toString() {
+		return "PrecedenceSwap(" + prob + ")";
+	}
+
+}
@@ -0,0 +1,7 @@
+/**
+ * Operators for the EA encoding solutions as permutations of the flights, which respect
+ * the precedences between flights that can be fixed beforehand. 
+ * @author ccottap
+ * @version 1.0
+ */
+package es.uma.lcc.caesium.problem.aircontrol.ea.operator.decoder.flight;
@@ -8,12 +8,13 @@ import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
 import es.uma.lcc.caesium.ea.operator.variation.mutation.MutationOperator;
 import es.uma.lcc.caesium.problem.aircontrol.LandingImprovement;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.TurnTaking;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlRunwayDecoderObjectiveFunction;
 
 /**
  * Local search mutation: an improved solution is sought by changing landing runways for flights.
  * @author ccottap
- * @version 1.0
+ * @version 1.1
  *
  */
 
@@ -52,7 +53,7 @@ public class RunwayLS extends MutationOperator {
 		int numFlights = p.getProblemData().getNumFlights();
 
 		List<LandingInformation> li = new ArrayList<LandingInformation>(numFlights);
-		int cost = ls.localSearch(p.decode(parents.get(0).getGenome()), li);	
+		int cost = TurnTaking.outside(() -> ls.localSearch(p.decode(parents.get(0).getGenome()), li));	
 		p.addExtraCost((double)cost/(double)numFlights - 1); // -1 because the solution is technically evaluated
 
 		Individual ind = new Individual();
@@ -1,28 +1,46 @@
 package es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
 
 import es.uma.lcc.caesium.ea.base.Individual;
 import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
 import es.uma.lcc.caesium.ea.operator.variation.initialization.InitializationOperator;
-import es.uma.lcc.caesium.grasp.base.ReactiveGRASP;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+import es.uma.lcc.caesium.problem.aircontrol.TurnTaking;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlObjectiveFunction;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlPenaltyObjectiveFunction;
 import es.uma.lcc.caesium.problem.aircontrol.grasp.AirControlGRASPObjectiveFunction;
 
 /**
- * Creates a feasible solution for the air control problem using GRASP
+ * Creates a feasible solution for the air control problem using GRASP (a single iteration in
+ * which each decision picks the greedy or the second-best candidate, followed by local search).
+ * <p>
+ * The k-th solution built draws from its own random streams, derived from the seed for GRASP
+ * and k, so solutions can be built ahead of time by several worker threads: when no solution is
+ * available, a whole batch is built in parallel (by worker threads that are released as soon as
+ * the batch is complete), and subsequent calls just take the next one.
+ * The solutions returned (and the cost charged for each of them) do not depend on the number of
+ * threads or the size of the batch. Small instances are built on demand in the calling thread.
  * @author ccottap
- * @version 1.0
+ * @version 1.3
  *
  */
 public class GRASPInitialization extends InitializationOperator {
 	/**
-	 * decoder
+	 * instances with fewer flights are built sequentially
 	 */
-	private ReactiveGRASP myRG;
+	private static final int MIN_PARALLEL_FLIGHTS = 50;
 	/**
 	 * seed for the GRASP algorithm
 	 */
@@ -31,6 +49,14 @@ public class GRASPInitialization extends InitializationOperator {
 	 * number of neighbors for GRASP local search
 	 */
 	private int numNeighbors;
+	/**
+	 * number of worker threads
+	 */
+	private int numThreads;
+	/**
+	 * number of solutions built ahead of time
+	 */
+	private int batchSize;
 	/**
 	 * the objective function for GRASP
 	 */
@@ -39,45 +65,114 @@ public class GRASPInitialization extends InitializationOperator {
 	 * the problem instance
 	 */
 	private AirControlProblem acp;
-	
+	/**
+	 * index of the next solution to build
+	 */
+	private int next;
+	/**
+	 * solutions built ahead of time
+	 */
+	private Deque<List<LandingInformation>> built;
+	/**
+	 * objective function of each worker thread
+	 */
+	private ThreadLocal<AirControlGRASPObjectiveFunction> local;
+
 	/**
 	 * Generates the operator
-	 * @param pars parameters (prob=1.0, seed for GRASP, numNeighbors for GRASP local search -0 if no local search-)
+	 * @param pars parameters (prob=1.0, seed for GRASP, numNeighbors for GRASP local search -0 if no local search-,
+	 * number of threads -0 for the number of available processors-, number of solutions built in parallel -100 by default-)
 	 */
 	public GRASPInitialization(List<String> pars) {
 		super(pars);
-			
+
 		seed4GRASP = (pars.size()>1) ? Long.parseLong(pars.get(1)) : 1;
 		numNeighbors = (pars.size()>2) ? Integer.parseInt(pars.get(2)) : 0;
-
-		myRG = new ReactiveGRASP();
-		myRG.setSeed(seed4GRASP);
-		myRG.setNumIters(1);					// one solution
-		myRG.setIterUpdate(Integer.MAX_VALUE); 	// no update
-		myRG.addValue(1);						// greedy or second-best greedy
+		numThreads = (pars.size()>3) ? Integer.parseInt(pars.get(3)) : 0;
+		if (numThreads <= 0)
+			numThreads = Runtime.getRuntime().availableProcessors();
+		batchSize = (pars.size()>4) ? Math.max(1, Integer.parseInt(pars.get(4))) : 100;
 		gof = null;
-		myRG.setObjectiveFunction(gof);
+		next = 0;
+		built = new ArrayDeque<List<LandingInformation>>();
 	}
-	
-	
+
+
 	@Override
 	public void setObjectiveFunction (ObjectiveFunction obj) {
 		super.setObjectiveFunction(obj);
-		acp = ((AirControlObjectiveFunction)obj).getProblemData();		
+		acp = ((AirControlObjectiveFunction)obj).getProblemData();
 		gof = new AirControlGRASPObjectiveFunction(acp);
 		gof.setNumNeighbors(numNeighbors);
-		myRG.setObjectiveFunction(gof);
+		local = ThreadLocal.withInitial(gof::copy);
+		built.clear();
+	}
+
+	/**
+	 * Builds a solution
+	 * @param f the GRASP objective function of the calling thread
+	 * @param k index of the solution
+	 * @return the k-th solution
+	 */
+	private List<LandingInformation> build(AirControlGRASPObjectiveFunction f, int k) {
+		RandomGenerator rng = RandomStreams.derive(seed4GRASP, k, 0);
+		f.setRandomGenerator(RandomStreams.derive(seed4GRASP, k, 1));
+		int n = f.getNumberOfVariables();
+		List<Integer> ranks = new ArrayList<Integer>(n);
+		for (int i=0; i<n; i++)
+			ranks.add(rng.nextInt(2));						// greedy or second-best greedy
+		List<LandingInformation> info = new ArrayList<LandingInformation>(n);
+		f.improve(f.decode(ranks), info);
+		return info;
+	}
+
+	/**
+	 * Builds a batch of solutions in parallel
+	 */
+	private void buildBatch() {
+		ExecutorService pool = Executors.newFixedThreadPool(numThreads, r -> {
+			Thread t = new Thread(r, "grasp-initialization");
+			t.setDaemon(true);
+			return t;
+		});
+		int first = next;
+		List<Callable<List<LandingInformation>>> tasks = new ArrayList<Callable<List<LandingInformation>>>(batchSize);
+		for (int i=0; i<batchSize; i++) {
+			final int k = first + i;
+			tasks.add(() -> build(local.get(), k));
+		}
+		try {
+			for (Future<List<LandingInformation>> f: pool.invokeAll(tasks))
+				built.add(f.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("GRASP initialization failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		next += batchSize;
+	}
+
+	/**
+	 * Returns the next solution, building it (or a batch of them) if needed
+	 * @return the next solution
+	 */
+	private List<LandingInformation> nextSolution() {
+		if ((numThreads == 1) || (batchSize == 1) || (acp.getNumFlights() < MIN_PARALLEL_FLIGHTS))
+			return built.isEmpty() ? build(gof, next++) : built.poll();
+		if (built.isEmpty())
+			buildBatch();
+		return built.poll();
 	}
 
 	@Override
 	protected Individual _apply(List<Individual> parents) {
-		myRG.run();
-		@SuppressWarnings("unchecked")
-		List<LandingInformation> info = (List<LandingInformation>)myRG.getStatistics().getBest(0);
-		myRG.getStatistics().clear();
-		
+		List<LandingInformation> info = TurnTaking.outside(this::nextSolution);
+
 		obj.addExtraCost(gof.equivalentCost());
-		
+
 		AirControlPenaltyObjectiveFunction p = (AirControlPenaltyObjectiveFunction)obj;
 		Individual ind = new Individual();
 		ind.setGenome(p.encode(info));
@@ -1,23 +1,26 @@
 package es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 import es.uma.lcc.caesium.ea.base.Genotype;
 import es.uma.lcc.caesium.ea.base.Individual;
 import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
 import es.uma.lcc.caesium.ea.operator.variation.mutation.MutationOperator;
-import es.uma.lcc.caesium.ea.util.EAUtil;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.Flight;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
 import es.uma.lcc.caesium.problem.aircontrol.LandingRepair;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlObjectiveFunction;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlPenaltyObjectiveFunction;
 
 /**
  * Local search mutation mutation: an improved solution is sought by changing landing runways for flights.
  * @author ccottap
- * @version 1.0
+ * @version 1.1
  *
  */
 public class LandingMutation extends MutationOperator {
@@ -29,6 +32,10 @@ public class LandingMutation extends MutationOperator {
 	 * the problem instance
 	 */
 	private AirControlProblem acp;
+	/**
+	 * the random generator (if null, the one bound to the current thread is used)
+	 */
+	private RandomGenerator rng;
 	
 	/**
 	 * Creates the operator. 
@@ -48,21 +55,37 @@ public class LandingMutation extends MutationOperator {
 		lr.setData(acp);
 	}
 
+
+	/**
+	 * Sets the random generator used by the operator
+	 * @param rng the random generator (if null, the one bound to the current thread is used)
+	 */
+	public void setRandomGenerator(RandomGenerator rng) {
+		this.rng = rng;
+	}
+	
 	@Override
 	protected Individual _apply(List<Individual> parents) {
 		AirControlPenaltyObjectiveFunction p = (AirControlPenaltyObjectiveFunction)obj;
 		int numFlights = acp.getNumFlights();
-		int numRunways = acp.getNumRunways();
 		List<LandingInformation> info = p.decode(parents.get(0).getGenome());
 		
-		int pos = EAUtil.random(numFlights);
+		RandomGenerator gen = RandomStreams.orCurrent(rng);
+		int pos = gen.nextInt(numFlights);
 		LandingInformation li = info.get(pos);
-		int j = (li.runway() + 1 + EAUtil.random(numRunways-1)) % numRunways;
-		
-		assert j != li.runway();
+		Flight f = acp.getFlight(li.flightID());
+		int[] eligible = f.getEligibleRunways();
+		int k = Arrays.binarySearch(eligible, li.runway());
+		int j;
+		if (k < 0)							// any runway on which the flight can land
+			j = eligible[gen.nextInt(eligible.length)];
+		else if (eligible.length > 1)		// another runway on which the flight can land
+			j = eligible[(k + 1 + gen.nextInt(eligible.length-1)) % eligible.length];
+		else								// no other runway: the flight is just rescheduled
+			j = li.runway();
 		
 		info.remove(pos);
-		info.add(0, new LandingInformation(li.flightID(), acp.getFlight(li.flightID()).getArrivalTime(j), j));
+		info.add(0, new LandingInformation(li.flightID(), f.getArrivalTime(j), j));
 		
 		List<LandingInformation> newInfo = new ArrayList<LandingInformation>(numFlights);
 		int cost = lr.repair(info, newInfo);
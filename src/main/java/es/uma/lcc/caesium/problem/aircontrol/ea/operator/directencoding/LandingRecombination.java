@@ -2,15 +2,16 @@ package es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 import es.uma.lcc.caesium.ea.base.Genotype;
 import es.uma.lcc.caesium.ea.base.Individual;
 import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
 import es.uma.lcc.caesium.ea.operator.variation.recombination.RecombinationOperator;
-import es.uma.lcc.caesium.ea.util.EAUtil;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
 import es.uma.lcc.caesium.problem.aircontrol.LandingRepair;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlObjectiveFunction;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlPenaltyObjectiveFunction;
 
@@ -18,7 +19,7 @@ import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlPenaltyObjecti
  * Recombines two lists of landing slots by arranging them in landing order, removing duplicates,
  * and adjusting landing times to fulfill constraints
  * @author ccottap
- * @version 1.0
+ * @version 1.1
  */
 public class LandingRecombination extends RecombinationOperator {
 	/**
@@ -33,6 +34,10 @@ public class LandingRecombination extends RecombinationOperator {
 	 * arity of the operator
 	 */
 	private int arity;
+	/**
+	 * the random generator (if null, the one bound to the current thread is used)
+	 */
+	private RandomGenerator rng;
 	
 	/**
 	 * Creates the operator
@@ -55,6 +60,15 @@ public class LandingRecombination extends RecombinationOperator {
 	}
 	
 	
+
+	/**
+	 * Sets the random generator used by the operator
+	 * @param rng the random generator (if null, the one bound to the current thread is used)
+	 */
+	public void setRandomGenerator(RandomGenerator rng) {
+		this.rng = rng;
+	}
+	
 	@Override
 	protected Individual _apply(List<Individual> parents) {
 		AirControlPenaltyObjectiveFunction p = (AirControlPenaltyObjectiveFunction)obj;
@@ -65,12 +79,13 @@ public class LandingRecombination extends RecombinationOperator {
 			parentalInfo.add(p.decode(ind.getGenome()));
 		}
 		
+		RandomGenerator gen = RandomStreams.orCurrent(rng);
 		int n = numFlights*arity;
 		List<LandingInformation> li = new ArrayList<LandingInformation>(n);
 		for (int i=0; i<n; i++) {
 			int j;
 			do {
-				j = EAUtil.random(arity);
+				j = gen.nextInt(arity);
 			} while (parentalInfo.get(j).isEmpty());
 			li.add(parentalInfo.get(j).get(0));
 			parentalInfo.get(j).remove(0);
@@ -0,0 +1,75 @@
+package es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import es.uma.lcc.caesium.ea.base.Individual;
+import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
+import es.uma.lcc.caesium.ea.operator.variation.mutation.MutationOperator;
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.RunwaySequencer;
+import es.uma.lcc.caesium.problem.aircontrol.TurnTaking;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlObjectiveFunction;
+import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlPenaltyObjectiveFunction;
+
+/**
+ * Sequencing mutation: the best sequence of the flights on each runway is sought, with each flight
+ * at most a certain number of positions away from its current one.
+ * @author ccottap
+ * @version 1.1
+ *
+ */
+public class LandingSequencing extends MutationOperator {
+	/**
+	 * maximum shift of a flight with respect to its current position
+	 */
+	private int maxShift;
+	/**
+	 * sequencing method
+	 */
+	private RunwaySequencer sequencer;
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem acp;
+	
+	/**
+	 * Creates the operator. 
+	 * @param pars String representation of the mutation probability and the maximum shift of a flight
+	 */
+	public LandingSequencing(List<String> pars) {
+		super(pars);
+		maxShift = Integer.parseInt(pars.get(1));
+		sequencer = new RunwaySequencer(maxShift); 
+	}
+	
+	@Override
+	public void setObjectiveFunction(ObjectiveFunction f) {
+		super.setObjectiveFunction(f);
+		acp = ((AirControlObjectiveFunction)f).getProblemData();
+		sequencer.setData(acp);
+	}
+
+	@Override
+	protected Individual _apply(List<Individual> parents) {
+		AirControlPenaltyObjectiveFunction p = (AirControlPenaltyObjectiveFunction)obj;
+		int numFlights = acp.getNumFlights();
+
+		List<LandingInformation> li = new ArrayList<LandingInformation>(numFlights);
+		int cost = TurnTaking.outside(() -> sequencer.optimize(p.decode(parents.get(0).getGenome()), li));
+		p.addExtraCost((double)cost/(double)numFlights - 1); // -1 because the solution is technically evaluated
+
+		Individual ind = new Individual();
+		ind.setGenome(p.encode(li));
+		ind.touch();
+		return ind;
+	}
+	
+
+	@Override
+	public String toString() {
+		return "Sequencing(" + prob + ", " + maxShift + ")";
+	}
+
+}
@@ -2,22 +2,23 @@ package es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 import es.uma.lcc.caesium.ea.base.Genotype;
 import es.uma.lcc.caesium.ea.base.Individual;
 import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
 import es.uma.lcc.caesium.ea.operator.variation.initialization.InitializationOperator;
-import es.uma.lcc.caesium.ea.util.EAUtil;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
 import es.uma.lcc.caesium.problem.aircontrol.LandingDecoder;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlObjectiveFunction;
 import es.uma.lcc.caesium.problem.aircontrol.ea.fitness.AirControlPenaltyObjectiveFunction;
 
 /**
  * Creates a random feasible solution for the Aircraft Landing Scheduling Problem
  * @author ccottap
- * @version 1.0
+ * @version 1.1
  */
 public class RandomFeasibleLandingInformation extends InitializationOperator {
 	/**
@@ -28,6 +29,10 @@ public class RandomFeasibleLandingInformation extends InitializationOperator {
 	 * the problem instance
 	 */
 	private AirControlProblem acp;	
+	/**
+	 * the random generator (if null, the one bound to the current thread is used)
+	 */
+	private RandomGenerator rng;
 	/**
 	 * Generates the operator
 	 * @param pars parameters (none)
@@ -44,19 +49,29 @@ public class RandomFeasibleLandingInformation extends InitializationOperator {
 		ld.setProblemData(acp);
 	}
 
+
+	/**
+	 * Sets the random generator used by the operator
+	 * @param rng the random generator (if null, the one bound to the current thread is used)
+	 */
+	public void setRandomGenerator(RandomGenerator rng) {
+		this.rng = rng;
+	}
+	
 	@Override
 	protected Individual _apply(List<Individual> parents) {
 		AirControlPenaltyObjectiveFunction p = (AirControlPenaltyObjectiveFunction)obj;
 		int l = acp.getNumFlights();
 		int numRunways = acp.getNumRunways();
 		
-		List<Integer> seq = EAUtil.randomPermutation(l); 
+		RandomGenerator gen = RandomStreams.orCurrent(rng);
+		List<Integer> seq = RandomStreams.randomPermutation(gen, l); 
 		List<String> order = new ArrayList<String>(l);
 		for (int i=0; i<l; i++)
 			order.add(acp.getFlightID(seq.get(i)));
 		List<Integer> runways = new ArrayList<Integer>(l);
 		for (int i=0; i<l; i++)
-			runways.add(EAUtil.random(numRunways));
+			runways.add(gen.nextInt(numRunways));
 		List<LandingInformation> info = ld.decode(order, runways);
 	
 		
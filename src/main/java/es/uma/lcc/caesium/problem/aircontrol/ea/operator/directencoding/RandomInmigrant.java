@@ -2,6 +2,7 @@ package es.uma.lcc.caesium.problem.aircontrol.ea.operator.directencoding;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 import es.uma.lcc.caesium.ea.base.Individual;
 import es.uma.lcc.caesium.ea.fitness.ObjectiveFunction;
@@ -10,7 +11,7 @@ import es.uma.lcc.caesium.ea.operator.variation.mutation.MutationOperator;
 /**
  * Random inmigrant: creates a completely new solution.
  * @author ccottap
- * @version 1.0
+ * @version 1.1
  *
  */
 public class RandomInmigrant extends MutationOperator {
@@ -36,6 +37,14 @@ public class RandomInmigrant extends MutationOperator {
 		creator.setObjectiveFunction(f);
 	}
 
+	/**
+	 * Sets the random generator used to create new solutions
+	 * @param rng the random generator (if null, the one bound to the current thread is used)
+	 */
+	public void setRandomGenerator(RandomGenerator rng) {
+		creator.setRandomGenerator(rng);
+	}
+
 	@Override
 	protected Individual _apply(List<Individual> parents) {
 		Individual ind = creator._apply(null);
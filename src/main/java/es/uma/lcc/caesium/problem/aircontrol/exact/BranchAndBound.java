@@ -0,0 +1,714 @@
+package es.uma.lcc.caesium.problem.aircontrol.exact;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.github.cliftonlabs.json_simple.JsonArray;
+import com.github.cliftonlabs.json_simple.JsonObject;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.AirplaneType;
+import es.uma.lcc.caesium.problem.aircontrol.AirportInformation;
+import es.uma.lcc.caesium.problem.aircontrol.Flight;
+import es.uma.lcc.caesium.problem.aircontrol.LandingDecoder;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.LowerBound;
+
+/**
+ * Exact branch-and-bound solver for small instances (at most 63 flights). Schedules are built
+ * depth-first as sequences of landings in chronological order, each flight landing as soon as
+ * possible on its runway given the state of the airport (time and type of the last landing on
+ * each runway, as in {@link AirportInformation}). Every optimal schedule can be built this way
+ * (listing its landings by time, and by runway if simultaneous).
+ * <p>
+ * A node is pruned if its lower bound is not better than the incumbent: the cost so far plus a
+ * bound of the cost of the remaining flights, given by their earliest possible landings and by
+ * the capacity of the runways at minimal separation. It is also pruned if the same state (landed
+ * flights and runway frontier) has already been reached at no higher cost. The nodes of the
+ * first levels of the tree are spread over a fork/join pool (work stealing balances the
+ * subtrees). The initial incumbent is the greedy schedule, or a given schedule (e.g., found by
+ * GRASP) if better.
+ * <p>
+ * The lower bound of the search is the minimum bound of the subtrees not explored yet (or the
+ * {@link LowerBound} of the instance, if higher), so the optimality gap is known at any time; it is reported periodically and whenever the incumbent
+ * improves. If the time limit is reached, the best schedule and the gap are returned.
+ * @author ccottap
+ * @version 1.1
+ */
+public class BranchAndBound {
+	/**
+	 * State of the search at some point
+	 * @param time time since the beginning of the search (in seconds)
+	 * @param incumbent cost of the best schedule found
+	 * @param bound lower bound of the optimal cost
+	 * @param nodes number of nodes explored
+	 */
+	public record Progress(double time, long incumbent, long bound, long nodes) {
+		/**
+		 * Returns the relative optimality gap
+		 * @return the relative optimality gap (0 if the incumbent is optimal)
+		 */
+		public double gap() {
+			return (incumbent == 0) ? 0.0 : (double) (incumbent - bound) / incumbent;
+		}
+	}
+
+	/**
+	 * A state of the airport: landed flights and runway frontier
+	 * @param landed the landed flights (one bit per flight)
+	 * @param times time of the last landing on each runway (-1 if none)
+	 * @param types type of the last plane on each runway (-1 if none)
+	 * @param last runway of the last landing (it determines which simultaneous landings can follow)
+	 */
+	private record State(long landed, long[] times, byte[] types, int last) {
+		@Override
+		public boolean equals(Object o) {
+			return (o instanceof State s) && (landed == s.landed) && (last == s.last) && Arrays.equals(times, s.times) && Arrays.equals(types, s.types);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * (31 * Long.hashCode(landed) + last) + Arrays.hashCode(times)) + Arrays.hashCode(types);
+		}
+	}
+
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * number of flights
+	 */
+	private int numFlights;
+	/**
+	 * number of runways
+	 */
+	private int numRunways;
+	/**
+	 * the flights
+	 */
+	private Flight[] flights;
+	/**
+	 * earliest arrival time of each flight
+	 */
+	private long[] eat;
+	/**
+	 * minimum separation between planes
+	 */
+	private long minSeparation;
+	/**
+	 * number of worker threads (0 for the number of available processors)
+	 */
+	private int numThreads;
+	/**
+	 * depth up to which nodes are solved as separate tasks
+	 */
+	private int splitDepth;
+	/**
+	 * wall-clock time limit in seconds (0 if none)
+	 */
+	private double timeLimit;
+	/**
+	 * time between progress reports in seconds
+	 */
+	private double reportInterval;
+	/**
+	 * maximum number of states stored for dominance
+	 */
+	private int maxStates;
+	/**
+	 * callback for progress reports (null if none)
+	 */
+	private Consumer<Progress> listener;
+	/**
+	 * initial incumbent (null if none)
+	 */
+	private List<LandingInformation> initial;
+
+	/**
+	 * cost of the incumbent
+	 */
+	private AtomicLong bestCost;
+	/**
+	 * the incumbent
+	 */
+	private List<LandingInformation> best;
+	/**
+	 * number of nodes explored
+	 */
+	private AtomicLong nodes;
+	/**
+	 * best cost at which each state has been reached
+	 */
+	private Map<State, Long> visited;
+	/**
+	 * subtrees not explored yet, and their lower bounds
+	 */
+	private Map<Task, Long> open;
+	/**
+	 * progress reports of the last search
+	 */
+	private List<Progress> trace;
+	/**
+	 * time of the last progress report (in nanoseconds)
+	 */
+	private AtomicLong lastReport;
+	/**
+	 * beginning and end (deadline) of the search (in nanoseconds)
+	 */
+	private long start, end;
+	/**
+	 * whether the search has been stopped by the time limit
+	 */
+	private volatile boolean stopped;
+	/**
+	 * lower bound of the optimal cost of the instance, computed before the search
+	 */
+	private long instanceBound;
+	/**
+	 * lower bound of the last search
+	 */
+	private long lowerBound;
+	/**
+	 * time of the last search (in seconds)
+	 */
+	private double time;
+
+	/**
+	 * Creates the solver for a problem instance, with default parameters: as many threads as
+	 * available processors, subtrees split up to depth 3, no time limit, reports every second, and
+	 * up to one million states stored for dominance
+	 * @param data the problem instance
+	 */
+	public BranchAndBound(AirControlProblem data) {
+		if (data.getNumFlights() > Long.SIZE - 1)
+			throw new IllegalArgumentException("Too many flights for branch and bound: " + data.getNumFlights());
+		this.data = data;
+		numFlights = data.getNumFlights();
+		numRunways = data.getNumRunways();
+		flights = new Flight[numFlights];
+		eat = new long[numFlights];
+		for (int i=0; i<numFlights; i++) {
+			flights[i] = data.getFlight(data.getFlightID(i));
+			eat[i] = data.getEarliestArrivalTime(flights[i].getFlightID());
+		}
+		minSeparation = Long.MAX_VALUE;
+		for (AirplaneType t1: AirplaneType.values())
+			for (AirplaneType t2: AirplaneType.values())
+				minSeparation = Math.min(minSeparation, data.getSeparation(t1, t2));
+		numThreads = 0;
+		splitDepth = 3;
+		timeLimit = 0;
+		reportInterval = 1;
+		maxStates = 1000000;
+		listener = null;
+		initial = null;
+	}
+
+	/**
+	 * Sets the number of worker threads
+	 * @param numThreads number of worker threads (0 for the number of available processors)
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Sets the depth up to which nodes are solved as separate tasks
+	 * @param splitDepth the depth up to which nodes are solved as separate tasks
+	 */
+	public void setSplitDepth(int splitDepth) {
+		this.splitDepth = splitDepth;
+	}
+
+	/**
+	 * Sets the wall-clock time limit
+	 * @param timeLimit the time limit in seconds (0 if none)
+	 */
+	public void setTimeLimit(double timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Sets the time between progress reports
+	 * @param reportInterval the time between progress reports in seconds
+	 */
+	public void setReportInterval(double reportInterval) {
+		this.reportInterval = reportInterval;
+	}
+
+	/**
+	 * Sets the maximum number of states stored for dominance
+	 * @param maxStates the maximum number of states stored for dominance
+	 */
+	public void setMaxStates(int maxStates) {
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * Sets the callback for progress reports. It is called from the worker threads, so it
+	 * should return quickly.
+	 * @param listener the callback (null if none)
+	 */
+	public void setListener(Consumer<Progress> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the initial incumbent (used if valid and better than the greedy schedule)
+	 * @param schedule the initial incumbent (null if none)
+	 */
+	public void setIncumbent(List<LandingInformation> schedule) {
+		initial = schedule;
+	}
+
+	/**
+	 * Solves the problem instance
+	 * @return the best schedule found (optimal unless the time limit has been reached)
+	 */
+	public List<LandingInformation> solve() {
+		start = System.nanoTime();
+		end = (timeLimit > 0) ? start + (long) (timeLimit * 1e9) : Long.MAX_VALUE;
+		stopped = false;
+		nodes = new AtomicLong(0);
+		visited = new ConcurrentHashMap<State, Long>();
+		open = new ConcurrentHashMap<Task, Long>();
+		trace = new ArrayList<Progress>();
+		lastReport = new AtomicLong(start);
+
+		List<String> order = new ArrayList<String>(data.getFlightIDs());
+		order.sort(Comparator.comparingLong(data::getEarliestArrivalTime));
+		best = new LandingDecoder(data).decode(order);
+		bestCost = new AtomicLong(cost(best));
+		if (initial != null) {
+			long c = cost(initial);
+			if ((c >= 0) && (c < bestCost.get())) {
+				best = new ArrayList<LandingInformation>(initial);
+				bestCost.set(c);
+			}
+		}
+
+		long[] times = new long[numRunways];
+		byte[] types = new byte[numRunways];
+		Arrays.fill(times, -1);
+		Arrays.fill(types, (byte) -1);
+		Task root = new Task(0, 0L, times, types, 0, -1, -1, new int[numFlights], new long[numFlights], new int[numFlights]);
+		instanceBound = new LowerBound(data).compute();
+		lowerBound = bound(0L, times, types, 0, -1);
+		open.put(root, lowerBound);
+		report();
+		int threads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invoke(root);
+		} finally {
+			pool.shutdownNow();
+		}
+		lowerBound = currentBound();
+		time = (System.nanoTime() - start) / 1e9;
+		trace.add(new Progress(time, bestCost.get(), lowerBound, nodes.get()));
+		return best;
+	}
+
+	/**
+	 * Returns the total squared waiting time of a schedule
+	 * @param schedule the schedule
+	 * @return the total squared waiting time (-1 if the schedule is not valid)
+	 */
+	private long cost(List<LandingInformation> schedule) {
+		if ((schedule.size() != numFlights) || !data.isValid(new ArrayList<LandingInformation>(schedule)))
+			return -1;
+		long total = 0;
+		for (LandingInformation li: schedule) {
+			long w = li.time() - data.getEarliestArrivalTime(li.flightID());
+			total += w*w;
+		}
+		return total;
+	}
+
+	/**
+	 * Computes the earliest landing time of a flight on a runway given the runway frontier
+	 * @param j index of the flight
+	 * @param r the runway
+	 * @param times time of the last landing on each runway
+	 * @param types type of the last plane on each runway
+	 * @return the earliest landing time
+	 */
+	private long landingTime(int j, int r, long[] times, byte[] types) {
+		Flight f = flights[j];
+		long t = f.getArrivalTime(r);
+		if (types[r] >= 0)
+			t = Math.max(t, times[r] + data.getSeparation(AirplaneType.values()[types[r]], f.getType()));
+		return data.getOpenTime(r, t);
+	}
+
+	/**
+	 * Computes a lower bound of the cost of the schedules that can be built from a state. Each
+	 * remaining flight cannot land before its earliest possible landing given the state (and no
+	 * earlier than the last landing). Besides, the remaining flights cannot land before the times
+	 * at which they would land if the runways were shared by all flights and separations were
+	 * minimal, landing in order of their earliest possible landings (see {@link LowerBound}).
+	 * @param landed the landed flights
+	 * @param times time of the last landing on each runway
+	 * @param types type of the last plane on each runway
+	 * @param cost cost of the landings so far
+	 * @param frontier time of the last landing
+	 * @return a lower bound of the cost of the schedules
+	 */
+	private long bound(long landed, long[] times, byte[] types, long cost, long frontier) {
+		int q = 0;
+		long[] wait = new long[numFlights];
+		long[] arrival = new long[numFlights];
+		long individual = 0;
+		for (int j=0; j<numFlights; j++) {
+			if ((landed & (1L << j)) == 0) {
+				long w = Long.MAX_VALUE;
+				for (int r: flights[j].getEligibleRunways())
+					w = Math.min(w, Math.max(frontier, landingTime(j, r, times, types)) - eat[j]);
+				wait[q] = w;
+				arrival[q] = eat[j];
+				individual += w*w;
+				q++;
+			}
+		}
+		if (q < 2)
+			return cost + individual;
+
+		// landing times if runways were shared and separations minimal
+		long[] available = new long[numRunways];
+		for (int r=0; r<numRunways; r++)
+			available[r] = (types[r] >= 0) ? times[r] + minSeparation : Long.MIN_VALUE;
+		return cost + Math.max(individual, LowerBound.relaxation(wait, arrival, q, available, minSeparation));
+	}
+
+	/**
+	 * Returns the current lower bound of the optimal cost
+	 * @return the current lower bound of the optimal cost
+	 */
+	private long currentBound() {
+		long lb = bestCost.get();
+		for (long b: open.values())
+			lb = Math.min(lb, b);
+		return Math.max(lb, Math.min(instanceBound, bestCost.get()));
+	}
+
+	/**
+	 * Records the progress of the search and notifies the listener
+	 */
+	private void report() {
+		Progress p = new Progress((System.nanoTime() - start) / 1e9, bestCost.get(), currentBound(), nodes.get());
+		synchronized (trace) {
+			trace.add(p);
+		}
+		if (listener != null)
+			listener.accept(p);
+	}
+
+	/**
+	 * Updates the incumbent if a schedule is better
+	 * @param cost cost of the schedule
+	 * @param flight index of the flight of each landing
+	 * @param time time of each landing
+	 * @param runway runway of each landing
+	 */
+	private void update(long cost, int[] flight, long[] time, int[] runway) {
+		synchronized (this) {
+			if (cost >= bestCost.get())
+				return;
+			List<LandingInformation> schedule = new ArrayList<LandingInformation>(numFlights);
+			for (int i=0; i<numFlights; i++)
+				schedule.add(new LandingInformation(flights[flight[i]].getFlightID(), time[i], runway[i]));
+			best = schedule;
+			bestCost.set(cost);
+		}
+		report();
+	}
+
+	/**
+	 * A subtree of the search
+	 */
+	@SuppressWarnings("serial")
+	private class Task extends RecursiveAction {
+		/**
+		 * number of landings so far
+		 */
+		private int depth;
+		/**
+		 * the landed flights
+		 */
+		private long landed;
+		/**
+		 * time of the last landing on each runway
+		 */
+		private long[] times;
+		/**
+		 * type of the last plane on each runway
+		 */
+		private byte[] types;
+		/**
+		 * cost of the landings so far
+		 */
+		private long cost;
+		/**
+		 * time of the last landing
+		 */
+		private long frontier;
+		/**
+		 * runway of the last landing
+		 */
+		private int lastRunway;
+		/**
+		 * flight of each landing so far
+		 */
+		private int[] flight;
+		/**
+		 * time of each landing so far
+		 */
+		private long[] time;
+		/**
+		 * runway of each landing so far
+		 */
+		private int[] runway;
+
+		/**
+		 * Creates the subtree rooted at a node (the arrays are owned by the subtree)
+		 * @param depth number of landings so far
+		 * @param landed the landed flights
+		 * @param times time of the last landing on each runway
+		 * @param types type of the last plane on each runway
+		 * @param cost cost of the landings so far
+		 * @param frontier time of the last landing
+		 * @param lastRunway runway of the last landing
+		 * @param flight flight of each landing so far
+		 * @param time time of each landing so far
+		 * @param runway runway of each landing so far
+		 */
+		Task(int depth, long landed, long[] times, byte[] types, long cost, long frontier, int lastRunway, int[] flight, long[] time, int[] runway) {
+			this.depth = depth;
+			this.landed = landed;
+			this.times = times;
+			this.types = types;
+			this.cost = cost;
+			this.frontier = frontier;
+			this.lastRunway = lastRunway;
+			this.flight = flight;
+			this.time = time;
+			this.runway = runway;
+		}
+
+		@Override
+		protected void compute() {
+			if (depth < splitDepth) {
+				List<Task> children = new ArrayList<Task>();
+				for (long[] move: moves(depth, landed, times, types, cost, frontier, lastRunway)) {
+					int j = (int) move[0];
+					int r = (int) move[1];
+					long[] t = times.clone();
+					byte[] p = types.clone();
+					t[r] = move[2];
+					p[r] = (byte) flights[j].getType().ordinal();
+					int[] f = flight.clone();
+					long[] lt = time.clone();
+					int[] lr = runway.clone();
+					f[depth] = j;
+					lt[depth] = move[2];
+					lr[depth] = r;
+					Task child = new Task(depth+1, landed | (1L << j), t, p, move[3], move[2], r, f, lt, lr);
+					open.put(child, move[4]);
+					children.add(child);
+				}
+				open.remove(this);
+				invokeAll(children);
+			}
+			else {
+				search(depth, landed, cost, frontier, lastRunway);
+				if (!stopped)
+					open.remove(this);
+			}
+		}
+
+		/**
+		 * Explores the subtree depth-first (in the thread of the task)
+		 * @param d number of landings so far
+		 * @param l the landed flights
+		 * @param c cost of the landings so far
+		 * @param fr time of the last landing
+		 * @param lr runway of the last landing
+		 */
+		private void search(int d, long l, long c, long fr, int lr) {
+			long n = nodes.incrementAndGet();
+			if ((n & 1023) == 0) {
+				long now = System.nanoTime();
+				if (now >= end)
+					stopped = true;
+				long last = lastReport.get();
+				if ((now - last >= reportInterval * 1e9) && lastReport.compareAndSet(last, now))
+					report();
+			}
+			if (stopped)
+				return;
+			if (d == numFlights) {
+				update(c, flight, time, runway);
+				return;
+			}
+			for (long[] move: moves(d, l, times, types, c, fr, lr)) {
+				if ((move[4] >= bestCost.get()) || stopped)
+					continue;
+				int j = (int) move[0];
+				int r = (int) move[1];
+				long oldTime = times[r];
+				byte oldType = types[r];
+				times[r] = move[2];
+				types[r] = (byte) flights[j].getType().ordinal();
+				flight[d] = j;
+				time[d] = move[2];
+				runway[d] = r;
+				search(d+1, l | (1L << j), move[3], move[2], r);
+				times[r] = oldTime;
+				types[r] = oldType;
+			}
+		}
+	}
+
+	/**
+	 * Generates the landings that can follow a node and are not pruned, sorted by landing time
+	 * @param d number of landings so far
+	 * @param landed the landed flights
+	 * @param times time of the last landing on each runway
+	 * @param types type of the last plane on each runway
+	 * @param cost cost of the landings so far
+	 * @param frontier time of the last landing
+	 * @param lastRunway runway of the last landing
+	 * @return the landings (flight, runway, time, cost and lower bound)
+	 */
+	private List<long[]> moves(int d, long landed, long[] times, byte[] types, long cost, long frontier, int lastRunway) {
+		List<long[]> moves = new ArrayList<long[]>();
+		for (int j=0; j<numFlights; j++) {
+			if ((landed & (1L << j)) != 0)
+				continue;
+			for (int r: flights[j].getEligibleRunways()) {
+				long t = landingTime(j, r, times, types);
+				if ((t < frontier) || ((t == frontier) && (r < lastRunway)))
+					continue;		// not in chronological order
+				long w = t - eat[j];
+				long c = cost + w*w;
+				long newLanded = landed | (1L << j);
+				long oldTime = times[r];
+				byte oldType = types[r];
+				times[r] = t;
+				types[r] = (byte) flights[j].getType().ordinal();
+				long lb = bound(newLanded, times, types, c, t);
+				boolean dominated = (lb >= bestCost.get());
+				if (!dominated) {
+					State s = new State(newLanded, times.clone(), types.clone(), r);
+					Long prev = visited.get(s);
+					if ((prev != null) && (prev <= c))
+						dominated = true;
+					else if ((prev != null) || (visited.size() < maxStates))
+						visited.merge(s, c, Math::min);
+				}
+				times[r] = oldTime;
+				types[r] = oldType;
+				if (!dominated)
+					moves.add(new long[] {j, r, t, c, lb});
+			}
+		}
+		moves.sort(Comparator.comparingLong((long[] m) -> m[2]).thenComparingLong(m -> m[4]));
+		return moves;
+	}
+
+	/**
+	 * Returns the best schedule of the last search
+	 * @return the best schedule of the last search
+	 */
+	public List<LandingInformation> getBest() {
+		return best;
+	}
+
+	/**
+	 * Returns the cost of the best schedule of the last search
+	 * @return the total squared waiting time of the best schedule of the last search
+	 */
+	public long getBestCost() {
+		return bestCost.get();
+	}
+
+	/**
+	 * Returns the lower bound of the optimal cost found by the last search
+	 * @return the lower bound of the optimal cost (the cost of the best schedule if it is optimal)
+	 */
+	public long getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * Indicates whether the best schedule of the last search is optimal
+	 * @return true if the best schedule of the last search is optimal
+	 */
+	public boolean isOptimal() {
+		return lowerBound >= bestCost.get();
+	}
+
+	/**
+	 * Returns the number of nodes explored by the last search
+	 * @return the number of nodes explored by the last search
+	 */
+	public long getNodes() {
+		return nodes.get();
+	}
+
+	/**
+	 * Returns the time of the last search
+	 * @return the time of the last search (in seconds)
+	 */
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the progress reports of the last search
+	 * @return the progress reports of the last search
+	 */
+	public List<Progress> getTrace() {
+		return trace;
+	}
+
+	/**
+	 * Returns the statistics of the last search in JSON format
+	 * @return the statistics of the last search in JSON format
+	 */
+	public JsonObject toJSON() {
+		JsonObject json = new JsonObject();
+		json.put("best", bestCost.get());
+		json.put("bound", lowerBound);
+		json.put("optimal", isOptimal());
+		json.put("time", time);
+		json.put("nodes", nodes.get());
+		JsonArray tr = new JsonArray();
+		for (Progress p: trace) {
+			JsonObject o = new JsonObject();
+			o.put("time", p.time());
+			o.put("incumbent", p.incumbent());
+			o.put("bound", p.bound());
+			o.put("gap", p.gap());
+			o.put("nodes", p.nodes());
+			tr.add(o);
+		}
+		json.put("trace", tr);
+		json.put("solution", best.toString());
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		return "BranchAndBound(threads=" + numThreads + ", split=" + splitDepth + ", timelimit=" + timeLimit + ", states=" + maxStates + ")";
+	}
+}
@@ -0,0 +1,84 @@
+package es.uma.lcc.caesium.problem.aircontrol.exact;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+
+import es.uma.lcc.caesium.ea.util.JsonUtil;
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.grasp.RunGRASP4AirControl;
+
+/**
+ * Class for solving small instances of the Aircraft Landing Scheduling Problem to optimality.
+ * The configuration indicates the number of worker {@code threads} (0 for the number of available
+ * processors), the {@code split} depth of the tree up to which nodes are solved as separate tasks,
+ * the {@code timelimit} in seconds (0 for none), the time between progress reports ({@code report},
+ * in seconds) and the maximum number of {@code states} stored for dominance. If it contains an
+ * {@code incumbent} object, the initial incumbent is found by the GRASP whose {@code configuration}
+ * is given, run for the indicated number of {@code iterations}.
+ * @author ccottap
+ * @version 1.0
+ */
+public class RunBranchAndBound {
+
+	/**
+	 * Main method
+	 * @param args command-line arguments
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws JsonException, IOException {
+		if (args.length < 2) {
+			System.out.println("Parameters: <configuration> <problem-data>");
+			System.exit(1);
+		}
+
+		FileReader reader = new FileReader(args[0] + ".json");
+		JsonObject conf = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
+
+		AirControlProblem acp = new AirControlProblem(args[1] + ".acp");
+		System.out.println(acp);
+		BranchAndBound bnb = new BranchAndBound(acp);
+		if (conf.containsKey("threads"))
+			bnb.setNumThreads(JsonUtil.getInt(conf, "threads"));
+		if (conf.containsKey("split"))
+			bnb.setSplitDepth(JsonUtil.getInt(conf, "split"));
+		if (conf.containsKey("timelimit"))
+			bnb.setTimeLimit(JsonUtil.getDouble(conf, "timelimit"));
+		if (conf.containsKey("report"))
+			bnb.setReportInterval(JsonUtil.getDouble(conf, "report"));
+		if (conf.containsKey("states"))
+			bnb.setMaxStates(JsonUtil.getInt(conf, "states"));
+		if (conf.containsKey("incumbent")) {
+			JsonObject inc = (JsonObject) conf.get("incumbent");
+			reader = new FileReader((String) inc.get("configuration") + ".json");
+			JsonObject grasp = (JsonObject) Jsoner.deserialize(reader);
+			reader.close();
+			if (inc.containsKey("iterations"))
+				grasp.put("iterations", JsonUtil.getInt(inc, "iterations"));
+			long seed = conf.containsKey("seed") ? JsonUtil.getLong(conf, "seed") : 1;
+			List<LandingInformation> incumbent = RunGRASP4AirControl.solve(grasp, acp, seed);
+			bnb.setIncumbent(incumbent);
+		}
+		System.out.println(bnb);
+		bnb.setListener(p -> System.out.println(String.format(Locale.US, "%.2fs\t%d\t%d\t%.4f\t(%d nodes)",
+				p.time(), p.incumbent(), p.bound(), p.gap(), p.nodes())));
+
+		List<LandingInformation> best = bnb.solve();
+		System.out.println((bnb.isOptimal() ? "Optimal: " : "Best found: ") + bnb.getBestCost() +
+				" (bound " + bnb.getLowerBound() + ", " + String.format(Locale.US, "%.2f", bnb.getTime()) + "s)");
+		System.out.println(acp.formatLandingInformation(best));
+		PrintWriter file = new PrintWriter(args[0] + "-stats-" + args[1] + ".json");
+		file.print(bnb.toJSON().toJson());
+		file.close();
+	}
+
+}
@@ -0,0 +1,6 @@
+/**
+ * Exact methods for small instances of the Aircraft Landing Scheduling Problem
+ * @author ccottap
+ * @version 1.0
+ */
+package es.uma.lcc.caesium.problem.aircontrol.exact;
\ No newline at end of file
@@ -2,23 +2,22 @@ package es.uma.lcc.caesium.problem.aircontrol.grasp;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.random.RandomGenerator;
 
 import es.uma.lcc.caesium.grasp.base.GRASPObjectiveFunction;
 import es.uma.lcc.caesium.grasp.base.LocalSearchResult;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
 import es.uma.lcc.caesium.problem.aircontrol.AirportInformation;
 import es.uma.lcc.caesium.problem.aircontrol.Flight;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
 import es.uma.lcc.caesium.problem.aircontrol.LandingImprovement;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
 
 /**
  * Problem specific functions to solve the Aircraft Landing Scheduling Problem with GRASP
  * @author ccottap
- * @version 1.1
+ * @version 1.4
  */
 public class AirControlGRASPObjectiveFunction implements GRASPObjectiveFunction {
 	/**
@@ -37,12 +36,36 @@ public class AirControlGRASPObjectiveFunction implements GRASPObjectiveFunction
 	 * to control verbosity
 	 */
 	private int verbosityLevel = 0;
+	/**
+	 * to construct solutions incrementally
+	 */
+	private IncrementalConstruction construction;
+	/**
+	 * cache of partial constructions (null if not used)
+	 */
+	private PrefixCache cache;
+	/**
+	 * termination criterion based on the optimality gap (null if none)
+	 */
+	private GapTermination termination;
+	/**
+	 * solution that reached the target gap (null if not reached yet)
+	 */
+	private List<LandingInformation> reached;
+	/**
+	 * cost of the solution that reached the target gap
+	 */
+	private long reachedCost;
 
 	/**
 	 * default constructor
 	 */
 	public AirControlGRASPObjectiveFunction() {
 		data = null;
+		construction = null;
+		cache = null;
+		termination = null;
+		reached = null;
 		ls = new LandingImprovement(NUM_NEIGHBORS);
 	}
 	
@@ -70,6 +93,63 @@ public class AirControlGRASPObjectiveFunction implements GRASPObjectiveFunction
 	public void setProblemData (AirControlProblem data) {
 		this.data = data;
 		ls.setData(data);
+		construction = new IncrementalConstruction(data);
+		cache = null;
+	}
+	
+	/**
+	 * Creates a copy of the objective function, with the same configuration but its own
+	 * construction engine, prefix cache and local search (so it can be used in another thread)
+	 * @return a copy of the objective function
+	 */
+	public AirControlGRASPObjectiveFunction copy() {
+		AirControlGRASPObjectiveFunction c = new AirControlGRASPObjectiveFunction(data);
+		c.setNumNeighbors(ls.getNumNeighbors());
+		c.setVerbosityLevel(verbosityLevel);
+		if (cache != null)
+			c.setPrefixCache(cache.getStride(), cache.getMaxBytes());
+		return c;
+	}
+	
+	/**
+	 * Returns the problem data
+	 * @return the problem instance
+	 */
+	public AirControlProblem getProblemData () {
+		return data;
+	}
+	
+	/**
+	 * Enables the reuse of partial constructions whose ranks are a prefix of the ranks to decode
+	 * @param stride distance between the depths at which partial constructions are cached
+	 * (if 0 or negative, a sixteenth of the number of flights)
+	 * @param maxBytes maximum memory taken by the cached constructions (in bytes)
+	 */
+	public void setPrefixCache (int stride, long maxBytes) {
+		if (stride <= 0)
+			stride = Math.max(1, data.getNumFlights() / 16);
+		cache = new PrefixCache(stride, maxBytes);
+	}
+	
+	/**
+	 * Sets a termination criterion based on the optimality gap. The GRASP of the library performs
+	 * a fixed number of iterations and cannot be stopped, so once a solution reaches the target
+	 * only the charged cost stops: the remaining iterations are still performed, but they just
+	 * return that solution (without construction, local search or evaluation) at no cost.
+	 * {@link ParallelReactiveGRASP} drives its own iterations, and stops for real.
+	 * @param termination the criterion (null for none); it must be set again for each run
+	 */
+	public void setTermination (GapTermination termination) {
+		this.termination = termination;
+		reached = null;
+	}
+	
+	/**
+	 * Returns the cache of partial constructions
+	 * @return the cache of partial constructions (null if not used)
+	 */
+	public PrefixCache getPrefixCache() {
+		return cache;
 	}
 	
 	/**
@@ -80,6 +160,14 @@ public class AirControlGRASPObjectiveFunction implements GRASPObjectiveFunction
 		ls.setNumNeighbors(num);
 	}
 	
+	/**
+	 * Sets the random generator used by local search
+	 * @param rng the random generator (if null, the one bound to the current thread is used)
+	 */
+	public void setRandomGenerator (RandomGenerator rng) {
+		ls.setRandomGenerator(rng);
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -90,27 +178,31 @@ public class AirControlGRASPObjectiveFunction implements GRASPObjectiveFunction
 	
 	@Override
 	public double equivalentCost() {
-		// There are (n-i+1)*m candidates in the i-th stage (i from 1 to n).
+		// There are (n-i+1)*m candidates in the i-th stage (i from 1 to n), m being the
+		// average number of runways on which a flight can land (the pairs flight-runway over n).
 		// The total number of candidates checked is therefore (n+1)*n*m/2.
 		// A solution involves n landings. Therefore, a single iteration of the 
 		// construction phase is equivalent to (n+1)*n*m/(2*n) = (n+1)*m/2 evaluations
-		return (double)(data.getNumFlights()+1)*data.getNumRunways()/2.0;
+		if (reached != null)
+			return 0;
+		int n = data.getNumFlights();
+		return (double)(n+1)*construction.getNumPairs()/(2.0*n);
 	}
 
 	
 	/**
 	 * Returns a list of landing information records. Each of them corresponds to one
-	 * of the remaining flights landing at the earliest possible time, given the previous landings.
+	 * of the remaining flights landing at the earliest possible time on a runway on which it can land, 
+	 * given the previous landings.
 	 * @param remaining the ids of the remaining flights
 	 * @param ai airport information with the time and type of the last landing in each runway
 	 * @return a list of landing information records
 	 */
 	public List<LandingInformation> candidates (Collection<String> remaining, AirportInformation ai) {
 		List<LandingInformation> info = new ArrayList<LandingInformation>(remaining.size());
-		int numRunways = data.getNumRunways();
 		for (String id: remaining) {
 			Flight f = data.getFlight(id);
-			for (int j=0; j<numRunways; j++) {
+			for (int j: f.getEligibleRunways()) {
 				long expected = f.getArrivalTime(j);
 
 				if (verbosityLevel > 1) {
@@ -130,45 +222,13 @@ public class AirControlGRASPObjectiveFunction implements GRASPObjectiveFunction
 				else {
 					t = Math.max(expected, ai.getTime(j) + data.getSeparation(ai.getType(j), f.getType()));
 				}
-				info.add(new LandingInformation(id, t, j));
+				info.add(new LandingInformation(id, data.getOpenTime(j, t), j));
 			}
 		}
 		return info;
 	}
 	
 	
-	/**
-	 * Recursive method to complete the solution given the current state, and the ranks for the remaining decisions.
-	 * @param current the flights that have landed so far, with their landing information
-	 * @param remaining remaining flights
-	 * @param ai airport information with the time and type of the last landing in each runway
-	 * @param ranks remaining decisions
-	 * @return the landing information
-	 */
-	public List<LandingInformation> decode (List<LandingInformation> current, 
-											Collection<String> remaining, AirportInformation ai,
-											List<Integer> ranks) {
-		if (remaining.size() > 0) {
-			if (verbosityLevel > 0) {
-				System.out.println("Selection #" + (data.getNumFlights() - remaining.size() + 1) + "\n-------------------");
-				System.out.println("Remaining: " + remaining);
-			}
-			List<LandingInformation> cand = candidates (remaining, ai);
-			cand.sort(Comparator.comparing(LandingInformation::time));
-			LandingInformation selected = cand.get(Math.min(cand.size()-1, ranks.get(0)));
-			remaining.remove(selected.flightID());
-			current.add(selected);
-			ai.land(data.getFlight(selected.flightID()).getType(), selected.runway(), selected.time());
-			if (verbosityLevel > 0) {
-				System.out.println("Candidates: " + cand);
-				System.out.println("Picked the #" + (ranks.get(0)+1) + " posibility: " + selected);
-			}
-			return decode(current, remaining, ai, ranks.subList(1, ranks.size()));
-		}
-		else
-			return current;
-	}
-	
 	/**
 	 * Creates a list of landing assignment given a sequence of ranks for the decisions at each stage.
 	 * Ranks 0 means the best possible decision, rank 1 the second-best, and so on. If a certain rank
@@ -181,29 +241,71 @@ public class AirControlGRASPObjectiveFunction implements GRASPObjectiveFunction
 		if (verbosityLevel > 0) {
 			System.out.println("Ranks: " + ranks);
 		}
-		List<LandingInformation> info = new ArrayList<LandingInformation>(data.getNumFlights());
-		int numRunways = data.getNumRunways();
-		
-		AirportInformation ai = new AirportInformation(numRunways);
-
-		Set<String> remaining = new HashSet<String>(data.getFlightIDs()); // flight ID of each flight
-		
-		return decode(info, remaining, ai, ranks);	
+		if (reached != null)
+			return new ArrayList<LandingInformation>(reached);
+		int numFlights = data.getNumFlights();
+		List<LandingInformation> info = new ArrayList<LandingInformation>(numFlights);
+		if (construction.getVersion() != data.getVersion()) {
+			// arrival times have changed: cached data are out of date
+			construction = new IncrementalConstruction(data);
+			if (cache != null)
+				cache.clear();
+		}
+		construction.reset();
+		int first = 0;
+		long[] hashes = null;
+		if (cache != null) {
+			hashes = cache.hashes(ranks);
+			first = cache.resume(ranks, hashes, construction, info);
+		}
+		int stride = (cache != null) ? cache.getStride() : 0;
+		for (int i=first; i<numFlights; i++) {
+			LandingInformation selected = construction.next(ranks.get(i));
+			info.add(selected);
+			if (verbosityLevel > 0) {
+				System.out.println("Selection #" + (i+1) + "\n-------------------");
+				System.out.println("Picked the #" + (ranks.get(i)+1) + " posibility: " + selected);
+			}
+			if ((cache != null) && ((i+1) % stride == 0) && ((i+1)/stride <= hashes.length)) {
+				// at most one new checkpoint per construction: cached prefixes get deeper as they recur
+				long h = hashes[(i+1)/stride - 1];
+				if (!cache.contains(i+1, h)) {
+					cache.store(ranks, i+1, h, construction, info);
+					stride = numFlights + 1;
+				}
+			}
+		}
+		return info;
 	}
 	
 
 	@Override
 	public LocalSearchResult improve(Object sol) {
-		if (ls.getNumNeighbors() > 0) {
+		if ((ls.getNumNeighbors() > 0) && (reached == null)) {
 			@SuppressWarnings("unchecked")
 			List<LandingInformation> info = (List<LandingInformation>) sol;
 			List<LandingInformation> newInfo = new ArrayList<LandingInformation>(data.getNumFlights());
-			int cost = ls.localSearch(info, newInfo);
-			return new LocalSearchResult(newInfo, (double)cost/(double)data.getNumFlights() - 1.0);
+			double cost = improve(info, newInfo);
+			return new LocalSearchResult(newInfo, cost);
 		}
 
 		return new LocalSearchResult(sol, 0);
 	}
+	
+	/**
+	 * Improves a solution by local search (if the number of neighbors is positive)
+	 * @param info the solution
+	 * @param newInfo the improved solution (filled by the method)
+	 * @return the cost of the local search, in number of evaluations
+	 */
+	public double improve(List<LandingInformation> info, List<LandingInformation> newInfo) {
+		if ((ls.getNumNeighbors() > 0) && (reached == null)) {
+			int cost = ls.localSearch(info, newInfo);
+			return (double)cost/(double)data.getNumFlights() - 1.0;
+		}
+		newInfo.addAll(info);
+		return 0;
+	}
 
 	
 	/**
@@ -212,12 +314,18 @@ public class AirControlGRASPObjectiveFunction implements GRASPObjectiveFunction
 	@SuppressWarnings("unchecked")
 	@Override
 	public double evaluate(Object sol) {
+		if (reached != null)
+			return reachedCost;		// every solution is the one that reached the target
 		var wait = data.waitingTime((List<LandingInformation>)sol);
 		long total = 0;
 		for (var e: wait.entrySet()) { 
 			long w = e.getValue();
 			total += w*w;
 		}
+		if ((termination != null) && termination.check(total)) {
+			reached = new ArrayList<LandingInformation>((List<LandingInformation>)sol);
+			reachedCost = total;
+		}
 		return total;
 	}
 
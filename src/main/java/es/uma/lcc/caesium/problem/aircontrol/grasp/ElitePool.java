@@ -0,0 +1,206 @@
+package es.uma.lcc.caesium.problem.aircontrol.grasp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Bounded pool of the best distinct solutions found, shared by concurrent threads without
+ * locks. The pool is an immutable sorted array that is replaced atomically (copy on write);
+ * since only improving solutions modify it, updates are rare and most offers just read it.
+ * Solutions are ordered by fitness (minimization) and, for equal fitness, by the iteration
+ * in which they were found. The first solution in the pool is the incumbent. The contents of
+ * the pool depend on the order in which solutions are offered (only the first copy of a solution
+ * is kept, and diversity may make a solution replace an earlier one), so solutions must be
+ * offered in a deterministic order (e.g., by iteration) for the results to be reproducible.
+ * <p>
+ * Optionally, a minimum distance between the solutions in the pool can be enforced: a solution
+ * that is too close to one in the pool can only replace it, and only if it is better.
+ * @author ccottap
+ * @version 1.1
+ */
+public class ElitePool {
+	/**
+	 * A solution in the pool
+	 * @param fitness the fitness of the solution
+	 * @param iteration the iteration in which the solution was found
+	 * @param solution the solution
+	 */
+	public record Elite(double fitness, long iteration, Object solution) {
+		/**
+		 * Checks whether this solution goes before another one
+		 * @param other the other solution
+		 * @return true iff this solution goes before the other one
+		 */
+		boolean precedes(Elite other) {
+			return (fitness < other.fitness) || ((fitness == other.fitness) && (iteration < other.iteration));
+		}
+	}
+
+	/**
+	 * maximum number of solutions in the pool
+	 */
+	private int capacity;
+	/**
+	 * the solutions in the pool, sorted
+	 */
+	private AtomicReference<Elite[]> pool;
+	/**
+	 * distance between solutions (null if diversity is not enforced)
+	 */
+	private ToIntBiFunction<Object, Object> distance;
+	/**
+	 * minimum distance between the solutions in the pool
+	 */
+	private int minDistance;
+
+	/**
+	 * Creates an empty pool
+	 * @param capacity maximum number of solutions in the pool (at least 1)
+	 */
+	public ElitePool(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		pool = new AtomicReference<Elite[]>(new Elite[0]);
+	}
+
+	/**
+	 * Enforces a minimum distance between the solutions in the pool
+	 * @param distance distance between solutions (null to disable the check)
+	 * @param minDistance minimum distance between the solutions in the pool
+	 */
+	public void setDiversity(ToIntBiFunction<Object, Object> distance, int minDistance) {
+		this.distance = distance;
+		this.minDistance = minDistance;
+	}
+
+	/**
+	 * Empties the pool
+	 */
+	public void clear() {
+		pool.set(new Elite[0]);
+	}
+
+	/**
+	 * Returns the maximum number of solutions in the pool
+	 * @return the maximum number of solutions in the pool
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Checks whether a solution might be inserted in the pool, judging only by its fitness
+	 * and iteration (a solution that is not admitted is always rejected by {@link #offer})
+	 * @param fitness the fitness of the solution
+	 * @param iteration the iteration in which the solution was found
+	 * @return true iff the pool is not full or the solution would go before its worst solution
+	 */
+	public boolean admits(double fitness, long iteration) {
+		Elite[] current = pool.get();
+		int n = current.length;
+		return (n < capacity) || new Elite(fitness, iteration, null).precedes(current[n-1]);
+	}
+
+	/**
+	 * Offers a solution to the pool. It is inserted if the pool is not full or it is better
+	 * than the worst solution in the pool, and it is not already in the pool. If diversity is
+	 * enforced, a solution closer than the minimum distance to a solution in the pool replaces
+	 * the closest such solution if it is better, and is discarded otherwise.
+	 * @param fitness the fitness of the solution
+	 * @param iteration the iteration in which the solution was found
+	 * @param solution the solution
+	 * @return true iff the solution was inserted
+	 */
+	public boolean offer(double fitness, long iteration, Object solution) {
+		Elite e = new Elite(fitness, iteration, solution);
+		while (true) {
+			Elite[] current = pool.get();
+			int n = current.length;
+			if ((n == capacity) && !e.precedes(current[n-1]))
+				return false;
+			for (Elite o: current)
+				if ((o.fitness() == fitness) && o.solution().equals(solution))
+					return false;
+			int replaced = n;		// by default, the worst solution is dropped if the pool is full
+			if (distance != null) {
+				int closest = Integer.MAX_VALUE;
+				for (int i=0; i<n; i++) {
+					int d = distance.applyAsInt(current[i].solution(), solution);
+					if ((d < minDistance) && (d < closest)) {
+						closest = d;
+						replaced = i;
+					}
+				}
+				if ((replaced < n) && !e.precedes(current[replaced]))
+					return false;
+			}
+			Elite[] updated = insert(current, e, replaced);
+			if (pool.compareAndSet(current, updated))
+				return true;
+		}
+	}
+
+	/**
+	 * Inserts a solution in a sorted array of solutions, removing another one
+	 * @param current the sorted solutions
+	 * @param e the solution to insert
+	 * @param replaced index of the solution to remove (if it is the length of the array, the
+	 * last solution is removed only if the capacity would be exceeded)
+	 * @return the new sorted array of solutions
+	 */
+	private Elite[] insert(Elite[] current, Elite e, int replaced) {
+		int n = current.length;
+		Elite[] updated;
+		if (replaced < n) {
+			updated = new Elite[n];
+			int k = 0;
+			for (int i=0; i<n; i++)
+				if (i != replaced)
+					updated[k++] = current[i];
+			n--;
+		}
+		else {
+			updated = new Elite[Math.min(n + 1, capacity)];
+			n = updated.length - 1;
+			System.arraycopy(current, 0, updated, 0, n);
+		}
+		int pos = n;
+		while ((pos > 0) && e.precedes(updated[pos-1])) {
+			updated[pos] = updated[pos-1];
+			pos--;
+		}
+		updated[pos] = e;
+		return updated;
+	}
+
+	/**
+	 * Returns the best solution in the pool
+	 * @return the best solution in the pool (null if the pool is empty)
+	 */
+	public Elite getBest() {
+		Elite[] current = pool.get();
+		return (current.length == 0) ? null : current[0];
+	}
+
+	/**
+	 * Returns the solutions in the pool, sorted
+	 * @return the solutions in the pool
+	 */
+	public List<Elite> getElite() {
+		return List.of(pool.get());
+	}
+
+	/**
+	 * Returns the number of solutions in the pool
+	 * @return the number of solutions in the pool
+	 */
+	public int size() {
+		return pool.get().length;
+	}
+
+	@Override
+	public String toString() {
+		return "ElitePool(" + Arrays.stream(pool.get()).map(Elite::fitness).toList() + ")";
+	}
+}
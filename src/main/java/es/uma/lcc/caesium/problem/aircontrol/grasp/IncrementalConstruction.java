@@ -0,0 +1,464 @@
+package es.uma.lcc.caesium.problem.aircontrol.grasp;
+
+import java.util.Arrays;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.AirplaneType;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+
+/**
+ * Incremental engine for the greedy construction of landing schedules. The earliest landing
+ * time of a flight of type c on runway j is max(a, A + s) (postponed to the end of a closure
+ * of the runway if it falls within it), where a is its arrival time on that runway, A is the
+ * time of the last landing on the runway and s is the separation between the type of that
+ * landing and c. Hence, for each runway and plane type, the order of the flights that can land
+ * on the runway by candidate landing time is the (fixed) order by arrival time on that runway. These orders
+ * are computed once per instance, and the remaining flights are kept in a linked list for each
+ * runway and type. A landing just removes the flight from these lists and updates the state of
+ * one runway. The candidate of a given rank is found by merging the lists: a frontier (a heap
+ * with the next candidate of each list) is extended lazily, so only the candidates up to that rank
+ * are examined. Since landing times are never earlier than arrival times, this is a time window
+ * that grows just until it provably contains the best candidates, and the work per stage does not
+ * depend on the number of flights.
+ * <p>
+ * Candidates are ordered by landing time, then by arrival time on the runway, then by
+ * flight index, and then by runway.
+ * @author ccottap
+ * @version 1.2
+ */
+public class IncrementalConstruction {
+	/**
+	 * number of plane types
+	 */
+	private static final int NUM_TYPES = AirplaneType.values().length;
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * number of flights
+	 */
+	private int numFlights;
+	/**
+	 * number of runways
+	 */
+	private int numRunways;
+	/**
+	 * arrival time of each flight on each runway ({@code Long.MAX_VALUE} if it cannot land on it)
+	 */
+	private long[][] arrival;
+	/**
+	 * type (ordinal) of each flight
+	 */
+	private int[] type;
+	/**
+	 * separation between plane types (ordinals, leading type first)
+	 */
+	private long[][] separation;
+	/**
+	 * flights of each list (runway*NUM_TYPES + type), sorted by arrival time on the runway
+	 */
+	private int[][] sorted;
+	/**
+	 * version of the instance data the engine was built from
+	 */
+	private long version;
+	/**
+	 * position of each flight in its list for each runway (-1 if it cannot land on it)
+	 */
+	private int[][] position;
+	/**
+	 * next remaining flight in each list (by position; -1 at the end)
+	 */
+	private int[][] next;
+	/**
+	 * previous remaining flight in each list (by position; -1 at the beginning)
+	 */
+	private int[][] prev;
+	/**
+	 * first remaining flight of each list (by position; -1 if empty)
+	 */
+	private int[] head;
+	/**
+	 * time of the last landing on each runway (-1 if not used yet)
+	 */
+	private long[] available;
+	/**
+	 * type (ordinal) of the last landing on each runway
+	 */
+	private int[] last;
+	/**
+	 * number of remaining flights
+	 */
+	private int numRemaining;
+	/**
+	 * number of runways on which each flight can land
+	 */
+	private int[] numEligible;
+	/**
+	 * number of pairs (flight, runway) such that the flight can land on the runway
+	 */
+	private long numPairs;
+	/**
+	 * number of candidates (pairs of a remaining flight and a runway on which it can land)
+	 */
+	private long numCandidates;
+	/**
+	 * cursor of each list during a selection
+	 */
+	private int[] cursor;
+	/**
+	 * lists with candidates not taken yet during a selection (binary heap ordered by their next candidate)
+	 */
+	private int[] frontier;
+	/**
+	 * number of lists in the frontier
+	 */
+	private int frontierSize;
+	/**
+	 * next candidate flight of each list during a selection
+	 */
+	private int[] frontierFlight;
+	/**
+	 * landing time of the next candidate of each list during a selection
+	 */
+	private long[] frontierTime;
+	/**
+	 * runway of the last candidate selected
+	 */
+	private int selectedRunway;
+	/**
+	 * landing time of the last candidate selected
+	 */
+	private long selectedTime;
+
+	/**
+	 * Creates the engine for a problem instance
+	 * @param data the problem instance
+	 */
+	public IncrementalConstruction(AirControlProblem data) {
+		this.data = data;
+		numFlights = data.getNumFlights();
+		numRunways = data.getNumRunways();
+		AirplaneType[] types = AirplaneType.values();
+		separation = new long[NUM_TYPES][NUM_TYPES];
+		for (AirplaneType t1: types)
+			for (AirplaneType t2: types)
+				separation[t1.ordinal()][t2.ordinal()] = data.getSeparation(t1, t2);
+		arrival = new long[numFlights][numRunways];
+		type = new int[numFlights];
+		numEligible = new int[numFlights];
+		numPairs = 0;
+		int[][] count = new int[numRunways][NUM_TYPES];
+		for (int i=0; i<numFlights; i++) {
+			var f = data.getFlight(data.getFlightID(i));
+			type[i] = f.getType().ordinal();
+			Arrays.fill(arrival[i], Long.MAX_VALUE);
+			for (int j: f.getEligibleRunways()) {
+				arrival[i][j] = f.getArrivalTime(j);
+				count[j][type[i]]++;
+			}
+			numEligible[i] = f.getEligibleRunways().length;
+			numPairs += numEligible[i];
+		}
+
+		int numLists = numRunways * NUM_TYPES;
+		sorted = new int[numLists][];
+		next = new int[numLists][];
+		prev = new int[numLists][];
+		position = new int[numRunways][numFlights];
+		for (int j=0; j<numRunways; j++) {
+			for (int c=0; c<NUM_TYPES; c++) {
+				int l = j*NUM_TYPES + c;
+				sorted[l] = new int[count[j][c]];
+				next[l] = new int[count[j][c]];
+				prev[l] = new int[count[j][c]];
+			}
+			// split the arrival order of the runway by plane type (flights that cannot land on it go last)
+			Arrays.fill(position[j], -1);
+			int[] size = new int[NUM_TYPES];
+			for (int i: data.getArrivalOrder(j)) {
+				if (arrival[i][j] == Long.MAX_VALUE)
+					break;
+				int c = type[i];
+				sorted[j*NUM_TYPES + c][size[c]] = i;
+				position[j][i] = size[c]++;
+			}
+		}
+		version = data.getVersion();
+		head = new int[numLists];
+		cursor = new int[numLists];
+		frontier = new int[numLists];
+		frontierFlight = new int[numLists];
+		frontierTime = new long[numLists];
+		available = new long[numRunways];
+		last = new int[numRunways];
+		reset();
+	}
+
+	/**
+	 * Creates a copy of an engine, sharing the data of the instance but not the construction state
+	 * @param other the engine to copy
+	 */
+	public IncrementalConstruction(IncrementalConstruction other) {
+		data = other.data;
+		numFlights = other.numFlights;
+		numRunways = other.numRunways;
+		arrival = other.arrival;
+		type = other.type;
+		separation = other.separation;
+		sorted = other.sorted;
+		position = other.position;
+		version = other.version;
+		numEligible = other.numEligible;
+		numPairs = other.numPairs;
+		int numLists = sorted.length;
+		next = new int[numLists][];
+		prev = new int[numLists][];
+		for (int l=0; l<numLists; l++) {
+			next[l] = other.next[l].clone();
+			prev[l] = other.prev[l].clone();
+		}
+		head = other.head.clone();
+		cursor = new int[numLists];
+		frontier = new int[numLists];
+		frontierFlight = new int[numLists];
+		frontierTime = new long[numLists];
+		available = other.available.clone();
+		last = other.last.clone();
+		numRemaining = other.numRemaining;
+		numCandidates = other.numCandidates;
+	}
+
+	/**
+	 * Sets the construction state to that of another engine for the same instance
+	 * @param other the engine whose state is copied
+	 */
+	public void copyFrom(IncrementalConstruction other) {
+		for (int l=0; l<sorted.length; l++) {
+			System.arraycopy(other.next[l], 0, next[l], 0, next[l].length);
+			System.arraycopy(other.prev[l], 0, prev[l], 0, prev[l].length);
+		}
+		System.arraycopy(other.head, 0, head, 0, head.length);
+		System.arraycopy(other.available, 0, available, 0, numRunways);
+		System.arraycopy(other.last, 0, last, 0, numRunways);
+		numRemaining = other.numRemaining;
+		numCandidates = other.numCandidates;
+	}
+
+	/**
+	 * Returns an estimate of the memory taken by the construction state (in bytes)
+	 * @return an estimate of the memory taken by the construction state
+	 */
+	public long getStateSize() {
+		return 8L * numFlights * numRunways + 4L * head.length + 12L * numRunways;
+	}
+
+	/**
+	 * Returns the number of pairs (flight, runway) such that the flight can land on the runway,
+	 * i.e., the number of candidates at the beginning of the construction
+	 * @return the number of pairs (flight, runway) such that the flight can land on the runway
+	 */
+	public long getNumPairs() {
+		return numPairs;
+	}
+
+	/**
+	 * Returns the version of the instance data the engine was built from (see {@link AirControlProblem#getVersion()})
+	 * @return the version of the instance data the engine was built from
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Restarts the construction: all runways are free and all flights remain to land
+	 */
+	public void reset() {
+		for (int l=0; l<sorted.length; l++) {
+			int size = sorted[l].length;
+			for (int k=0; k<size; k++) {
+				next[l][k] = (k+1 < size) ? k+1 : -1;
+				prev[l][k] = k-1;
+			}
+			head[l] = (size > 0) ? 0 : -1;
+		}
+		Arrays.fill(available, -1);
+		numRemaining = numFlights;
+		numCandidates = numPairs;
+	}
+
+	/**
+	 * Returns the number of flights that remain to land
+	 * @return the number of flights that remain to land
+	 */
+	public int getNumRemaining() {
+		return numRemaining;
+	}
+
+	/**
+	 * Returns the earliest landing time of a flight on a runway, given the previous landings
+	 * @param i the flight index
+	 * @param j the runway (the flight must be able to land on it)
+	 * @return the earliest landing time of said flight on said runway
+	 */
+	private long landingTime(int i, int j) {
+		long t = arrival[i][j];
+		if (available[j] >= 0)
+			t = Math.max(t, available[j] + separation[last[j]][type[i]]);
+		return data.getOpenTime(j, t);
+	}
+
+	/**
+	 * Compares two candidates
+	 * @param t1 landing time of the first candidate
+	 * @param i1 flight of the first candidate
+	 * @param j1 runway of the first candidate
+	 * @param t2 landing time of the second candidate
+	 * @param i2 flight of the second candidate
+	 * @param j2 runway of the second candidate
+	 * @return true iff the first candidate goes before the second one
+	 */
+	private boolean precedes(long t1, int i1, int j1, long t2, int i2, int j2) {
+		if (t1 != t2)
+			return t1 < t2;
+		if (arrival[i1][j1] != arrival[i2][j2])
+			return arrival[i1][j1] < arrival[i2][j2];
+		if (i1 != i2)
+			return i1 < i2;
+		return j1 < j2;
+	}
+
+	/**
+	 * Selects the remaining flight and runway of a given rank among all candidates. If the rank
+	 * exceeds the number of candidates, the last one is picked. The runway and landing time of
+	 * the selected candidate are available through {@link #getSelectedRunway()} and
+	 * {@link #getSelectedTime()}.
+	 * @param rank the rank of the candidate
+	 * @return the index of the selected flight
+	 */
+	public int select(int rank) {
+		int numLists = sorted.length;
+		int steps = (int) Math.min(rank + 1L, numCandidates);
+		// the frontier holds the next candidate of each list, and grows lazily as candidates are taken
+		frontierSize = 0;
+		for (int l=0; l<numLists; l++) {
+			if (head[l] >= 0) {
+				cursor[l] = head[l];
+				int i = sorted[l][head[l]];
+				frontierFlight[l] = i;
+				frontierTime[l] = landingTime(i, l / NUM_TYPES);
+				frontier[frontierSize++] = l;
+			}
+		}
+		for (int h=(frontierSize >>> 1) - 1; h>=0; h--)
+			siftDown(h);
+		int flight = -1;
+		for (int s=0; s<steps; s++) {
+			int l = frontier[0];
+			flight = frontierFlight[l];
+			selectedRunway = l / NUM_TYPES;
+			selectedTime = frontierTime[l];
+			cursor[l] = next[l][cursor[l]];
+			if (cursor[l] >= 0) {
+				int i = sorted[l][cursor[l]];
+				frontierFlight[l] = i;
+				frontierTime[l] = landingTime(i, selectedRunway);
+			}
+			else
+				frontier[0] = frontier[--frontierSize];
+			siftDown(0);
+		}
+		return flight;
+	}
+
+	/**
+	 * Checks whether the next candidate of a list goes before the next candidate of another list
+	 * @param l1 the first list
+	 * @param l2 the second list
+	 * @return true iff the next candidate of {@code l1} goes before the next candidate of {@code l2}
+	 */
+	private boolean precedes(int l1, int l2) {
+		return precedes(frontierTime[l1], frontierFlight[l1], l1 / NUM_TYPES, frontierTime[l2], frontierFlight[l2], l2 / NUM_TYPES);
+	}
+
+	/**
+	 * Moves a list down the frontier until the heap property holds
+	 * @param h the position of the list in the frontier
+	 */
+	private void siftDown(int h) {
+		while (true) {
+			int c = 2*h + 1;
+			if (c >= frontierSize)
+				break;
+			if ((c + 1 < frontierSize) && precedes(frontier[c + 1], frontier[c]))
+				c++;
+			if (!precedes(frontier[c], frontier[h]))
+				break;
+			int tmp = frontier[h];
+			frontier[h] = frontier[c];
+			frontier[c] = tmp;
+			h = c;
+		}
+	}
+
+	/**
+	 * Returns the runway of the last candidate selected
+	 * @return the runway of the last candidate selected
+	 */
+	public int getSelectedRunway() {
+		return selectedRunway;
+	}
+
+	/**
+	 * Returns the landing time of the last candidate selected
+	 * @return the landing time of the last candidate selected
+	 */
+	public long getSelectedTime() {
+		return selectedTime;
+	}
+
+	/**
+	 * Lands a remaining flight
+	 * @param i the flight index
+	 * @param j the runway
+	 * @param t the landing time
+	 */
+	public void land(int i, int j, long t) {
+		int c = type[i];
+		for (int r=0; r<numRunways; r++) {
+			int l = r*NUM_TYPES + c;
+			int k = position[r][i];
+			if (k < 0)
+				continue;
+			int p = prev[l][k];
+			int q = next[l][k];
+			if (p >= 0)
+				next[l][p] = q;
+			else
+				head[l] = q;
+			if (q >= 0)
+				prev[l][q] = p;
+		}
+		available[j] = t;
+		last[j] = c;
+		numRemaining--;
+		numCandidates -= numEligible[i];
+	}
+
+	/**
+	 * Selects the candidate of a given rank and lands it
+	 * @param rank the rank of the candidate
+	 * @return the landing information of the selected candidate
+	 */
+	public LandingInformation next(int rank) {
+		int i = select(rank);
+		land(i, selectedRunway, selectedTime);
+		return new LandingInformation(data.getFlightID(i), selectedTime, selectedRunway);
+	}
+
+	@Override
+	public String toString() {
+		return "IncrementalConstruction(" + numRemaining + "/" + numFlights + " remaining)";
+	}
+}
@@ -0,0 +1,501 @@
+package es.uma.lcc.caesium.problem.aircontrol.grasp;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
+import com.github.cliftonlabs.json_simple.JsonArray;
+import com.github.cliftonlabs.json_simple.JsonObject;
+
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+
+/**
+ * Reactive GRASP whose iterations (construction and local search) are run concurrently by
+ * several worker threads. Each value of the parameter is the maximum rank of the decisions
+ * (a value v means that each decision picks one of the v+1 best candidates uniformly at random).
+ * Values are chosen with probabilities proportional to (best/average)^amplification, where
+ * average is the mean fitness of the solutions built with each value. As in a sequential reactive
+ * GRASP, probabilities are updated every {@code update} iterations: the iterations of an update
+ * epoch are distributed among the workers, their results are merged when the epoch ends (in
+ * iteration order), and the new probabilities are used for the next epoch.
+ * <p>
+ * Each iteration draws from its own random streams, derived from the seed and the iteration
+ * index. The best solutions found are kept in an {@link ElitePool}, whose first solution is the
+ * incumbent; the solutions of an epoch are offered to it when the epoch ends, in iteration order.
+ * Hence, the outcome of a run depends neither on the number of threads nor on their interleaving.
+ * <p>
+ * Optionally, {@link PathRelinking} is periodically applied (at the end of the first epoch after
+ * every {@code interval} iterations) to each pair of elite solutions that has not been relinked
+ * yet, walking from the better solution to the worse one. The best intermediate solution of
+ * each path is improved by local search and offered to the elite pool, in pair order.
+ * <p>
+ * Optionally, the run stops at the end of the first epoch in which the incumbent reaches a
+ * target optimality gap ({@link GapTermination}).
+ * @author ccottap
+ * @version 1.2
+ */
+public class ParallelReactiveGRASP {
+	/**
+	 * the objective function (each worker uses its own copy)
+	 */
+	private AirControlGRASPObjectiveFunction obj;
+	/**
+	 * number of worker threads
+	 */
+	private int numThreads;
+	/**
+	 * number of iterations
+	 */
+	private int numIters;
+	/**
+	 * number of iterations between updates of the probabilities
+	 */
+	private int iterUpdate;
+	/**
+	 * amplification factor of the probabilities
+	 */
+	private double amplification;
+	/**
+	 * values of the parameter (maximum rank)
+	 */
+	private List<Integer> values;
+	/**
+	 * seed
+	 */
+	private long seed;
+	/**
+	 * the best solutions found
+	 */
+	private ElitePool elite;
+	/**
+	 * number of iterations between path relinking phases (0 if path relinking is disabled)
+	 */
+	private int relinkInterval;
+	/**
+	 * pairs of elite solutions already relinked (encoded by their iterations)
+	 */
+	private Set<Long> relinked;
+	/**
+	 * number of paths walked in the last run
+	 */
+	private long paths;
+	/**
+	 * number of elite solutions obtained by path relinking in the last run
+	 */
+	private long relinkHits;
+	/**
+	 * probability of each value
+	 */
+	private double[] prob;
+	/**
+	 * number of iterations performed with each value
+	 */
+	private long[] count;
+	/**
+	 * sum of the fitness of the solutions built with each value
+	 */
+	private double[] sum;
+	/**
+	 * termination criterion based on the optimality gap (null if none)
+	 */
+	private GapTermination termination;
+	/**
+	 * number of iterations of the last run
+	 */
+	private int iterations;
+	/**
+	 * number of evaluations (construction and local search) of the last run
+	 */
+	private double evaluations;
+	/**
+	 * time of the last run (in seconds)
+	 */
+	private double time;
+
+	/**
+	 * Creates the algorithm
+	 * @param obj the objective function
+	 * @param numThreads number of worker threads (if 0 or negative, the number of available processors)
+	 * @param eliteSize number of solutions in the elite pool
+	 */
+	public ParallelReactiveGRASP(AirControlGRASPObjectiveFunction obj, int numThreads, int eliteSize) {
+		this.obj = obj;
+		this.numThreads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+		elite = new ElitePool(eliteSize);
+		values = new ArrayList<Integer>();
+		numIters = 1;
+		iterUpdate = Integer.MAX_VALUE;
+		amplification = 1.0;
+		seed = 1;
+		relinkInterval = 0;
+		relinked = new HashSet<Long>();
+		termination = null;
+	}
+
+	/**
+	 * Sets the seed
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the number of iterations
+	 * @param numIters the number of iterations
+	 */
+	public void setNumIters(int numIters) {
+		this.numIters = numIters;
+	}
+
+	/**
+	 * Sets the number of iterations between updates of the probabilities
+	 * @param iterUpdate the number of iterations between updates
+	 */
+	public void setIterUpdate(int iterUpdate) {
+		this.iterUpdate = Math.max(1, iterUpdate);
+	}
+
+	/**
+	 * Sets the amplification factor of the probabilities
+	 * @param amplification the amplification factor
+	 */
+	public void setAmplification(double amplification) {
+		this.amplification = amplification;
+	}
+
+	/**
+	 * Adds a value of the parameter
+	 * @param v the value (maximum rank of the decisions)
+	 */
+	public void addValue(int v) {
+		values.add(v);
+	}
+
+	/**
+	 * Enables path relinking between elite solutions
+	 * @param interval number of iterations between path relinking phases (0 to disable it)
+	 * @param minDistance minimum distance between the solutions in the elite pool
+	 */
+	public void setRelinking(int interval, int minDistance) {
+		relinkInterval = Math.max(0, interval);
+		PathRelinking pr = new PathRelinking(obj.getProblemData());
+		elite.setDiversity((relinkInterval > 0) ? (a, b) -> pr.distance(cast(a), cast(b)) : null, minDistance);
+	}
+
+	/**
+	 * Sets a termination criterion based on the optimality gap
+	 * @param termination the criterion (null for none); it must be set again for each run
+	 */
+	public void setTermination(GapTermination termination) {
+		this.termination = termination;
+	}
+
+	/**
+	 * Casts a solution to a list of landings
+	 * @param sol the solution
+	 * @return the list of landings
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<LandingInformation> cast(Object sol) {
+		return (List<LandingInformation>) sol;
+	}
+
+	/**
+	 * Returns the number of worker threads
+	 * @return the number of worker threads
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Returns the elite pool of the last run
+	 * @return the elite pool of the last run
+	 */
+	public ElitePool getElite() {
+		return elite;
+	}
+
+	/**
+	 * Returns the best solution of the last run
+	 * @return the best solution of the last run
+	 */
+	public List<LandingInformation> getBest() {
+		return cast(elite.getBest().solution());
+	}
+
+	/**
+	 * Returns the fitness of the best solution of the last run
+	 * @return the fitness of the best solution of the last run
+	 */
+	public double getBestFitness() {
+		return elite.getBest().fitness();
+	}
+
+	/**
+	 * Returns the number of iterations of the last run
+	 * @return the number of iterations of the last run
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Returns the time of the last run
+	 * @return the time of the last run (in seconds)
+	 */
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * Performs a run
+	 */
+	public void run() {
+		long start = System.nanoTime();
+		if (values.isEmpty())
+			values.add(0);
+		int k = values.size();
+		prob = new double[k];
+		count = new long[k];
+		sum = new double[k];
+		for (int v=0; v<k; v++)
+			prob[v] = 1.0 / k;
+		elite.clear();
+		relinked.clear();
+		evaluations = 0;
+		iterations = 0;
+		paths = 0;
+		relinkHits = 0;
+
+		ExecutorService pool = Executors.newFixedThreadPool(numThreads, r -> {
+			Thread t = new Thread(r, "grasp-worker");
+			t.setDaemon(true);
+			return t;
+		});
+		ThreadLocal<AirControlGRASPObjectiveFunction> local = ThreadLocal.withInitial(obj::copy);
+		try {
+			for (int epoch=0; epoch<numIters; epoch+=iterUpdate) {
+				final int first = epoch;
+				int size = (int) Math.min(iterUpdate, (long) numIters - epoch);
+				int[] chosen = new int[size];
+				double[] fitness = new double[size];
+				double[] cost = new double[size];
+				Object[] solutions = new Object[size];
+				AtomicInteger next = new AtomicInteger(0);
+				List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numThreads);
+				for (int w=0; w<Math.min(numThreads, size); w++) {
+					tasks.add(() -> {
+						AirControlGRASPObjectiveFunction f = local.get();
+						try {
+							for (int i=next.getAndIncrement(); i<size; i=next.getAndIncrement())
+								iterate(f, first + i, i, chosen, fitness, cost, solutions);
+						}
+						finally {
+							RandomStreams.unbind();
+						}
+						return null;
+					});
+				}
+				for (var r: pool.invokeAll(tasks))
+					r.get();
+				merge(first, chosen, fitness, cost, solutions);
+				iterations += size;
+				if ((termination != null) && termination.check(getBestFitness()))
+					break;
+				if ((relinkInterval > 0) && ((first + size) / relinkInterval > first / relinkInterval))
+					relink(pool, local);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("GRASP iteration failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		time = (System.nanoTime() - start) / 1e9;
+	}
+
+	/**
+	 * Performs an iteration: chooses a value, constructs a solution and improves it. The solution
+	 * is kept to be offered to the elite pool at the end of the epoch if it might enter it (the 
+	 * pool does not change during an epoch).
+	 * @param f the objective function of the worker
+	 * @param iteration the index of the iteration
+	 * @param i the index of the iteration within the epoch
+	 * @param chosen the value chosen in each iteration of the epoch (updated)
+	 * @param fitness the fitness obtained in each iteration of the epoch (updated)
+	 * @param cost the number of evaluations of each iteration of the epoch (updated)
+	 * @param solutions the solution of each iteration of the epoch, null if it cannot enter the elite pool (updated)
+	 */
+	private void iterate(AirControlGRASPObjectiveFunction f, int iteration, int i, int[] chosen, double[] fitness, double[] cost, Object[] solutions) {
+		RandomGenerator rng = RandomStreams.derive(seed, iteration, 0);
+		RandomStreams.bind(seed, iteration, 1);		// local search
+		double u = rng.nextDouble();
+		int v = 0;
+		while ((v < prob.length-1) && (u >= prob[v])) {
+			u -= prob[v];
+			v++;
+		}
+		int maxRank = values.get(v);
+		int n = f.getNumberOfVariables();
+		List<Integer> ranks = new ArrayList<Integer>(n);
+		for (int j=0; j<n; j++)
+			ranks.add(rng.nextInt(maxRank + 1));
+		List<LandingInformation> sol = f.decode(ranks);
+		List<LandingInformation> improved = new ArrayList<LandingInformation>(n);
+		double c = f.improve(sol, improved);
+		double fit = f.evaluate(improved);
+		if (elite.admits(fit, iteration))
+			solutions[i] = improved;
+		chosen[i] = v;
+		fitness[i] = fit;
+		cost[i] = f.equivalentCost() + c;
+	}
+
+	/**
+	 * Relinks the pairs of elite solutions that have not been relinked yet, concurrently, and
+	 * offers the results to the elite pool in pair order
+	 * @param pool the worker threads
+	 * @param local the objective function of each worker
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 * @throws ExecutionException if some path could not be walked
+	 */
+	private void relink(ExecutorService pool, ThreadLocal<AirControlGRASPObjectiveFunction> local) throws InterruptedException, ExecutionException {
+		List<ElitePool.Elite> current = elite.getElite();
+		List<ElitePool.Elite[]> pairs = new ArrayList<ElitePool.Elite[]>();
+		for (int i=0; i<current.size(); i++) {
+			for (int j=i+1; j<current.size(); j++) {
+				if (relinked.add((current.get(i).iteration() << 32) ^ current.get(j).iteration()))
+					pairs.add(new ElitePool.Elite[] {current.get(i), current.get(j)});
+			}
+		}
+		if (pairs.isEmpty())
+			return;
+		ThreadLocal<PathRelinking> operator = ThreadLocal.withInitial(() -> new PathRelinking(obj.getProblemData()));
+		int base = numIters + (int) paths;		// new solutions are identified after the iterations
+		List<Callable<Object[]>> tasks = new ArrayList<Callable<Object[]>>(pairs.size());
+		for (int p=0; p<pairs.size(); p++) {
+			ElitePool.Elite[] pair = pairs.get(p);
+			int id = base + p;
+			tasks.add(() -> {
+				PathRelinking pr = operator.get();
+				AirControlGRASPObjectiveFunction f = local.get();
+				double before = pr.getEvaluations();
+				List<LandingInformation> sol = pr.relink(cast(pair[0].solution()), cast(pair[1].solution()));
+				double c = pr.getEvaluations() - before;
+				if (sol == null)
+					return new Object[] {null, c};
+				List<LandingInformation> improved = new ArrayList<LandingInformation>(sol.size());
+				RandomStreams.bind(seed, id, 2);
+				try {
+					c += f.improve(sol, improved);
+				}
+				finally {
+					RandomStreams.unbind();
+				}
+				return new Object[] {improved, c + 1};
+			});
+		}
+		var results = pool.invokeAll(tasks);
+		for (int p=0; p<results.size(); p++) {
+			Object[] r = results.get(p).get();
+			paths++;
+			evaluations += (double) r[1];
+			if (r[0] != null) {
+				List<LandingInformation> sol = cast(r[0]);
+				if (elite.offer(obj.evaluate(sol), base + p, sol))
+					relinkHits++;
+			}
+		}
+	}
+
+	/**
+	 * Merges the results of an epoch (offering its solutions to the elite pool in iteration
+	 * order) and updates the probabilities
+	 * @param first the index of the first iteration of the epoch
+	 * @param chosen the value chosen in each iteration of the epoch
+	 * @param fitness the fitness obtained in each iteration of the epoch
+	 * @param cost the number of evaluations of each iteration of the epoch
+	 * @param solutions the solution of each iteration of the epoch (null if it cannot enter the elite pool)
+	 */
+	private void merge(int first, int[] chosen, double[] fitness, double[] cost, Object[] solutions) {
+		for (int i=0; i<chosen.length; i++) {
+			if (solutions[i] != null)
+				elite.offer(fitness[i], first + i, solutions[i]);
+			count[chosen[i]]++;
+			sum[chosen[i]] += fitness[i];
+			evaluations += cost[i];
+		}
+		double best = elite.getBest().fitness();
+		double[] q = new double[prob.length];
+		double total = 0;
+		for (int v=0; v<q.length; v++) {
+			if (count[v] == 0)
+				q[v] = 1.0;								// not tried yet
+			else {
+				double avg = sum[v] / count[v];
+				q[v] = (avg > 0) ? Math.pow(best / avg, amplification) : 1.0;
+			}
+			total += q[v];
+		}
+		for (int v=0; v<q.length; v++)
+			prob[v] = (total > 0) ? q[v] / total : 1.0 / q.length;
+	}
+
+	/**
+	 * Returns the statistics of the last run as a JSON object
+	 * @return the statistics of the last run
+	 */
+	public JsonObject toJSON() {
+		JsonObject json = new JsonObject();
+		json.put("best", getBestFitness());
+		json.put("time", time);
+		json.put("iterations", iterations);
+		json.put("evaluations", evaluations);
+		json.put("threads", numThreads);
+		JsonArray vals = new JsonArray();
+		for (int v=0; v<values.size(); v++) {
+			JsonObject val = new JsonObject();
+			val.put("value", values.get(v));
+			val.put("count", count[v]);
+			val.put("mean", (count[v] > 0) ? sum[v] / count[v] : 0.0);
+			val.put("probability", prob[v]);
+			vals.add(val);
+		}
+		json.put("values", vals);
+		JsonArray el = new JsonArray();
+		for (var e: elite.getElite())
+			el.add(e.fitness());
+		json.put("elite", el);
+		if (relinkInterval > 0) {
+			JsonObject rl = new JsonObject();
+			rl.put("interval", relinkInterval);
+			rl.put("paths", paths);
+			rl.put("hits", relinkHits);
+			json.put("relinking", rl);
+		}
+		if (termination != null)
+			json.put("termination", termination.toJSON());
+		json.put("solution", getBest().toString());
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		return "ParallelReactiveGRASP(threads=" + numThreads + ", iterations=" + numIters + ", update=" + iterUpdate +
+				", amplification=" + amplification + ", values=" + values +
+				((relinkInterval > 0) ? ", relinking=" + relinkInterval : "") + ")";
+	}
+}
@@ -0,0 +1,245 @@
+package es.uma.lcc.caesium.problem.aircontrol.grasp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.LandingImprovement;
+import es.uma.lcc.caesium.problem.aircontrol.LandingImprovement.MoveDelta;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+
+/**
+ * Path relinking between landing schedules. Starting from an initiating schedule, flights are
+ * moved one at a time to the runway and relative order they have in a guiding schedule, until
+ * the guiding schedule is reached. At each step, the move with the smallest increase of the
+ * total squared waiting time is chosen; moves are evaluated incrementally (only the affected
+ * runways are rescheduled) with the machinery of {@link LandingImprovement}. The best
+ * intermediate schedule is returned.
+ * <p>
+ * The distance between two schedules is the number of flights that land on a different runway
+ * or after a different flight.
+ * @author ccottap
+ * @version 1.0
+ */
+public class PathRelinking {
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * to compute the cost of moves
+	 */
+	private LandingImprovement moves;
+	/**
+	 * number of evaluations (in equivalent full evaluations) performed so far
+	 */
+	private double evaluations;
+	/**
+	 * cost of the best intermediate schedule of the last path
+	 */
+	private long bestCost;
+
+	/**
+	 * Creates the operator for a problem instance
+	 * @param data the problem instance
+	 */
+	public PathRelinking(AirControlProblem data) {
+		this.data = data;
+		moves = new LandingImprovement(0);
+		moves.setData(data);
+		evaluations = 0;
+	}
+
+	/**
+	 * Returns the number of evaluations (in equivalent full evaluations) performed so far
+	 * @return the number of evaluations performed so far
+	 */
+	public double getEvaluations() {
+		return evaluations;
+	}
+
+	/**
+	 * Returns the cost (total squared waiting time) of the best intermediate schedule of the last path
+	 * @return the cost of the best intermediate schedule of the last path (Long.MAX_VALUE if there was none)
+	 */
+	public long getBestCost() {
+		return bestCost;
+	}
+
+	/**
+	 * Splits a schedule into the ordered list of landings on each runway
+	 * @param info the schedule
+	 * @return the ordered list of landings on each runway
+	 */
+	private List<List<LandingInformation>> partition(List<LandingInformation> info) {
+		int numRunways = data.getNumRunways();
+		List<List<LandingInformation>> runways = new ArrayList<List<LandingInformation>>(numRunways);
+		for (int j=0; j<numRunways; j++)
+			runways.add(new ArrayList<LandingInformation>());
+		List<LandingInformation> sorted = new ArrayList<LandingInformation>(info);
+		Collections.sort(sorted);
+		for (LandingInformation li: sorted)
+			runways.get(li.runway()).add(li);
+		return runways;
+	}
+
+	/**
+	 * Returns the flight landing immediately before each flight on the same runway
+	 * @param runways the ordered list of landings on each runway
+	 * @return the preceding flight of each flight (absent if it is the first one on its runway)
+	 */
+	private static Map<String, String> predecessors(List<List<LandingInformation>> runways) {
+		Map<String, String> pred = new HashMap<String, String>();
+		for (List<LandingInformation> l: runways)
+			for (int i=1; i<l.size(); i++)
+				pred.put(l.get(i).flightID(), l.get(i-1).flightID());
+		return pred;
+	}
+
+	/**
+	 * Returns the distance between two schedules
+	 * @param a a schedule
+	 * @param b another schedule
+	 * @return the number of flights that land on a different runway or after a different flight
+	 */
+	public int distance(List<LandingInformation> a, List<LandingInformation> b) {
+		List<List<LandingInformation>> ra = partition(a);
+		List<List<LandingInformation>> rb = partition(b);
+		Map<String, String> pa = predecessors(ra);
+		Map<String, String> pb = predecessors(rb);
+		Map<String, Integer> runwayB = new HashMap<String, Integer>();
+		for (LandingInformation li: b)
+			runwayB.put(li.flightID(), li.runway());
+		int d = 0;
+		for (LandingInformation li: a) {
+			String id = li.flightID();
+			if ((li.runway() != runwayB.get(id)) || !String.valueOf(pa.get(id)).equals(String.valueOf(pb.get(id))))
+				d++;
+		}
+		return d;
+	}
+
+	/**
+	 * Returns the cost (total squared waiting time) of a schedule whose landing times are valid
+	 * @param info the schedule
+	 * @return the total squared waiting time
+	 */
+	private long cost(List<LandingInformation> info) {
+		long total = 0;
+		for (LandingInformation li: info) {
+			long w = li.time() - data.getEarliestArrivalTime(li.flightID());
+			total += w*w;
+		}
+		return total;
+	}
+
+	/**
+	 * Walks the path from an initiating schedule to a guiding schedule. Both schedules must be
+	 * complete, and their landing times must be the earliest ones given the order of flights on
+	 * each runway (as is the case for schedules built by GRASP and improved by local search).
+	 * @param initial the initiating schedule
+	 * @param guide the guiding schedule
+	 * @return the best intermediate schedule (null if the schedules are too close to have any)
+	 */
+	public List<LandingInformation> relink(List<LandingInformation> initial, List<LandingInformation> guide) {
+		int numFlights = data.getNumFlights();
+		List<List<LandingInformation>> current = partition(initial);
+		List<List<LandingInformation>> target = partition(guide);
+		Map<String, String> targetPred = predecessors(target);
+		Map<String, Integer> targetRunway = new HashMap<String, Integer>();
+		Map<String, Integer> targetOrder = new HashMap<String, Integer>();
+		for (List<LandingInformation> l: target) {
+			for (int i=0; i<l.size(); i++) {
+				targetRunway.put(l.get(i).flightID(), l.get(i).runway());
+				targetOrder.put(l.get(i).flightID(), i);
+			}
+		}
+		Map<String, LandingInformation> slot = new HashMap<String, LandingInformation>();
+		for (List<LandingInformation> l: current)
+			for (LandingInformation li: l)
+				slot.put(li.flightID(), li);
+
+		Set<String> pending = new LinkedHashSet<String>();
+		Map<String, String> pred = predecessors(current);
+		for (LandingInformation li: initial) {
+			String id = li.flightID();
+			if ((li.runway() != targetRunway.get(id)) || !String.valueOf(pred.get(id)).equals(String.valueOf(targetPred.get(id))))
+				pending.add(id);
+		}
+
+		long cost = cost(initial);
+		bestCost = Long.MAX_VALUE;
+		List<List<LandingInformation>> best = null;
+		while (pending.size() > 1) {		// the last move would reach the guiding schedule
+			String bestFlight = null;
+			long bestDelta = Long.MAX_VALUE;
+			MoveDelta bestGain = null;
+			MoveDelta bestInsertion = null;
+			long touched = 0;
+			for (String id: pending) {
+				LandingInformation li = slot.get(id);
+				MoveDelta gain = moves.moveGain(li, current.get(li.runway()));
+				int r = targetRunway.get(id);
+				List<LandingInformation> list = (r == li.runway()) ? gain.newList() : current.get(r);
+				// insert right after the last flight that precedes it in the guiding schedule
+				int order = targetOrder.get(id);
+				int pos = 0;
+				for (int i=list.size()-1; i>=0; i--) {
+					String other = list.get(i).flightID();
+					if ((targetRunway.get(other) == r) && (targetOrder.get(other) < order)) {
+						pos = i+1;
+						break;
+					}
+				}
+				MoveDelta insertion = moves.insertionCost(id, r, list, pos);
+				touched += current.get(li.runway()).size() + list.size();
+				long delta = insertion.value() - gain.value();
+				if (delta < bestDelta) {
+					bestDelta = delta;
+					bestFlight = id;
+					bestGain = gain;
+					bestInsertion = insertion;
+				}
+			}
+			evaluations += (double) touched / numFlights;
+
+			// apply the move
+			LandingInformation li = slot.get(bestFlight);
+			int r = targetRunway.get(bestFlight);
+			current.set(li.runway(), bestGain.newList());
+			current.set(r, bestInsertion.newList());
+			for (LandingInformation l: bestGain.newList())
+				slot.put(l.flightID(), l);
+			for (LandingInformation l: bestInsertion.newList())
+				slot.put(l.flightID(), l);
+			cost += bestDelta;
+			pending.remove(bestFlight);
+
+			// flights that already match the guiding schedule need not be moved
+			Map<String, String> newPred = predecessors(current);
+			pending.removeIf(id -> (slot.get(id).runway() == targetRunway.get(id)) &&
+									String.valueOf(newPred.get(id)).equals(String.valueOf(targetPred.get(id))));
+			if (!pending.isEmpty() && (cost < bestCost)) {
+				bestCost = cost;
+				best = new ArrayList<List<LandingInformation>>(current);
+			}
+		}
+
+		if (best == null)
+			return null;
+		List<LandingInformation> info = new ArrayList<LandingInformation>(numFlights);
+		for (List<LandingInformation> l: best)
+			info.addAll(l);
+		return info;
+	}
+
+	@Override
+	public String toString() {
+		return "PathRelinking";
+	}
+}
@@ -0,0 +1,231 @@
+package es.uma.lcc.caesium.problem.aircontrol.grasp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+
+import com.github.cliftonlabs.json_simple.JsonObject;
+
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+
+/**
+ * Cache of partial constructions, keyed by the ranks of the decisions taken so far. States are
+ * stored at checkpoint depths (multiples of a stride), so that a construction whose ranks share
+ * a prefix with a previous one can resume from the deepest checkpoint in that prefix. The
+ * memory taken by the cached states is bounded; when the bound is exceeded, the least recently
+ * used states are evicted.
+ * @author ccottap
+ * @version 1.0
+ */
+public class PrefixCache {
+	/**
+	 * A cached state: the ranks of the prefix, the construction state and the partial schedule
+	 * @param ranks the ranks of the prefix
+	 * @param state the construction state after the prefix
+	 * @param schedule the landings of the prefix
+	 */
+	private record Entry(int[] ranks, IncrementalConstruction state, List<LandingInformation> schedule) {}
+
+	/**
+	 * A key of the cache: hash of the prefix of ranks and its length
+	 * @param depth length of the prefix
+	 * @param hash hash of the prefix
+	 */
+	private record Key(int depth, long hash) {}
+
+	/**
+	 * distance between checkpoints
+	 */
+	private int stride;
+	/**
+	 * maximum memory taken by the cached states (in bytes)
+	 */
+	private long maxBytes;
+	/**
+	 * memory taken by the cached states (in bytes)
+	 */
+	private long bytes;
+	/**
+	 * cached states, in access order
+	 */
+	private LinkedHashMap<Key, Entry> entries;
+	/**
+	 * number of lookups
+	 */
+	private long lookups;
+	/**
+	 * number of lookups that found a cached prefix
+	 */
+	private long hits;
+	/**
+	 * total number of stages skipped thanks to the cache
+	 */
+	private long skipped;
+
+	/**
+	 * Creates the cache
+	 * @param stride distance between checkpoints
+	 * @param maxBytes maximum memory taken by the cached states (in bytes)
+	 */
+	public PrefixCache(int stride, long maxBytes) {
+		this.stride = Math.max(1, stride);
+		this.maxBytes = maxBytes;
+		entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+		clear();
+	}
+
+	/**
+	 * Empties the cache and resets the counters
+	 */
+	public void clear() {
+		entries.clear();
+		bytes = 0;
+		lookups = 0;
+		hits = 0;
+		skipped = 0;
+	}
+
+	/**
+	 * Returns the distance between checkpoints
+	 * @return the distance between checkpoints
+	 */
+	public int getStride() {
+		return stride;
+	}
+
+	/**
+	 * Returns the maximum memory taken by the cached states
+	 * @return the maximum memory taken by the cached states (in bytes)
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Computes the hash of each prefix of a list of ranks at checkpoint depths
+	 * @param ranks the ranks
+	 * @return the hash of the prefix of each depth multiple of the stride (position k for depth (k+1)*stride)
+	 */
+	public long[] hashes(List<Integer> ranks) {
+		int n = ranks.size();
+		long[] h = new long[n / stride];
+		long acc = 0x9E3779B97F4A7C15L;
+		for (int i=0; i<h.length*stride; i++) {
+			acc = (acc ^ ranks.get(i)) * 0xBF58476D1CE4E5B9L;
+			acc ^= acc >>> 29;
+			if ((i+1) % stride == 0)
+				h[(i+1)/stride - 1] = acc;
+		}
+		return h;
+	}
+
+	/**
+	 * Resumes a construction from the deepest cached prefix of a list of ranks
+	 * @param ranks the ranks
+	 * @param hashes the hashes of the prefixes (see {@link #hashes(List)})
+	 * @param state the construction state (overwritten if a prefix is found)
+	 * @param schedule the partial schedule (the landings of the prefix are appended if it is found)
+	 * @return the length of the prefix found (0 if none)
+	 */
+	public int resume(List<Integer> ranks, long[] hashes, IncrementalConstruction state, List<LandingInformation> schedule) {
+		lookups++;
+		for (int k=hashes.length-1; k>=0; k--) {
+			int depth = (k+1)*stride;
+			Entry e = entries.get(new Key(depth, hashes[k]));
+			if ((e != null) && matches(e.ranks(), ranks)) {
+				state.copyFrom(e.state());
+				schedule.addAll(e.schedule());
+				hits++;
+				skipped += depth;
+				return depth;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks whether some cached ranks are a prefix of a list of ranks
+	 * @param prefix the cached ranks
+	 * @param ranks the list of ranks
+	 * @return true iff {@code prefix} is a prefix of {@code ranks}
+	 */
+	private static boolean matches(int[] prefix, List<Integer> ranks) {
+		for (int i=0; i<prefix.length; i++)
+			if (prefix[i] != ranks.get(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Checks whether a prefix is cached
+	 * @param depth length of the prefix (a multiple of the stride)
+	 * @param hash hash of the prefix
+	 * @return true iff a state with that key is cached
+	 */
+	public boolean contains(int depth, long hash) {
+		return entries.containsKey(new Key(depth, hash));
+	}
+
+	/**
+	 * Stores the state reached after a prefix of ranks, evicting old states if needed
+	 * @param ranks the ranks
+	 * @param depth length of the prefix (a multiple of the stride)
+	 * @param hash hash of the prefix
+	 * @param state the construction state after the prefix (copied)
+	 * @param schedule the landings of the prefix (copied)
+	 */
+	public void store(List<Integer> ranks, int depth, long hash, IncrementalConstruction state, List<LandingInformation> schedule) {
+		long size = state.getStateSize() + 12L * depth;
+		if (size > maxBytes)
+			return;
+		// evict least recently used states, recycling one of them for the new state
+		IncrementalConstruction copy = null;
+		var it = entries.values().iterator();
+		while ((bytes + size > maxBytes) && it.hasNext()) {
+			Entry e = it.next();
+			bytes -= e.state().getStateSize() + 12L * e.ranks().length;
+			copy = e.state();
+			it.remove();
+		}
+		if (copy == null)
+			copy = new IncrementalConstruction(state);
+		else
+			copy.copyFrom(state);
+		int[] prefix = new int[depth];
+		for (int i=0; i<depth; i++)
+			prefix[i] = ranks.get(i);
+		entries.put(new Key(depth, hash), new Entry(prefix, copy, new ArrayList<LandingInformation>(schedule.subList(0, depth))));
+		bytes += size;
+	}
+
+	/**
+	 * Returns the fraction of lookups that found a cached prefix
+	 * @return the fraction of lookups that found a cached prefix
+	 */
+	public double getHitRate() {
+		return (lookups == 0) ? 0.0 : (double)hits / (double)lookups;
+	}
+
+	/**
+	 * Returns the statistics of the cache as a JSON object
+	 * @return the statistics of the cache
+	 */
+	public JsonObject toJSON() {
+		JsonObject json = new JsonObject();
+		json.put("stride", stride);
+		json.put("entries", entries.size());
+		json.put("bytes", bytes);
+		json.put("lookups", lookups);
+		json.put("hits", hits);
+		json.put("hitrate", getHitRate());
+		json.put("skipped", skipped);
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		return "PrefixCache(stride=" + stride + ", " + entries.size() + " entries, " + bytes + " bytes, " +
+				String.format(Locale.US, "hit rate %.4f", getHitRate()) + ")";
+	}
+}
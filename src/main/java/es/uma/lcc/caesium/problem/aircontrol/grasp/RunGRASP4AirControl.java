@@ -6,6 +6,7 @@ import java.io.PrintWriter;
 import java.util.List;
 import java.util.Locale;
 
+import com.github.cliftonlabs.json_simple.JsonArray;
 import com.github.cliftonlabs.json_simple.JsonException;
 import com.github.cliftonlabs.json_simple.JsonObject;
 import com.github.cliftonlabs.json_simple.Jsoner;
@@ -14,12 +15,15 @@ import com.github.cliftonlabs.json_simple.Jsoner;
 import es.uma.lcc.caesium.ea.util.JsonUtil;
 import es.uma.lcc.caesium.grasp.base.ReactiveGRASP;
 import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
 import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.LowerBound;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
 
 /**
  * Class for testing the reactive GRASP for the Aircraft Landing Scheduling Problem
  * @author ccottap
- * @version 1.0
+ * @version 1.3
  */
 public class RunGRASP4AirControl {
 
@@ -42,37 +46,235 @@ public class RunGRASP4AirControl {
 		
 		AirControlProblem acp = new AirControlProblem(args[1] + ".acp");
 		System.out.println(acp);
+		AirControlGRASPObjectiveFunction obj = createObjectiveFunction(conf, acp);
+		if (conf.containsKey("parallel")) {
+			runParallel(args[0], args[1], conf, obj);
+			return;
+		}
+		ReactiveGRASP myRG = createGRASP(conf, obj);
+		int numruns = JsonUtil.getInt(conf, "numruns");
+		long seed = JsonUtil.getLong(conf, "seed");
+		long bound = new LowerBound(acp).compute();
+		JsonArray terminations = new JsonArray();
+		for (int i=0; i<numruns; i++) {
+			GapTermination termination = GapTermination.create(conf, bound);
+			obj.setTermination(termination);
+			RandomStreams.bind(seed, i);	// local search draws from a per-run stream
+			myRG.run();
+			System.out.println ("Run " + i + ": " + 
+								String.format(Locale.US, "%.2f", myRG.getStatistics().getTime(i)) + "s\t" +
+								myRG.getStatistics().getBestFitness(i) + "\t(bound " + bound + ")");
+			System.out.println(myRG.getStatistics().getBest(i));
+			System.out.println(acp.formatLandingInformation((List<LandingInformation>)(myRG.getStatistics().getBest(i))));
+			if (obj.getPrefixCache() != null) {
+				System.out.println(obj.getPrefixCache());
+				obj.getPrefixCache().clear();
+			}
+			if (termination != null)
+				terminations.add(termination.toJSON());
+		}
+		JsonObject stats = myRG.getStatistics().toJSON();
+		stats.put("bound", bound);
+		if (!terminations.isEmpty())
+			stats.put("termination", terminations);
+		PrintWriter file = new PrintWriter(args[0] + "-stats-" + args[1] + ".json");
+		file.print(stats.toJson());
+		file.close();
+	}
+	
+	/**
+	 * Performs all runs with the parallel reactive GRASP, and writes the statistics of each run
+	 * @param algorithm name of the algorithm configuration
+	 * @param instance name of the problem instance
+	 * @param conf the GRASP configuration
+	 * @param obj the objective function
+	 * @throws IOException if the statistics cannot be written
+	 */
+	private static void runParallel(String algorithm, String instance, JsonObject conf, AirControlGRASPObjectiveFunction obj) throws IOException {
+		ParallelReactiveGRASP myRG = createParallelGRASP(conf, obj);
+		System.out.println(myRG);
+		int numruns = JsonUtil.getInt(conf, "numruns");
+		long seed = JsonUtil.getLong(conf, "seed");
+		long bound = new LowerBound(obj.getProblemData()).compute();
+		JsonArray stats = new JsonArray();
+		for (int i=0; i<numruns; i++) {
+			myRG.setSeed(RandomStreams.deriveSeed(seed, i));
+			myRG.setTermination(GapTermination.create(conf, bound));
+			myRG.run();
+			System.out.println ("Run " + i + ": " + 
+								String.format(Locale.US, "%.2f", myRG.getTime()) + "s\t" +
+								myRG.getBestFitness() + "\t(bound " + bound + ", " + myRG.getIterations() + " iterations)");
+			System.out.println(myRG.getBest());
+			System.out.println(obj.getProblemData().formatLandingInformation(myRG.getBest()));
+			JsonObject json = myRG.toJSON();
+			json.put("bound", bound);
+			stats.add(json);
+		}
+		PrintWriter file = new PrintWriter(algorithm + "-stats-" + instance + ".json");
+		file.print(stats.toJson());
+		file.close();
+	}
+	
+	/**
+	 * Creates a parallel reactive GRASP for a given objective function, configured as indicated.
+	 * The {@code parallel} object of the configuration indicates the number of {@code threads}
+	 * (0 for the number of available processors) and the size of the {@code elite} pool. If the
+	 * configuration contains a {@code relinking} object, path relinking between elite solutions is
+	 * performed every {@code interval} iterations, and elite solutions are kept at least
+	 * {@code mindistance} apart.
+	 * @param conf the GRASP configuration
+	 * @param obj the objective function
+	 * @return the parallel reactive GRASP
+	 */
+	public static ParallelReactiveGRASP createParallelGRASP(JsonObject conf, AirControlGRASPObjectiveFunction obj) {
+		JsonObject par = (JsonObject) conf.get("parallel");
+		int threads = par.containsKey("threads") ? JsonUtil.getInt(par, "threads") : 0;
+		int eliteSize = par.containsKey("elite") ? JsonUtil.getInt(par, "elite") : 10;
+		ParallelReactiveGRASP myRG = new ParallelReactiveGRASP(obj, threads, eliteSize);
+		myRG.setSeed(JsonUtil.getLong(conf, "seed"));
+		myRG.setNumIters(JsonUtil.getInt(conf, "iterations"));
+		myRG.setAmplification(JsonUtil.getDouble(conf, "amplification"));
+		myRG.setIterUpdate(JsonUtil.getInt(conf, "update"));
+		for (int i=1; i<obj.getProblemData().getNumRunways(); i++) {
+			myRG.addValue(i);
+		}
+		if (conf.containsKey("relinking")) {
+			JsonObject rl = (JsonObject) conf.get("relinking");
+			int minDistance = rl.containsKey("mindistance") ? JsonUtil.getInt(rl, "mindistance") : 1;
+			myRG.setRelinking(JsonUtil.getInt(rl, "interval"), minDistance);
+		}
+		return myRG;
+	}
+	
+	/**
+	 * Creates a reactive GRASP for a problem instance, configured as indicated
+	 * @param conf the GRASP configuration
+	 * @param acp the problem instance
+	 * @return the reactive GRASP
+	 */
+	public static ReactiveGRASP createGRASP(JsonObject conf, AirControlProblem acp) {
+		return createGRASP(conf, createObjectiveFunction(conf, acp));
+	}
+	
+	/**
+	 * Creates the objective function for a problem instance, configured as indicated. If the
+	 * configuration contains a {@code prefixcache} object, partial constructions are cached
+	 * every {@code stride} stages (0 for automatic), using at most {@code size} MB.
+	 * @param conf the GRASP configuration
+	 * @param acp the problem instance
+	 * @return the objective function
+	 */
+	public static AirControlGRASPObjectiveFunction createObjectiveFunction(JsonObject conf, AirControlProblem acp) {
 		AirControlGRASPObjectiveFunction obj = new AirControlGRASPObjectiveFunction(acp);
 		if (conf.containsKey("neighbors"))
 			obj.setNumNeighbors(JsonUtil.getInt(conf, "neighbors"));
 		else
 			obj.setNumNeighbors(0);
-		
+		if (conf.containsKey("prefixcache")) {
+			JsonObject pc = (JsonObject) conf.get("prefixcache");
+			int stride = pc.containsKey("stride") ? JsonUtil.getInt(pc, "stride") : 0;
+			long size = pc.containsKey("size") ? JsonUtil.getLong(pc, "size") : 64;
+			obj.setPrefixCache(stride, size << 20);
+		}
+		return obj;
+	}
+	
+	/**
+	 * Creates a reactive GRASP for a given objective function, configured as indicated
+	 * @param conf the GRASP configuration
+	 * @param obj the objective function
+	 * @return the reactive GRASP
+	 */
+	public static ReactiveGRASP createGRASP(JsonObject conf, AirControlGRASPObjectiveFunction obj) {
+		AirControlProblem acp = obj.getProblemData();
 		ReactiveGRASP myRG = new ReactiveGRASP();
 		myRG.setObjectiveFunction(obj);
-		
-		int numruns = JsonUtil.getInt(conf, "numruns");
 		myRG.setSeed(JsonUtil.getLong(conf, "seed"));
 		myRG.setNumIters(JsonUtil.getInt(conf, "iterations"));
 		myRG.setAmplification(JsonUtil.getDouble(conf, "amplification"));
 		myRG.setIterUpdate(JsonUtil.getInt(conf, "update"));
 		
-		
 		for (int i=1; i<acp.getNumRunways(); i++) {
 			myRG.addValue(i);
 		}
 		myRG.setVerbosityLevel(0);
-		for (int i=0; i<numruns; i++) {
+		return myRG;
+	}
+	
+	/**
+	 * Performs a single, independent run of the GRASP. The seed of the run is derived from
+	 * the seed in the configuration and the run index, so the result does not depend on 
+	 * which other runs are performed before or concurrently. Nothing is written to the 
+	 * standard output. If the configuration indicates a target {@code gap}, the parallel GRASP
+	 * stops at the end of the epoch in which it is reached, whereas the remaining iterations of the
+	 * serial GRASP are performed at no cost (see {@link GapTermination}). The statistics include
+	 * the {@link LowerBound} of the optimal cost.
+	 * @param algorithm name of the algorithm configuration (without the .json extension)
+	 * @param instance name of the problem instance (without the .acp extension)
+	 * @param run index of the run
+	 * @return the statistics of the run
+	 * @throws IOException if a file cannot be read 
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 */
+	public static JsonObject runSingle(String algorithm, String instance, int run) throws IOException, JsonException {
+		FileReader reader = new FileReader(algorithm + ".json");
+		JsonObject conf = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
+		
+		AirControlProblem acp = new AirControlProblem(instance + ".acp");
+		AirControlGRASPObjectiveFunction obj = createObjectiveFunction(conf, acp);
+		long seed = JsonUtil.getLong(conf, "seed");
+		long bound = new LowerBound(acp).compute();
+		GapTermination termination = GapTermination.create(conf, bound);
+		JsonObject stats;
+		if (conf.containsKey("parallel")) {
+			ParallelReactiveGRASP prg = createParallelGRASP(conf, obj);
+			prg.setSeed(RandomStreams.deriveSeed(seed, run));
+			prg.setTermination(termination);
+			prg.run();
+			stats = prg.toJSON();
+		}
+		else {
+			ReactiveGRASP myRG = createGRASP(conf, obj);
+			myRG.setSeed(RandomStreams.deriveSeed(seed, run));
+			obj.setTermination(termination);
+			RandomStreams.bind(seed, run);
 			myRG.run();
-			System.out.println ("Run " + i + ": " + 
-								String.format(Locale.US, "%.2f", myRG.getStatistics().getTime(i)) + "s\t" +
-								myRG.getStatistics().getBestFitness(i));
-			System.out.println(myRG.getStatistics().getBest(i));
-			System.out.println(acp.formatLandingInformation((List<LandingInformation>)(myRG.getStatistics().getBest(i))));
+			stats = myRG.getStatistics().toJSON();
+			if (obj.getPrefixCache() != null)
+				stats.put("prefixcache", obj.getPrefixCache().toJSON());
+			if (termination != null)
+				stats.put("termination", termination.toJSON());
 		}
-		PrintWriter file = new PrintWriter(args[0] + "-stats-" + args[1] + ".json");
-		file.print(myRG.getStatistics().toJSON().toJson());
-		file.close();
+		stats.put("bound", bound);
+		return stats;
+	}
+	
+	/**
+	 * Solves a problem instance with the GRASP (a single run with a given seed), e.g., a 
+	 * sub-instance of a larger problem. Nothing is written to the standard output.
+	 * @param conf the GRASP configuration
+	 * @param acp the problem instance
+	 * @param seed the seed of the run
+	 * @return the best schedule found
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<LandingInformation> solve(JsonObject conf, AirControlProblem acp, long seed) {
+		AirControlGRASPObjectiveFunction obj = createObjectiveFunction(conf, acp);
+		GapTermination termination = conf.containsKey("gap") ? GapTermination.create(conf, new LowerBound(acp).compute()) : null;
+		if (conf.containsKey("parallel")) {
+			ParallelReactiveGRASP prg = createParallelGRASP(conf, obj);
+			prg.setSeed(seed);
+			prg.setTermination(termination);
+			prg.run();
+			return prg.getBest();
+		}
+		ReactiveGRASP myRG = createGRASP(conf, obj);
+		myRG.setSeed(seed);
+		obj.setTermination(termination);
+		RandomStreams.bind(seed);
+		myRG.run();
+		return (List<LandingInformation>) myRG.getStatistics().getBest(0);
 	}
 	
 	
@@ -0,0 +1,369 @@
+package es.uma.lcc.caesium.problem.aircontrol.instance;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Scanner;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.AirplaneType;
+import es.uma.lcc.caesium.problem.aircontrol.Flight;
+
+/**
+ * Importer of the aircraft landing instances of Beasley's OR-Library (airland1-13). These
+ * files contain the number of planes and the freeze time, and then, for each plane, its
+ * appearance time, earliest, target and latest landing times, the penalty costs per unit of
+ * time for landing before or after the target, and its separation with respect to every other
+ * plane (when landing before it).
+ * <p>
+ * The separation in these instances is given per pair of planes, whereas this model has
+ * separations per pair of plane types. Planes with identical separation rows and columns are
+ * grouped into separation classes, which are mapped to plane types (those requiring larger
+ * separations behind them first). If there are more classes than plane types, the most similar
+ * classes are merged keeping the largest separation, so consecutive landings that are separated
+ * enough in the imported instance are also separated enough in the original one. However, the
+ * original instances require the separation between every pair of planes landing on the same
+ * runway, whereas this model only checks it between consecutive landings. Both are equivalent
+ * if the separations satisfy the triangle inequality (the separation between two planes is not
+ * larger than the sum of their separations with any plane landing between them); otherwise, a
+ * landing sequence that is valid for the imported instance might not be valid for the original
+ * one. The mapping is exact iff {@link #isExact()} returns true.
+ * <p>
+ * All runways are equally reachable, so the arrival time of each plane on every runway is its
+ * target time (or its earliest time, if so indicated). The freeze time, the latest landing times
+ * and the penalty costs have no counterpart in this model and are ignored.
+ * @author ccottap
+ * @version 1.1
+ */
+public class ORLibraryImporter {
+	/**
+	 * extension of the OR-Library files
+	 */
+	private static final String EXTENSION = ".txt";
+	/**
+	 * maximum number of classes that are merged pairwise (coarser groups are formed first if needed)
+	 */
+	private static final int MAX_MERGED = 32;
+	/**
+	 * number of runways
+	 */
+	private int numRunways;
+	/**
+	 * whether the earliest landing times are used as arrival times (instead of the target times)
+	 */
+	private boolean useEarliest;
+	/**
+	 * number of separation classes in the last instance imported
+	 */
+	private int numClasses;
+	/**
+	 * whether the separations of the last instance imported satisfy the triangle inequality
+	 */
+	private boolean triangular;
+	/**
+	 * whether the last instance imported has been mapped exactly
+	 */
+	private boolean exact;
+
+	/**
+	 * Creates the importer
+	 * @param numRunways number of runways of the imported instances
+	 */
+	public ORLibraryImporter(int numRunways) {
+		this.numRunways = numRunways;
+		useEarliest = false;
+	}
+
+	/**
+	 * Indicates which time is used as arrival time of each plane
+	 * @param useEarliest if true, the earliest landing time is used; otherwise, the target time
+	 */
+	public void setUseEarliest(boolean useEarliest) {
+		this.useEarliest = useEarliest;
+	}
+
+	/**
+	 * Returns the number of separation classes in the last instance imported (before merging them)
+	 * @return the number of separation classes in the last instance imported
+	 */
+	public int getNumClasses() {
+		return numClasses;
+	}
+
+	/**
+	 * Indicates whether the separations of the last instance imported (after merging classes, if
+	 * needed) satisfy the triangle inequality, so that separating consecutive landings suffices
+	 * @return true iff the separations of the last instance imported satisfy the triangle inequality
+	 */
+	public boolean isTriangular() {
+		return triangular;
+	}
+
+	/**
+	 * Indicates whether the last instance imported is equivalent to the original one: its
+	 * separation classes have not been merged and its separations satisfy the triangle inequality
+	 * @return true iff the last instance imported is equivalent to the original one
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+
+	/**
+	 * Reads an instance
+	 * @param filename the name of the file
+	 * @return the instance
+	 * @throws FileNotFoundException if the file cannot be opened
+	 */
+	public AirControlProblem read(String filename) throws FileNotFoundException {
+		Scanner reader = new Scanner(new File(filename));
+		reader.useLocale(Locale.US);
+		int n = reader.nextInt();
+		reader.nextDouble();					// freeze time
+		long[] time = new long[n];
+		long[][] sep = new long[n][n];
+		for (int i=0; i<n; i++) {
+			reader.nextDouble();				// appearance time
+			long earliest = Math.round(reader.nextDouble());
+			long target = Math.round(reader.nextDouble());
+			reader.nextDouble();				// latest landing time
+			reader.nextDouble();				// penalty for landing early
+			reader.nextDouble();				// penalty for landing late
+			time[i] = useEarliest ? earliest : target;
+			for (int j=0; j<n; j++)
+				sep[i][j] = Math.round(reader.nextDouble());
+		}
+		reader.close();
+
+		int[] cls = classify(sep);
+		int k = numClasses;
+		long[][] classSep = separation(sep, cls, k);
+		int numTypes = AirplaneType.values().length;
+		exact = (k <= numTypes);
+		if (k > MAX_MERGED) {	// too many classes to merge them one by one
+			group(cls, classSep, k, MAX_MERGED);
+			k = MAX_MERGED;
+			classSep = separation(sep, cls, k);
+		}
+		while (k > numTypes) {
+			merge(cls, classSep, k);
+			k--;
+			classSep = separation(sep, cls, k);
+		}
+
+		// classes requiring larger separations behind them are mapped to heavier types
+		Integer[] order = new Integer[k];
+		double[] weight = new double[k];
+		for (int c=0; c<k; c++) {
+			order[c] = c;
+			for (int d=0; d<k; d++)
+				weight[c] += classSep[c][d];
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(weight[b], weight[a]));
+		AirplaneType[] types = AirplaneType.values();
+		AirplaneType[] typeOf = new AirplaneType[k];
+		for (int r=0; r<k; r++)
+			typeOf[order[r]] = types[r];
+
+		triangular = isTriangular(classSep);
+		exact &= triangular;
+
+		long[][] typeSep = new long[numTypes][numTypes];
+		for (int c=0; c<k; c++)
+			for (int d=0; d<k; d++)
+				typeSep[typeOf[c].ordinal()][typeOf[d].ordinal()] = classSep[c][d];
+
+		int width = Math.max(3, Integer.toString(n).length());
+		List<Flight> flights = new ArrayList<Flight>(n);
+		for (int i=0; i<n; i++) {
+			Flight f = new Flight("AL" + String.format("%0" + width + "d", i+1), typeOf[cls[i]]);
+			for (int j=0; j<numRunways; j++)
+				f.setArrivalTime(j, time[i]);
+			flights.add(f);
+		}
+		return new AirControlProblem(flights, numRunways, typeSep);
+	}
+
+	/**
+	 * Groups planes with identical separations (ignoring the separation between them)
+	 * and sets the number of classes
+	 * @param sep separation between each pair of planes
+	 * @return the class of each plane
+	 */
+	private int[] classify(long[][] sep) {
+		int n = sep.length;
+		int[] cls = new int[n];
+		List<Integer> representative = new ArrayList<Integer>();
+		for (int i=0; i<n; i++) {
+			cls[i] = -1;
+			for (int c=0; (c<representative.size()) && (cls[i] < 0); c++) {
+				int r = representative.get(c);
+				boolean same = (sep[i][r] == sep[r][i]);
+				for (int k=0; (k<n) && same; k++)
+					if ((k != i) && (k != r))
+						same = (sep[i][k] == sep[r][k]) && (sep[k][i] == sep[k][r]);
+				if (same)
+					cls[i] = c;
+			}
+			if (cls[i] < 0) {
+				cls[i] = representative.size();
+				representative.add(i);
+			}
+		}
+		numClasses = representative.size();
+		return cls;
+	}
+
+	/**
+	 * Computes the separation between classes as the largest separation between their planes
+	 * @param sep separation between each pair of planes
+	 * @param cls the class of each plane
+	 * @param numClasses number of classes
+	 * @return the separation between each pair of classes
+	 */
+	private static long[][] separation(long[][] sep, int[] cls, int numClasses) {
+		int n = sep.length;
+		long[][] classSep = new long[numClasses][numClasses];
+		for (int i=0; i<n; i++)
+			for (int j=0; j<n; j++)
+				if (i != j)
+					classSep[cls[i]][cls[j]] = Math.max(classSep[cls[i]][cls[j]], sep[i][j]);
+		return classSep;
+	}
+
+	/**
+	 * Checks whether separations satisfy the triangle inequality. If so, and since the separation
+	 * between two classes is the largest between their planes, separating consecutive landings
+	 * also separates every pair of planes on a runway as much as the original instance requires.
+	 * @param classSep separation between each pair of classes
+	 * @return true iff the separation between two classes is never larger than the sum of
+	 * their separations with a third one
+	 */
+	private static boolean isTriangular(long[][] classSep) {
+		int k = classSep.length;
+		for (int a=0; a<k; a++)
+			for (int b=0; b<k; b++)
+				for (int c=0; c<k; c++)
+					if (classSep[a][c] > classSep[a][b] + classSep[b][c])
+						return false;
+		return true;
+	}
+
+	/**
+	 * Merges the two classes whose union increases the separations the least
+	 * @param cls the class of each plane (updated)
+	 * @param classSep separation between each pair of classes
+	 * @param k number of classes
+	 */
+	private static void merge(int[] cls, long[][] classSep, int k) {
+		long[] size = new long[k];
+		for (int c: cls)
+			size[c]++;
+		int bestA = 0;
+		int bestB = 1;
+		long bestIncrease = Long.MAX_VALUE;
+		for (int a=0; a<k; a++) {
+			for (int b=a+1; b<k; b++) {
+				// only the separations involving a or b change
+				long m = Math.max(Math.max(classSep[a][a], classSep[a][b]), Math.max(classSep[b][a], classSep[b][b]));
+				long increase = size[a]*size[a]*(m - classSep[a][a]) + size[a]*size[b]*(m - classSep[a][b])
+						+ size[b]*size[a]*(m - classSep[b][a]) + size[b]*size[b]*(m - classSep[b][b]);
+				for (int d=0; (d<k) && (increase < bestIncrease); d++) {
+					if ((d != a) && (d != b)) {
+						long lead = Math.max(classSep[a][d], classSep[b][d]);
+						long trail = Math.max(classSep[d][a], classSep[d][b]);
+						increase += size[d] * (size[a]*(lead - classSep[a][d]) + size[b]*(lead - classSep[b][d])
+								+ size[a]*(trail - classSep[d][a]) + size[b]*(trail - classSep[d][b]));
+					}
+				}
+				if (increase < bestIncrease) {
+					bestIncrease = increase;
+					bestA = a;
+					bestB = b;
+				}
+			}
+		}
+		for (int i=0; i<cls.length; i++) {
+			if (cls[i] == bestB)
+				cls[i] = bestA;
+			else if (cls[i] > bestB)
+				cls[i]--;
+		}
+	}
+
+	/**
+	 * Groups the classes into a smaller number of classes, each of them containing classes
+	 * with a similar total separation behind them
+	 * @param cls the class of each plane (updated)
+	 * @param classSep separation between each pair of classes
+	 * @param k number of classes
+	 * @param groups number of groups
+	 */
+	private static void group(int[] cls, long[][] classSep, int k, int groups) {
+		Integer[] order = new Integer[k];
+		long[] weight = new long[k];
+		for (int c=0; c<k; c++) {
+			order[c] = c;
+			for (int d=0; d<k; d++)
+				weight[c] += classSep[c][d];
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(weight[a], weight[b]));
+		int[] groupOf = new int[k];
+		for (int r=0; r<k; r++)
+			groupOf[order[r]] = (int) ((long) r * groups / k);
+		for (int i=0; i<cls.length; i++)
+			cls[i] = groupOf[cls[i]];
+	}
+
+	@Override
+	public String toString() {
+		return "ORLibraryImporter(" + numRunways + " runways, " + (useEarliest ? "earliest" : "target") + " times)";
+	}
+
+	/**
+	 * Converts a collection of OR-Library instances. Each file {@code <name>.txt} is converted
+	 * into {@code <name>-<runways>r.acp} (or {@code .acpb}) in the output directory.
+	 * @param args command-line arguments (number of runways, output directory, files to convert,
+	 * and optionally {@code --earliest} and {@code --binary})
+	 * @throws FileNotFoundException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws FileNotFoundException {
+		List<String> files = new ArrayList<String>();
+		boolean earliest = false;
+		boolean binary = false;
+		for (String a: args) {
+			if (a.equals("--earliest"))
+				earliest = true;
+			else if (a.equals("--binary"))
+				binary = true;
+			else
+				files.add(a);
+		}
+		if (files.size() < 3) {
+			System.out.println("Parameters: <num-runways> <output-dir> <airland-file>+ [--earliest] [--binary]");
+			System.exit(1);
+		}
+		ORLibraryImporter importer = new ORLibraryImporter(Integer.parseInt(files.get(0)));
+		importer.setUseEarliest(earliest);
+		String dir = files.get(1);
+		new File(dir).mkdirs();
+		System.out.println(importer);
+		for (String filename: files.subList(2, files.size())) {
+			String name = new File(filename).getName();
+			if (name.endsWith(EXTENSION))
+				name = name.substring(0, name.length() - EXTENSION.length());
+			String output = Paths.get(dir, name + "-" + importer.numRunways + "r" +
+					(binary ? AirControlProblem.BINARY_EXTENSION : ".acp")).toString();
+			AirControlProblem acp = importer.read(filename);
+			acp.saveToFile(output);
+			System.out.println(filename + " -> " + output + " (" + acp.getNumFlights() + " flights, " +
+					importer.getNumClasses() + " separation classes" +
+					((importer.getNumClasses() > AirplaneType.values().length) ? ", merged" : "") +
+					(importer.isTriangular() ? ")" : ", not triangular)"));
+		}
+	}
+
+}
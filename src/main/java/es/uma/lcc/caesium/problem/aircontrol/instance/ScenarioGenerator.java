@@ -0,0 +1,486 @@
+package es.uma.lcc.caesium.problem.aircontrol.instance;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+import com.github.cliftonlabs.json_simple.JsonArray;
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+
+import es.uma.lcc.caesium.ea.util.JsonUtil;
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.AirplaneType;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+
+/**
+ * Generator of large scenarios. Flights arrive following a time-varying intensity: a base
+ * traffic density (expected flights per time unit), optionally modulated by periodic arrival
+ * banks (peak waves). The type of each flight is drawn from a fleet mix, and its arrival time
+ * on each runway is its nominal arrival time plus a random offset. Some plane types can be
+ * forbidden on some runways, and runways can be closed during some time intervals.
+ * <p>
+ * Flights are generated in chunks, in parallel, and streamed to disk in order. Each chunk has
+ * its own random stream derived from the seed, so the scenario only depends on the seed and the
+ * parameters (not on the number of threads). The output is written in binary format if the file
+ * name has extension {@code .acpb}, and in text format ({@code .acp}) otherwise.
+ * @author ccottap
+ * @version 1.1
+ */
+public class ScenarioGenerator {
+	/**
+	 * seed
+	 */
+	private long seed = 1;
+	/**
+	 * number of flights
+	 */
+	private int numFlights = 1000;
+	/**
+	 * number of runways
+	 */
+	private int numRunways = 4;
+	/**
+	 * expected number of flights per time unit (outside peaks)
+	 */
+	private double density = 0.5;
+	/**
+	 * period of the arrival banks (0 if there are no banks)
+	 */
+	private double bankPeriod = 0;
+	/**
+	 * width (standard deviation) of the arrival peaks
+	 */
+	private double bankWidth = 10;
+	/**
+	 * relative increase of the intensity at the center of each peak
+	 */
+	private double bankPeak = 0;
+	/**
+	 * relative frequency of each plane type
+	 */
+	private double[] fleet = {0.2, 0.5, 0.3};
+	/**
+	 * maximum offset of the arrival time on each runway
+	 */
+	private int spread = -1;
+	/**
+	 * plane types forbidden on each runway
+	 */
+	private Set<AirplaneType>[] restricted;
+	/**
+	 * closures of the runways (runway, start and end of each closure)
+	 */
+	private List<long[]> closures = new ArrayList<long[]>();
+	/**
+	 * number of threads (0 for the number of available processors)
+	 */
+	private int numThreads = 0;
+	/**
+	 * number of flights per chunk
+	 */
+	private int chunkSize = 10000;
+	/**
+	 * cumulative expected number of arrivals at each time unit
+	 */
+	private double[] cumulative;
+
+	/**
+	 * Creates a generator with the default parameters
+	 */
+	public ScenarioGenerator() {
+		setNumRunways(numRunways);
+	}
+
+	/**
+	 * Creates a generator configured by a JSON object. Recognized fields (all optional) are
+	 * {@code seed}, {@code flights}, {@code runways}, {@code density}, {@code banks} (object with
+	 * {@code period}, {@code width} and {@code peak}), {@code fleet} (object with the relative
+	 * frequency of each plane type), {@code spread}, {@code restrictions} (array of objects with a
+	 * {@code runway} and the {@code types} forbidden on it), {@code closures} (array of objects with a
+	 * {@code runway} and the interval [{@code from}, {@code to}) during which it is closed), {@code threads}
+	 * and {@code chunk}.
+	 * @param conf the configuration
+	 */
+	public ScenarioGenerator(JsonObject conf) {
+		if (conf.containsKey("seed"))
+			seed = JsonUtil.getLong(conf, "seed");
+		if (conf.containsKey("flights"))
+			numFlights = JsonUtil.getInt(conf, "flights");
+		setNumRunways(conf.containsKey("runways") ? JsonUtil.getInt(conf, "runways") : numRunways);
+		if (conf.containsKey("density"))
+			density = JsonUtil.getDouble(conf, "density");
+		if (conf.containsKey("banks")) {
+			JsonObject banks = (JsonObject) conf.get("banks");
+			bankPeriod = JsonUtil.getDouble(banks, "period");
+			if (banks.containsKey("width"))
+				bankWidth = JsonUtil.getDouble(banks, "width");
+			if (banks.containsKey("peak"))
+				bankPeak = JsonUtil.getDouble(banks, "peak");
+		}
+		if (conf.containsKey("fleet")) {
+			JsonObject mix = (JsonObject) conf.get("fleet");
+			for (AirplaneType t: AirplaneType.values())
+				fleet[t.ordinal()] = mix.containsKey(t.name()) ? JsonUtil.getDouble(mix, t.name()) : 0.0;
+		}
+		if (conf.containsKey("spread"))
+			spread = JsonUtil.getInt(conf, "spread");
+		if (conf.containsKey("restrictions")) {
+			for (Object o: (JsonArray) conf.get("restrictions")) {
+				JsonObject r = (JsonObject) o;
+				int runway = JsonUtil.getInt(r, "runway");
+				for (Object t: (JsonArray) r.get("types"))
+					restrict(runway, AirplaneType.valueOf(((String)t).toUpperCase()));
+			}
+		}
+		if (conf.containsKey("closures")) {
+			for (Object o: (JsonArray) conf.get("closures")) {
+				JsonObject c = (JsonObject) o;
+				close(JsonUtil.getInt(c, "runway"), JsonUtil.getLong(c, "from"), JsonUtil.getLong(c, "to"));
+			}
+		}
+		if (conf.containsKey("threads"))
+			numThreads = JsonUtil.getInt(conf, "threads");
+		if (conf.containsKey("chunk"))
+			chunkSize = JsonUtil.getInt(conf, "chunk");
+	}
+
+	/**
+	 * Sets the seed
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the number of flights
+	 * @param numFlights the number of flights
+	 */
+	public void setNumFlights(int numFlights) {
+		this.numFlights = numFlights;
+	}
+
+	/**
+	 * Sets the number of runways (and removes all restrictions and closures)
+	 * @param numRunways the number of runways
+	 */
+	@SuppressWarnings("unchecked")
+	public void setNumRunways(int numRunways) {
+		this.numRunways = numRunways;
+		restricted = new Set[numRunways];
+		for (int j=0; j<numRunways; j++)
+			restricted[j] = EnumSet.noneOf(AirplaneType.class);
+		closures.clear();
+	}
+
+	/**
+	 * Sets the traffic density
+	 * @param density expected number of flights per time unit (outside peaks)
+	 */
+	public void setDensity(double density) {
+		this.density = density;
+	}
+
+	/**
+	 * Sets the arrival banks
+	 * @param period period of the banks (0 for no banks)
+	 * @param width width (standard deviation) of the peaks
+	 * @param peak relative increase of the intensity at the center of each peak
+	 */
+	public void setBanks(double period, double width, double peak) {
+		bankPeriod = period;
+		bankWidth = width;
+		bankPeak = peak;
+	}
+
+	/**
+	 * Sets the relative frequency of a plane type
+	 * @param t the plane type
+	 * @param weight the relative frequency
+	 */
+	public void setFleetMix(AirplaneType t, double weight) {
+		fleet[t.ordinal()] = weight;
+	}
+
+	/**
+	 * Sets the maximum offset of the arrival time on each runway
+	 * @param spread the maximum offset (negative for the number of runways)
+	 */
+	public void setSpread(int spread) {
+		this.spread = spread;
+	}
+
+	/**
+	 * Forbids a plane type on a runway
+	 * @param runway the runway
+	 * @param t the plane type
+	 */
+	public void restrict(int runway, AirplaneType t) {
+		restricted[runway].add(t);
+	}
+
+	/**
+	 * Closes a runway during a time interval
+	 * @param runway the runway
+	 * @param from start of the closure
+	 * @param to end of the closure (excluded)
+	 */
+	public void close(int runway, long from, long to) {
+		closures.add(new long[] {runway, from, to});
+	}
+
+	/**
+	 * Sets the number of threads
+	 * @param numThreads the number of threads (0 for the number of available processors)
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Returns the traffic intensity at a certain time
+	 * @param t the time
+	 * @return the expected number of flights per time unit at time {@code t}
+	 */
+	private double intensity(double t) {
+		double lambda = density;
+		if ((bankPeriod > 0) && (bankPeak > 0)) {
+			double d = (t % bankPeriod) - bankPeriod/2.0;	// distance to the center of the bank
+			lambda *= 1.0 + bankPeak * Math.exp(-d*d/(2.0*bankWidth*bankWidth));
+		}
+		return lambda;
+	}
+
+	/**
+	 * Tabulates the cumulative intensity until it covers all flights
+	 */
+	private void tabulate() {
+		int size = 1024;
+		double[] c = new double[size];
+		c[0] = 0;
+		int k = 0;
+		while (c[k] < numFlights + 1) {
+			if (k+1 == size) {
+				size *= 2;
+				c = Arrays.copyOf(c, size);
+			}
+			c[k+1] = c[k] + intensity(k + 0.5);
+			k++;
+		}
+		cumulative = Arrays.copyOf(c, k+1);
+	}
+
+	/**
+	 * Returns the time at which the cumulative intensity reaches a certain value
+	 * @param x the value
+	 * @return the time at which the cumulative intensity reaches {@code x}
+	 */
+	private double inverse(double x) {
+		int lo = 0;
+		int hi = cumulative.length - 1;
+		while (hi - lo > 1) {
+			int mid = (lo + hi) >>> 1;
+			if (cumulative[mid] <= x)
+				lo = mid;
+			else
+				hi = mid;
+		}
+		return lo + (x - cumulative[lo]) / (cumulative[hi] - cumulative[lo]);
+	}
+
+	/**
+	 * Returns the maximum offset of the arrival time on each runway
+	 * @return the maximum offset of the arrival time on each runway
+	 */
+	private int getSpread() {
+		return (spread < 0) ? numRunways : spread;
+	}
+
+	/**
+	 * Returns the ID of a flight
+	 * @param i index of the flight
+	 * @return the ID of the flight
+	 */
+	private String flightID(int i) {
+		int width = Math.max(3, Integer.toString(numFlights).length());
+		return "IB" + String.format("%0" + width + "d", i+1);
+	}
+
+	/**
+	 * Generates a chunk of flights
+	 * @param chunk index of the chunk
+	 * @param binary whether the binary format is used
+	 * @return the encoded chunk
+	 * @throws IOException if the chunk cannot be encoded
+	 */
+	private byte[] generateChunk(int chunk, boolean binary) throws IOException {
+		RandomGenerator rng = RandomStreams.derive(seed, chunk);
+		AirplaneType[] types = AirplaneType.values();
+		double totalWeight = 0;
+		for (double w: fleet)
+			totalWeight += w;
+		int first = chunk * chunkSize;
+		int last = Math.min(numFlights, first + chunkSize);
+		int s = getSpread();
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream((last-first) * (16 + 10*numRunways));
+		DataOutputStream out = new DataOutputStream(buffer);
+		StringBuilder str = new StringBuilder();
+		for (int i=first; i<last; i++) {
+			double u = rng.nextDouble() * totalWeight;
+			int k = 0;
+			while ((k < types.length-1) && (u >= fleet[k])) {
+				u -= fleet[k];
+				k++;
+			}
+			AirplaneType type = types[k];
+			long base = 1 + (long) inverse(i + rng.nextDouble());
+			String id = flightID(i);
+			if (binary) {
+				out.writeUTF(id);
+				out.writeByte(type.ordinal());
+			}
+			else
+				str.append(id).append('\t').append(type);
+			for (int j=0; j<numRunways; j++) {
+				long t = base + rng.nextInt(s + 1);
+				boolean forbidden = restricted[j].contains(type);
+				if (binary)
+					out.writeLong(forbidden ? -1 : t);
+				else if (forbidden)
+					str.append("\t-");
+				else
+					str.append('\t').append(t);
+			}
+			if (!binary)
+				str.append('\n');
+		}
+		out.flush();
+		return binary ? buffer.toByteArray() : str.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Generates the scenario and writes it to a file
+	 * @param filename name of the file (extension {@code .acpb} for binary format)
+	 * @throws IOException if the file cannot be written
+	 */
+	public void generate(String filename) throws IOException {
+		boolean binary = filename.endsWith(AirControlProblem.BINARY_EXTENSION);
+		for (AirplaneType t: AirplaneType.values()) {
+			int allowed = 0;
+			for (int j=0; j<numRunways; j++)
+				if (!restricted[j].contains(t))
+					allowed++;
+			if ((allowed == 0) && (fleet[t.ordinal()] > 0))
+				throw new IllegalArgumentException("Plane type " + t + " is forbidden on all runways");
+		}
+		tabulate();
+		int threads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+		int numChunks = (numFlights + chunkSize - 1) / chunkSize;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+		try (OutputStream os = new BufferedOutputStream(new FileOutputStream(filename), 1 << 16)) {
+			DataOutputStream out = new DataOutputStream(os);
+			if (binary) {
+				out.writeInt(AirControlProblem.BINARY_MAGIC);
+				out.writeInt(numFlights);
+				out.writeInt(numRunways);
+			}
+			else
+				out.write((numFlights + "\t" + numRunways + "\n").getBytes(StandardCharsets.US_ASCII));
+
+			// chunks are generated ahead in parallel, but at most 2*threads are kept in memory
+			Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+			int next = 0;
+			while ((next < numChunks) || !pending.isEmpty()) {
+				while ((next < numChunks) && (pending.size() < 2*threads)) {
+					final int chunk = next++;
+					pending.add(pool.submit(() -> generateChunk(chunk, binary)));
+				}
+				out.write(pending.poll().get());
+			}
+
+			RandomGenerator rng = RandomStreams.derive(seed, -1);
+			int numTypes = AirplaneType.values().length;
+			for (int t1=0; t1<numTypes; t1++) {
+				StringBuilder str = new StringBuilder();
+				for (int t2=0; t2<numTypes; t2++) {
+					long sep = numTypes + rng.nextLong(numTypes+1);
+					if (binary)
+						out.writeLong(sep);
+					else
+						str.append(sep).append('\t');
+				}
+				if (!binary)
+					out.write((str + "\n").getBytes(StandardCharsets.US_ASCII));
+			}
+			if (binary && !closures.isEmpty())
+				out.writeInt(closures.size());
+			for (long[] c: closures) {
+				if (binary) {
+					out.writeInt((int) c[0]);
+					out.writeLong(c[1]);
+					out.writeLong(c[2]);
+				}
+				else
+					out.write((c[0] + "\t" + c[1] + "\t" + c[2] + "\n").getBytes(StandardCharsets.US_ASCII));
+			}
+			out.flush();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Generation interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Generation failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ScenarioGenerator(seed=" + seed + ", flights=" + numFlights + ", runways=" + numRunways +
+				", density=" + density + ", banks=(" + bankPeriod + ", " + bankWidth + ", " + bankPeak + "))";
+	}
+
+	/**
+	 * Generates a scenario
+	 * @param args command-line arguments (configuration file and output file)
+	 * @throws IOException if files cannot be read or written
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 */
+	public static void main(String[] args) throws IOException, JsonException {
+		if (args.length < 2) {
+			System.out.println("Parameters: <generator-configuration> <output-file (.acp or .acpb)>");
+			System.exit(1);
+		}
+		FileReader reader = new FileReader(args[0]);
+		JsonObject conf = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
+		ScenarioGenerator gen = new ScenarioGenerator(conf);
+		System.out.println(gen);
+		long start = System.nanoTime();
+		gen.generate(args[1]);
+		System.out.println(String.format(Locale.US, "%s written in %.2fs", args[1], (System.nanoTime() - start)/1e9));
+	}
+
+}
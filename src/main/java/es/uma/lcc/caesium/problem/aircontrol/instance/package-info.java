@@ -0,0 +1,6 @@
+/**
+ * Generation, import and conversion of problem instances
+ * @author ccottap
+ * @version 1.0
+ */
+package es.uma.lcc.caesium.problem.aircontrol.instance;
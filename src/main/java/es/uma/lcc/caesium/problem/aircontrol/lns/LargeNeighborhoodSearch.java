@@ -0,0 +1,579 @@
+package es.uma.lcc.caesium.problem.aircontrol.lns;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+import com.github.cliftonlabs.json_simple.JsonArray;
+import com.github.cliftonlabs.json_simple.JsonObject;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.AirplaneType;
+import es.uma.lcc.caesium.problem.aircontrol.Flight;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
+import es.uma.lcc.caesium.problem.aircontrol.LandingDecoder;
+import es.uma.lcc.caesium.problem.aircontrol.LandingImprovement;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.LandingRepair;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+
+/**
+ * Adaptive large neighborhood search for the Aircraft Landing Scheduling Problem. Starting from
+ * the greedy schedule (flights sorted by earliest arrival time), each iteration removes some
+ * flights with a destroy operator and reinserts them greedily, one by one in order of earliest
+ * arrival time, at the cheapest runway and position (next to the one of their arrival time, as in
+ * the moves of {@link LandingImprovement}). The result is repaired and optionally improved by local
+ * search.
+ * <p>
+ * Destroy operators are picked by roulette wheel, and their weights are adapted every segment of
+ * iterations according to the scores they have obtained (new best schedule, improvement of the
+ * current schedule, or acceptance). A new schedule is accepted if it is not worse than the best
+ * one by more than a threshold, which decreases linearly to 0 along the search (record-to-record
+ * travel). The search stops after a number of iterations or a wall-clock time limit, whatever
+ * comes first, or as soon as the best schedule reaches a target optimality gap (if set).
+ * @author ccottap
+ * @version 1.1
+ */
+public class LargeNeighborhoodSearch {
+	/**
+	 * Destroy operators
+	 */
+	public enum Destroy {
+		/**
+		 * consecutive landings (on any runway) within a time window
+		 */
+		WINDOW,
+		/**
+		 * consecutive landings on a runway
+		 */
+		RUNWAY,
+		/**
+		 * random flights
+		 */
+		RANDOM
+	}
+
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * to compute insertions and improve schedules
+	 */
+	private LandingImprovement ls;
+	/**
+	 * to repair schedules
+	 */
+	private LandingRepair repair;
+	/**
+	 * minimum and maximum fraction of flights removed
+	 */
+	private double minRemoval, maxRemoval;
+	/**
+	 * number of iterations between updates of the weights
+	 */
+	private int segment;
+	/**
+	 * reaction factor of the weights (0 = weights are not adapted)
+	 */
+	private double reaction;
+	/**
+	 * scores of a destroy operator for a new best schedule, an improvement and an acceptance
+	 */
+	private double[] scores;
+	/**
+	 * initial relative threshold of acceptance
+	 */
+	private double threshold;
+	/**
+	 * maximum number of iterations
+	 */
+	private long maxIters;
+	/**
+	 * wall-clock time limit in seconds (0 if none)
+	 */
+	private double timeLimit;
+	/**
+	 * termination criterion based on the optimality gap (null if none)
+	 */
+	private GapTermination termination;
+	/**
+	 * seed
+	 */
+	private long seed;
+	/**
+	 * weights of the destroy operators
+	 */
+	private double[] weights;
+	/**
+	 * number of times each destroy operator has been used
+	 */
+	private long[] uses;
+	/**
+	 * number of new best schedules found with each destroy operator
+	 */
+	private long[] hits;
+	/**
+	 * best schedule of the last run
+	 */
+	private List<LandingInformation> best;
+	/**
+	 * total squared waiting time of the best schedule of the last run
+	 */
+	private long bestCost;
+	/**
+	 * number of iterations of the last run
+	 */
+	private long iterations;
+	/**
+	 * time of the last run (in seconds)
+	 */
+	private double time;
+
+	/**
+	 * Creates the search for a problem instance, with default parameters: removal of 2% to 10%
+	 * of the flights, weights updated every 100 iterations with reaction 0.1 and scores (33, 9, 3),
+	 * threshold 0.01, no local search, and 1000 iterations without time limit
+	 * @param data the problem instance
+	 */
+	public LargeNeighborhoodSearch(AirControlProblem data) {
+		this.data = data;
+		ls = new LandingImprovement(0);
+		ls.setData(data);
+		repair = new LandingRepair();
+		repair.setData(data);
+		setRemoval(0.02, 0.1);
+		setAdaptation(100, 0.1, new double[] {33, 9, 3});
+		setThreshold(0.01);
+		setNumIters(1000);
+		setTimeLimit(0);
+		setTermination(null);
+		setSeed(1);
+	}
+
+	/**
+	 * Sets the fraction of flights removed in each iteration (at least one flight is removed)
+	 * @param min minimum fraction of flights removed
+	 * @param max maximum fraction of flights removed
+	 */
+	public void setRemoval(double min, double max) {
+		minRemoval = min;
+		maxRemoval = Math.max(min, max);
+	}
+
+	/**
+	 * Sets the adaptation of the weights of the destroy operators
+	 * @param segment number of iterations between updates of the weights
+	 * @param reaction reaction factor (0 = weights are not adapted, 1 = weights are replaced by the last scores)
+	 * @param scores scores for a new best schedule, an improvement of the current schedule and an acceptance
+	 */
+	public void setAdaptation(int segment, double reaction, double[] scores) {
+		this.segment = Math.max(1, segment);
+		this.reaction = reaction;
+		this.scores = scores.clone();
+	}
+
+	/**
+	 * Sets the initial relative threshold of acceptance
+	 * @param threshold the initial threshold (0 = only schedules not worse than the best one are accepted)
+	 */
+	public void setThreshold(double threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Sets the number of neighbors explored by local search after each repair
+	 * @param num number of neighbors (0 = no local search)
+	 */
+	public void setNumNeighbors(int num) {
+		ls.setNumNeighbors(num);
+	}
+
+	/**
+	 * Sets the maximum number of iterations
+	 * @param maxIters the maximum number of iterations
+	 */
+	public void setNumIters(long maxIters) {
+		this.maxIters = maxIters;
+	}
+
+	/**
+	 * Sets the wall-clock time limit
+	 * @param timeLimit the time limit in seconds (0 if none)
+	 */
+	public void setTimeLimit(double timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Sets a termination criterion based on the optimality gap
+	 * @param termination the criterion (null for none); it must be set again for each run
+	 */
+	public void setTermination(GapTermination termination) {
+		this.termination = termination;
+	}
+
+	/**
+	 * Sets the seed
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the problem instance
+	 * @return the problem instance
+	 */
+	public AirControlProblem getProblemData() {
+		return data;
+	}
+
+	/**
+	 * Performs a run of the search
+	 */
+	public void run() {
+		long start = System.nanoTime();
+		long end = (timeLimit > 0) ? start + (long) (timeLimit * 1e9) : Long.MAX_VALUE;
+		RandomGenerator rng = RandomStreams.derive(seed, 0);
+		ls.setRandomGenerator(RandomStreams.derive(seed, 1));
+		int numOps = Destroy.values().length;
+		weights = new double[numOps];
+		uses = new long[numOps];
+		hits = new long[numOps];
+		double[] segmentScore = new double[numOps];
+		long[] segmentUses = new long[numOps];
+		for (int o=0; o<numOps; o++)
+			weights[o] = 1.0;
+
+		List<String> order = new ArrayList<String>(data.getFlightIDs());
+		order.sort(Comparator.comparingLong(data::getEarliestArrivalTime));
+		List<LandingInformation> current = improve(new LandingDecoder(data).decode(order));
+		long currentCost = cost(current);
+		best = current;
+		bestCost = currentCost;
+
+		iterations = 0;
+		while ((iterations < maxIters) && ((termination == null) || !termination.check(bestCost))) {
+			long now = System.nanoTime();
+			if (now >= end)
+				break;
+			double progress = Math.max((double) iterations / maxIters, (timeLimit > 0) ? (now - start) / (timeLimit * 1e9) : 0);
+			int o = select(rng);
+			List<LandingInformation> candidate = improve(reinsert(current, destroy(Destroy.values()[o], current, rng)));
+			long candidateCost = cost(candidate);
+			uses[o]++;
+			segmentUses[o]++;
+			boolean accepted = (candidateCost < currentCost) || (candidateCost <= bestCost * (1.0 + threshold * (1.0 - progress)));
+			if (candidateCost < bestCost) {
+				segmentScore[o] += scores[0];
+				hits[o]++;
+				best = candidate;
+				bestCost = candidateCost;
+			}
+			else if (candidateCost < currentCost)
+				segmentScore[o] += scores[1];
+			else if (accepted)
+				segmentScore[o] += scores[2];
+			if (accepted) {
+				current = candidate;
+				currentCost = candidateCost;
+			}
+			iterations++;
+			if (iterations % segment == 0) {
+				for (int i=0; i<numOps; i++) {
+					if (segmentUses[i] > 0)
+						weights[i] = (1.0 - reaction) * weights[i] + reaction * segmentScore[i] / segmentUses[i];
+					weights[i] = Math.max(weights[i], 1e-3);	// every operator keeps some chance
+					segmentScore[i] = 0;
+					segmentUses[i] = 0;
+				}
+			}
+		}
+		time = (System.nanoTime() - start) / 1e9;
+	}
+
+	/**
+	 * Selects a destroy operator by roulette wheel
+	 * @param rng the random generator
+	 * @return index of the destroy operator
+	 */
+	private int select(RandomGenerator rng) {
+		double total = 0;
+		for (double w: weights)
+			total += w;
+		double x = rng.nextDouble() * total;
+		int o = 0;
+		while ((o < weights.length - 1) && (x >= weights[o])) {
+			x -= weights[o];
+			o++;
+		}
+		return o;
+	}
+
+	/**
+	 * Selects the flights to be removed from a schedule
+	 * @param op the destroy operator
+	 * @param schedule the schedule, sorted by landing time
+	 * @param rng the random generator
+	 * @return the IDs of the flights to be removed
+	 */
+	private Set<String> destroy(Destroy op, List<LandingInformation> schedule, RandomGenerator rng) {
+		int n = schedule.size();
+		int min = Math.max(1, (int) Math.round(minRemoval * n));
+		int max = Math.min(n, Math.max(min, (int) Math.round(maxRemoval * n)));
+		int k = min + rng.nextInt(max - min + 1);
+		Set<String> removed = new HashSet<String>(2*k);
+		switch (op) {
+		case WINDOW:
+			int from = rng.nextInt(n - k + 1);
+			for (int i=from; i<from+k; i++)
+				removed.add(schedule.get(i).flightID());
+			break;
+		case RUNWAY:
+			int r = schedule.get(rng.nextInt(n)).runway();	// runways are picked by their use
+			List<String> landings = new ArrayList<String>();
+			for (LandingInformation li: schedule)
+				if (li.runway() == r)
+					landings.add(li.flightID());
+			int first = rng.nextInt(Math.max(1, landings.size() - k + 1));
+			for (int i=first; i<Math.min(landings.size(), first+k); i++)
+				removed.add(landings.get(i));
+			break;
+		case RANDOM:
+		default:
+			while (removed.size() < k)
+				removed.add(schedule.get(rng.nextInt(n)).flightID());
+			break;
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes some flights from a schedule (the rest of the flights land as soon as possible in
+	 * the same sequence) and reinserts them greedily in order of earliest arrival time
+	 * @param schedule the schedule
+	 * @param removed the IDs of the flights to be removed
+	 * @return the new schedule, repaired
+	 */
+	private List<LandingInformation> reinsert(List<LandingInformation> schedule, Set<String> removed) {
+		int numRunways = data.getNumRunways();
+		List<List<LandingInformation>> partition = new ArrayList<List<LandingInformation>>(numRunways);
+		for (int j=0; j<numRunways; j++)
+			partition.add(new ArrayList<LandingInformation>());
+		for (LandingInformation li: schedule)
+			if (!removed.contains(li.flightID()))
+				partition.get(li.runway()).add(li);
+		for (int j=0; j<numRunways; j++)
+			partition.set(j, compact(j, partition.get(j)));
+
+		List<String> pending = new ArrayList<String>(removed);
+		pending.sort(Comparator.comparingLong(data::getEarliestArrivalTime).thenComparing(Comparator.naturalOrder()));
+		for (String id: pending) {
+			Flight f = data.getFlight(id);
+			long bestDelta = Long.MAX_VALUE;
+			int bestRunway = -1;
+			int bestPos = -1;
+			for (int j: f.getEligibleRunways()) {
+				List<LandingInformation> runway = partition.get(j);
+				int pos = position(runway, f.getArrivalTime(j));
+				for (int p=Math.max(0, pos-1); p<=Math.min(runway.size(), pos+1); p++) {
+					long delta = insert(id, j, runway, p, false);
+					if (delta < bestDelta) {
+						bestDelta = delta;
+						bestRunway = j;
+						bestPos = p;
+					}
+				}
+			}
+			insert(id, bestRunway, partition.get(bestRunway), bestPos, true);
+		}
+
+		List<LandingInformation> info = new ArrayList<LandingInformation>(data.getNumFlights());
+		for (List<LandingInformation> l: partition)
+			info.addAll(l);
+		List<LandingInformation> repaired = new ArrayList<LandingInformation>(info.size());
+		repair.repair(info, repaired);
+		return repaired;
+	}
+
+	/**
+	 * Returns the position at which a flight arriving at a given time would land on a runway
+	 * (after the flights landing no later than that time)
+	 * @param runway the landings on the runway, sorted by landing time
+	 * @param t the arrival time
+	 * @return the position of the flight
+	 */
+	private int position(List<LandingInformation> runway, long t) {
+		int lo = 0;
+		int hi = runway.size();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (runway.get(mid).time() <= t)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Computes the increase of the total squared waiting time when a flight is inserted on a
+	 * runway at a given position (as {@link LandingImprovement#insertionCost}, but the following
+	 * landings are only recomputed until one of them is not delayed), and optionally performs the
+	 * insertion
+	 * @param id ID of the flight
+	 * @param r the runway
+	 * @param runway the landings on the runway, sorted by landing time (modified if {@code apply})
+	 * @param pos position of the flight
+	 * @param apply whether the insertion is performed
+	 * @return the increase of the total squared waiting time
+	 */
+	private long insert(String id, int r, List<LandingInformation> runway, int pos, boolean apply) {
+		Flight f = data.getFlight(id);
+		long available = f.getArrivalTime(r);
+		if (pos > 0) {
+			LandingInformation prev = runway.get(pos-1);
+			available = Math.max(available, prev.time() + data.getSeparation(data.getFlight(prev.flightID()).getType(), f.getType()));
+		}
+		available = data.getOpenTime(r, available);
+		long w = available - data.getEarliestArrivalTime(id);
+		long delta = w*w;
+		if (apply)
+			runway.add(pos, new LandingInformation(id, available, r));
+		AirplaneType last = f.getType();
+		for (int i=(apply ? pos+1 : pos); i<runway.size(); i++) {
+			LandingInformation li = runway.get(i);
+			Flight of = data.getFlight(li.flightID());
+			available = data.getOpenTime(r, Math.max(of.getArrivalTime(r), available + data.getSeparation(last, of.getType())));
+			if (available == li.time())
+				break;		// the rest of the runway is not affected
+			long eat = data.getEarliestArrivalTime(li.flightID());
+			long t1 = li.time() - eat;
+			long t2 = available - eat;
+			delta += t2*t2 - t1*t1;
+			if (apply)
+				runway.set(i, new LandingInformation(li.flightID(), available, r));
+			last = of.getType();
+		}
+		return delta;
+	}
+
+	/**
+	 * Recomputes the landing times of a sequence of flights on a runway, so that each one lands
+	 * as soon as possible
+	 * @param r the runway
+	 * @param runway the landings on the runway, sorted by landing time
+	 * @return the new landings on the runway
+	 */
+	private List<LandingInformation> compact(int r, List<LandingInformation> runway) {
+		List<LandingInformation> newRunway = new ArrayList<LandingInformation>(runway.size()+1);
+		long available = -1;
+		AirplaneType last = null;
+		for (LandingInformation li: runway) {
+			Flight f = data.getFlight(li.flightID());
+			long t = f.getArrivalTime(r);
+			if (last != null)
+				t = Math.max(t, available + data.getSeparation(last, f.getType()));
+			available = data.getOpenTime(r, t);
+			last = f.getType();
+			newRunway.add(new LandingInformation(li.flightID(), available, r));
+		}
+		return newRunway;
+	}
+
+	/**
+	 * Improves a schedule by local search (if the number of neighbors is positive)
+	 * @param schedule the schedule
+	 * @return the improved schedule, sorted by landing time
+	 */
+	private List<LandingInformation> improve(List<LandingInformation> schedule) {
+		List<LandingInformation> info = new ArrayList<LandingInformation>(schedule.size());
+		if (ls.getNumNeighbors() > 0)
+			ls.localSearch(new ArrayList<LandingInformation>(schedule), info);
+		else
+			info.addAll(schedule);
+		info.sort(null);
+		return info;
+	}
+
+	/**
+	 * Returns the total squared waiting time of a schedule
+	 * @param schedule the schedule
+	 * @return the total squared waiting time
+	 */
+	private long cost(List<LandingInformation> schedule) {
+		long total = 0;
+		for (LandingInformation li: schedule) {
+			long w = li.time() - data.getEarliestArrivalTime(li.flightID());
+			total += w*w;
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the best schedule of the last run
+	 * @return the best schedule of the last run, sorted by landing time
+	 */
+	public List<LandingInformation> getBest() {
+		return best;
+	}
+
+	/**
+	 * Returns the total squared waiting time of the best schedule of the last run
+	 * @return the total squared waiting time of the best schedule of the last run
+	 */
+	public long getBestFitness() {
+		return bestCost;
+	}
+
+	/**
+	 * Returns the number of iterations of the last run
+	 * @return the number of iterations of the last run
+	 */
+	public long getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Returns the time of the last run
+	 * @return the time of the last run (in seconds)
+	 */
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the statistics of the last run in JSON format
+	 * @return the statistics of the last run in JSON format
+	 */
+	public JsonObject toJSON() {
+		JsonObject json = new JsonObject();
+		json.put("best", bestCost);
+		json.put("time", time);
+		json.put("iterations", iterations);
+		JsonArray ops = new JsonArray();
+		for (Destroy op: Destroy.values()) {
+			JsonObject o = new JsonObject();
+			o.put("operator", op.name().toLowerCase());
+			o.put("weight", weights[op.ordinal()]);
+			o.put("uses", uses[op.ordinal()]);
+			o.put("hits", hits[op.ordinal()]);
+			ops.add(o);
+		}
+		json.put("operators", ops);
+		if (termination != null)
+			json.put("termination", termination.toJSON());
+		json.put("solution", best.toString());
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		return "LargeNeighborhoodSearch(iterations=" + maxIters + ", timelimit=" + timeLimit + ", removal=[" + minRemoval + ", " + maxRemoval +
+				"], segment=" + segment + ", reaction=" + reaction + ", threshold=" + threshold + ", neighbors=" + ls.getNumNeighbors() + ")";
+	}
+}
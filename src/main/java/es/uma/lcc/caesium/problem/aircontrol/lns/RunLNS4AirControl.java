@@ -0,0 +1,154 @@
+package es.uma.lcc.caesium.problem.aircontrol.lns;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+
+import com.github.cliftonlabs.json_simple.JsonArray;
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+
+import es.uma.lcc.caesium.ea.util.JsonUtil;
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.GapTermination;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.LowerBound;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+
+/**
+ * Class for testing the large neighborhood search for the Aircraft Landing Scheduling Problem
+ * @author ccottap
+ * @version 1.1
+ */
+public class RunLNS4AirControl {
+
+	/**
+	 * Main method
+	 * @param args command-line arguments
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws JsonException, IOException {
+		if (args.length < 2) {
+			System.out.println("Parameters: <algorithm-configuration> <problem-data>");
+			System.exit(1);
+		}
+
+		FileReader reader = new FileReader(args[0] + ".json");
+		JsonObject conf = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
+
+		AirControlProblem acp = new AirControlProblem(args[1] + ".acp");
+		System.out.println(acp);
+		LargeNeighborhoodSearch lns = createLNS(conf, acp);
+		System.out.println(lns);
+		int numruns = JsonUtil.getInt(conf, "numruns");
+		long seed = JsonUtil.getLong(conf, "seed");
+		long bound = new LowerBound(acp).compute();
+		JsonArray stats = new JsonArray();
+		for (int i=0; i<numruns; i++) {
+			lns.setSeed(RandomStreams.deriveSeed(seed, i));
+			lns.setTermination(GapTermination.create(conf, bound));
+			lns.run();
+			System.out.println ("Run " + i + ": " +
+								String.format(Locale.US, "%.2f", lns.getTime()) + "s\t" +
+								lns.getBestFitness() + "\t(bound " + bound + ", " + lns.getIterations() + " iterations)");
+			System.out.println(lns.getBest());
+			System.out.println(acp.formatLandingInformation(lns.getBest()));
+			JsonObject json = lns.toJSON();
+			json.put("bound", bound);
+			stats.add(json);
+		}
+		PrintWriter file = new PrintWriter(args[0] + "-stats-" + args[1] + ".json");
+		file.print(stats.toJson());
+		file.close();
+	}
+
+	/**
+	 * Creates a large neighborhood search for a problem instance, configured as indicated. The
+	 * configuration gives the maximum number of {@code iterations} and optionally the wall-clock
+	 * {@code timelimit} in seconds, the fraction of flights removed in each iteration
+	 * ({@code removal} object with fields {@code min} and {@code max}), the adaptation of the
+	 * weights of the destroy operators ({@code adaptive} object with fields {@code segment},
+	 * {@code reaction} and {@code scores}), the initial acceptance {@code threshold} and the
+	 * number of {@code neighbors} for local search.
+	 * @param conf the LNS configuration
+	 * @param acp the problem instance
+	 * @return the large neighborhood search
+	 */
+	public static LargeNeighborhoodSearch createLNS(JsonObject conf, AirControlProblem acp) {
+		LargeNeighborhoodSearch lns = new LargeNeighborhoodSearch(acp);
+		lns.setSeed(JsonUtil.getLong(conf, "seed"));
+		lns.setNumIters(JsonUtil.getLong(conf, "iterations"));
+		if (conf.containsKey("timelimit"))
+			lns.setTimeLimit(JsonUtil.getDouble(conf, "timelimit"));
+		if (conf.containsKey("removal")) {
+			JsonObject rm = (JsonObject) conf.get("removal");
+			lns.setRemoval(JsonUtil.getDouble(rm, "min"), JsonUtil.getDouble(rm, "max"));
+		}
+		if (conf.containsKey("adaptive")) {
+			JsonObject ad = (JsonObject) conf.get("adaptive");
+			JsonArray sc = (JsonArray) ad.get("scores");
+			double[] scores = new double[sc.size()];
+			for (int i=0; i<scores.length; i++)
+				scores[i] = ((Number) sc.get(i)).doubleValue();
+			lns.setAdaptation(JsonUtil.getInt(ad, "segment"), JsonUtil.getDouble(ad, "reaction"), scores);
+		}
+		if (conf.containsKey("threshold"))
+			lns.setThreshold(JsonUtil.getDouble(conf, "threshold"));
+		if (conf.containsKey("neighbors"))
+			lns.setNumNeighbors(JsonUtil.getInt(conf, "neighbors"));
+		return lns;
+	}
+
+	/**
+	 * Performs a single, independent run of the LNS. The seed of the run is derived from
+	 * the seed in the configuration and the run index, so the result does not depend on
+	 * which other runs are performed before or concurrently. Nothing is written to the
+	 * standard output. If the configuration indicates a target {@code gap},
+	 * the run stops as soon as it is reached (see {@link GapTermination}). The statistics include
+	 * the {@link LowerBound} of the optimal cost.
+	 * @param algorithm name of the algorithm configuration (without the .json extension)
+	 * @param instance name of the problem instance (without the .acp extension)
+	 * @param run index of the run
+	 * @return the statistics of the run
+	 * @throws IOException if a file cannot be read
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 */
+	public static JsonObject runSingle(String algorithm, String instance, int run) throws IOException, JsonException {
+		FileReader reader = new FileReader(algorithm + ".json");
+		JsonObject conf = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
+
+		AirControlProblem acp = new AirControlProblem(instance + ".acp");
+		LargeNeighborhoodSearch lns = createLNS(conf, acp);
+		long bound = new LowerBound(acp).compute();
+		lns.setSeed(RandomStreams.deriveSeed(JsonUtil.getLong(conf, "seed"), run));
+		lns.setTermination(GapTermination.create(conf, bound));
+		lns.run();
+		JsonObject stats = lns.toJSON();
+		stats.put("bound", bound);
+		return stats;
+	}
+
+	/**
+	 * Solves a problem instance with the LNS (a single run with a given seed), e.g., a
+	 * sub-instance of a larger problem. Nothing is written to the standard output.
+	 * @param conf the LNS configuration
+	 * @param acp the problem instance
+	 * @param seed the seed of the run
+	 * @return the best schedule found
+	 */
+	public static List<LandingInformation> solve(JsonObject conf, AirControlProblem acp, long seed) {
+		LargeNeighborhoodSearch lns = createLNS(conf, acp);
+		lns.setSeed(seed);
+		if (conf.containsKey("gap"))
+			lns.setTermination(GapTermination.create(conf, new LowerBound(acp).compute()));
+		lns.run();
+		return lns.getBest();
+	}
+
+}
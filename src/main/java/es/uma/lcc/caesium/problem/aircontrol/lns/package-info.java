@@ -0,0 +1,6 @@
+/**
+ * Solving the Aircraft Landing Scheduling Problem with large neighborhood search
+ * @author ccottap
+ * @version 1.0
+ */
+package es.uma.lcc.caesium.problem.aircontrol.lns;
\ No newline at end of file
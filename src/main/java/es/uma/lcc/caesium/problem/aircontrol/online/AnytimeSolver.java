@@ -0,0 +1,241 @@
+package es.uma.lcc.caesium.problem.aircontrol.online;
+
+import java.io.FileNotFoundException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.LandingDecoder;
+import es.uma.lcc.caesium.problem.aircontrol.LandingImprovement;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+import es.uma.lcc.caesium.problem.aircontrol.grasp.AirControlGRASPObjectiveFunction;
+
+/**
+ * Anytime solver for latency-bound requests. A feasible schedule is available right away (the
+ * greedy decoding of the flights sorted by earliest arrival time); it is then improved by local
+ * search until a local optimum is reached, and then by GRASP iterations (randomized construction
+ * plus local search), until the deadline. Each improving schedule is published through a
+ * callback, and the best one is returned.
+ * <p>
+ * The work is split into steps: a construction, or a chunk of local search whose size grows
+ * while steps are short compared with the time left. A construction is only started if the
+ * longest one observed so far (initially, the greedy decoding) fits in the time left, and chunks are cut to the number of
+ * neighbors that fit (at the slowest rate observed), so the deadline is exceeded at most by the
+ * variability of the step duration. A solution is taken as a local optimum after a whole
+ * neighborhood's worth of neighbors has been explored without improvement.
+ * @author ccottap
+ * @version 1.1
+ */
+public class AnytimeSolver {
+	/**
+	 * A schedule found by the solver
+	 * @param schedule the schedule
+	 * @param cost total squared waiting time
+	 * @param time time at which it was found (in seconds since the beginning of the search)
+	 * @param phase phase in which it was found ("greedy", "local search" or "grasp")
+	 */
+	public record Incumbent(List<LandingInformation> schedule, long cost, double time, String phase) {}
+
+	/**
+	 * seed
+	 */
+	private long seed;
+	/**
+	 * callback for improving schedules (null if none)
+	 */
+	private Consumer<Incumbent> listener;
+	/**
+	 * number of GRASP iterations of the last search
+	 */
+	private long iterations;
+
+	/**
+	 * Creates the solver
+	 */
+	public AnytimeSolver() {
+		seed = 1;
+		listener = null;
+	}
+
+	/**
+	 * Sets the seed
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the callback for improving schedules. It is called in the thread that runs the
+	 * search, so it should return quickly.
+	 * @param listener the callback (null if none)
+	 */
+	public void setListener(Consumer<Incumbent> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Returns the number of GRASP iterations of the last search
+	 * @return the number of GRASP iterations of the last search
+	 */
+	public long getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Solves a problem instance within a time budget
+	 * @param acp the problem instance
+	 * @param budget the time budget
+	 * @return the best schedule found
+	 */
+	public Incumbent solve(AirControlProblem acp, Duration budget) {
+		return solve(acp, Instant.now().plus(budget));
+	}
+
+	/**
+	 * Solves a problem instance before a deadline
+	 * @param acp the problem instance
+	 * @param deadline the deadline
+	 * @return the best schedule found (the greedy schedule if the deadline has already passed)
+	 */
+	public Incumbent solve(AirControlProblem acp, Instant deadline) {
+		long start = System.nanoTime();
+		long end = start + Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+		int numFlights = acp.getNumFlights();
+		int numRunways = acp.getNumRunways();
+		iterations = 0;
+
+		// greedy schedule
+		List<String> order = new ArrayList<String>(acp.getFlightIDs());
+		order.sort(Comparator.comparingLong(acp::getEarliestArrivalTime));
+		long decoding = System.nanoTime();
+		List<LandingInformation> info = new LandingDecoder(acp).decode(order);
+		long greedyCost = cost(acp, info);
+		long greedy = System.nanoTime() - decoding;
+		Incumbent best = publish(info, greedyCost, start, "greedy");
+
+		int neighborhood = 0;		// moves of a flight to another runway on which it can land
+		for (String id: acp.getFlightIDs())
+			neighborhood += acp.getFlight(id).getEligibleRunways().length - 1;
+		neighborhood = Math.max(1, neighborhood);
+		int chunk = Math.min(numRunways, neighborhood);
+		LandingImprovement ls = new LandingImprovement(chunk);
+		ls.setData(acp);
+		ls.setRandomGenerator(RandomStreams.derive(seed, 0));
+		AirControlGRASPObjectiveFunction gof = new AirControlGRASPObjectiveFunction(acp);
+		double perNeighbor = 0;		// longest time per neighbor observed (in nanoseconds)
+		long construction = greedy;	// longest construction observed (in nanoseconds), estimated by the greedy one
+
+		// local search on the greedy schedule, then GRASP iterations
+		List<LandingInformation> current = info;
+		long currentCost = best.cost();
+		long stale = 0;				// neighbors explored since the last improvement
+		String phase = "local search";
+		while (true) {
+			long now = System.nanoTime();
+			if (now >= end)
+				break;
+			if (current == null) {
+				if (now + construction > end)
+					break;
+				RandomGenerator rng = RandomStreams.derive(seed, 1, (int) iterations);
+				int maxRank = 1 + (int) (iterations % Math.max(1, numRunways - 1));	// cycle through 1..m-1
+				List<Integer> ranks = new ArrayList<Integer>(numFlights);
+				for (int i=0; i<numFlights; i++)
+					ranks.add(rng.nextInt(maxRank + 1));
+				current = gof.decode(ranks);
+				currentCost = cost(acp, current);
+				stale = 0;
+				iterations++;
+				construction = Math.max(construction, System.nanoTime() - now);
+			}
+			else {
+				// the chunk of local search is adapted to the time left
+				int fit = (perNeighbor > 0) ? (int) Math.min(neighborhood, (end - now) / perNeighbor) : chunk;
+				if (fit < 1)
+					break;
+				ls.setNumNeighbors(Math.min(chunk, fit));
+				List<LandingInformation> improved = new ArrayList<LandingInformation>(numFlights);
+				ls.localSearch(new ArrayList<LandingInformation>(current), improved);
+				long elapsed = System.nanoTime() - now;
+				perNeighbor = Math.max(perNeighbor, (double) elapsed / ls.getNumNeighbors());
+				if (elapsed < (end - now) / 8)
+					chunk = Math.min(neighborhood, 2 * chunk);
+				long c = cost(acp, improved);
+				if (c < currentCost) {
+					current = improved;
+					currentCost = c;
+					stale = 0;
+				}
+				else if ((stale += ls.getNumNeighbors()) >= neighborhood) {
+					current = null;					// local optimum: start a new construction
+					phase = "grasp";
+				}
+			}
+			if ((current != null) && (currentCost < best.cost()))
+				best = publish(current, currentCost, start, phase);
+		}
+		return best;
+	}
+
+	/**
+	 * Publishes an improving schedule
+	 * @param info the schedule
+	 * @param cost its total squared waiting time
+	 * @param start time at which the search began (in nanoseconds)
+	 * @param phase phase in which it was found
+	 * @return the new incumbent
+	 */
+	private Incumbent publish(List<LandingInformation> info, long cost, long start, String phase) {
+		Incumbent inc = new Incumbent(List.copyOf(info), cost, (System.nanoTime() - start) / 1e9, phase);
+		if (listener != null)
+			listener.accept(inc);
+		return inc;
+	}
+
+	/**
+	 * Returns the total squared waiting time of a schedule
+	 * @param acp the problem instance
+	 * @param info the schedule
+	 * @return the total squared waiting time
+	 */
+	private static long cost(AirControlProblem acp, List<LandingInformation> info) {
+		long total = 0;
+		for (LandingInformation li: info) {
+			long w = li.time() - acp.getEarliestArrivalTime(li.flightID());
+			total += w*w;
+		}
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		return "AnytimeSolver(seed=" + seed + ")";
+	}
+
+	/**
+	 * Solves a problem instance within a time budget, printing each improving schedule
+	 * @param args command-line arguments (problem data, budget in milliseconds and, optionally, seed)
+	 * @throws FileNotFoundException if the instance cannot be read
+	 */
+	public static void main(String[] args) throws FileNotFoundException {
+		if (args.length < 2) {
+			System.out.println("Parameters: <problem-data> <budget-ms> [<seed>]");
+			System.exit(1);
+		}
+		AirControlProblem acp = new AirControlProblem(args[0] + ".acp");
+		AnytimeSolver solver = new AnytimeSolver();
+		if (args.length > 2)
+			solver.setSeed(Long.parseLong(args[2]));
+		solver.setListener(inc -> System.out.println(String.format(Locale.US, "%.4fs\t%d\t(%s)", inc.time(), inc.cost(), inc.phase())));
+		Incumbent best = solver.solve(acp, Duration.ofMillis(Long.parseLong(args[1])));
+		System.out.println(acp.formatLandingInformation(new ArrayList<LandingInformation>(best.schedule())));
+	}
+}
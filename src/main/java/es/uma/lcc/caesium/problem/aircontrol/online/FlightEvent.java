@@ -0,0 +1,130 @@
+package es.uma.lcc.caesium.problem.aircontrol.online;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirplaneType;
+
+/**
+ * An event of the stream processed by the online scheduler: a flight is announced, its
+ * expected arrival times are revised, or it is cancelled. In text form, an event is a line
+ * with the timestamp, the kind of event and the flight ID, followed (for additions) by the
+ * plane type and (for additions and updates) the expected arrival time on each runway ({@code -}
+ * if the flight cannot land on it), e.g. {@code 120 ADD IB001 HEAVY 300 - 301}.
+ * @param timestamp time at which the event is known
+ * @param kind kind of event
+ * @param flightID ID of the flight
+ * @param type type of plane (only for additions)
+ * @param arrival expected arrival time on each runway (only for additions and updates; negative
+ * if the flight cannot land on the runway)
+ * @author ccottap
+ * @version 1.1
+ */
+public record FlightEvent(long timestamp, Kind kind, String flightID, AirplaneType type, long[] arrival) {
+	/**
+	 * Kinds of events
+	 */
+	public enum Kind {
+		/**
+		 * a new flight is announced
+		 */
+		ADD,
+		/**
+		 * the expected arrival times of a flight are revised
+		 */
+		UPDATE,
+		/**
+		 * a flight is cancelled
+		 */
+		CANCEL
+	}
+
+	/**
+	 * Creates the announcement of a flight
+	 * @param timestamp time at which the event is known
+	 * @param flightID ID of the flight
+	 * @param type type of plane
+	 * @param arrival expected arrival time on each runway
+	 * @return the event
+	 */
+	public static FlightEvent add(long timestamp, String flightID, AirplaneType type, long[] arrival) {
+		return new FlightEvent(timestamp, Kind.ADD, flightID, type, arrival);
+	}
+
+	/**
+	 * Creates the revision of the expected arrival times of a flight
+	 * @param timestamp time at which the event is known
+	 * @param flightID ID of the flight
+	 * @param arrival new expected arrival time on each runway
+	 * @return the event
+	 */
+	public static FlightEvent update(long timestamp, String flightID, long[] arrival) {
+		return new FlightEvent(timestamp, Kind.UPDATE, flightID, null, arrival);
+	}
+
+	/**
+	 * Creates the cancellation of a flight
+	 * @param timestamp time at which the event is known
+	 * @param flightID ID of the flight
+	 * @return the event
+	 */
+	public static FlightEvent cancel(long timestamp, String flightID) {
+		return new FlightEvent(timestamp, Kind.CANCEL, flightID, null, null);
+	}
+
+	/**
+	 * Parses an event in text form
+	 * @param line the event in text form
+	 * @return the event
+	 */
+	public static FlightEvent parse(String line) {
+		String[] tok = line.trim().split("\\s+");
+		long timestamp = Long.parseLong(tok[0]);
+		Kind kind = Kind.valueOf(tok[1].toUpperCase());
+		String id = tok[2];
+		int first = 3;
+		AirplaneType type = null;
+		if (kind == Kind.ADD)
+			type = AirplaneType.valueOf(tok[first++].toUpperCase());
+		long[] arrival = null;
+		if (kind != Kind.CANCEL) {
+			arrival = new long[tok.length - first];
+			for (int j=0; j<arrival.length; j++)
+				arrival[j] = tok[first + j].equals("-") ? -1 : Long.parseLong(tok[first + j]);
+		}
+		return new FlightEvent(timestamp, kind, id, type, arrival);
+	}
+
+	/**
+	 * Reads a stream of events from a text file (one event per line; empty lines and
+	 * lines starting with # are ignored)
+	 * @param filename name of the file
+	 * @return the events, in the order they appear in the file
+	 * @throws FileNotFoundException if the file cannot be opened
+	 */
+	public static List<FlightEvent> read(String filename) throws FileNotFoundException {
+		List<FlightEvent> events = new ArrayList<FlightEvent>();
+		Scanner sc = new Scanner(new File(filename));
+		while (sc.hasNextLine()) {
+			String line = sc.nextLine().trim();
+			if (!line.isEmpty() && !line.startsWith("#"))
+				events.add(parse(line));
+		}
+		sc.close();
+		return events;
+	}
+
+	@Override
+	public String toString() {
+		String str = timestamp + " " + kind + " " + flightID;
+		if (type != null)
+			str += " " + type;
+		if (arrival != null)
+			for (long t: arrival)
+				str += " " + ((t >= 0) ? Long.toString(t) : "-");
+		return str;
+	}
+}
@@ -0,0 +1,468 @@
+package es.uma.lcc.caesium.problem.aircontrol.online;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.cliftonlabs.json_simple.JsonObject;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.AirportInformation;
+import es.uma.lcc.caesium.problem.aircontrol.AirplaneType;
+import es.uma.lcc.caesium.problem.aircontrol.Flight;
+import es.uma.lcc.caesium.problem.aircontrol.LandingDecoder;
+import es.uma.lcc.caesium.problem.aircontrol.LandingImprovement;
+import es.uma.lcc.caesium.problem.aircontrol.LandingInformation;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+
+/**
+ * Rolling-horizon scheduler for a stream of flight events. Landings planned within a certain
+ * horizon from the current time are frozen (committed): they can no longer be changed, and the
+ * flights are removed from the problem. Only the open window (the flights whose landing is not
+ * frozen yet) is re-optimized; the frozen landings just restrict it through the last landing on
+ * each runway, which is kept as the initial state of the runways.
+ * <p>
+ * Each re-optimization is warm-started from the previous plan: open flights keep their relative
+ * order and runway (new flights are inserted by their arrival time on their fastest runway),
+ * the plan is rebuilt with {@link LandingDecoder} (also trying the earliest-available-runway
+ * decoding of the same order), and then improved with {@link LandingImprovement}. Since frozen
+ * flights are discarded and local search explores a bounded number of neighbors, the cost of a
+ * re-optimization depends on the size of the open window, not on the number of flights
+ * processed so far.
+ * @author ccottap
+ * @version 1.0
+ */
+public class OnlineScheduler {
+	/**
+	 * number of runways
+	 */
+	private int numRunways;
+	/**
+	 * separation between plane types (indexed by their ordinal, leading type first)
+	 */
+	private long[][] separation;
+	/**
+	 * landings planned within this time from the current time are frozen
+	 */
+	private long horizon;
+	/**
+	 * number of neighbors explored by local search in each re-optimization
+	 */
+	private int numNeighbors;
+	/**
+	 * seed for local search
+	 */
+	private long seed;
+	/**
+	 * current time
+	 */
+	private long now;
+	/**
+	 * the open flights
+	 */
+	private Map<String, Flight> open;
+	/**
+	 * the current plan of the open flights
+	 */
+	private Map<String, LandingInformation> plan;
+	/**
+	 * the frozen landings, in landing order
+	 */
+	private List<LandingInformation> committed;
+	/**
+	 * last frozen landing on each runway
+	 */
+	private AirportInformation frozen;
+	/**
+	 * total squared waiting time of the frozen landings
+	 */
+	private long frozenCost;
+	/**
+	 * earliest expected arrival time of each open flight
+	 */
+	private Map<String, Long> earliest;
+	/**
+	 * whether the open window has changed since the last re-optimization
+	 */
+	private boolean dirty;
+	/**
+	 * number of events processed
+	 */
+	private long numEvents;
+	/**
+	 * number of events ignored (about frozen or unknown flights)
+	 */
+	private long numIgnored;
+	/**
+	 * number of re-optimizations
+	 */
+	private long numReplans;
+	/**
+	 * total time spent re-optimizing (in nanoseconds)
+	 */
+	private long totalLatency;
+	/**
+	 * longest re-optimization (in nanoseconds)
+	 */
+	private long maxLatency;
+	/**
+	 * largest open window re-optimized
+	 */
+	private int maxOpen;
+
+	/**
+	 * Creates the scheduler
+	 * @param numRunways number of runways
+	 * @param separation separation between plane types (indexed by their ordinal, leading type first)
+	 * @param horizon landings planned within this time from the current time are frozen (non-negative)
+	 */
+	public OnlineScheduler(int numRunways, long[][] separation, long horizon) {
+		this.numRunways = numRunways;
+		this.separation = separation;
+		this.horizon = Math.max(0, horizon);
+		numNeighbors = 0;
+		seed = 1;
+		open = new LinkedHashMap<String, Flight>();
+		plan = new HashMap<String, LandingInformation>();
+		committed = new ArrayList<LandingInformation>();
+		frozen = new AirportInformation(numRunways);
+		earliest = new HashMap<String, Long>();
+		now = Long.MIN_VALUE;
+		frozenCost = 0;
+		dirty = false;
+	}
+
+	/**
+	 * Sets the number of neighbors explored by local search in each re-optimization
+	 * @param numNeighbors the number of neighbors (0 if no local search)
+	 */
+	public void setNumNeighbors(int numNeighbors) {
+		this.numNeighbors = numNeighbors;
+	}
+
+	/**
+	 * Sets the seed for local search (each re-optimization draws from its own stream)
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the current time
+	 * @return the current time
+	 */
+	public long getTime() {
+		return now;
+	}
+
+	/**
+	 * Returns the number of open flights
+	 * @return the number of open flights
+	 */
+	public int getNumOpen() {
+		return open.size();
+	}
+
+	/**
+	 * Returns the frozen landings
+	 * @return the frozen landings, in landing order
+	 */
+	public List<LandingInformation> getCommitted() {
+		return Collections.unmodifiableList(committed);
+	}
+
+	/**
+	 * Returns the current schedule: the frozen landings followed by the plan of the open flights
+	 * (which is not re-optimized by this method)
+	 * @return the current schedule
+	 */
+	public List<LandingInformation> getSchedule() {
+		List<LandingInformation> info = new ArrayList<LandingInformation>(committed.size() + plan.size());
+		info.addAll(committed);
+		List<LandingInformation> rest = new ArrayList<LandingInformation>(plan.values());
+		Collections.sort(rest);
+		info.addAll(rest);
+		return info;
+	}
+
+	/**
+	 * Returns the total squared waiting time of the current schedule
+	 * @return the total squared waiting time of the current schedule
+	 */
+	public long getCost() {
+		long total = frozenCost;
+		for (LandingInformation li: plan.values())
+			total += waiting(li) * waiting(li);
+		return total;
+	}
+
+	/**
+	 * Returns the waiting time of a planned landing of an open flight
+	 * @param li the landing
+	 * @return the waiting time
+	 */
+	private long waiting(LandingInformation li) {
+		return li.time() - earliest.get(li.flightID());
+	}
+
+	/**
+	 * Advances the clock, freezing the landings planned within the horizon. If the clock moves
+	 * and the open window has changed, it is re-optimized first, so that only up-to-date plans
+	 * are frozen.
+	 * @param time the new time (not earlier than the current time)
+	 */
+	public void advance(long time) {
+		if (time < now)
+			throw new IllegalArgumentException("Time cannot go backwards: " + time + " < " + now);
+		if (time > now)
+			replan();
+		now = time;
+		List<LandingInformation> due = new ArrayList<LandingInformation>();
+		for (LandingInformation li: plan.values())
+			if (li.time() <= now + horizon)
+				due.add(li);
+		Collections.sort(due);
+		for (LandingInformation li: due) {
+			String id = li.flightID();
+			frozen.land(open.get(id).getType(), li.runway(), li.time());
+			frozenCost += waiting(li) * waiting(li);
+			committed.add(li);
+			plan.remove(id);
+			open.remove(id);
+			earliest.remove(id);
+		}
+		if (!due.isEmpty())
+			dirty = true;		// the open window is now restricted by new frozen landings
+	}
+
+	/**
+	 * Processes an event (the clock is advanced to its timestamp first). The open window
+	 * is not re-optimized until {@link #replan()} is called or the clock moves, so several
+	 * events with the same timestamp can be applied before a single re-optimization.
+	 * @param e the event
+	 * @return true iff the event was applied (events about frozen or unknown flights are ignored)
+	 */
+	public boolean apply(FlightEvent e) {
+		advance(e.timestamp());
+		numEvents++;
+		String id = e.flightID();
+		switch (e.kind()) {
+		case ADD:
+			if (open.containsKey(id) || !isValid(e.arrival())) {
+				numIgnored++;
+				return false;
+			}
+			Flight f = new Flight(id, e.type());
+			open.put(id, f);
+			setArrivalTimes(f, e.arrival());
+			break;
+		case UPDATE:
+			if (!open.containsKey(id) || !isValid(e.arrival())) {
+				numIgnored++;
+				return false;
+			}
+			setArrivalTimes(open.get(id), e.arrival());
+			break;
+		case CANCEL:
+			if (!open.containsKey(id)) {
+				numIgnored++;
+				return false;
+			}
+			open.remove(id);
+			plan.remove(id);
+			earliest.remove(id);
+			break;
+		}
+		dirty = true;
+		return true;
+	}
+
+	/**
+	 * Checks whether the expected arrival times of an event are valid
+	 * @param arrival the expected arrival time on each runway (negative if the flight cannot land on it)
+	 * @return true iff there is an arrival time for each runway, and the flight can land on some runway
+	 */
+	private boolean isValid(long[] arrival) {
+		return (arrival.length == numRunways) && Arrays.stream(arrival).anyMatch(t -> t >= 0);
+	}
+
+	/**
+	 * Sets the expected arrival times of an open flight
+	 * @param f the flight
+	 * @param arrival the expected arrival time on each runway (negative if the flight cannot land on it)
+	 */
+	private void setArrivalTimes(Flight f, long[] arrival) {
+		long best = Long.MAX_VALUE;
+		for (int j=0; j<numRunways; j++) {
+			if (arrival[j] >= 0) {
+				f.setArrivalTime(j, arrival[j]);
+				best = Math.min(best, arrival[j]);
+			}
+			else
+				f.setIneligible(j);
+		}
+		earliest.put(f.getFlightID(), best);
+	}
+
+	/**
+	 * Processes an event and re-optimizes the open window
+	 * @param e the event
+	 * @return true iff the event was applied
+	 */
+	public boolean process(FlightEvent e) {
+		boolean applied = apply(e);
+		replan();
+		return applied;
+	}
+
+	/**
+	 * Returns the earliest time at which a flight can land on a runway, given the frozen
+	 * landings and the current time
+	 * @param f the flight
+	 * @param r the runway
+	 * @return the earliest time at which the flight can land on the runway
+	 */
+	private long availableTime(Flight f, int r) {
+		long t = Math.max(f.getArrivalTime(r), now);
+		if (frozen.getTime(r) >= 0)
+			t = Math.max(t, frozen.getTime(r) + separation[frozen.getType(r).ordinal()][f.getType().ordinal()]);
+		return t;
+	}
+
+	/**
+	 * Re-optimizes the open window (if it has changed since the last re-optimization)
+	 */
+	public void replan() {
+		if (!dirty)
+			return;
+		dirty = false;
+		if (open.isEmpty())
+			return;
+		long start = System.nanoTime();
+
+		// open window, with arrival times restricted by the frozen landings
+		List<Flight> window = new ArrayList<Flight>(open.size());
+		Map<String, Long> key = new HashMap<String, Long>(open.size());
+		Map<String, Integer> runway = new HashMap<String, Integer>(open.size());
+		for (Flight f: open.values()) {
+			Flight g = new Flight(f.getFlightID(), f.getType());
+			int fastest = f.getEligibleRunways()[0];
+			for (int j: f.getEligibleRunways()) {
+				g.setArrivalTime(j, availableTime(f, j));
+				if (g.getArrivalTime(j) < g.getArrivalTime(fastest))
+					fastest = j;
+			}
+			window.add(g);
+			LandingInformation li = plan.get(f.getFlightID());
+			key.put(f.getFlightID(), (li != null) ? li.time() : g.getArrivalTime(fastest));
+			runway.put(f.getFlightID(), (li != null) ? li.runway() : fastest);
+		}
+		AirControlProblem acp = new AirControlProblem(window, numRunways, separation, earliest);
+
+		// warm start from the previous plan
+		List<String> order = new ArrayList<String>(key.keySet());
+		order.sort((a, b) -> {
+			int cmp = Long.compare(key.get(a), key.get(b));
+			return (cmp != 0) ? cmp : a.compareTo(b);
+		});
+		List<Integer> runways = new ArrayList<Integer>(order.size());
+		for (String id: order)
+			runways.add(runway.get(id));
+		LandingDecoder ld = new LandingDecoder(acp);
+		List<LandingInformation> info = ld.decode(order, runways);
+		List<LandingInformation> alt = ld.decode(order);
+		if (cost(acp, alt) < cost(acp, info))
+			info = alt;
+
+		if (numNeighbors > 0) {
+			LandingImprovement ls = new LandingImprovement(numNeighbors);
+			ls.setData(acp);
+			ls.setRandomGenerator(RandomStreams.derive(seed, (int) numReplans));
+			List<LandingInformation> improved = new ArrayList<LandingInformation>(info.size());
+			ls.localSearch(info, improved);
+			info = improved;
+		}
+
+		plan.clear();
+		for (LandingInformation li: info)
+			plan.put(li.flightID(), li);
+
+		long latency = System.nanoTime() - start;
+		numReplans++;
+		totalLatency += latency;
+		maxLatency = Math.max(maxLatency, latency);
+		maxOpen = Math.max(maxOpen, open.size());
+	}
+
+	/**
+	 * Returns the total squared waiting time of a schedule
+	 * @param acp the problem instance
+	 * @param info the schedule
+	 * @return the total squared waiting time
+	 */
+	private static long cost(AirControlProblem acp, List<LandingInformation> info) {
+		long total = 0;
+		for (LandingInformation li: info) {
+			long w = li.time() - acp.getEarliestArrivalTime(li.flightID());
+			total += w*w;
+		}
+		return total;
+	}
+
+	/**
+	 * Freezes all the open flights (e.g., at the end of the day)
+	 * @return the final schedule
+	 */
+	public List<LandingInformation> finish() {
+		replan();
+		long last = now;
+		for (LandingInformation li: plan.values())
+			last = Math.max(last, li.time());
+		advance(last);
+		return getCommitted();
+	}
+
+	/**
+	 * Returns the statistics of the scheduler as a JSON object
+	 * @return the statistics of the scheduler
+	 */
+	public JsonObject toJSON() {
+		JsonObject json = new JsonObject();
+		json.put("time", now);
+		json.put("horizon", horizon);
+		json.put("events", numEvents);
+		json.put("ignored", numIgnored);
+		json.put("replans", numReplans);
+		json.put("committed", committed.size());
+		json.put("open", open.size());
+		json.put("maxopen", maxOpen);
+		json.put("cost", getCost());
+		json.put("meanlatency", (numReplans > 0) ? totalLatency / 1e6 / numReplans : 0.0);
+		json.put("maxlatency", maxLatency / 1e6);
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		return "OnlineScheduler(horizon=" + horizon + ", neighbors=" + numNeighbors + ")";
+	}
+
+	/**
+	 * Returns the separation matrix of some plane types, indexed by their ordinal
+	 * @param acp a problem instance
+	 * @return the separation between plane types (leading type first)
+	 */
+	public static long[][] separation(AirControlProblem acp) {
+		AirplaneType[] types = AirplaneType.values();
+		long[][] sep = new long[types.length][types.length];
+		for (AirplaneType t1: types)
+			for (AirplaneType t2: types)
+				sep[t1.ordinal()][t2.ordinal()] = acp.getSeparation(t1, t2);
+		return sep;
+	}
+}
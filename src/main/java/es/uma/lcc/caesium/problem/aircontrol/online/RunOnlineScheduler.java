@@ -0,0 +1,119 @@
+package es.uma.lcc.caesium.problem.aircontrol.online;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+
+import es.uma.lcc.caesium.ea.util.JsonUtil;
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.Flight;
+import es.uma.lcc.caesium.problem.aircontrol.RandomStreams;
+
+/**
+ * Class for testing the online scheduler on a problem instance, which provides the runways and
+ * separations. The stream of events is either read from a file or simulated from the instance:
+ * each flight is announced some time ({@code lead}) before its earliest arrival, possibly with
+ * inaccurate arrival times that are revised later ({@code revisions}), and possibly cancelled
+ * ({@code cancellations}).
+ * @author ccottap
+ * @version 1.0
+ */
+public class RunOnlineScheduler {
+
+	/**
+	 * Main method
+	 * @param args command-line arguments
+	 * @throws JsonException if the configuration file is not correctly formatted
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws JsonException, IOException {
+		if (args.length < 2) {
+			System.out.println("Parameters: <scheduler-configuration> <problem-data> [<events-file>]");
+			System.exit(1);
+		}
+
+		FileReader reader = new FileReader(args[0] + ".json");
+		JsonObject conf = (JsonObject) Jsoner.deserialize(reader);
+		reader.close();
+
+		AirControlProblem acp = new AirControlProblem(args[1] + ".acp");
+		List<FlightEvent> events = (args.length > 2) ? FlightEvent.read(args[2]) : simulate(conf, acp);
+		OnlineScheduler scheduler = new OnlineScheduler(acp.getNumRunways(), OnlineScheduler.separation(acp), JsonUtil.getLong(conf, "horizon"));
+		scheduler.setNumNeighbors(conf.containsKey("neighbors") ? JsonUtil.getInt(conf, "neighbors") : 0);
+		scheduler.setSeed(JsonUtil.getLong(conf, "seed"));
+		System.out.println(scheduler);
+
+		long start = System.nanoTime();
+		for (int i=0; i<events.size(); i++) {
+			scheduler.apply(events.get(i));
+			if ((i+1 == events.size()) || (events.get(i+1).timestamp() > events.get(i).timestamp()))
+				scheduler.replan();		// once per batch of simultaneous events
+		}
+		scheduler.finish();
+		double time = (System.nanoTime() - start) / 1e9;
+
+		JsonObject stats = scheduler.toJSON();
+		stats.put("elapsed", time);
+		System.out.println(String.format(Locale.US, "%d events processed in %.2fs", events.size(), time));
+		System.out.println(stats.toJson());
+		PrintWriter file = new PrintWriter(args[0] + "-stats-" + args[1] + ".json");
+		file.print(stats.toJson());
+		file.close();
+	}
+
+	/**
+	 * Simulates the stream of events of a problem instance
+	 * @param conf the configuration ({@code lead} time, {@code revisions} -probability and
+	 * {@code noise} of the initial estimations- and probability of {@code cancellations})
+	 * @param acp the problem instance (the final arrival times of the flights)
+	 * @return the events, sorted by timestamp
+	 */
+	public static List<FlightEvent> simulate(JsonObject conf, AirControlProblem acp) {
+		long lead = JsonUtil.getLong(conf, "lead");
+		long horizon = JsonUtil.getLong(conf, "horizon");
+		double revision = 0;
+		long noise = 0;
+		if (conf.containsKey("revisions")) {
+			JsonObject rev = (JsonObject) conf.get("revisions");
+			revision = JsonUtil.getDouble(rev, "probability");
+			noise = JsonUtil.getLong(rev, "noise");
+		}
+		double cancellation = conf.containsKey("cancellations") ? JsonUtil.getDouble(conf, "cancellations") : 0;
+		RandomGenerator rng = RandomStreams.derive(JsonUtil.getLong(conf, "seed"), 0);
+		int numRunways = acp.getNumRunways();
+
+		List<FlightEvent> events = new ArrayList<FlightEvent>(acp.getNumFlights());
+		for (String id: acp.getFlightIDs()) {
+			Flight f = acp.getFlight(id);
+			long eta = acp.getEarliestArrivalTime(id);
+			long announced = Math.max(0, eta - lead);
+			long revised = (announced + eta) / 2;
+			long[] arrival = new long[numRunways];
+			for (int j=0; j<numRunways; j++)
+				arrival[j] = f.isEligible(j) ? f.getArrivalTime(j) : -1;
+			if (rng.nextDouble() < revision) {
+				long[] estimate = new long[numRunways];
+				long offset = rng.nextLong(-noise, noise + 1);
+				for (int j=0; j<numRunways; j++)		// not frozen before the revision
+					estimate[j] = (arrival[j] >= 0) ? Math.max(revised + horizon + 1, arrival[j] + offset) : -1;
+				events.add(FlightEvent.add(announced, id, f.getType(), estimate));
+				events.add(FlightEvent.update(revised, id, arrival));
+			}
+			else
+				events.add(FlightEvent.add(announced, id, f.getType(), arrival));
+			if (rng.nextDouble() < cancellation)
+				events.add(FlightEvent.cancel(revised, id));
+		}
+		events.sort(Comparator.comparingLong(FlightEvent::timestamp));	// stable
+		return events;
+	}
+}
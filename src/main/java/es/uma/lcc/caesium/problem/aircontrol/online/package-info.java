@@ -0,0 +1,6 @@
+/**
+ * Online and anytime scheduling: streams of flight events and latency-bound requests
+ * @author ccottap
+ * @version 1.0
+ */
+package es.uma.lcc.caesium.problem.aircontrol.online;
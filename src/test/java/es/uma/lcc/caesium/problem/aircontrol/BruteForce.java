@@ -0,0 +1,134 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.util.List;
+
+/**
+ * Exhaustive search of the optimal schedule of small instances, used to cross-check the
+ * exact methods. Every flight lands as soon as possible after the previous landing on its
+ * runway, so it suffices to enumerate the sequence of flights on each runway (possibly with
+ * a limited shift with respect to a reference sequence).
+ * @author ccottap
+ * @version 1.1
+ */
+public class BruteForce {
+	/**
+	 * the problem instance
+	 */
+	private AirControlProblem data;
+	/**
+	 * the flights of the instance
+	 */
+	private Flight[] flights;
+
+	/**
+	 * Creates the search for a problem instance
+	 * @param data the problem instance
+	 */
+	public BruteForce(AirControlProblem data) {
+		this.data = data;
+		int n = data.getNumFlights();
+		flights = new Flight[n];
+		for (int i=0; i<n; i++)
+			flights[i] = data.getFlight(data.getFlightID(i));
+	}
+
+	/**
+	 * Returns the optimal cost of the instance
+	 * @return the minimum total squared waiting time
+	 */
+	public long optimum() {
+		int m = data.getNumRunways();
+		long[] time = new long[m];
+		AirplaneType[] type = new AirplaneType[m];
+		return search(0L, time, type, 0L);
+	}
+
+	/**
+	 * Lands each of the remaining flights next on each of its runways
+	 * @param landed mask of the flights landed so far
+	 * @param time time of the last landing on each runway
+	 * @param type type of the last plane landed on each runway (null if none)
+	 * @param cost the cost so far
+	 * @return the minimum cost of the schedules that extend the current one
+	 */
+	private long search(long landed, long[] time, AirplaneType[] type, long cost) {
+		if (landed == (1L << flights.length) - 1)
+			return cost;
+		long best = Long.MAX_VALUE;
+		for (int i=0; i<flights.length; i++) {
+			if ((landed & (1L << i)) != 0)
+				continue;
+			Flight f = flights[i];
+			for (int r: f.getEligibleRunways()) {
+				long t = f.getArrivalTime(r);
+				if (type[r] != null)
+					t = Math.max(t, time[r] + data.getSeparation(type[r], f.getType()));
+				t = data.getOpenTime(r, t);
+				long w = t - data.getEarliestArrivalTime(f.getFlightID());
+				long oldTime = time[r];
+				AirplaneType oldType = type[r];
+				time[r] = t;
+				type[r] = f.getType();
+				best = Math.min(best, search(landed | (1L << i), time, type, cost + w*w));
+				time[r] = oldTime;
+				type[r] = oldType;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the optimal cost of landing a list of flights on a runway, when each flight
+	 * can be shifted at most a number of positions with respect to a reference sequence
+	 * @param r the runway
+	 * @param reference the IDs of the flights in the reference sequence
+	 * @param maxShift the maximum shift of a flight
+	 * @return the minimum total squared waiting time of the flights
+	 */
+	public long sequence(int r, List<String> reference, int maxShift) {
+		return sequence(r, reference, maxShift, 0L, -1, null, 0L);
+	}
+
+	/**
+	 * Lands each of the remaining flights of a runway next, if its shift is allowed
+	 * @param r the runway
+	 * @param reference the IDs of the flights in the reference sequence
+	 * @param maxShift the maximum shift of a flight
+	 * @param landed mask of the positions of the reference landed so far
+	 * @param time time of the last landing
+	 * @param type type of the last plane landed (null if none)
+	 * @param cost the cost so far
+	 * @return the minimum cost of the sequences that extend the current one
+	 */
+	private long sequence(int r, List<String> reference, int maxShift, long landed, long time, AirplaneType type, long cost) {
+		int n = reference.size();
+		int p = Long.bitCount(landed);
+		if (p == n)
+			return cost;
+		long best = Long.MAX_VALUE;
+		for (int j=0; j<n; j++) {
+			if (((landed & (1L << j)) != 0) || (Math.abs(j - p) > maxShift))
+				continue;
+			Flight f = data.getFlight(reference.get(j));
+			long t = f.getArrivalTime(r);
+			if (type != null)
+				t = Math.max(t, time + data.getSeparation(type, f.getType()));
+			t = data.getOpenTime(r, t);
+			long w = t - data.getEarliestArrivalTime(f.getFlightID());
+			best = Math.min(best, sequence(r, reference, maxShift, landed | (1L << j), t, f.getType(), cost + w*w));
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the total squared waiting time of a schedule
+	 * @param info the schedule
+	 * @return the total squared waiting time
+	 */
+	public long cost(List<LandingInformation> info) {
+		long c = 0;
+		for (long w: data.waitingTime(info).values())
+			c += w*w;
+		return c;
+	}
+}
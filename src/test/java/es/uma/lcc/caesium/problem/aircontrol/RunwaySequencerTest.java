@@ -0,0 +1,44 @@
+package es.uma.lcc.caesium.problem.aircontrol;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import junit.framework.TestCase;
+
+/**
+ * Cross-checks the runway sequencer against exhaustive search on small random instances
+ * @author ccottap
+ * @version 1.0
+ */
+public class RunwaySequencerTest extends TestCase {
+
+	/**
+	 * Checks that the best sequence of each runway is found, for several maximum shifts
+	 */
+	public void testSequenceIsOptimal() {
+		for (int s=1; s<=10; s++) {
+			AirControlProblem acp = new AirControlProblem(7, 2, new SplittableRandom(s));
+			BruteForce bf = new BruteForce(acp);
+			for (int r=0; r<acp.getNumRunways(); r++) {
+				final int runway = r;
+				List<String> reference = new ArrayList<String>(acp.getFlightIDs());
+				reference.sort(Comparator.comparingLong(id -> acp.getFlight(id).getArrivalTime(runway)));
+				for (int k=0; k<=reference.size(); k++) {
+					RunwaySequencer rs = new RunwaySequencer(k);
+					rs.setData(acp);
+					List<LandingInformation> landings = new ArrayList<LandingInformation>();
+					rs.sequence(r, reference, landings);
+					long c = 0;
+					for (LandingInformation li: landings) {
+						long w = li.time() - acp.getEarliestArrivalTime(li.flightID());
+						c += w*w;
+					}
+					assertEquals("seed " + s + ", runway " + r + ", shift " + k, bf.sequence(r, reference, k), c);
+				}
+			}
+		}
+	}
+
+}
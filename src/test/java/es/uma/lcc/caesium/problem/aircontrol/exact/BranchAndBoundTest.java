@@ -0,0 +1,52 @@
+package es.uma.lcc.caesium.problem.aircontrol.exact;
+
+import java.util.SplittableRandom;
+
+import es.uma.lcc.caesium.problem.aircontrol.AirControlProblem;
+import es.uma.lcc.caesium.problem.aircontrol.BruteForce;
+import es.uma.lcc.caesium.problem.aircontrol.LowerBound;
+import junit.framework.TestCase;
+
+/**
+ * Cross-checks the branch-and-bound solver and the lower bound against exhaustive search on
+ * small random instances
+ * @author ccottap
+ * @version 1.0
+ */
+public class BranchAndBoundTest extends TestCase {
+
+	/**
+	 * Checks that the optimal cost is found and that the schedule returned has that cost
+	 */
+	public void testOptimum() {
+		for (int s=1; s<=10; s++) {
+			for (int m=1; m<=3; m++) {
+				AirControlProblem acp = new AirControlProblem(6, m, new SplittableRandom(s));
+				BruteForce bf = new BruteForce(acp);
+				BranchAndBound bnb = new BranchAndBound(acp);
+				bnb.setNumThreads(2);
+				bnb.setReportInterval(1e9);
+				String msg = "seed " + s + ", runways " + m;
+				long optimum = bf.optimum();
+				assertEquals(msg, optimum, bf.cost(bnb.solve()));
+				assertEquals(msg, optimum, bnb.getBestCost());
+				assertTrue(msg, bnb.isOptimal());
+			}
+		}
+	}
+
+	/**
+	 * Checks that the lower bound does not exceed the optimal cost
+	 */
+	public void testLowerBound() {
+		for (int s=1; s<=10; s++) {
+			for (int m=1; m<=3; m++) {
+				AirControlProblem acp = new AirControlProblem(6, m, new SplittableRandom(s));
+				long optimum = new BruteForce(acp).optimum();
+				long bound = new LowerBound(acp).compute();
+				assertTrue("seed " + s + ", runways " + m + ": bound " + bound + " > optimum " + optimum, bound <= optimum);
+			}
+		}
+	}
+
+}